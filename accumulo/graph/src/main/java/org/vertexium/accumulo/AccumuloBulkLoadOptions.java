@@ -0,0 +1,54 @@
+package org.vertexium.accumulo;
+
+import java.io.File;
+
+/**
+ * Options for {@link AccumuloBulkLoader}.
+ */
+public class AccumuloBulkLoadOptions {
+    private String importDirectory;
+    private File localWorkDirectory;
+    private long maxBufferedBytesPerTable = 64 * 1024 * 1024;
+
+    public String getImportDirectory() {
+        return importDirectory;
+    }
+
+    /**
+     * A directory on the graph's file system (see {@link AccumuloGraphConfiguration#createFileSystem()}) readable by
+     * the tablet servers. The sorted files of each table are written to and imported from a sub directory named after
+     * the table. The directory must not contain files from a previous load.
+     */
+    public AccumuloBulkLoadOptions setImportDirectory(String importDirectory) {
+        this.importDirectory = importDirectory;
+        return this;
+    }
+
+    public File getLocalWorkDirectory() {
+        return localWorkDirectory;
+    }
+
+    /**
+     * The local directory sorted runs are spilled to, by default a new temporary directory.
+     */
+    public AccumuloBulkLoadOptions setLocalWorkDirectory(File localWorkDirectory) {
+        this.localWorkDirectory = localWorkDirectory;
+        return this;
+    }
+
+    public long getMaxBufferedBytesPerTable() {
+        return maxBufferedBytesPerTable;
+    }
+
+    /**
+     * The approximate size of the keys and values of a table held in memory before they are sorted and spilled to a
+     * run in the local work directory.
+     */
+    public AccumuloBulkLoadOptions setMaxBufferedBytesPerTable(long maxBufferedBytesPerTable) {
+        if (maxBufferedBytesPerTable < 1) {
+            throw new IllegalArgumentException("maxBufferedBytesPerTable cannot be less than 1");
+        }
+        this.maxBufferedBytesPerTable = maxBufferedBytesPerTable;
+        return this;
+    }
+}
@@ -0,0 +1,267 @@
+package org.vertexium.accumulo;
+
+import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.client.rfile.RFile;
+import org.apache.accumulo.core.client.rfile.RFileWriter;
+import org.apache.accumulo.core.data.ColumnUpdate;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.PartialKey;
+import org.apache.accumulo.core.data.Value;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.vertexium.*;
+import org.vertexium.accumulo.util.StreamingPropertyValueStorageStrategy;
+import org.vertexium.util.IncreasingTime;
+import org.vertexium.util.VertexiumLogger;
+import org.vertexium.util.VertexiumLoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * Loads elements into the graph tables by writing sorted RFiles and bulk importing them instead of sending mutations
+ * through the batch writer. The elements are turned into mutations by the same {@link ElementMutationBuilder} as
+ * {@link org.vertexium.ElementBuilder#save(Authorizations)}, so the imported rows are the same as the rows written
+ * online, except that cells written online without a timestamp get the time they were added to the loader instead
+ * of the time the tablet server received them.
+ *
+ * <p>
+ * The keys of each table are sorted in memory and spilled to sorted runs in a local work directory when they
+ * exceed {@link AccumuloBulkLoadOptions#getMaxBufferedBytesPerTable()}. {@link #importFiles()} merges the runs into one
+ * RFile per table and imports it. Bulk loaded elements are not added to the search index, the element counts or the
+ * element cache, reindex them with {@link AccumuloGraph#reindex(AccumuloReindexOptions, Authorizations)} and, if
+ * enabled, correct the counts with {@link AccumuloGraph#recountElements(Authorizations)}.
+ */
+public class AccumuloBulkLoader implements Closeable {
+    private static final VertexiumLogger LOGGER = VertexiumLoggerFactory.getLogger(AccumuloBulkLoader.class);
+    private final AccumuloGraph graph;
+    private final AccumuloBulkLoadOptions options;
+    private final File localWorkDirectory;
+    private final boolean deleteLocalWorkDirectory;
+    private final FileSystem localFileSystem;
+    private final Map<String, TableSorter> sorters = new LinkedHashMap<>();
+    private final ElementMutationBuilder elementMutationBuilder;
+    private long currentTimestamp;
+
+    public AccumuloBulkLoader(AccumuloGraph graph, AccumuloBulkLoadOptions options) {
+        if (options.getImportDirectory() == null) {
+            throw new VertexiumException("importDirectory is required");
+        }
+        this.graph = graph;
+        this.options = options;
+        try {
+            if (options.getLocalWorkDirectory() == null) {
+                this.localWorkDirectory = Files.createTempDirectory("vertexium-bulk-load").toFile();
+                this.deleteLocalWorkDirectory = true;
+            } else {
+                this.localWorkDirectory = options.getLocalWorkDirectory();
+                this.deleteLocalWorkDirectory = false;
+            }
+            this.localFileSystem = FileSystem.getLocal(new Configuration());
+        } catch (IOException ex) {
+            throw new VertexiumException("Could not create local work directory", ex);
+        }
+
+        StreamingPropertyValueStorageStrategy streamingPropertyValueStorageStrategy = graph.getStreamingPropertyValueStorageStrategy();
+        this.elementMutationBuilder = new ElementMutationBuilder(graph.getMetadataPlugin(), streamingPropertyValueStorageStrategy, graph.getVertexiumSerializer()) {
+            @Override
+            protected void saveVertexMutation(Mutation m) {
+                addMutation(graph.getVerticesTableName(), m);
+                if (graph.isHistoryInSeparateTable()) {
+                    addMutation(graph.getHistoryVerticesTableName(), m);
+                }
+            }
+
+            @Override
+            protected void saveEdgeMutation(Mutation m) {
+                addMutation(graph.getEdgesTableName(), m);
+                if (graph.isHistoryInSeparateTable()) {
+                    addMutation(graph.getHistoryEdgesTableName(), m);
+                }
+            }
+
+            @Override
+            protected void saveExtendedDataMutation(ElementType elementType, Mutation m) {
+                addMutation(graph.getExtendedDataTableName(), m);
+            }
+
+            @Override
+            protected AccumuloNameSubstitutionStrategy getNameSubstitutionStrategy() {
+                return graph.getNameSubstitutionStrategy();
+            }
+
+            @Override
+            public void saveDataMutation(Mutation dataMutation) {
+                addMutation(graph.getDataTableName(), dataMutation);
+            }
+        };
+    }
+
+    public void addVertex(VertexBuilder vertexBuilder) {
+        addVertex(vertexBuilder, IncreasingTime.currentTimeMillis());
+    }
+
+    /**
+     * Adds the vertex and its extended data, the builder does not need to be saved.
+     */
+    public void addVertex(VertexBuilder vertexBuilder, long timestamp) {
+        currentTimestamp = timestamp;
+        elementMutationBuilder.saveVertexBuilder(graph, vertexBuilder, timestamp);
+    }
+
+    public void addEdge(EdgeBuilderBase edgeBuilder) {
+        addEdge(edgeBuilder, IncreasingTime.currentTimeMillis());
+    }
+
+    /**
+     * Adds the edge, its edge refs on the out and in vertices and its extended data, the builder does not need to be
+     * saved.
+     */
+    public void addEdge(EdgeBuilderBase edgeBuilder, long timestamp) {
+        currentTimestamp = timestamp;
+        elementMutationBuilder.saveEdgeBuilder(graph, edgeBuilder, timestamp);
+    }
+
+    private void addMutation(String tableName, Mutation m) {
+        TableSorter sorter = sorters.computeIfAbsent(tableName, TableSorter::new);
+        for (ColumnUpdate update : m.getUpdates()) {
+            Key key = new Key(
+                m.getRow(),
+                update.getColumnFamily(),
+                update.getColumnQualifier(),
+                update.getColumnVisibility(),
+                update.hasTimestamp() ? update.getTimestamp() : currentTimestamp,
+                update.isDeleted()
+            );
+            sorter.add(key, new Value(update.getValue()));
+        }
+    }
+
+    /**
+     * Writes one sorted RFile per table to the import directory and bulk imports them. The loader can not be used
+     * after its files are imported.
+     */
+    public void importFiles() {
+        try {
+            FileSystem fileSystem = graph.getConfiguration().createFileSystem();
+            for (TableSorter sorter : sorters.values()) {
+                Path tableDirectory = new Path(options.getImportDirectory(), sorter.tableName);
+                Path filesDirectory = new Path(tableDirectory, "files");
+                Path failuresDirectory = new Path(tableDirectory, "failures");
+                fileSystem.mkdirs(filesDirectory);
+                fileSystem.mkdirs(failuresDirectory);
+                long keyCount = sorter.writeTo(fileSystem, new Path(filesDirectory, "data.rf"));
+                LOGGER.info("importing %d keys into table: %s", keyCount, sorter.tableName);
+                graph.getConnector().tableOperations().importDirectory(
+                    sorter.tableName,
+                    filesDirectory.toString(),
+                    failuresDirectory.toString(),
+                    false
+                );
+                FileStatus[] failures = fileSystem.listStatus(failuresDirectory);
+                if (failures != null && failures.length > 0) {
+                    throw new VertexiumException("Could not import " + failures.length + " files into table " + sorter.tableName + ", see " + failuresDirectory);
+                }
+            }
+            sorters.clear();
+        } catch (VertexiumException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new VertexiumException("Could not bulk import files", ex);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (TableSorter sorter : sorters.values()) {
+            sorter.deleteRuns();
+        }
+        sorters.clear();
+        if (deleteLocalWorkDirectory) {
+            localFileSystem.delete(new Path(localWorkDirectory.getAbsolutePath()), true);
+        }
+    }
+
+    private class TableSorter {
+        private final String tableName;
+        private final List<String> runs = new ArrayList<>();
+        private TreeMap<Key, Value> buffer = new TreeMap<>();
+        private long bufferedBytes;
+
+        private TableSorter(String tableName) {
+            this.tableName = tableName;
+        }
+
+        private void add(Key key, Value value) {
+            if (buffer.put(key, value) == null) {
+                bufferedBytes += key.getSize() + value.getSize();
+            }
+            if (bufferedBytes >= options.getMaxBufferedBytesPerTable()) {
+                spill();
+            }
+        }
+
+        private void spill() {
+            String run = new File(localWorkDirectory, tableName + "-" + runs.size() + ".rf").getAbsolutePath();
+            try (RFileWriter writer = RFile.newWriter().to(run).withFileSystem(localFileSystem).build()) {
+                writer.append(buffer.entrySet());
+            } catch (IOException ex) {
+                throw new VertexiumException("Could not spill sorted run: " + run, ex);
+            }
+            runs.add(run);
+            buffer = new TreeMap<>();
+            bufferedBytes = 0;
+        }
+
+        /**
+         * Merges the sorted runs and the keys still in memory into one file, returning the number of keys written.
+         */
+        private long writeTo(FileSystem fileSystem, Path file) throws IOException {
+            long keyCount = 0;
+            try (RFileWriter writer = RFile.newWriter().to(file.toString()).withFileSystem(fileSystem).build()) {
+                if (runs.isEmpty()) {
+                    writer.append(buffer.entrySet());
+                    return buffer.size();
+                }
+                if (!buffer.isEmpty()) {
+                    spill();
+                }
+                Scanner scanner = RFile.newScanner()
+                    .from(runs.toArray(new String[0]))
+                    .withFileSystem(localFileSystem)
+                    .withoutSystemIterators()
+                    .build();
+                try {
+                    Key lastKey = null;
+                    for (Map.Entry<Key, Value> entry : scanner) {
+                        // the same key added again after a spill is written once
+                        if (lastKey != null && lastKey.equals(entry.getKey(), PartialKey.ROW_COLFAM_COLQUAL_COLVIS_TIME_DEL)) {
+                            continue;
+                        }
+                        writer.append(entry.getKey(), entry.getValue());
+                        lastKey = new Key(entry.getKey());
+                        keyCount++;
+                    }
+                } finally {
+                    scanner.close();
+                }
+            } finally {
+                deleteRuns();
+            }
+            return keyCount;
+        }
+
+        private void deleteRuns() throws IOException {
+            for (String run : runs) {
+                localFileSystem.delete(new Path(run), false);
+            }
+            runs.clear();
+        }
+    }
+}
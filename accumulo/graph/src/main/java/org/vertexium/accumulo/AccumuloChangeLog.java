@@ -0,0 +1,166 @@
+package org.vertexium.accumulo;
+
+import com.google.common.collect.Iterators;
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.client.MutationsRejectedException;
+import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.data.ColumnUpdate;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.IteratorUtil;
+import org.apache.accumulo.core.iterators.user.AgeOffFilter;
+import org.apache.hadoop.io.Text;
+import org.vertexium.Authorizations;
+import org.vertexium.ElementId;
+import org.vertexium.ElementType;
+import org.vertexium.VertexiumException;
+import org.vertexium.accumulo.keys.ChangeLogRowKey;
+import org.vertexium.accumulo.util.ScannerStreamUtils;
+import org.vertexium.historicalEvent.ChangeLogEntry;
+import org.vertexium.id.ShardedIdGenerator;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Time ordered log of the vertices and edges changed by the mutations written to the vertices and edges tables. Each
+ * entry is a row keyed by shard, timestamp and element id, see {@link ChangeLogRowKey}, written once for every
+ * distinct timestamp of an element's mutation. Mutations of columns timestamped by the tablet server are logged with
+ * the client's current time.
+ *
+ * <p>
+ * The entries of an element always go to the same shard, chosen from the hash of its id. The table is split on the
+ * shards so concurrent writes go to different tablets, and reads merge the time ordered scans of every shard. The
+ * shard count must not change once the table has entries.
+ *
+ * <p>
+ * The entries are written without a visibility, they only name the changed elements, whose historical events are read
+ * with the caller's authorizations.
+ *
+ * <p>
+ * If a retention is configured an {@link AgeOffFilter} drops the entries written longer ago than the retention, the
+ * historical events of the elements are kept.
+ */
+class AccumuloChangeLog {
+    private static final Text CF_CHANGE = new Text("");
+    private static final Text CQ_CHANGE = new Text("");
+    private static final Value EMPTY_VALUE = new Value(new byte[0]);
+    private static final String AGE_OFF_FILTER_NAME = "changeLogAgeOffFilter";
+    private static final int AGE_OFF_FILTER_PRIORITY = 10;
+    private static final String AGE_OFF_FILTER_TTL_OPTION = "ttl";
+    private final AccumuloGraph graph;
+    private final List<String> shardPrefixes;
+
+    AccumuloChangeLog(AccumuloGraph graph, int shardCount) {
+        this.graph = graph;
+        this.shardPrefixes = ShardedIdGenerator.createShardPrefixes(shardCount);
+    }
+
+    static void ensureTableIsSplit(Connector connector, String tableName, int shardCount) {
+        List<String> shardPrefixes = ShardedIdGenerator.createShardPrefixes(shardCount);
+        SortedSet<Text> splits = new TreeSet<>();
+        for (String shardPrefix : shardPrefixes.subList(1, shardPrefixes.size())) {
+            splits.add(new Text(shardPrefix));
+        }
+        try {
+            if (splits.size() > 0 && !connector.tableOperations().listSplits(tableName).containsAll(splits)) {
+                connector.tableOperations().addSplits(tableName, splits);
+            }
+        } catch (Exception ex) {
+            throw new VertexiumException("Could not add splits to table: " + tableName, ex);
+        }
+    }
+
+    /**
+     * Attaches, replaces or removes the age off filter so that it matches the retention.
+     *
+     * @param retention The age of the entries to remove, zero or negative to keep all entries
+     */
+    static void ensureAgeOffFilterIsConfigured(Connector connector, String tableName, Duration retention) {
+        boolean keepAll = retention.isZero() || retention.isNegative();
+        try {
+            IteratorSetting existing = connector.tableOperations().getIteratorSetting(tableName, AGE_OFF_FILTER_NAME, IteratorUtil.IteratorScope.scan);
+            String ttl = Long.toString(retention.toMillis());
+            if (existing != null) {
+                if (!keepAll && ttl.equals(existing.getOptions().get(AGE_OFF_FILTER_TTL_OPTION))) {
+                    return;
+                }
+                connector.tableOperations().removeIterator(tableName, AGE_OFF_FILTER_NAME, EnumSet.allOf(IteratorUtil.IteratorScope.class));
+            }
+            if (!keepAll) {
+                IteratorSetting settings = new IteratorSetting(AGE_OFF_FILTER_PRIORITY, AGE_OFF_FILTER_NAME, AgeOffFilter.class);
+                AgeOffFilter.setTTL(settings, retention.toMillis());
+                connector.tableOperations().attachIterator(tableName, settings);
+            }
+        } catch (Exception e) {
+            throw new VertexiumException("Could not configure AgeOffFilter on " + tableName, e);
+        }
+    }
+
+    void mutationsAdded(ElementType elementType, Mutation... mutations) {
+        BatchWriter writer = graph.getChangeLogWriter();
+        try {
+            for (Mutation mutation : mutations) {
+                ElementId elementId = ElementId.create(elementType, new String(mutation.getRow(), StandardCharsets.UTF_8));
+                String shardPrefix = getShardPrefix(elementId);
+                Set<Long> timestamps = new HashSet<>();
+                long now = System.currentTimeMillis();
+                for (ColumnUpdate columnUpdate : mutation.getUpdates()) {
+                    timestamps.add(columnUpdate.hasTimestamp() ? columnUpdate.getTimestamp() : now);
+                }
+                for (long timestamp : timestamps) {
+                    Mutation m = new Mutation(new ChangeLogRowKey(shardPrefix, timestamp, elementId).getRowKey());
+                    m.put(CF_CHANGE, CQ_CHANGE, EMPTY_VALUE);
+                    writer.addMutation(m);
+                }
+            }
+        } catch (MutationsRejectedException ex) {
+            throw new VertexiumException("Could not add change log entries", ex);
+        }
+    }
+
+    private String getShardPrefix(ElementId elementId) {
+        return shardPrefixes.get(Math.floorMod(elementId.getId().hashCode(), shardPrefixes.size()));
+    }
+
+    /**
+     * @param startTimestamp The timestamp of the first entry to return, or null to return all entries
+     */
+    Stream<ChangeLogEntry> getEntries(Long startTimestamp, Authorizations authorizations) {
+        String tableName = graph.getChangeLogTableName();
+        List<Stream<ChangeLogEntry>> shards = new ArrayList<>();
+        try {
+            for (String shardPrefix : shardPrefixes) {
+                Scanner scanner = graph.createScanner(tableName, ChangeLogRowKey.getRange(shardPrefix, startTimestamp), authorizations);
+                shards.add(ScannerStreamUtils.stream(scanner)
+                    .map(entry -> ChangeLogRowKey.fromRowKey(entry.getKey().getRow().toString()).getChangeLogEntry()));
+            }
+        } catch (TableNotFoundException ex) {
+            shards.forEach(Stream::close);
+            throw new VertexiumException("Could not read change log from table: " + tableName, ex);
+        }
+
+        List<Iterator<ChangeLogEntry>> iterators = new ArrayList<>();
+        for (Stream<ChangeLogEntry> shard : shards) {
+            iterators.add(shard.iterator());
+        }
+        Iterator<ChangeLogEntry> merged = Iterators.mergeSorted(iterators, ChangeLogEntry::compareTo);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED), false)
+            .onClose(() -> shards.forEach(Stream::close));
+    }
+}
@@ -139,6 +139,8 @@ public abstract class AccumuloElement extends ElementBase implements Serializabl
         Iterable<MarkPropertyHiddenMutation> markPropertyHiddenMutations = mutation.getMarkPropertyHiddenMutations();
         Iterable<MarkPropertyVisibleMutation> markPropertyVisibleMutations = mutation.getMarkPropertyVisibleMutations();
 
+        // the deleted properties are removed from the element below so their streaming property values are released first
+        getGraph().deleteStreamingPropertyValues(element, propertyDeletes);
         updatePropertiesInternal(
             properties,
             propertyDeletes,
@@ -0,0 +1,347 @@
+package org.vertexium.accumulo;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.recipes.cache.NodeCache;
+import org.apache.zookeeper.KeeperException;
+import org.cache2k.Cache;
+import org.cache2k.Cache2kBuilder;
+import org.vertexium.Authorizations;
+import org.vertexium.ElementType;
+import org.vertexium.FetchHints;
+import org.vertexium.VertexiumException;
+import org.vertexium.metric.Counter;
+import org.vertexium.metric.VertexiumMetricRegistry;
+import org.vertexium.util.VertexiumLogger;
+import org.vertexium.util.VertexiumLoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Read-through cache of the rows returned by the vertex and edge iterators, keyed by element id, fetch hints and
+ * authorizations. Rows rather than elements are cached so every read gets its own element instance.
+ *
+ * <p>
+ * Entries are invalidated when this graph writes a mutation to the element's row and again when the mutation is
+ * flushed, since until then a read can still return the previous version of the row. Reads which started before an
+ * invalidation are not cached. When a ZooKeeper invalidation path is configured, the ids flushed by this graph are
+ * published to other graphs sharing the path, which invalidate their own entries.
+ */
+class AccumuloElementCache {
+    private static final VertexiumLogger LOGGER = VertexiumLoggerFactory.getLogger(AccumuloElementCache.class);
+    private static final int STAMP_STRIPES = 1024;
+    private static final int MAX_BROADCAST_IDS = 1000;
+    private static final String BROADCAST_SEPARATOR = "\u0000";
+    private static final String BROADCAST_CLEAR_ALL = "*";
+    private final Cache<String, CachedRows> vertexRows;
+    private final Cache<String, CachedRows> edgeRows;
+    private final AtomicLongArray vertexStamps = new AtomicLongArray(STAMP_STRIPES);
+    private final AtomicLongArray edgeStamps = new AtomicLongArray(STAMP_STRIPES);
+    private final Set<String> pendingVertexIds = ConcurrentHashMap.newKeySet();
+    private final Set<String> pendingEdgeIds = ConcurrentHashMap.newKeySet();
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter invalidationCounter;
+    private final CuratorFramework curatorFramework;
+    private final String invalidationPath;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final NodeCache invalidationNodeCache;
+    private int lastInvalidationVersion = -1;
+
+    AccumuloElementCache(
+        AccumuloGraphConfiguration configuration,
+        CuratorFramework curatorFramework,
+        VertexiumMetricRegistry metricRegistry
+    ) {
+        long ttl = configuration.getElementCacheTtl().toMillis();
+        this.vertexRows = createCache("vertexRows", configuration.getElementCacheMaxSize(), ttl);
+        this.edgeRows = createCache("edgeRows", configuration.getElementCacheMaxSize(), ttl);
+        this.hitCounter = metricRegistry.getCounter(AccumuloElementCache.class, "hits");
+        this.missCounter = metricRegistry.getCounter(AccumuloElementCache.class, "misses");
+        this.invalidationCounter = metricRegistry.getCounter(AccumuloElementCache.class, "invalidations");
+        metricRegistry.getGauge(AccumuloElementCache.class, "size", () -> size());
+
+        String invalidationPath = configuration.getElementCacheZookeeperInvalidationPath();
+        if (invalidationPath == null || invalidationPath.isEmpty()) {
+            this.curatorFramework = null;
+            this.invalidationPath = null;
+            this.invalidationNodeCache = null;
+        } else {
+            this.curatorFramework = curatorFramework;
+            this.invalidationPath = invalidationPath;
+            this.invalidationNodeCache = startInvalidationListener();
+        }
+    }
+
+    private Cache<String, CachedRows> createCache(String name, long maxSize, long ttl) {
+        return Cache2kBuilder.of(String.class, CachedRows.class)
+            .name(AccumuloElementCache.class, name + "-" + System.identityHashCode(this))
+            .entryCapacity(maxSize)
+            .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+            .build();
+    }
+
+    private NodeCache startInvalidationListener() {
+        try {
+            curatorFramework.create().creatingParentsIfNeeded().forPath(invalidationPath, new byte[0]);
+        } catch (KeeperException.NodeExistsException ex) {
+            // another graph created it
+        } catch (Exception ex) {
+            throw new VertexiumException("Could not create element cache invalidation path: " + invalidationPath, ex);
+        }
+        NodeCache nodeCache = new NodeCache(curatorFramework, invalidationPath);
+        nodeCache.getListenable().addListener(() -> onInvalidationMessage(nodeCache.getCurrentData()));
+        try {
+            nodeCache.start(true);
+        } catch (Exception ex) {
+            throw new VertexiumException("Could not start element cache invalidation listener", ex);
+        }
+        ChildData currentData = nodeCache.getCurrentData();
+        if (currentData != null) {
+            lastInvalidationVersion = currentData.getStat().getVersion();
+        }
+        return nodeCache;
+    }
+
+    /**
+     * Gets the cached row of the element or null if it is not cached.
+     */
+    Map.Entry<Key, Value> get(ElementType elementType, String id, FetchHints fetchHints, Authorizations authorizations) {
+        CachedRows cachedRows = getRows(elementType).peek(id);
+        Map.Entry<Key, Value> row = cachedRows == null ? null : cachedRows.get(new RowKey(fetchHints, authorizations));
+        if (row == null) {
+            missCounter.increment();
+        } else {
+            hitCounter.increment();
+        }
+        return row;
+    }
+
+    /**
+     * Starts loading the given elements from Accumulo. Rows passed to the returned load are cached unless the
+     * element was invalidated after this method returned.
+     */
+    Load startLoad(ElementType elementType, Collection<String> ids, FetchHints fetchHints, Authorizations authorizations) {
+        AtomicLongArray stamps = getStamps(elementType);
+        Map<String, Long> stampsById = new HashMap<>();
+        for (String id : ids) {
+            stampsById.put(id, stamps.get(getStripe(id)));
+        }
+        return new Load(elementType, stampsById, new RowKey(fetchHints, authorizations));
+    }
+
+    /**
+     * Invalidates an element this graph has written a mutation for. The element stays uncacheable until the next
+     * {@link #flushed()}.
+     */
+    void invalidate(ElementType elementType, String id) {
+        getPendingIds(elementType).add(id);
+        invalidateLocal(elementType, id);
+    }
+
+    /**
+     * Called after this graph's writers have been flushed, invalidates the elements written since the last flush
+     * and publishes their ids to other graphs.
+     */
+    void flushed() {
+        List<String> broadcastEntries = new ArrayList<>();
+        flushed(ElementType.VERTEX, broadcastEntries);
+        flushed(ElementType.EDGE, broadcastEntries);
+        if (invalidationPath != null && broadcastEntries.size() > 0) {
+            broadcast(broadcastEntries);
+        }
+    }
+
+    private void flushed(ElementType elementType, List<String> broadcastEntries) {
+        Set<String> pendingIds = getPendingIds(elementType);
+        String prefix = elementType == ElementType.VERTEX ? "V" : "E";
+        for (Iterator<String> it = pendingIds.iterator(); it.hasNext(); ) {
+            String id = it.next();
+            it.remove();
+            invalidateLocal(elementType, id);
+            broadcastEntries.add(prefix + id);
+        }
+    }
+
+    private void broadcast(List<String> entries) {
+        StringBuilder message = new StringBuilder(instanceId);
+        if (entries.size() > MAX_BROADCAST_IDS) {
+            message.append(BROADCAST_SEPARATOR).append(BROADCAST_CLEAR_ALL);
+        } else {
+            for (String entry : entries) {
+                message.append(BROADCAST_SEPARATOR).append(entry);
+            }
+        }
+        try {
+            curatorFramework.setData().forPath(invalidationPath, message.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (Exception ex) {
+            LOGGER.error("Could not notify other nodes of element changes via ZooKeeper", ex);
+        }
+    }
+
+    private synchronized void onInvalidationMessage(ChildData data) {
+        if (data == null || data.getStat() == null) {
+            return;
+        }
+        int version = data.getStat().getVersion();
+        boolean missedMessages = lastInvalidationVersion >= 0 && version > lastInvalidationVersion + 1;
+        lastInvalidationVersion = version;
+        if (missedMessages) {
+            // updates to the node can be coalesced so some ids may never have been seen
+            LOGGER.debug("missed element cache invalidation messages, clearing cache");
+            clear();
+            return;
+        }
+        if (data.getData() == null || data.getData().length == 0) {
+            return;
+        }
+        String[] entries = new String(data.getData(), StandardCharsets.UTF_8).split(BROADCAST_SEPARATOR);
+        if (entries[0].equals(instanceId)) {
+            return;
+        }
+        for (int i = 1; i < entries.length; i++) {
+            String entry = entries[i];
+            if (entry.equals(BROADCAST_CLEAR_ALL)) {
+                clear();
+                return;
+            }
+            ElementType elementType = entry.charAt(0) == 'V' ? ElementType.VERTEX : ElementType.EDGE;
+            invalidateLocal(elementType, entry.substring(1));
+        }
+    }
+
+    private void invalidateLocal(ElementType elementType, String id) {
+        getStamps(elementType).incrementAndGet(getStripe(id));
+        getRows(elementType).remove(id);
+        invalidationCounter.increment();
+    }
+
+    void clear() {
+        for (int i = 0; i < STAMP_STRIPES; i++) {
+            vertexStamps.incrementAndGet(i);
+            edgeStamps.incrementAndGet(i);
+        }
+        vertexRows.removeAll();
+        edgeRows.removeAll();
+    }
+
+    long size() {
+        return vertexRows.asMap().size() + edgeRows.asMap().size();
+    }
+
+    void close() {
+        if (invalidationNodeCache != null) {
+            try {
+                invalidationNodeCache.close();
+            } catch (Exception ex) {
+                LOGGER.warn("Could not close element cache invalidation listener", ex);
+            }
+        }
+        vertexRows.close();
+        edgeRows.close();
+    }
+
+    private Cache<String, CachedRows> getRows(ElementType elementType) {
+        switch (elementType) {
+            case VERTEX:
+                return vertexRows;
+            case EDGE:
+                return edgeRows;
+            default:
+                throw new VertexiumException("Unexpected element type: " + elementType);
+        }
+    }
+
+    private AtomicLongArray getStamps(ElementType elementType) {
+        return elementType == ElementType.VERTEX ? vertexStamps : edgeStamps;
+    }
+
+    private Set<String> getPendingIds(ElementType elementType) {
+        return elementType == ElementType.VERTEX ? pendingVertexIds : pendingEdgeIds;
+    }
+
+    private static int getStripe(String id) {
+        return (id.hashCode() & 0x7fffffff) % STAMP_STRIPES;
+    }
+
+    class Load {
+        private final ElementType elementType;
+        private final Map<String, Long> stampsById;
+        private final RowKey rowKey;
+
+        private Load(ElementType elementType, Map<String, Long> stampsById, RowKey rowKey) {
+            this.elementType = elementType;
+            this.stampsById = stampsById;
+            this.rowKey = rowKey;
+        }
+
+        void put(Key key, Value value) {
+            String id = key.getRow().toString();
+            Long stamp = stampsById.get(id);
+            if (stamp == null) {
+                return;
+            }
+            Map.Entry<Key, Value> row = new AbstractMap.SimpleImmutableEntry<>(new Key(key), new Value(value.get(), true));
+            // invalidations bump the stamp before removing the entry, checking the stamp while holding the entry
+            // means an invalidation either fails the check or removes the row after it was added
+            getRows(elementType).invoke(id, entry -> {
+                if (getPendingIds(elementType).contains(id) || getStamps(elementType).get(getStripe(id)) != stamp) {
+                    return null;
+                }
+                if (entry.exists()) {
+                    entry.getValue().put(rowKey, row);
+                } else {
+                    CachedRows cachedRows = new CachedRows();
+                    cachedRows.put(rowKey, row);
+                    entry.setValue(cachedRows);
+                }
+                return null;
+            });
+        }
+    }
+
+    private static class CachedRows {
+        private final Map<RowKey, Map.Entry<Key, Value>> rows = new ConcurrentHashMap<>();
+
+        Map.Entry<Key, Value> get(RowKey rowKey) {
+            return rows.get(rowKey);
+        }
+
+        void put(RowKey rowKey, Map.Entry<Key, Value> row) {
+            rows.put(rowKey, row);
+        }
+    }
+
+    private static class RowKey {
+        private final FetchHints fetchHints;
+        private final Set<String> authorizations;
+
+        RowKey(FetchHints fetchHints, Authorizations authorizations) {
+            this.fetchHints = fetchHints;
+            this.authorizations = new HashSet<>(Arrays.asList(authorizations.getAuthorizations()));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            RowKey rowKey = (RowKey) o;
+            return fetchHints.equals(rowKey.fetchHints) && authorizations.equals(rowKey.authorizations);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fetchHints, authorizations);
+        }
+    }
+}
@@ -0,0 +1,423 @@
+package org.vertexium.accumulo;
+
+import org.apache.accumulo.core.client.AccumuloException;
+import org.apache.accumulo.core.client.AccumuloSecurityException;
+import org.apache.accumulo.core.client.ConditionalWriter;
+import org.apache.accumulo.core.client.ConditionalWriterConfig;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.client.MutationsRejectedException;
+import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.data.Condition;
+import org.apache.accumulo.core.data.ConditionalMutation;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.Combiner;
+import org.apache.accumulo.core.iterators.LongCombiner;
+import org.apache.accumulo.core.iterators.user.SummingCombiner;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.apache.accumulo.core.security.VisibilityEvaluator;
+import org.apache.accumulo.core.security.VisibilityParseException;
+import org.apache.hadoop.io.Text;
+import org.vertexium.Authorizations;
+import org.vertexium.ElementType;
+import org.vertexium.VertexiumException;
+import org.vertexium.Visibility;
+import org.vertexium.accumulo.iterator.model.KeyBase;
+import org.vertexium.util.VertexiumLogger;
+import org.vertexium.util.VertexiumLoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Vertex and edge counts maintained per visibility in the counts table, where a {@link SummingCombiner} adds up the
+ * +1 and -1 written as elements are created and deleted. Each count is written with the visibility of the elements
+ * it counts, so reading a count is one scan of as many entries as there are visibilities and only includes the
+ * elements the authorizations can see.
+ *
+ * <p>
+ * Whether a save creates an element is decided by the tablet server: the counts table also holds a membership row
+ * for each counted element, holding its visibility, which is written with a {@link ConditionalWriter} only if it does
+ * not exist yet. Only the changes which were accepted are counted, so saving an existing element again, from this or
+ * any other graph, does not count it twice, and saving does not read the element. The changes are sent in batches
+ * when the graph is flushed, or sooner when many are pending, so the counts include an element once the graph which
+ * saved it has been flushed.
+ *
+ * <p>
+ * The counts include the same rows as a scan of the signal column, so soft deleted elements remain counted. Counts of
+ * changes whose outcome is unknown, because of a timeout or a failed tablet server, may be off by those elements. Use
+ * {@link AccumuloGraph#recountElements(Authorizations)} to correct the counts from a full scan.
+ */
+class AccumuloElementCounts {
+    private static final VertexiumLogger LOGGER = VertexiumLoggerFactory.getLogger(AccumuloElementCounts.class);
+    private static final String SUMMING_COMBINER_NAME = "elementCountSummingCombiner";
+    private static final int SUMMING_COMBINER_PRIORITY = 10;
+    private static final int MAX_PENDING_CHANGES = 1000;
+    private static final Text CF_COUNT = new Text("count");
+    private static final Text CQ_COUNT = new Text("");
+    private static final Text CF_MEMBER = new Text("member");
+    private static final Text CQ_MEMBER = new Text("");
+    private static final Text VERTEX_ROW = new Text("V");
+    private static final Text EDGE_ROW = new Text("E");
+    private final AccumuloGraph graph;
+    private final Object flushLock = new Object();
+    private List<Change> pendingChanges = new ArrayList<>();
+    private Set<String> pendingRows = new HashSet<>();
+    private ConditionalWriter conditionalWriter;
+
+    AccumuloElementCounts(AccumuloGraph graph) {
+        this.graph = graph;
+    }
+
+    static void ensureSummingCombinerIsAttached(Connector connector, String tableName) {
+        try {
+            if (!connector.tableOperations().listIterators(tableName).containsKey(SUMMING_COMBINER_NAME)) {
+                IteratorSetting settings = new IteratorSetting(SUMMING_COMBINER_PRIORITY, SUMMING_COMBINER_NAME, SummingCombiner.class);
+                LongCombiner.setEncodingType(settings, LongCombiner.Type.STRING);
+                Combiner.setColumns(settings, Collections.singletonList(new IteratorSetting.Column(CF_COUNT)));
+                connector.tableOperations().attachIterator(tableName, settings);
+            }
+        } catch (Exception e) {
+            throw new VertexiumException("Could not attach SummingCombiner to " + tableName, e);
+        }
+    }
+
+    void elementSaved(ElementType elementType, String elementId, Visibility visibility) {
+        addChange(new Change(elementType, elementId, null, visibility));
+    }
+
+    void elementDeleted(ElementType elementType, String elementId, Visibility visibility) {
+        addChange(new Change(elementType, elementId, visibility, null));
+    }
+
+    void elementVisibilityChanged(ElementType elementType, String elementId, Visibility oldVisibility, Visibility newVisibility) {
+        addChange(new Change(elementType, elementId, oldVisibility, newVisibility));
+    }
+
+    /**
+     * Queues the change, a batch only holds one change of each element so that the changes of an element are applied
+     * in order.
+     */
+    private void addChange(Change change) {
+        boolean added = false;
+        while (!added) {
+            boolean full;
+            synchronized (this) {
+                if (pendingRows.add(change.getMemberRow())) {
+                    pendingChanges.add(change);
+                    added = true;
+                }
+                full = !added || pendingChanges.size() >= MAX_PENDING_CHANGES;
+            }
+            if (full) {
+                flush();
+            }
+        }
+    }
+
+    /**
+     * Applies the pending changes to the membership rows and writes the count changes of the accepted ones to the
+     * counts writer, which the caller is expected to flush.
+     */
+    void flush() {
+        synchronized (flushLock) {
+            List<Change> changes;
+            synchronized (this) {
+                changes = pendingChanges;
+                pendingChanges = new ArrayList<>();
+                pendingRows = new HashSet<>();
+            }
+            if (changes.size() > 0) {
+                applyChanges(changes);
+            }
+        }
+    }
+
+    private void applyChanges(List<Change> changes) {
+        Map<String, Change> changesByRow = new HashMap<>();
+        List<ConditionalMutation> mutations = new ArrayList<>();
+        for (Change change : changes) {
+            changesByRow.put(change.getMemberRow(), change);
+            mutations.add(change.toConditionalMutation());
+        }
+        Iterator<ConditionalWriter.Result> results = getConditionalWriter().write(mutations.iterator());
+        while (results.hasNext()) {
+            ConditionalWriter.Result result = results.next();
+            Change change = changesByRow.get(new String(result.getMutation().getRow(), StandardCharsets.UTF_8));
+            ConditionalWriter.Status status;
+            try {
+                status = result.getStatus();
+            } catch (AccumuloException | AccumuloSecurityException ex) {
+                LOGGER.warn("Could not update element count membership of %s, counts may be off until recounted", change, ex);
+                continue;
+            }
+            switch (status) {
+                case ACCEPTED:
+                    if (change.oldVisibility != null) {
+                        increment(change.elementType, change.oldVisibility, -1);
+                    }
+                    if (change.newVisibility != null) {
+                        increment(change.elementType, change.newVisibility, 1);
+                    }
+                    break;
+                case REJECTED:
+                    // already counted, or not counted with the expected visibility
+                    break;
+                default:
+                    LOGGER.warn("Element count membership of %s is %s, counts may be off until recounted", change, status);
+                    break;
+            }
+        }
+    }
+
+    private synchronized ConditionalWriter getConditionalWriter() {
+        if (conditionalWriter == null) {
+            String tableName = graph.getCountsTableName();
+            try {
+                conditionalWriter = graph.getConnector().createConditionalWriter(tableName, new ConditionalWriterConfig());
+            } catch (TableNotFoundException ex) {
+                throw new VertexiumException("Could not create conditional writer for table: " + tableName, ex);
+            }
+        }
+        return conditionalWriter;
+    }
+
+    synchronized void close() {
+        if (conditionalWriter != null) {
+            conditionalWriter.close();
+            conditionalWriter = null;
+        }
+    }
+
+    long getCount(ElementType elementType, Authorizations authorizations) {
+        return getCountsByVisibility(elementType, authorizations).values().stream()
+            .mapToLong(Long::longValue)
+            .sum();
+    }
+
+    /**
+     * Rewrites the membership rows and the counts of the visibilities the authorizations can see from a full scan of
+     * the signal column. Elements saved or deleted while the scan runs may be counted wrong.
+     */
+    void recount(ElementType elementType, Authorizations authorizations) {
+        String tableName = graph.getTableNameFromElementType(elementType);
+        Text signalColumn = elementType == ElementType.VERTEX ? AccumuloVertex.CF_SIGNAL : AccumuloEdge.CF_SIGNAL;
+        VisibilityEvaluator visibilityEvaluator = new VisibilityEvaluator(graph.toAccumuloAuthorizations(authorizations));
+        Map<String, Long> exactCounts = new HashMap<>();
+        try {
+            Scanner elementScanner = graph.createScanner(tableName, null, authorizations);
+            Scanner memberScanner = graph.createScanner(graph.getCountsTableName(), getMemberRange(elementType), authorizations);
+            try {
+                elementScanner.fetchColumnFamily(signalColumn);
+                memberScanner.fetchColumnFamily(CF_MEMBER);
+                PeekingIterator<Map.Entry<Key, Value>> elements = new PeekingIterator<>(elementScanner.iterator());
+                PeekingIterator<Map.Entry<Key, Value>> members = new PeekingIterator<>(memberScanner.iterator());
+                // both are sorted by element id, which are merged to find the missing and extra membership rows
+                while (elements.hasNext() || members.hasNext()) {
+                    String elementId = elements.hasNext() ? elements.peek().getKey().getRow().toString() : null;
+                    String memberId = members.hasNext() ? getElementId(members.peek().getKey()) : null;
+                    int compare = elementId == null ? 1 : memberId == null ? -1 : elementId.compareTo(memberId);
+                    String visibility = null;
+                    if (compare <= 0) {
+                        visibility = elements.next().getKey().getColumnVisibility().toString();
+                        // older versions of the signal column
+                        while (elements.hasNext() && elements.peek().getKey().getRow().toString().equals(elementId)) {
+                            elements.next();
+                        }
+                        exactCounts.merge(visibility, 1L, Long::sum);
+                    }
+                    String memberVisibility = null;
+                    if (compare >= 0) {
+                        memberVisibility = members.next().getValue().toString();
+                    }
+                    if (visibility != null && !visibility.equals(memberVisibility)) {
+                        writeMember(elementType, elementId, visibility);
+                    } else if (visibility == null && canSee(visibilityEvaluator, memberVisibility)) {
+                        deleteMember(elementType, memberId);
+                    }
+                }
+            } finally {
+                elementScanner.close();
+                memberScanner.close();
+            }
+        } catch (TableNotFoundException ex) {
+            throw new VertexiumException("Could not recount table: " + tableName, ex);
+        }
+
+        Map<String, Long> counts = getCountsByVisibility(elementType, authorizations);
+        Set<String> visibilities = new HashSet<>();
+        visibilities.addAll(counts.keySet());
+        visibilities.addAll(exactCounts.keySet());
+        for (String visibility : visibilities) {
+            long delta = exactCounts.getOrDefault(visibility, 0L) - counts.getOrDefault(visibility, 0L);
+            if (delta != 0) {
+                LOGGER.info("recount %s (%s): %d", elementType, visibility, delta);
+                increment(elementType, new Visibility(visibility), delta);
+            }
+        }
+        graph.flush();
+    }
+
+    private static boolean canSee(VisibilityEvaluator visibilityEvaluator, String visibility) {
+        try {
+            return visibilityEvaluator.evaluate(new ColumnVisibility(visibility));
+        } catch (VisibilityParseException ex) {
+            throw new VertexiumException("Could not parse visibility: " + visibility, ex);
+        }
+    }
+
+    private Map<String, Long> getCountsByVisibility(ElementType elementType, Authorizations authorizations) {
+        String tableName = graph.getCountsTableName();
+        try {
+            Scanner scanner = graph.createScanner(tableName, Range.exact(getRow(elementType), CF_COUNT), authorizations);
+            try {
+                Map<String, Long> results = new HashMap<>();
+                for (Map.Entry<Key, Value> entry : scanner) {
+                    long count = Long.parseLong(new String(entry.getValue().get(), StandardCharsets.UTF_8));
+                    results.merge(entry.getKey().getColumnVisibility().toString(), count, Long::sum);
+                }
+                return results;
+            } finally {
+                scanner.close();
+            }
+        } catch (TableNotFoundException ex) {
+            throw new VertexiumException("Could not get counts from table: " + tableName, ex);
+        }
+    }
+
+    private void writeMember(ElementType elementType, String elementId, String visibility) {
+        Mutation m = new Mutation(getMemberRow(elementType, elementId));
+        m.put(CF_MEMBER, CQ_MEMBER, new Value(visibility.getBytes(StandardCharsets.UTF_8)));
+        addCountsMutation(m);
+    }
+
+    private void deleteMember(ElementType elementType, String elementId) {
+        Mutation m = new Mutation(getMemberRow(elementType, elementId));
+        m.putDelete(CF_MEMBER, CQ_MEMBER);
+        addCountsMutation(m);
+    }
+
+    private void increment(ElementType elementType, Visibility visibility, long delta) {
+        ColumnVisibility columnVisibility = AccumuloGraph.visibilityToAccumuloVisibility(visibility);
+        Mutation m = new Mutation(getRow(elementType));
+        m.put(CF_COUNT, CQ_COUNT, columnVisibility, new Value(Long.toString(delta).getBytes(StandardCharsets.UTF_8)));
+        addCountsMutation(m);
+    }
+
+    private void addCountsMutation(Mutation m) {
+        try {
+            graph.getCountsWriter().addMutation(m);
+        } catch (MutationsRejectedException ex) {
+            throw new VertexiumException("Could not update count", ex);
+        }
+    }
+
+    private static Text getRow(ElementType elementType) {
+        switch (elementType) {
+            case VERTEX:
+                return VERTEX_ROW;
+            case EDGE:
+                return EDGE_ROW;
+            default:
+                throw new VertexiumException("Unhandled element type: " + elementType);
+        }
+    }
+
+    /**
+     * The membership rows of an element type follow the count row, the value separator can not be part of an
+     * element id.
+     */
+    private static String getMemberRow(ElementType elementType, String elementId) {
+        return getRow(elementType) + Character.toString(KeyBase.VALUE_SEPARATOR) + elementId;
+    }
+
+    private static Range getMemberRange(ElementType elementType) {
+        return Range.prefix(getRow(elementType) + Character.toString(KeyBase.VALUE_SEPARATOR));
+    }
+
+    private static String getElementId(Key memberKey) {
+        String row = memberKey.getRow().toString();
+        return row.substring(row.indexOf(KeyBase.VALUE_SEPARATOR) + 1);
+    }
+
+    /**
+     * A save has no old visibility, a delete has no new visibility.
+     */
+    private static class Change {
+        private final ElementType elementType;
+        private final String elementId;
+        private final Visibility oldVisibility;
+        private final Visibility newVisibility;
+
+        Change(ElementType elementType, String elementId, Visibility oldVisibility, Visibility newVisibility) {
+            this.elementType = elementType;
+            this.elementId = elementId;
+            this.oldVisibility = oldVisibility;
+            this.newVisibility = newVisibility;
+        }
+
+        String getMemberRow() {
+            return AccumuloElementCounts.getMemberRow(elementType, elementId);
+        }
+
+        ConditionalMutation toConditionalMutation() {
+            Condition condition = new Condition(CF_MEMBER, CQ_MEMBER);
+            if (oldVisibility != null) {
+                condition.setValue(oldVisibility.getVisibilityString());
+            }
+            ConditionalMutation m = new ConditionalMutation(getMemberRow(), condition);
+            if (newVisibility != null) {
+                m.put(CF_MEMBER, CQ_MEMBER, new Value(newVisibility.getVisibilityString().getBytes(StandardCharsets.UTF_8)));
+            } else {
+                m.putDelete(CF_MEMBER, CQ_MEMBER);
+            }
+            return m;
+        }
+
+        @Override
+        public String toString() {
+            return elementType + " " + elementId;
+        }
+    }
+
+    private static class PeekingIterator<T> implements Iterator<T> {
+        private final Iterator<T> it;
+        private T next;
+
+        PeekingIterator(Iterator<T> it) {
+            this.it = it;
+            this.next = it.hasNext() ? it.next() : null;
+        }
+
+        T peek() {
+            return next;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public T next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            T result = next;
+            next = it.hasNext() ? it.next() : null;
+            return result;
+        }
+    }
+}
@@ -1,21 +1,23 @@
 package org.vertexium.accumulo;
 
+import org.apache.accumulo.core.client.IteratorSetting;
 import org.apache.accumulo.core.client.ScannerBase;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.trace.Span;
 import org.apache.accumulo.core.trace.Trace;
 import org.vertexium.*;
+import org.vertexium.accumulo.iterator.VertexNeighborIdIterator;
+import org.vertexium.accumulo.iterator.util.ByteArrayWrapper;
 import org.vertexium.accumulo.util.RangeUtils;
 import org.vertexium.util.IterableUtils;
 import org.vertexium.util.VertexiumLogger;
 import org.vertexium.util.VertexiumLoggerFactory;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.stream.Collectors;
 
-import static org.vertexium.util.StreamUtils.stream;
-
 public class AccumuloFindPathStrategy {
     private static final VertexiumLogger LOGGER = VertexiumLoggerFactory.getLogger(AccumuloFindPathStrategy.class);
     private final AccumuloGraph graph;
@@ -43,9 +45,10 @@ public class AccumuloFindPathStrategy {
         if (labels == null) {
             return null;
         }
+        // labels are compared on the tablet servers where they are stored deflated
         Set<String> results = new HashSet<>();
         for (int i = 0; i < labels.length; i++) {
-            results.add(labels[i]);
+            results.add(nameSubstitutionStrategy.deflate(labels[i]));
         }
         return results;
     }
@@ -110,34 +113,104 @@ public class AccumuloFindPathStrategy {
         );
     }
 
+    /**
+     * Searches from both the source and the destination vertex a level at a time, expanding whichever side has the
+     * smaller frontier with one batched scan. Once the two sides have been expanded a total of hops times, every edge
+     * of every path with at most hops edges has been seen from one side or the other, so the paths can be found by
+     * walking the edges seen in memory.
+     */
     private void findPathsBreadthFirst(List<Path> foundPaths, String sourceVertexId, String destVertexId, int hops) {
-        Map<String, Set<String>> connectedVertexIds = getConnectedVertexIds(sourceVertexId, destVertexId);
-        // start at 2 since we already got the source and dest vertex connected vertex ids
-        for (int i = 2; i < hops; i++) {
+        Map<String, Set<String>> connectedVertexIds = new HashMap<>();
+        Map<String, Integer> sourceDistances = new HashMap<>();
+        Map<String, Integer> destDistances = new HashMap<>();
+        sourceDistances.put(sourceVertexId, 0);
+        destDistances.put(destVertexId, 0);
+        Set<String> sourceFrontier = Collections.singleton(sourceVertexId);
+        Set<String> destFrontier = Collections.singleton(destVertexId);
+        int sourceDepth = 0;
+        int destDepth = 0;
+        for (int i = 0; i < hops; i++) {
             progressCallback.progress((double) i / (double) hops, ProgressCallback.Step.FINDING_PATH);
-            Set<String> vertexIdsToSearch = new HashSet<>();
-            for (Map.Entry<String, Set<String>> entry : connectedVertexIds.entrySet()) {
-                vertexIdsToSearch.addAll(entry.getValue());
+            if (sourceFrontier.isEmpty() || destFrontier.isEmpty()) {
+                // one side has seen everything connected to it
+                break;
+            }
+            if (options.isGetAnyPath() && haveFrontiersMet(sourceDistances, destDistances)) {
+                break;
+            }
+            if (sourceFrontier.size() <= destFrontier.size()) {
+                sourceFrontier = expandFrontier(sourceFrontier, sourceDistances, sourceDepth, connectedVertexIds);
+                sourceDepth++;
+            } else {
+                destFrontier = expandFrontier(destFrontier, destDistances, destDepth, connectedVertexIds);
+                destDepth++;
             }
-            vertexIdsToSearch.removeAll(connectedVertexIds.keySet());
-            Map<String, Set<String>> r = getConnectedVertexIds(vertexIdsToSearch);
-            connectedVertexIds.putAll(r);
         }
+
         progressCallback.progress(0.9, ProgressCallback.Step.ADDING_PATHS);
+        Map<String, Set<String>> adjacentVertexIds = new HashMap<>();
+        for (Map.Entry<String, Set<String>> entry : connectedVertexIds.entrySet()) {
+            for (String connectedVertexId : entry.getValue()) {
+                adjacentVertexIds.computeIfAbsent(entry.getKey(), k -> new HashSet<>()).add(connectedVertexId);
+                adjacentVertexIds.computeIfAbsent(connectedVertexId, k -> new HashSet<>()).add(entry.getKey());
+            }
+        }
         Set<String> seenVertices = new HashSet<>();
         Path currentPath = new Path(sourceVertexId);
-        findPathsRecursive(connectedVertexIds, foundPaths, sourceVertexId, destVertexId, hops, seenVertices, currentPath, progressCallback);
+        findPathsRecursive(adjacentVertexIds, destDistances, destDepth + 1, foundPaths, sourceVertexId, destVertexId, hops, seenVertices, currentPath);
     }
 
+    private Set<String> expandFrontier(
+        Set<String> frontier,
+        Map<String, Integer> distances,
+        int depth,
+        Map<String, Set<String>> connectedVertexIds
+    ) {
+        // vertices already expanded from the other side do not need to be scanned again
+        Set<String> vertexIdsToSearch = new HashSet<>(frontier);
+        vertexIdsToSearch.removeAll(connectedVertexIds.keySet());
+        connectedVertexIds.putAll(getConnectedVertexIds(vertexIdsToSearch));
+
+        Set<String> nextFrontier = new HashSet<>();
+        for (String vertexId : frontier) {
+            Set<String> vertexConnectedVertexIds = connectedVertexIds.get(vertexId);
+            if (vertexConnectedVertexIds == null) {
+                continue;
+            }
+            for (String connectedVertexId : vertexConnectedVertexIds) {
+                if (distances.putIfAbsent(connectedVertexId, depth + 1) == null) {
+                    nextFrontier.add(connectedVertexId);
+                }
+            }
+        }
+        return nextFrontier;
+    }
+
+    private static boolean haveFrontiersMet(Map<String, Integer> sourceDistances, Map<String, Integer> destDistances) {
+        Map<String, Integer> smaller = sourceDistances.size() <= destDistances.size() ? sourceDistances : destDistances;
+        Map<String, Integer> larger = smaller == sourceDistances ? destDistances : sourceDistances;
+        for (String vertexId : smaller.keySet()) {
+            if (larger.containsKey(vertexId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param destDistances         the distance to the destination vertex of the vertices reached from it
+     * @param unknownDestDistance   the least distance to the destination vertex of any vertex not in destDistances
+     */
     private void findPathsRecursive(
         Map<String, Set<String>> connectedVertexIds,
+        Map<String, Integer> destDistances,
+        int unknownDestDistance,
         List<Path> foundPaths,
         final String sourceVertexId,
         String destVertexId,
         int hops,
         Set<String> seenVertices,
-        Path currentPath,
-        @SuppressWarnings("UnusedParameters") ProgressCallback progressCallback
+        Path currentPath
     ) {
         if (options.isGetAnyPath() && foundPaths.size() == 1) {
             return;
@@ -149,9 +222,14 @@ public class AccumuloFindPathStrategy {
             Set<String> vertexIds = connectedVertexIds.get(sourceVertexId);
             if (vertexIds != null) {
                 for (String childId : vertexIds) {
-                    if (!seenVertices.contains(childId)) {
-                        findPathsRecursive(connectedVertexIds, foundPaths, childId, destVertexId, hops - 1, seenVertices, new Path(currentPath, childId), progressCallback);
+                    if (seenVertices.contains(childId)) {
+                        continue;
                     }
+                    if (destDistances.getOrDefault(childId, unknownDestDistance) > hops - 1) {
+                        // the destination can not be reached from the child in the remaining hops
+                        continue;
+                    }
+                    findPathsRecursive(connectedVertexIds, destDistances, unknownDestDistance, foundPaths, childId, destVertexId, hops - 1, seenVertices, new Path(currentPath, childId));
                 }
             }
         }
@@ -202,33 +280,40 @@ public class AccumuloFindPathStrategy {
                 null,
                 null,
                 ranges,
-                true,
+                false,
                 authorizations
             );
 
+            IteratorSetting vertexNeighborIdIteratorSettings = new IteratorSetting(
+                1000,
+                VertexNeighborIdIterator.class.getSimpleName(),
+                VertexNeighborIdIterator.class
+            );
+            VertexNeighborIdIterator.setFetchHints(vertexNeighborIdIteratorSettings, graph.toIteratorFetchHints(fetchHints));
+            VertexNeighborIdIterator.setAuthorizations(vertexNeighborIdIteratorSettings, authorizations.getAuthorizations());
+            VertexNeighborIdIterator.setLabels(vertexNeighborIdIteratorSettings, includeLabels);
+            VertexNeighborIdIterator.setExcludedLabels(vertexNeighborIdIteratorSettings, excludeLabels);
+            scanner.addScanIterator(vertexNeighborIdIteratorSettings);
 
             final long timerStartTime = System.currentTimeMillis();
             try {
                 Map<String, Set<String>> results = new HashMap<>();
+                Set<String> otherVertexIds = new HashSet<>();
                 for (Map.Entry<Key, Value> row : scanner) {
                     graph.logLargeRow(row.getKey(), row.getValue());
-                    Vertex vertex = AccumuloVertex.createFromIteratorValue(graph, row.getKey(), row.getValue(), fetchHints, authorizations);
-                    Iterable<String> otherVertexIds = stream(vertex.getEdgeInfos(Direction.BOTH, authorizations))
-                        .filter(edgeInfo -> {
-                            if (excludeLabels != null && excludeLabels.contains(edgeInfo.getLabel())) {
-                                return false;
-                            }
-                            return includeLabels == null || includeLabels.contains(edgeInfo.getLabel());
-
-                        })
-                        .map(EdgeInfo::getVertexId)
-                        .collect(Collectors.toSet());
-                    Map<String, Boolean> verticesExist = graph.doVerticesExist(otherVertexIds, authorizations);
-                    Set<String> rowVertexIds = stream(verticesExist.keySet())
-                        .filter(key -> verticesExist.getOrDefault(key, false))
-                        .collect(Collectors.toSet());
+                    Set<String> rowVertexIds = new HashSet<>();
+                    for (ByteArrayWrapper vertexId : VertexNeighborIdIterator.decodeValue(row.getValue())) {
+                        rowVertexIds.add(new String(vertexId.getData(), StandardCharsets.UTF_8));
+                    }
+                    otherVertexIds.addAll(rowVertexIds);
                     results.put(row.getKey().getRow().toString(), rowVertexIds);
                 }
+
+                // check the existence of the connected vertices of all rows at once rather than row by row
+                Map<String, Boolean> verticesExist = graph.doVerticesExist(otherVertexIds, authorizations);
+                for (Set<String> rowVertexIds : results.values()) {
+                    rowVertexIds.removeIf(vertexId -> !verticesExist.getOrDefault(vertexId, false));
+                }
                 return results;
             } finally {
                 scanner.close();
@@ -3,6 +3,7 @@ package org.vertexium.accumulo;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import org.apache.accumulo.core.client.Scanner;
@@ -10,7 +11,9 @@ import org.apache.accumulo.core.client.*;
 import org.apache.accumulo.core.client.admin.NewTableConfiguration;
 import org.apache.accumulo.core.client.admin.TimeType;
 import org.apache.accumulo.core.data.*;
+import org.apache.accumulo.core.iterators.FirstEntryInRowIterator;
 import org.apache.accumulo.core.iterators.IteratorUtil;
+import org.apache.accumulo.core.iterators.SortedKeyIterator;
 import org.apache.accumulo.core.iterators.LongCombiner;
 import org.apache.accumulo.core.iterators.user.RowDeletingIterator;
 import org.apache.accumulo.core.iterators.user.TimestampFilter;
@@ -20,6 +23,7 @@ import org.apache.accumulo.core.security.ColumnVisibility;
 import org.apache.accumulo.core.trace.DistributedTrace;
 import org.apache.accumulo.core.trace.Span;
 import org.apache.accumulo.core.trace.Trace;
+import org.apache.accumulo.core.util.NamingThreadFactory;
 import org.apache.curator.RetryPolicy;
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.CuratorFrameworkFactory;
@@ -30,7 +34,9 @@ import org.apache.hadoop.io.Text;
 import org.apache.zookeeper.CreateMode;
 import org.vertexium.*;
 import org.vertexium.accumulo.iterator.*;
+import org.vertexium.accumulo.iterator.model.IteratorElementFilter;
 import org.vertexium.accumulo.iterator.model.IteratorFetchHints;
+import org.vertexium.accumulo.iterator.model.IteratorPropertyPredicate;
 import org.vertexium.accumulo.iterator.model.PropertyColumnQualifier;
 import org.vertexium.accumulo.iterator.model.PropertyMetadataColumnQualifier;
 import org.vertexium.accumulo.iterator.util.ByteArrayWrapper;
@@ -39,12 +45,17 @@ import org.vertexium.accumulo.keys.KeyHelper;
 import org.vertexium.accumulo.models.AccumuloEdgeInfo;
 import org.vertexium.accumulo.util.*;
 import org.vertexium.event.*;
+import org.vertexium.historicalEvent.ChangeLogHistoricalEvents;
 import org.vertexium.historicalEvent.HistoricalEvent;
 import org.vertexium.historicalEvent.HistoricalEventId;
+import org.vertexium.id.ShardedIdGenerator;
 import org.vertexium.mutation.*;
 import org.vertexium.property.MutableProperty;
 import org.vertexium.property.StreamingPropertyValue;
 import org.vertexium.property.StreamingPropertyValueRef;
+import org.vertexium.query.Compare;
+import org.vertexium.query.QueryBase;
+import org.vertexium.query.QueryParameters;
 import org.vertexium.search.IndexHint;
 import org.vertexium.util.*;
 
@@ -52,9 +63,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.StampedLock;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -65,7 +78,7 @@ import static org.vertexium.util.IterableUtils.toList;
 import static org.vertexium.util.Preconditions.checkNotNull;
 import static org.vertexium.util.StreamUtils.stream;
 
-public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable {
+public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable, GraphWithScanFilters {
     private static final VertexiumLogger LOGGER = VertexiumLoggerFactory.getLogger(AccumuloGraph.class);
     static final AccumuloGraphLogger GRAPH_LOGGER = new AccumuloGraphLogger(QUERY_LOGGER);
     private static final String ROW_DELETING_ITERATOR_NAME = RowDeletingIterator.class.getSimpleName();
@@ -101,9 +114,18 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
     private final String extendedDataTableName;
     private final String dataTableName;
     private final String metadataTableName;
+    private final String countsTableName;
+    private final String changeLogTableName;
     private final int numberOfQueryThreads;
     private final boolean compressIteratorTransfers;
+    private final boolean scanFiltersEnabled;
     private final AccumuloGraphMetadataStore graphMetadataStore;
+    private final AccumuloElementCache elementCache;
+    private final AccumuloElementCounts elementCounts;
+    private final AccumuloChangeLog changeLog;
+    private final ExecutorService deleteElementsExecutor;
+    private final ExecutorService asyncReadExecutor;
+    private final ExecutorService getElementsByIdExecutor;
     private boolean distributedTraceEnabled;
     private int largeValueErrorThreshold;
     private int largeValueWarningThreshold;
@@ -154,16 +176,32 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
         curatorFramework.start();
         String zkPath = config.getZookeeperMetadataSyncPath();
         this.graphMetadataStore = new AccumuloGraphMetadataStore(curatorFramework, zkPath);
+        this.elementCache = config.isElementCacheEnabled() ? new AccumuloElementCache(config, curatorFramework, getMetricsRegistry()) : null;
         this.verticesTableName = getVerticesTableName(getConfiguration().getTableNamePrefix());
         this.edgesTableName = getEdgesTableName(getConfiguration().getTableNamePrefix());
         this.extendedDataTableName = getExtendedDataTableName(getConfiguration().getTableNamePrefix());
         this.dataTableName = getDataTableName(getConfiguration().getTableNamePrefix());
         this.metadataTableName = getMetadataTableName(getConfiguration().getTableNamePrefix());
+        this.countsTableName = getCountsTableName(getConfiguration().getTableNamePrefix());
+        this.elementCounts = config.isElementCountsEnabled() ? new AccumuloElementCounts(this) : null;
+        this.changeLogTableName = getChangeLogTableName(getConfiguration().getTableNamePrefix());
+        this.changeLog = config.isChangeLogEnabled() ? new AccumuloChangeLog(this, config.getChangeLogShardCount()) : null;
+        this.deleteElementsExecutor = Executors.newFixedThreadPool(config.getDeleteElementsThreadCount(), new NamingThreadFactory("vertexium-delete-elements"));
+        this.asyncReadExecutor = new ThreadPoolExecutor(
+            config.getAsyncReadThreadCount(),
+            config.getAsyncReadThreadCount(),
+            0L,
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(config.getAsyncReadQueueSize()),
+            new NamingThreadFactory("vertexium-async-read")
+        );
+        this.getElementsByIdExecutor = Executors.newFixedThreadPool(config.getGetElementsByIdThreadCount(), new NamingThreadFactory("vertexium-get-elements-by-id"));
         this.numberOfQueryThreads = getConfiguration().getNumberOfQueryThreads();
         this.historyInSeparateTable = getConfiguration().isHistoryInSeparateTable();
         this.largeValueErrorThreshold = getConfiguration().getLargeValueErrorThreshold();
         this.largeValueWarningThreshold = getConfiguration().getLargeValueWarningThreshold();
         this.compressIteratorTransfers = getConfiguration().isCompressIteratorTransfers() && SnappyUtils.testSnappySupport();
+        this.scanFiltersEnabled = getConfiguration().isScanFiltersEnabled();
 
         if (isHistoryInSeparateTable()) {
             this.historyVerticesTableName = getHistoryVerticesTableName(getConfiguration().getTableNamePrefix());
@@ -201,8 +239,23 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
         ensureRowDeletingIteratorIsAttached(connector, getEdgesTableName(config.getTableNamePrefix()));
         ensureRowDeletingIteratorIsAttached(connector, getDataTableName(config.getTableNamePrefix()));
         ensureRowDeletingIteratorIsAttached(connector, getExtendedDataTableName(config.getTableNamePrefix()));
+        if (config.isElementCountsEnabled()) {
+            ensureTableExists(connector, getCountsTableName(config.getTableNamePrefix()), null, config.getHdfsContextClasspath(), config.isCreateTables());
+            AccumuloElementCounts.ensureSummingCombinerIsAttached(connector, getCountsTableName(config.getTableNamePrefix()));
+        }
+        if (config.isChangeLogEnabled()) {
+            ensureTableExists(connector, getChangeLogTableName(config.getTableNamePrefix()), 1, config.getHdfsContextClasspath(), config.isCreateTables());
+            AccumuloChangeLog.ensureTableIsSplit(connector, getChangeLogTableName(config.getTableNamePrefix()), config.getChangeLogShardCount());
+            AccumuloChangeLog.ensureAgeOffFilterIsConfigured(connector, getChangeLogTableName(config.getTableNamePrefix()), config.getChangeLogRetention());
+        }
+        if (config.isTableLayoutEnabled()) {
+            new AccumuloTableLayout(config).apply(connector);
+        }
         AccumuloGraph graph = new AccumuloGraph(config, connector);
         graph.setup();
+        if (config.isPreSplitTables()) {
+            graph.preSplitTables();
+        }
         return graph;
     }
 
@@ -335,6 +388,10 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
                 Span trace = Trace.start("prepareVertex");
                 trace.data("vertexId", finalVertexId);
                 try {
+                    if (elementCounts != null) {
+                        elementCounts.elementSaved(ElementType.VERTEX, finalVertexId, getVisibility());
+                    }
+
                     // This has to occur before createVertex since it will mutate the properties
                     getElementMutationBuilder().saveVertexBuilder(AccumuloGraph.this, this, timestampLong);
 
@@ -611,6 +668,40 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
         }
     }
 
+    void deleteStreamingPropertyValues(AccumuloElement element, Iterable<PropertyDeleteMutation> propertyDeletes) {
+        for (PropertyDeleteMutation propertyDelete : propertyDeletes) {
+            Property property = propertyDelete instanceof PropertyPropertyDeleteMutation
+                ? ((PropertyPropertyDeleteMutation) propertyDelete).getProperty()
+                : element.getProperty(propertyDelete.getKey(), propertyDelete.getName(), propertyDelete.getVisibility());
+            if (property != null) {
+                elementMutationBuilder.deleteStreamingPropertyValue(element.getId(), property);
+            }
+        }
+    }
+
+    /**
+     * Releases the streaming property values of elements about to be deleted. The elements are read again since the
+     * caller's copies may not include their properties. Soft deleted elements keep their references since their
+     * properties are still readable through the element history.
+     */
+    private void releaseStreamingPropertyValues(
+        ElementType elementType,
+        Collection<String> elementIds,
+        Authorizations authorizations
+    ) {
+        if (!streamingPropertyValueStorageStrategy.isReferenceCounted() || elementIds.isEmpty()) {
+            return;
+        }
+        Iterable<? extends Element> elements = elementType == ElementType.VERTEX
+            ? getVertices(elementIds, FetchHints.ALL_INCLUDING_HIDDEN, authorizations)
+            : getEdges(elementIds, FetchHints.ALL_INCLUDING_HIDDEN, authorizations);
+        for (Element element : elements) {
+            for (Property property : element.getProperties()) {
+                elementMutationBuilder.deleteStreamingPropertyValue(element.getId(), property);
+            }
+        }
+    }
+
     void deleteProperty(AccumuloElement element, Property property, Authorizations authorizations) {
         if (!element.getFetchHints().isIncludePropertyAndMetadata(property.getName())) {
             throw new VertexiumMissingFetchHintException(element.getFetchHints(), "Property " + property.getName() + " needs to be included with metadata");
@@ -619,6 +710,7 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
         Mutation m = new Mutation(element.getId());
         elementMutationBuilder.addPropertyDeleteToMutation(m, property);
         addMutations(element, m);
+        elementMutationBuilder.deleteStreamingPropertyValue(element.getId(), property);
 
         getSearchIndex().deleteProperty(
             this,
@@ -654,10 +746,19 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
     }
 
     protected void addMutations(VertexiumObjectType objectType, Mutation... mutations) {
+        if (elementCache != null && objectType != VertexiumObjectType.EXTENDED_DATA) {
+            ElementType elementType = objectType == VertexiumObjectType.VERTEX ? ElementType.VERTEX : ElementType.EDGE;
+            for (Mutation mutation : mutations) {
+                elementCache.invalidate(elementType, new String(mutation.getRow(), StandardCharsets.UTF_8));
+            }
+        }
         _addMutations(getWriterFromElementType(objectType), mutations);
         if (isHistoryInSeparateTable() && objectType != VertexiumObjectType.EXTENDED_DATA) {
             _addMutations(getHistoryWriterFromElementType(objectType), mutations);
         }
+        if (changeLog != null && objectType != VertexiumObjectType.EXTENDED_DATA) {
+            changeLog.mutationsAdded(objectType == VertexiumObjectType.VERTEX ? ElementType.VERTEX : ElementType.EDGE, mutations);
+        }
     }
 
     protected void _addMutations(BatchWriter writer, Mutation... mutations) {
@@ -705,6 +806,14 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
         return getWriterForTable(getDataTableName());
     }
 
+    BatchWriter getCountsWriter() {
+        return getWriterForTable(getCountsTableName());
+    }
+
+    BatchWriter getChangeLogWriter() {
+        return getWriterForTable(getChangeLogTableName());
+    }
+
     public BatchWriter getWriterFromElementType(VertexiumObjectType objectType) {
         switch (objectType) {
             case VERTEX:
@@ -743,7 +852,7 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
     public void deleteElements(Stream<? extends ElementId> elementIds, Authorizations authorizations) {
         DeleteElementsConsumer consumer = new DeleteElementsConsumer(authorizations);
         elementIds.forEach(consumer);
-        consumer.processBatches(true);
+        consumer.finish();
     }
 
     public void logLargeRow(Key key, Value value) {
@@ -764,65 +873,145 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
         }
     }
 
+    /**
+     * Deletes elements in batches on a thread pool shared by the graph so fetching the next batch overlaps with
+     * deleting the edges, extended data and search index documents of the previous batches. The stages are
+     * <ul>
+     * <li>vertices: fetches vertices given by id, queues their edges and deletes their rows</li>
+     * <li>edges: fetches edges given by id and deletes their rows and edge references</li>
+     * <li>extended data: deletes each extended data row found by one scan of the row key prefixes of a batch</li>
+     * <li>search index: deletes the documents of a batch</li>
+     * </ul>
+     */
     private class DeleteElementsConsumer implements Consumer<ElementId> {
         private final Authorizations authorizations;
-        private final Set<String> verticesToFetch = new HashSet<>();
-        private final Set<String> edgesToFetch = new HashSet<>();
-        private final Set<Vertex> verticesToDelete = new HashSet<>();
-        private final Set<EdgeElementLocation> edgesToDelete = new HashSet<>();
+        private final int batchSize;
+        private final int maxPendingVertexBatches;
+        private final Set<String> queuedVertexIds = ConcurrentHashMap.newKeySet();
+        private final Set<String> queuedEdgeIds = ConcurrentHashMap.newKeySet();
+        private final Queue<Future<?>> vertexFutures = new ConcurrentLinkedQueue<>();
+        private final Queue<Future<?>> edgeFutures = new ConcurrentLinkedQueue<>();
+        private final Queue<Future<?>> cleanupFutures = new ConcurrentLinkedQueue<>();
+        private List<String> verticesToFetch = new ArrayList<>();
+        private List<Vertex> verticesToDelete = new ArrayList<>();
+        private List<String> edgesToFetch = new ArrayList<>();
+        private List<EdgeElementLocation> edgesToDelete = new ArrayList<>();
 
         public DeleteElementsConsumer(Authorizations authorizations) {
             this.authorizations = authorizations;
+            this.batchSize = getConfiguration().getDeleteElementsBatchSize();
+            this.maxPendingVertexBatches = 2 * getConfiguration().getDeleteElementsThreadCount();
         }
 
         @Override
         public void accept(ElementId elementId) {
             if (elementId instanceof Vertex) {
-                verticesToDelete.add((Vertex) elementId);
+                if (queuedVertexIds.add(elementId.getId())) {
+                    verticesToDelete.add((Vertex) elementId);
+                }
             } else if (elementId instanceof EdgeElementLocation) {
-                edgesToDelete.add((EdgeElementLocation) elementId);
+                queueEdge((EdgeElementLocation) elementId);
             } else if (elementId.getElementType() == ElementType.VERTEX) {
-                verticesToFetch.add(elementId.getId());
+                if (queuedVertexIds.add(elementId.getId())) {
+                    verticesToFetch.add(elementId.getId());
+                }
             } else if (elementId.getElementType() == ElementType.EDGE) {
-                edgesToFetch.add(elementId.getId());
+                queueEdgeId(elementId.getId());
             } else {
                 throw new VertexiumException("unhandled element type: " + elementId.getElementType());
             }
-            processBatches(false);
+            submitVertexBatches(false);
+        }
+
+        public void finish() {
+            try {
+                submitVertexBatches(true);
+                waitForAll(vertexFutures);
+                submitEdgeBatches(true);
+                waitForAll(edgeFutures);
+                waitForAll(cleanupFutures);
+            } catch (RuntimeException ex) {
+                cancelAll();
+                throw ex;
+            }
         }
 
-        public void processBatches(boolean finalBatch) {
-            if (finalBatch || verticesToFetch.size() > 100) {
-                verticesToDelete.addAll(toList(getVertices(verticesToFetch, FetchHints.EDGE_REFS, authorizations)));
-                verticesToFetch.clear();
+        private void submitVertexBatches(boolean finalBatch) {
+            if (verticesToFetch.size() >= batchSize || (finalBatch && verticesToFetch.size() > 0)) {
+                List<String> vertexIds = verticesToFetch;
+                verticesToFetch = new ArrayList<>();
+                vertexFutures.add(deleteElementsExecutor.submit(() -> {
+                    deleteVertices(toList(getVertices(vertexIds, FetchHints.EDGE_REFS, authorizations)));
+                }));
+            }
+            if (verticesToDelete.size() >= batchSize || (finalBatch && verticesToDelete.size() > 0)) {
+                List<Vertex> vertices = verticesToDelete;
+                verticesToDelete = new ArrayList<>();
+                vertexFutures.add(deleteElementsExecutor.submit(() -> deleteVertices(vertices)));
             }
 
-            if (finalBatch || verticesToDelete.size() > 100) {
-                for (Vertex vertexToDelete : verticesToDelete) {
-                    edgesToFetch.addAll(toList(vertexToDelete.getEdgeIds(Direction.BOTH, authorizations)));
+            // keeps the caller from queuing batches faster than they are deleted
+            try {
+                while (vertexFutures.size() > maxPendingVertexBatches) {
+                    waitFor(vertexFutures.poll());
                 }
-                deleteVertices(verticesToDelete);
-                verticesToDelete.clear();
+            } catch (RuntimeException ex) {
+                // finish() is not called when accept() throws, so nothing else would cancel the queued batches
+                cancelAll();
+                throw ex;
             }
+        }
 
-            if (finalBatch || edgesToFetch.size() > 100) {
-                edgesToDelete.addAll(toList(getEdges(edgesToFetch, FetchHints.NONE, authorizations)));
-                edgesToFetch.clear();
+        private void queueEdgeId(String edgeId) {
+            if (queuedEdgeIds.add(edgeId)) {
+                synchronized (this) {
+                    edgesToFetch.add(edgeId);
+                }
+                submitEdgeBatches(false);
             }
+        }
 
-            if (finalBatch || edgesToDelete.size() > 100) {
-                deleteEdges(edgesToDelete);
-                edgesToDelete.clear();
+        private void queueEdge(EdgeElementLocation edge) {
+            if (queuedEdgeIds.add(edge.getId())) {
+                synchronized (this) {
+                    edgesToDelete.add(edge);
+                }
+                submitEdgeBatches(false);
             }
         }
 
-        private void deleteVertices(Set<Vertex> verticesToDelete) {
-            getSearchIndex().deleteElements(AccumuloGraph.this, verticesToDelete, authorizations);
+        private synchronized void submitEdgeBatches(boolean finalBatch) {
+            if (edgesToFetch.size() >= batchSize || (finalBatch && edgesToFetch.size() > 0)) {
+                List<String> edgeIds = edgesToFetch;
+                edgesToFetch = new ArrayList<>();
+                edgeFutures.add(deleteElementsExecutor.submit(() -> {
+                    deleteEdges(toList(getEdges(edgeIds, FetchHints.NONE, authorizations)));
+                }));
+            }
+            if (edgesToDelete.size() >= batchSize || (finalBatch && edgesToDelete.size() > 0)) {
+                List<EdgeElementLocation> edges = edgesToDelete;
+                edgesToDelete = new ArrayList<>();
+                edgeFutures.add(deleteElementsExecutor.submit(() -> deleteEdges(edges)));
+            }
+        }
 
-            deleteAllExtendedDataForElements(verticesToDelete, authorizations);
+        private void deleteVertices(List<Vertex> verticesToDelete) {
+            submitCleanup(ElementType.VERTEX, verticesToDelete);
+            releaseStreamingPropertyValues(
+                ElementType.VERTEX,
+                verticesToDelete.stream().map(Vertex::getId).collect(Collectors.toList()),
+                authorizations
+            );
 
             for (Vertex vertex : verticesToDelete) {
+                for (String edgeId : vertex.getEdgeIds(Direction.BOTH, authorizations)) {
+                    queueEdgeId(edgeId);
+                }
+
                 addMutations(VertexiumObjectType.VERTEX, elementMutationBuilder.getDeleteRowMutation(vertex.getId()));
+                if (elementCounts != null) {
+                    elementCounts.elementDeleted(ElementType.VERTEX, vertex.getId(), vertex.getVisibility());
+                }
 
                 if (hasEventListeners()) {
                     queueEvent(new DeleteVertexEvent(AccumuloGraph.this, vertex));
@@ -830,10 +1019,13 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
             }
         }
 
-        private void deleteEdges(Set<EdgeElementLocation> edgesToDelete) {
-            getSearchIndex().deleteElements(AccumuloGraph.this, edgesToDelete, authorizations);
-
-            deleteAllExtendedDataForElements(edgesToDelete, authorizations);
+        private void deleteEdges(List<? extends EdgeElementLocation> edgesToDelete) {
+            submitCleanup(ElementType.EDGE, edgesToDelete);
+            releaseStreamingPropertyValues(
+                ElementType.EDGE,
+                edgesToDelete.stream().map(EdgeElementLocation::getId).collect(Collectors.toList()),
+                authorizations
+            );
 
             for (EdgeElementLocation edgeLocation : edgesToDelete) {
                 ColumnVisibility visibility = visibilityToAccumuloVisibility(edgeLocation.getVisibility());
@@ -848,6 +1040,9 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
 
                 // Deletes everything else related to edge.
                 addMutations(VertexiumObjectType.EDGE, elementMutationBuilder.getDeleteRowMutation(edgeLocation.getId()));
+                if (elementCounts != null) {
+                    elementCounts.elementDeleted(ElementType.EDGE, edgeLocation.getId(), edgeLocation.getVisibility());
+                }
 
                 if (hasEventListeners()) {
                     queueEvent(new DeleteEdgeEvent(AccumuloGraph.this, edgeLocation));
@@ -855,17 +1050,68 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
             }
         }
 
-        private void deleteAllExtendedDataForElements(Iterable<? extends ElementId> elementIds, Authorizations authorizations) {
-            FetchHints fetchHints = new FetchHintsBuilder()
-                .setIncludeExtendedDataTableNames(true)
-                .build();
-            Iterable<ExtendedDataRow> rows = getExtendedDataForElements(
-                elementIds,
-                fetchHints,
-                authorizations
-            );
-            for (ExtendedDataRow row : rows) {
-                deleteExtendedDataRow(row.getId(), authorizations);
+        private void submitCleanup(ElementType elementType, List<? extends ElementId> elementIds) {
+            if (elementIds.size() == 0) {
+                return;
+            }
+            cleanupFutures.add(deleteElementsExecutor.submit(() -> {
+                getSearchIndex().deleteElements(AccumuloGraph.this, elementIds, authorizations);
+            }));
+            cleanupFutures.add(deleteElementsExecutor.submit(() -> deleteAllExtendedDataForElements(elementType, elementIds)));
+        }
+
+        private void deleteAllExtendedDataForElements(ElementType elementType, List<? extends ElementId> elementIds) {
+            List<org.apache.accumulo.core.data.Range> ranges = elementIds.stream()
+                .map(elementId -> org.apache.accumulo.core.data.Range.prefix(KeyHelper.createExtendedDataRowKeyPrefix(elementType, elementId.getId())))
+                .collect(Collectors.toList());
+            try {
+                ScannerBase scanner = createBatchScanner(getExtendedDataTableName(), ranges, authorizations);
+                try {
+                    // only the row keys are needed to write the row delete markers
+                    scanner.addScanIterator(new IteratorSetting(1000, FirstEntryInRowIterator.class.getSimpleName(), FirstEntryInRowIterator.class));
+                    scanner.addScanIterator(new IteratorSetting(1001, SortedKeyIterator.class.getSimpleName(), SortedKeyIterator.class));
+                    for (Map.Entry<Key, Value> entry : scanner) {
+                        deleteExtendedDataRow(KeyHelper.parseExtendedDataRowId(entry.getKey().getRow()), authorizations);
+                    }
+                } finally {
+                    scanner.close();
+                }
+            } catch (TableNotFoundException ex) {
+                throw new VertexiumException("Could not delete extended data from table: " + getExtendedDataTableName(), ex);
+            }
+        }
+
+        private void waitForAll(Queue<Future<?>> futures) {
+            Future<?> future;
+            while ((future = futures.poll()) != null) {
+                waitFor(future);
+            }
+        }
+
+        private void waitFor(Future<?> future) {
+            try {
+                future.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new VertexiumException("Interrupted while deleting elements", ex);
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) ex.getCause();
+                }
+                throw new VertexiumException("Could not delete elements", ex.getCause());
+            }
+        }
+
+        private void cancelAll() {
+            cancel(vertexFutures);
+            cancel(edgeFutures);
+            cancel(cleanupFutures);
+        }
+
+        private void cancel(Queue<Future<?>> futures) {
+            Future<?> future;
+            while ((future = futures.poll()) != null) {
+                future.cancel(false);
             }
         }
     }
@@ -981,6 +1227,10 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
                 Span trace = Trace.start("prepareEdge");
                 trace.data("edgeId", finalEdgeId);
                 try {
+                    if (elementCounts != null) {
+                        elementCounts.elementSaved(ElementType.EDGE, finalEdgeId, getVisibility());
+                    }
+
                     // This has to occur before createEdge since it will mutate the properties
                     elementMutationBuilder.saveEdgeBuilder(AccumuloGraph.this, this, timestampLong);
 
@@ -1042,6 +1292,10 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
                         }
                     };
 
+                    if (elementCounts != null) {
+                        elementCounts.elementSaved(ElementType.EDGE, finalEdgeId, getVisibility());
+                    }
+
                     // This has to occur before createEdge since it will mutate the properties
                     elementMutationBuilder.saveEdgeBuilder(AccumuloGraph.this, this, timestampLong);
 
@@ -1183,6 +1437,25 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
         }
     }
 
+    @Override
+    public Stream<HistoricalEvent> getAllHistoricalEvents(
+        HistoricalEventId after,
+        HistoricalEventsFetchHints fetchHints,
+        Authorizations authorizations
+    ) {
+        if (changeLog == null) {
+            return super.getAllHistoricalEvents(after, fetchHints, authorizations);
+        }
+        Long startTimestamp = after == null ? null : after.getTimestamp().toInstant().toEpochMilli();
+        return ChangeLogHistoricalEvents.stream(
+            changeLog.getEntries(startTimestamp, authorizations),
+            after,
+            fetchHints,
+            ChangeLogHistoricalEvents.DEFAULT_BATCH_SIZE,
+            (elementIds, batchAfter, batchFetchHints) -> getHistoricalEvents(elementIds, batchAfter, batchFetchHints, authorizations)
+        );
+    }
+
     private Stream<HistoricalEvent> getHistoricalEvents(
         ElementType elementType,
         Set<String> elementIds,
@@ -1267,6 +1540,21 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
                 false,
                 authorizations
             );
+            IteratorSetting historicalPropertyValueFilterSettings = new IteratorSetting(
+                100,
+                HistoricalPropertyValueFilter.class.getSimpleName(),
+                HistoricalPropertyValueFilter.class
+            );
+            if (key != null) {
+                HistoricalPropertyValueFilter.setPropertyKey(historicalPropertyValueFilterSettings, getNameSubstitutionStrategy().deflate(key));
+            }
+            if (name != null) {
+                HistoricalPropertyValueFilter.setPropertyName(historicalPropertyValueFilterSettings, getNameSubstitutionStrategy().deflate(name));
+            }
+            if (visibility != null) {
+                HistoricalPropertyValueFilter.setPropertyVisibility(historicalPropertyValueFilterSettings, visibility.getVisibilityString());
+            }
+            scanner.addScanIterator(historicalPropertyValueFilterSettings);
 
             try {
                 Map<String, HistoricalPropertyValue> results = new HashMap<>();
@@ -1279,16 +1567,7 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
                     String cq = column.getKey().getColumnQualifier().toString();
                     String columnVisibility = column.getKey().getColumnVisibility().toString();
                     if (column.getKey().getColumnFamily().equals(AccumuloElement.CF_PROPERTY)) {
-                        if (visibility != null && !columnVisibility.equals(visibility.getVisibilityString())) {
-                            continue;
-                        }
                         PropertyColumnQualifier propertyColumnQualifier = KeyHelper.createPropertyColumnQualifier(cq, getNameSubstitutionStrategy());
-                        if (name != null && !propertyColumnQualifier.getPropertyName().equals(name)) {
-                            continue;
-                        }
-                        if (key != null && !propertyColumnQualifier.getPropertyKey().equals(key)) {
-                            continue;
-                        }
                         String resultsKey = propertyColumnQualifier.getDiscriminator(columnVisibility, column.getKey().getTimestamp());
                         long timestamp = column.getKey().getTimestamp();
                         Object value = vertexiumSerializer.bytesToObject(element, column.getValue().get());
@@ -1540,6 +1819,112 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
         return getEdgesInRange(trace, null, null, fetchHints, endTime, authorizations);
     }
 
+    @Override
+    public Iterable<? extends Element> getCandidateElements(ElementType elementType, QueryParameters parameters, FetchHints fetchHints) {
+        if (!scanFiltersEnabled) {
+            return null;
+        }
+        IteratorElementFilter elementFilter = toIteratorElementFilter(elementType, parameters, fetchHints);
+        if (elementFilter == null) {
+            return null;
+        }
+        switch (elementType) {
+            case VERTEX:
+                return getVerticesInRange(Trace.start("getCandidateVertices"), null, fetchHints, null, parameters.getAuthorizations(), null, elementFilter);
+            case EDGE:
+                return getEdgesInRange(Trace.start("getCandidateEdges"), null, fetchHints, null, parameters.getAuthorizations(), null, elementFilter);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Converts the edge labels and the has containers of the query which can be evaluated on the tablet servers, or
+     * returns null if there are none.
+     */
+    private IteratorElementFilter toIteratorElementFilter(ElementType elementType, QueryParameters parameters, FetchHints fetchHints) {
+        Set<Text> edgeLabels = null;
+        if (elementType == ElementType.EDGE && parameters.getEdgeLabels().size() > 0) {
+            edgeLabels = parameters.getEdgeLabels().stream()
+                .map(edgeLabel -> new Text(getNameSubstitutionStrategy().deflate(edgeLabel)))
+                .collect(Collectors.toSet());
+        }
+
+        // properties are only scanned when the fetch hints include them
+        List<IteratorPropertyPredicate> propertyPredicates = new ArrayList<>();
+        if (fetchHints.isIncludeProperties()) {
+            for (QueryBase.HasContainer hasContainer : parameters.getHasContainers()) {
+                IteratorPropertyPredicate propertyPredicate = toIteratorPropertyPredicate(hasContainer);
+                if (propertyPredicate != null) {
+                    propertyPredicates.add(propertyPredicate);
+                }
+            }
+        }
+
+        if (edgeLabels == null && propertyPredicates.isEmpty()) {
+            return null;
+        }
+        return new IteratorElementFilter(edgeLabels, propertyPredicates, getVertexiumSerializer() instanceof JavaVertexiumSerializer);
+    }
+
+    private IteratorPropertyPredicate toIteratorPropertyPredicate(QueryBase.HasContainer hasContainer) {
+        Iterable<String> keys;
+        IteratorPropertyPredicate.Compare compare;
+        Object value = null;
+        if (hasContainer instanceof QueryBase.HasPropertyContainer) {
+            keys = ((QueryBase.HasPropertyContainer) hasContainer).getKeys();
+            compare = IteratorPropertyPredicate.Compare.EXISTS;
+        } else if (hasContainer instanceof QueryBase.HasValueContainer) {
+            QueryBase.HasValueContainer hasValueContainer = (QueryBase.HasValueContainer) hasContainer;
+            keys = hasValueContainer.getKeys();
+            compare = toIteratorCompare(hasValueContainer.predicate);
+            if (compare == null) {
+                return null;
+            }
+            // values of other types are compared on the client, the iterator still checks that the property exists
+            if (IteratorPropertyPredicate.isSupportedValue(hasValueContainer.value)) {
+                value = hasValueContainer.value;
+            } else {
+                compare = IteratorPropertyPredicate.Compare.EXISTS;
+            }
+        } else {
+            return null;
+        }
+
+        Set<ByteSequence> propertyNames = new HashSet<>();
+        for (String key : keys) {
+            // element id, edge label and other reserved names are not stored as property columns
+            if (key.startsWith("__")) {
+                return null;
+            }
+            propertyNames.add(new ArrayByteSequence(getNameSubstitutionStrategy().deflate(key)));
+        }
+        return new IteratorPropertyPredicate(propertyNames, compare, value);
+    }
+
+    private static IteratorPropertyPredicate.Compare toIteratorCompare(org.vertexium.query.Predicate predicate) {
+        if (!(predicate instanceof Compare)) {
+            return null;
+        }
+        switch ((Compare) predicate) {
+            case EQUAL:
+                return IteratorPropertyPredicate.Compare.EQUAL;
+            case GREATER_THAN:
+                return IteratorPropertyPredicate.Compare.GREATER_THAN;
+            case GREATER_THAN_EQUAL:
+                return IteratorPropertyPredicate.Compare.GREATER_THAN_EQUAL;
+            case LESS_THAN:
+                return IteratorPropertyPredicate.Compare.LESS_THAN;
+            case LESS_THAN_EQUAL:
+                return IteratorPropertyPredicate.Compare.LESS_THAN_EQUAL;
+            case STARTS_WITH:
+            case RANGE:
+                return IteratorPropertyPredicate.Compare.EXISTS;
+            default:
+                return null;
+        }
+    }
+
     @Override
     public void deleteEdge(Edge edge, Authorizations authorizations) {
         deleteElements(Stream.of(edge), authorizations);
@@ -1782,7 +2167,13 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
     }
 
     private void flushWritersAndSuper() {
+        if (elementCounts != null) {
+            elementCounts.flush();
+        }
         flushWriter(this.batchWriter);
+        if (elementCache != null) {
+            elementCache.flushed();
+        }
         super.flush();
     }
 
@@ -1814,6 +2205,15 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
             super.shutdown();
             streamingPropertyValueStorageStrategy.close();
             this.graphMetadataStore.close();
+            if (this.elementCache != null) {
+                this.elementCache.close();
+            }
+            if (this.elementCounts != null) {
+                this.elementCounts.close();
+            }
+            this.deleteElementsExecutor.shutdown();
+            this.asyncReadExecutor.shutdown();
+            this.getElementsByIdExecutor.shutdown();
             this.curatorFramework.close();
             this.batchWriter.close();
         } catch (Exception ex) {
@@ -1821,6 +2221,11 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
         }
     }
 
+    @Override
+    public Executor getAsyncReadExecutor() {
+        return asyncReadExecutor;
+    }
+
     public VertexiumSerializer getVertexiumSerializer() {
         return vertexiumSerializer;
     }
@@ -1837,10 +2242,19 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
                 return null;
             }
 
+            AccumuloElementCache.Load elementCacheLoad = null;
+            if (elementCache != null && endTime == null) {
+                Map.Entry<Key, Value> cachedRow = elementCache.get(ElementType.VERTEX, vertexId, fetchHints, authorizations);
+                if (cachedRow != null) {
+                    return createVertexFromVertexIteratorValue(cachedRow.getKey(), cachedRow.getValue(), fetchHints, authorizations);
+                }
+                elementCacheLoad = elementCache.startLoad(ElementType.VERTEX, Collections.singletonList(vertexId), fetchHints, authorizations);
+            }
+
             Span trace = Trace.start("getVertex");
             trace.data("vertexId", vertexId);
             traceDataFetchHints(trace, fetchHints);
-            return singleOrDefault(getVerticesInRange(trace, new org.apache.accumulo.core.data.Range(vertexId), fetchHints, endTime, authorizations), null);
+            return singleOrDefault(getVerticesInRange(trace, new org.apache.accumulo.core.data.Range(vertexId), fetchHints, endTime, authorizations, elementCacheLoad), null);
         } catch (IllegalStateException ex) {
             throw new VertexiumException("Failed to find vertex with id: " + vertexId, ex);
         } catch (RuntimeException ex) {
@@ -1851,6 +2265,113 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
         }
     }
 
+    /**
+     * Gets a page of the edge infos of a vertex ordered by edge id. Only the page and the total number of matching
+     * edge infos are sent from the tablet servers, so this is much cheaper than fetching a vertex with many edges
+     * with edge refs.
+     *
+     * @return the page or null if the vertex was not found
+     */
+    public EdgeInfoPage getEdgeInfoPage(
+        String vertexId,
+        Direction direction,
+        String[] labels,
+        String startAfterEdgeId,
+        int limit,
+        Authorizations authorizations
+    ) {
+        Span trace = Trace.start("getEdgeInfoPage");
+        trace.data("vertexId", vertexId);
+        try {
+            FetchHints fetchHints = FetchHints.EDGE_REFS;
+            ScannerBase scanner = createElementScanner(
+                fetchHints,
+                ElementType.VERTEX,
+                1,
+                null,
+                null,
+                Collections.singletonList(RangeUtils.createRangeFromString(vertexId)),
+                false,
+                authorizations
+            );
+            try {
+                IteratorSetting settings = new IteratorSetting(
+                    1000,
+                    VertexEdgeInfoPageIterator.class.getSimpleName(),
+                    VertexEdgeInfoPageIterator.class
+                );
+                VertexEdgeInfoPageIterator.setFetchHints(settings, toIteratorFetchHints(fetchHints));
+                VertexEdgeInfoPageIterator.setAuthorizations(settings, authorizations.getAuthorizations());
+                VertexEdgeInfoPageIterator.setDirections(settings, toIteratorDirections(direction));
+                if (labels != null) {
+                    // labels are compared on the tablet servers where they are stored deflated
+                    VertexEdgeInfoPageIterator.setLabels(
+                        settings,
+                        Arrays.stream(labels).map(getNameSubstitutionStrategy()::deflate).collect(Collectors.toSet())
+                    );
+                }
+                VertexEdgeInfoPageIterator.setStartAfterEdgeId(settings, startAfterEdgeId);
+                VertexEdgeInfoPageIterator.setLimit(settings, limit);
+                scanner.addScanIterator(settings);
+
+                Iterator<Map.Entry<Key, Value>> it = scanner.iterator();
+                if (!it.hasNext()) {
+                    return null;
+                }
+                Map.Entry<Key, Value> row = it.next();
+                logLargeRow(row.getKey(), row.getValue());
+                VertexEdgeInfoPageIterator.Page page = VertexEdgeInfoPageIterator.decodeValue(row.getValue());
+                List<EdgeInfo> edgeInfos = page.getEntries().stream()
+                    .map(this::pageEntryToEdgeInfo)
+                    .collect(Collectors.toList());
+                return new EdgeInfoPage(edgeInfos, page.getTotalCount(), page.hasMore());
+            } finally {
+                scanner.close();
+            }
+        } finally {
+            trace.stop();
+        }
+    }
+
+    private static Set<org.vertexium.accumulo.iterator.model.Direction> toIteratorDirections(Direction direction) {
+        switch (direction) {
+            case OUT:
+                return EnumSet.of(org.vertexium.accumulo.iterator.model.Direction.OUT);
+            case IN:
+                return EnumSet.of(org.vertexium.accumulo.iterator.model.Direction.IN);
+            case BOTH:
+                return EnumSet.allOf(org.vertexium.accumulo.iterator.model.Direction.class);
+            default:
+                throw new VertexiumException("Unexpected direction: " + direction);
+        }
+    }
+
+    private EdgeInfo pageEntryToEdgeInfo(VertexEdgeInfoPageIterator.Page.Entry entry) {
+        String label = getNameSubstitutionStrategy().inflate(entry.getLabel());
+        Direction direction = entry.getDirection() == org.vertexium.accumulo.iterator.model.Direction.OUT ? Direction.OUT : Direction.IN;
+        return new EdgeInfo() {
+            @Override
+            public String getEdgeId() {
+                return entry.getEdgeId();
+            }
+
+            @Override
+            public String getLabel() {
+                return label;
+            }
+
+            @Override
+            public String getVertexId() {
+                return entry.getVertexId();
+            }
+
+            @Override
+            public Direction getDirection() {
+                return direction;
+            }
+        };
+    }
+
     @Override
     public Iterable<Vertex> getVerticesWithPrefix(String vertexIdPrefix, FetchHints fetchHints, Long endTime, Authorizations authorizations) {
         Span trace = Trace.start("getVerticesWithPrefix");
@@ -1946,6 +2467,20 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
         Collection<org.apache.accumulo.core.data.Range> ranges,
         boolean useVertexiumElementIterators,
         Authorizations authorizations
+    ) throws VertexiumException {
+        return createElementScanner(fetchHints, elementType, maxVersions, startTime, endTime, ranges, useVertexiumElementIterators, null, authorizations);
+    }
+
+    private ScannerBase createElementScanner(
+        FetchHints fetchHints,
+        ElementType elementType,
+        Integer maxVersions,
+        Long startTime,
+        Long endTime,
+        Collection<org.apache.accumulo.core.data.Range> ranges,
+        boolean useVertexiumElementIterators,
+        IteratorElementFilter elementFilter,
+        Authorizations authorizations
     ) throws VertexiumException {
         try {
             String tableName;
@@ -1997,6 +2532,9 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
                     VertexIterator.setFetchHints(vertexIteratorSettings, toIteratorFetchHints(fetchHints));
                     VertexIterator.setAuthorizations(vertexIteratorSettings, authorizations.getAuthorizations());
                     VertexIterator.setCompressTransfer(vertexIteratorSettings, compressIteratorTransfers);
+                    if (elementFilter != null) {
+                        VertexIterator.setElementFilter(vertexIteratorSettings, elementFilter);
+                    }
                     scanner.addScanIterator(vertexIteratorSettings);
                 } else if (elementType == ElementType.EDGE) {
                     IteratorSetting edgeIteratorSettings = new IteratorSetting(
@@ -2007,6 +2545,9 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
                     EdgeIterator.setFetchHints(edgeIteratorSettings, toIteratorFetchHints(fetchHints));
                     EdgeIterator.setAuthorizations(edgeIteratorSettings, authorizations.getAuthorizations());
                     EdgeIterator.setCompressTransfer(edgeIteratorSettings, compressIteratorTransfers);
+                    if (elementFilter != null) {
+                        EdgeIterator.setElementFilter(edgeIteratorSettings, elementFilter);
+                    }
                     scanner.addScanIterator(edgeIteratorSettings);
                 } else {
                     throw new VertexiumException("Unexpected element type: " + elementType);
@@ -2125,7 +2666,7 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
         return scanner;
     }
 
-    private Scanner createScanner(
+    Scanner createScanner(
         String tableName,
         org.apache.accumulo.core.data.Range range,
         Authorizations authorizations
@@ -2237,9 +2778,24 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
 
     @Override
     public Edge getEdge(String edgeId, FetchHints fetchHints, Long endTime, Authorizations authorizations) {
+        AccumuloElementCache.Load elementCacheLoad = null;
+        if (elementCache != null && endTime == null && edgeId != null) {
+            Map.Entry<Key, Value> cachedRow = elementCache.get(ElementType.EDGE, edgeId, fetchHints, authorizations);
+            if (cachedRow != null) {
+                return createEdgeFromEdgeIteratorValue(cachedRow.getKey(), cachedRow.getValue(), fetchHints, authorizations);
+            }
+            elementCacheLoad = elementCache.startLoad(ElementType.EDGE, Collections.singletonList(edgeId), fetchHints, authorizations);
+        }
+
         Span trace = Trace.start("getEdge");
         trace.data("edgeId", edgeId);
         try {
+            if (elementCacheLoad != null) {
+                trace.data("startId", edgeId);
+                trace.data("endId", edgeId);
+                org.apache.accumulo.core.data.Range range = new org.apache.accumulo.core.data.Range(new Key(edgeId), new Key(edgeId).followingKey(PartialKey.ROW));
+                return singleOrDefault(getEdgesInRange(trace, range, fetchHints, endTime, authorizations, elementCacheLoad), null);
+            }
             return singleOrDefault(getEdgesInRange(trace, edgeId, edgeId, fetchHints, endTime, authorizations), null);
         } catch (IllegalStateException ex) {
             throw new VertexiumException("Failed to find edge with id: " + edgeId, ex);
@@ -2316,6 +2872,14 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
         return tableNamePrefix.concat("_m");
     }
 
+    public static String getCountsTableName(String tableNamePrefix) {
+        return tableNamePrefix.concat("_c");
+    }
+
+    public static String getChangeLogTableName(String tableNamePrefix) {
+        return tableNamePrefix.concat("_cl");
+    }
+
     public String getVerticesTableName() {
         return verticesTableName;
     }
@@ -2344,6 +2908,14 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
         return metadataTableName;
     }
 
+    public String getCountsTableName() {
+        return countsTableName;
+    }
+
+    public String getChangeLogTableName() {
+        return changeLogTableName;
+    }
+
     public StreamingPropertyValueStorageStrategy getStreamingPropertyValueStorageStrategy() {
         return streamingPropertyValueStorageStrategy;
     }
@@ -2356,6 +2928,134 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
         return connector;
     }
 
+    /**
+     * Pre-splits the tables on the shard prefixes of the graph's {@link ShardedIdGenerator}, see
+     * {@link #preSplitTables(Collection)}.
+     */
+    public void preSplitTables() {
+        if (!(getIdGenerator() instanceof ShardedIdGenerator)) {
+            throw new VertexiumException("Pre-splitting tables requires " + ShardedIdGenerator.class.getName() + " but found " + getIdGenerator().getClass().getName());
+        }
+        preSplitTables(((ShardedIdGenerator) getIdGenerator()).getShardPrefixes());
+    }
+
+    /**
+     * Splits the vertices, edges and extended data tables so each id prefix starts its own tablet, so writes of ids
+     * spread over the prefixes are spread over the tablet servers from the first mutation. No split is added on the
+     * lowest prefix since every id sorts at or after it, except in the extended data table where it separates the
+     * vertex rows from the edge rows. Existing splits are kept.
+     */
+    public void preSplitTables(Collection<String> idPrefixes) {
+        SortedSet<Text> elementSplits = new TreeSet<>();
+        SortedSet<Text> extendedDataSplits = new TreeSet<>();
+        boolean lowestPrefix = true;
+        for (String idPrefix : new TreeSet<>(idPrefixes)) {
+            if (!lowestPrefix) {
+                elementSplits.add(new Text(idPrefix));
+                extendedDataSplits.add(KeyHelper.createExtendedDataRowKey(ElementType.VERTEX, idPrefix, null, null));
+            }
+            extendedDataSplits.add(KeyHelper.createExtendedDataRowKey(ElementType.EDGE, idPrefix, null, null));
+            lowestPrefix = false;
+        }
+        List<String> elementTableNames = Lists.newArrayList(getVerticesTableName(), getEdgesTableName());
+        if (isHistoryInSeparateTable()) {
+            elementTableNames.add(getHistoryVerticesTableName());
+            elementTableNames.add(getHistoryEdgesTableName());
+        }
+        for (String tableName : elementTableNames) {
+            addSplits(tableName, elementSplits);
+        }
+        addSplits(getExtendedDataTableName(), extendedDataSplits);
+    }
+
+    private void addSplits(String tableName, SortedSet<Text> splits) {
+        try {
+            LOGGER.info("adding %d splits to table: %s", splits.size(), tableName);
+            connector.tableOperations().addSplits(tableName, splits);
+        } catch (Exception ex) {
+            throw new VertexiumException("Could not add splits to table: " + tableName, ex);
+        }
+    }
+
+    /**
+     * Reindexes all vertices and then all edges like {@link #reindex(Authorizations)}, but reads each split of the
+     * vertices and edges tables on its own worker thread and streams it into the search index. Ranges reported as
+     * completed by a previous run can be skipped, see {@link AccumuloReindexOptions}.
+     */
+    public void reindex(AccumuloReindexOptions options, Authorizations authorizations) {
+        reindexRanges(ElementType.VERTEX, toList(listVerticesTableSplits()), options, authorizations);
+        reindexRanges(ElementType.EDGE, toList(listEdgesTableSplits()), options, authorizations);
+    }
+
+    /**
+     * Creates a loader that writes elements to sorted files and bulk imports them, see {@link AccumuloBulkLoader}.
+     */
+    public AccumuloBulkLoader createBulkLoader(AccumuloBulkLoadOptions options) {
+        return new AccumuloBulkLoader(this, options);
+    }
+
+    private void reindexRanges(
+        ElementType elementType,
+        List<IdRange> ranges,
+        AccumuloReindexOptions options,
+        Authorizations authorizations
+    ) {
+        List<IdRange> rangesToReindex = ranges.stream()
+            .filter(range -> !options.isRangeCompleted(elementType, range))
+            .collect(Collectors.toList());
+        AtomicInteger completedRangeCount = new AtomicInteger(ranges.size() - rangesToReindex.size());
+        reportReindexProgress(elementType, options, completedRangeCount.get(), ranges.size());
+        if (rangesToReindex.size() == 0) {
+            return;
+        }
+
+        int threadCount = Math.min(options.getThreadCount(), rangesToReindex.size());
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount, new NamingThreadFactory("vertexium-reindex-" + elementType.name().toLowerCase()));
+        try {
+            Map<IdRange, Future<?>> futures = new LinkedHashMap<>();
+            for (IdRange range : rangesToReindex) {
+                futures.put(range, executor.submit(() -> {
+                    Iterable<? extends Element> elements;
+                    if (elementType == ElementType.VERTEX) {
+                        elements = getVerticesInRange(range, getDefaultFetchHints(), null, authorizations);
+                    } else {
+                        elements = getEdgesInRange(range, getDefaultFetchHints(), null, authorizations);
+                    }
+                    getSearchIndex().addElements(this, elements, authorizations);
+                    // the range may only be skipped by a later run once its elements are durable in the index
+                    getSearchIndex().flush(this);
+                    options.rangeCompleted(elementType, range);
+                    reportReindexProgress(elementType, options, completedRangeCount.incrementAndGet(), ranges.size());
+                }));
+            }
+            for (Map.Entry<IdRange, Future<?>> future : futures.entrySet()) {
+                try {
+                    future.getValue().get();
+                } catch (ExecutionException ex) {
+                    throw new VertexiumException("Could not reindex " + elementType + " range: " + future.getKey(), ex.getCause());
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new VertexiumException("Interrupted while reindexing " + elementType + " ranges", ex);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void reportReindexProgress(ElementType elementType, AccumuloReindexOptions options, int completedRangeCount, int rangeCount) {
+        ProgressCallback progressCallback = options.getProgressCallback();
+        if (progressCallback == null) {
+            return;
+        }
+        ProgressCallback.Step step = elementType == ElementType.VERTEX
+            ? ProgressCallback.Step.REINDEXING_VERTICES
+            : ProgressCallback.Step.REINDEXING_EDGES;
+        synchronized (progressCallback) {
+            progressCallback.progress((double) completedRangeCount / (double) rangeCount, step, completedRangeCount, rangeCount);
+        }
+    }
+
     public Iterable<IdRange> listVerticesTableSplits() {
         return listTableSplits(getVerticesTableName());
     }
@@ -2424,6 +3124,9 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
             Mutation m = new Mutation(elementRowKey);
             if (elementMutationBuilder.alterElementVisibility(m, element, newVisibility, data)) {
                 addMutations(element, m);
+                if (elementCounts != null) {
+                    elementCounts.elementVisibilityChanged(ElementType.getTypeFromElement(element), element.getId(), element.getVisibility(), newVisibility);
+                }
             }
             element.setVisibility(newVisibility);
         } finally {
@@ -2513,7 +3216,7 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
         return authorizations.canRead(visibility);
     }
 
-    private boolean isHistoryInSeparateTable() {
+    boolean isHistoryInSeparateTable() {
         return historyInSeparateTable;
     }
 
@@ -2529,6 +3232,12 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
                 this.connector.tableOperations().deleteRows(getHistoryEdgesTableName(), null, null);
                 this.connector.tableOperations().deleteRows(getHistoryVerticesTableName(), null, null);
             }
+            if (elementCounts != null) {
+                this.connector.tableOperations().deleteRows(getCountsTableName(), null, null);
+            }
+            if (changeLog != null) {
+                this.connector.tableOperations().deleteRows(getChangeLogTableName(), null, null);
+            }
             getSearchIndex().truncate(this);
         } catch (Exception ex) {
             throw new VertexiumException("Could not delete rows", ex);
@@ -2542,6 +3251,8 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
             dropTableIfExists(getEdgesTableName());
             dropTableIfExists(getVerticesTableName());
             dropTableIfExists(getMetadataTableName());
+            dropTableIfExists(getCountsTableName());
+            dropTableIfExists(getChangeLogTableName());
             if (isHistoryInSeparateTable()) {
                 dropTableIfExists(getHistoryEdgesTableName());
                 dropTableIfExists(getHistoryVerticesTableName());
@@ -2968,6 +3679,29 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
         final FetchHints fetchHints,
         final Long endTime,
         final Authorizations authorizations
+    ) {
+        return getVerticesInRange(trace, range, fetchHints, endTime, authorizations, null);
+    }
+
+    private CloseableIterable<Vertex> getVerticesInRange(
+        final Span trace,
+        final org.apache.accumulo.core.data.Range range,
+        final FetchHints fetchHints,
+        final Long endTime,
+        final Authorizations authorizations,
+        final AccumuloElementCache.Load elementCacheLoad
+    ) {
+        return getVerticesInRange(trace, range, fetchHints, endTime, authorizations, elementCacheLoad, null);
+    }
+
+    private CloseableIterable<Vertex> getVerticesInRange(
+        final Span trace,
+        final org.apache.accumulo.core.data.Range range,
+        final FetchHints fetchHints,
+        final Long endTime,
+        final Authorizations authorizations,
+        final AccumuloElementCache.Load elementCacheLoad,
+        final IteratorElementFilter elementFilter
     ) {
         final long timerStartTime = System.currentTimeMillis();
 
@@ -2981,13 +3715,26 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
 
             @Override
             protected Vertex convert(Map.Entry<Key, Value> next) {
+                if (elementCacheLoad != null) {
+                    elementCacheLoad.put(next.getKey(), next.getValue());
+                }
                 return createVertexFromVertexIteratorValue(next.getKey(), next.getValue(), fetchHints, authorizations);
             }
 
             @Override
             protected Iterator<Map.Entry<Key, Value>> createIterator() {
                 try {
-                    scanner = createVertexScanner(fetchHints, SINGLE_VERSION, null, endTime, range, authorizations);
+                    scanner = createElementScanner(
+                        fetchHints,
+                        ElementType.VERTEX,
+                        SINGLE_VERSION,
+                        null,
+                        endTime,
+                        Lists.newArrayList(range),
+                        true,
+                        elementFilter,
+                        authorizations
+                    );
                     return scanner.iterator();
                 } catch (RuntimeException ex) {
                     if (ex.getCause() instanceof AccumuloSecurityException) {
@@ -3022,16 +3769,69 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
     }
 
     @Override
-    public CloseableIterable<Vertex> getVertices(Iterable<String> ids, final FetchHints fetchHints, final Long endTime, final Authorizations authorizations) {
+    public CloseableIterable<Vertex> getVertices(Iterable<String> ids, FetchHints fetchHints, Long endTime, Authorizations authorizations) {
+        return getElementsById(ids, false, batchIds -> getVerticesBatch(batchIds, fetchHints, endTime, authorizations));
+    }
+
+    @Override
+    public List<Vertex> getVerticesInOrder(Iterable<String> ids, FetchHints fetchHints, Authorizations authorizations) {
+        return IterableUtils.toList(getVerticesInOrder(ids, fetchHints, null, authorizations));
+    }
+
+    /**
+     * Same as {@link #getVerticesInOrder(Iterable, FetchHints, Authorizations)} except the vertices are returned as
+     * they are read instead of being collected into a list.
+     */
+    public CloseableIterable<Vertex> getVerticesInOrder(Iterable<String> ids, FetchHints fetchHints, Long endTime, Authorizations authorizations) {
+        return getElementsById(ids, true, batchIds -> getVerticesBatch(batchIds, fetchHints, endTime, authorizations));
+    }
+
+    /**
+     * Scans small id lists directly and larger or lazy ones in batches of
+     * {@link AccumuloGraphConfiguration#getGetElementsByIdBatchSize()} ids.
+     */
+    private <T extends Element> CloseableIterable<T> getElementsById(
+        Iterable<String> ids,
+        boolean preserveOrder,
+        Function<List<String>, CloseableIterable<T>> batchLoader
+    ) {
+        int batchSize = getConfiguration().getGetElementsByIdBatchSize();
+        if (!preserveOrder && ids instanceof Collection && ((Collection<?>) ids).size() <= batchSize) {
+            return batchLoader.apply(IterableUtils.toList(ids));
+        }
+        return new BatchedElementIterable<>(
+            ids,
+            batchSize,
+            getConfiguration().getGetElementsByIdBatchesInFlight(),
+            preserveOrder,
+            batchLoader::apply,
+            getElementsByIdExecutor
+        );
+    }
+
+    private CloseableIterable<Vertex> getVerticesBatch(List<String> ids, FetchHints fetchHints, Long endTime, Authorizations authorizations) {
         final List<org.apache.accumulo.core.data.Range> ranges = new ArrayList<>();
+        final List<Map.Entry<Key, Value>> cachedRows = new ArrayList<>();
+        final List<String> uncachedIds = new ArrayList<>();
         int idCount = 0;
         for (String id : ids) {
-            ranges.add(RangeUtils.createRangeFromString(id));
+            Map.Entry<Key, Value> cachedRow = elementCache != null && endTime == null
+                ? elementCache.get(ElementType.VERTEX, id, fetchHints, authorizations)
+                : null;
+            if (cachedRow == null) {
+                ranges.add(RangeUtils.createRangeFromString(id));
+                uncachedIds.add(id);
+            } else {
+                cachedRows.add(cachedRow);
+            }
             idCount++;
         }
-        if (ranges.size() == 0) {
+        if (ranges.size() == 0 && cachedRows.size() == 0) {
             return new EmptyClosableIterable<>();
         }
+        final AccumuloElementCache.Load elementCacheLoad = elementCache != null && endTime == null && uncachedIds.size() > 0
+            ? elementCache.startLoad(ElementType.VERTEX, uncachedIds, fetchHints, authorizations)
+            : null;
 
         final Span trace = Trace.start("getVertices");
         trace.data("idCount", Integer.toString(idCount));
@@ -3048,20 +3848,28 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
 
             @Override
             protected Vertex convert(Map.Entry<Key, Value> row) {
+                if (elementCacheLoad != null) {
+                    elementCacheLoad.put(row.getKey(), row.getValue());
+                }
                 return createVertexFromVertexIteratorValue(row.getKey(), row.getValue(), fetchHints, authorizations);
             }
 
             @Override
             protected Iterator<Map.Entry<Key, Value>> createIterator() {
+                if (ranges.size() == 0) {
+                    return cachedRows.iterator();
+                }
                 Long startTime = null;
                 scanner = createVertexScanner(fetchHints, 1, startTime, endTime, ranges, authorizations);
-                return scanner.iterator();
+                return Iterators.concat(cachedRows.iterator(), scanner.iterator());
             }
 
             @Override
             public void close() {
                 super.close();
-                scanner.close();
+                if (scanner != null) {
+                    scanner.close();
+                }
                 trace.stop();
                 GRAPH_LOGGER.logEndIterator(System.currentTimeMillis() - timerStartTime);
             }
@@ -3070,15 +3878,39 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
 
     @Override
     public CloseableIterable<Edge> getEdges(Iterable<String> ids, FetchHints fetchHints, Long endTime, Authorizations authorizations) {
+        return getElementsById(ids, false, batchIds -> getEdgesBatch(batchIds, fetchHints, endTime, authorizations));
+    }
+
+    /**
+     * Gets edges in the order of their ids, returning them as they are read.
+     */
+    public CloseableIterable<Edge> getEdgesInOrder(Iterable<String> ids, FetchHints fetchHints, Long endTime, Authorizations authorizations) {
+        return getElementsById(ids, true, batchIds -> getEdgesBatch(batchIds, fetchHints, endTime, authorizations));
+    }
+
+    private CloseableIterable<Edge> getEdgesBatch(List<String> ids, FetchHints fetchHints, Long endTime, Authorizations authorizations) {
         final List<org.apache.accumulo.core.data.Range> ranges = new ArrayList<>();
+        final List<Map.Entry<Key, Value>> cachedRows = new ArrayList<>();
+        final List<String> uncachedIds = new ArrayList<>();
         int idCount = 0;
         for (String id : ids) {
-            ranges.add(RangeUtils.createRangeFromString(id));
+            Map.Entry<Key, Value> cachedRow = elementCache != null && endTime == null
+                ? elementCache.get(ElementType.EDGE, id, fetchHints, authorizations)
+                : null;
+            if (cachedRow == null) {
+                ranges.add(RangeUtils.createRangeFromString(id));
+                uncachedIds.add(id);
+            } else {
+                cachedRows.add(cachedRow);
+            }
             idCount++;
         }
-        if (ranges.size() == 0) {
+        if (ranges.size() == 0 && cachedRows.size() == 0) {
             return new EmptyClosableIterable<>();
         }
+        final AccumuloElementCache.Load elementCacheLoad = elementCache != null && endTime == null && uncachedIds.size() > 0
+            ? elementCache.startLoad(ElementType.EDGE, uncachedIds, fetchHints, authorizations)
+            : null;
 
         final Span trace = Trace.start("getEdges");
         trace.data("idCount", Integer.toString(idCount));
@@ -3095,20 +3927,28 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
 
             @Override
             protected Edge convert(Map.Entry<Key, Value> row) {
+                if (elementCacheLoad != null) {
+                    elementCacheLoad.put(row.getKey(), row.getValue());
+                }
                 return createEdgeFromEdgeIteratorValue(row.getKey(), row.getValue(), fetchHints, authorizations);
             }
 
             @Override
             protected Iterator<Map.Entry<Key, Value>> createIterator() {
+                if (ranges.size() == 0) {
+                    return cachedRows.iterator();
+                }
                 Long startTime = null;
                 scanner = createEdgeScanner(fetchHints, 1, startTime, endTime, ranges, authorizations);
-                return scanner.iterator();
+                return Iterators.concat(cachedRows.iterator(), scanner.iterator());
             }
 
             @Override
             public void close() {
                 super.close();
-                scanner.close();
+                if (scanner != null) {
+                    scanner.close();
+                }
                 trace.stop();
                 GRAPH_LOGGER.logEndIterator(System.currentTimeMillis() - timerStartTime);
             }
@@ -3175,6 +4015,29 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
         FetchHints fetchHints,
         Long endTime,
         Authorizations authorizations
+    ) throws VertexiumException {
+        return getEdgesInRange(trace, range, fetchHints, endTime, authorizations, null);
+    }
+
+    private CloseableIterable<Edge> getEdgesInRange(
+        Span trace,
+        org.apache.accumulo.core.data.Range range,
+        FetchHints fetchHints,
+        Long endTime,
+        Authorizations authorizations,
+        AccumuloElementCache.Load elementCacheLoad
+    ) throws VertexiumException {
+        return getEdgesInRange(trace, range, fetchHints, endTime, authorizations, elementCacheLoad, null);
+    }
+
+    private CloseableIterable<Edge> getEdgesInRange(
+        Span trace,
+        org.apache.accumulo.core.data.Range range,
+        FetchHints fetchHints,
+        Long endTime,
+        Authorizations authorizations,
+        AccumuloElementCache.Load elementCacheLoad,
+        IteratorElementFilter elementFilter
     ) throws VertexiumException {
         traceDataFetchHints(trace, fetchHints);
 
@@ -3190,12 +4053,25 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
 
             @Override
             protected Edge convert(Map.Entry<Key, Value> next) {
+                if (elementCacheLoad != null) {
+                    elementCacheLoad.put(next.getKey(), next.getValue());
+                }
                 return createEdgeFromEdgeIteratorValue(next.getKey(), next.getValue(), fetchHints, authorizations);
             }
 
             @Override
             protected Iterator<Map.Entry<Key, Value>> createIterator() {
-                scanner = createEdgeScanner(fetchHints, SINGLE_VERSION, null, endTime, range, authorizations);
+                scanner = createElementScanner(
+                    fetchHints,
+                    ElementType.EDGE,
+                    SINGLE_VERSION,
+                    null,
+                    endTime,
+                    Lists.newArrayList(range),
+                    true,
+                    elementFilter,
+                    authorizations
+                );
                 return scanner.iterator();
             }
 
@@ -3213,16 +4089,49 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex implements Traceable
 
     @Override
     public long getVertexCount(Authorizations authorizations) {
-        String tableName = getTableNameFromElementType(ElementType.VERTEX);
-        return getRowCountFromTable(tableName, AccumuloVertex.CF_SIGNAL, authorizations);
+        if (elementCounts != null) {
+            return elementCounts.getCount(ElementType.VERTEX, authorizations);
+        }
+        return getExactVertexCount(authorizations);
     }
 
     @Override
     public long getEdgeCount(Authorizations authorizations) {
+        if (elementCounts != null) {
+            return elementCounts.getCount(ElementType.EDGE, authorizations);
+        }
+        return getExactEdgeCount(authorizations);
+    }
+
+    /**
+     * Counts the vertices by scanning the vertices table, even if maintained counts are enabled.
+     */
+    public long getExactVertexCount(Authorizations authorizations) {
+        String tableName = getTableNameFromElementType(ElementType.VERTEX);
+        return getRowCountFromTable(tableName, AccumuloVertex.CF_SIGNAL, authorizations);
+    }
+
+    /**
+     * Counts the edges by scanning the edges table, even if maintained counts are enabled.
+     */
+    public long getExactEdgeCount(Authorizations authorizations) {
         String tableName = getTableNameFromElementType(ElementType.EDGE);
         return getRowCountFromTable(tableName, AccumuloEdge.CF_SIGNAL, authorizations);
     }
 
+    /**
+     * Corrects the maintained vertex and edge counts of the visibilities the authorizations can see by scanning the
+     * vertices and edges tables.
+     */
+    public void recountElements(Authorizations authorizations) {
+        if (elementCounts == null) {
+            throw new VertexiumException("Element counts are not enabled, set " + AccumuloGraphConfiguration.ELEMENT_COUNTS_ENABLED);
+        }
+        flush();
+        elementCounts.recount(ElementType.VERTEX, authorizations);
+        elementCounts.recount(ElementType.EDGE, authorizations);
+    }
+
     private long getRowCountFromTable(String tableName, Text signalColumn, Authorizations authorizations) {
         try {
             LOGGER.debug("BEGIN getRowCountFromTable(%s)", tableName);
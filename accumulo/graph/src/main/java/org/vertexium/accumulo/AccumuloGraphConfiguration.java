@@ -24,6 +24,7 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.SortedSet;
@@ -60,6 +61,28 @@ public class AccumuloGraphConfiguration extends GraphConfiguration {
     public static final String COMPRESS_ITERATOR_TRANSFERS = "compressIteratorTransfers";
     public static final String LARGE_VALUE_ERROR_THRESHOLD = "largeValueErrorThreshold";
     public static final String LARGE_VALUE_WARNING_THRESHOLD = "largeValueWarningThreshold";
+    public static final String ELEMENT_CACHE_ENABLED = "elementCache.enabled";
+    public static final String ELEMENT_CACHE_MAX_SIZE = "elementCache.maxSize";
+    public static final String ELEMENT_CACHE_TTL = "elementCache.ttl";
+    public static final String ELEMENT_CACHE_ZOOKEEPER_INVALIDATION_PATH = "elementCache.zookeeperInvalidationPath";
+    public static final String ELEMENT_COUNTS_ENABLED = "elementCounts.enabled";
+    public static final String CHANGE_LOG_ENABLED = "changeLog.enabled";
+    public static final String CHANGE_LOG_SHARD_COUNT = "changeLog.shardCount";
+    public static final String CHANGE_LOG_RETENTION = "changeLog.retention";
+    public static final String DELETE_ELEMENTS_BATCH_SIZE = "deleteElements.batchSize";
+    public static final String DELETE_ELEMENTS_THREAD_COUNT = "deleteElements.threadCount";
+    public static final String ASYNC_READ_THREAD_COUNT = "asyncRead.threadCount";
+    public static final String ASYNC_READ_QUEUE_SIZE = "asyncRead.queueSize";
+    public static final String GET_ELEMENTS_BY_ID_BATCH_SIZE = "getElementsById.batchSize";
+    public static final String GET_ELEMENTS_BY_ID_BATCHES_IN_FLIGHT = "getElementsById.batchesInFlight";
+    public static final String GET_ELEMENTS_BY_ID_THREAD_COUNT = "getElementsById.threadCount";
+    public static final String TABLE_LAYOUT_ENABLED = "tableLayout.enabled";
+    public static final String TABLE_LAYOUT_COMPRESSION_TYPE = "tableLayout.compressionType";
+    public static final String TABLE_LAYOUT_DATA_BLOCK_SIZE = "tableLayout.dataBlockSize";
+    public static final String TABLE_LAYOUT_INDEX_BLOCK_SIZE = "tableLayout.indexBlockSize";
+    public static final String PRE_SPLIT_TABLES = "preSplitTables";
+    public static final String SCAN_FILTERS_ENABLED = "scanFilters.enabled";
+    public static final String DEDUPLICATE_STREAMING_PROPERTY_VALUES = STREAMING_PROPERTY_VALUE_STORAGE_STRATEGY_PREFIX + ".deduplicate";
 
     public static final String DEFAULT_ACCUMULO_PASSWORD = "password";
     public static final String DEFAULT_ACCUMULO_USERNAME = "root";
@@ -84,6 +107,25 @@ public class AccumuloGraphConfiguration extends GraphConfiguration {
     public static final boolean DEFAULT_COMPRESS_ITERATOR_TRANSFERS = true;
     public static final int DEFAULT_LARGE_VALUE_ERROR_THRESHOLD = 500 * 1024 * 1024;
     public static final int DEFAULT_LARGE_VALUE_WARNING_THRESHOLD = 100 * 1024 * 1024;
+    public static final boolean DEFAULT_ELEMENT_CACHE_ENABLED = false;
+    public static final int DEFAULT_ELEMENT_CACHE_MAX_SIZE = 10000;
+    public static final String DEFAULT_ELEMENT_CACHE_TTL = "60s";
+    public static final String DEFAULT_ELEMENT_CACHE_ZOOKEEPER_INVALIDATION_PATH = "/vertexium/elementCacheInvalidation";
+    public static final boolean DEFAULT_ELEMENT_COUNTS_ENABLED = false;
+    public static final boolean DEFAULT_CHANGE_LOG_ENABLED = false;
+    public static final int DEFAULT_CHANGE_LOG_SHARD_COUNT = 16;
+    public static final String DEFAULT_CHANGE_LOG_RETENTION = "0ms";
+    public static final int DEFAULT_DELETE_ELEMENTS_BATCH_SIZE = 100;
+    public static final int DEFAULT_DELETE_ELEMENTS_THREAD_COUNT = 4;
+    public static final int DEFAULT_ASYNC_READ_THREAD_COUNT = 16;
+    public static final int DEFAULT_ASYNC_READ_QUEUE_SIZE = 1000;
+    public static final int DEFAULT_GET_ELEMENTS_BY_ID_BATCH_SIZE = 5000;
+    public static final int DEFAULT_GET_ELEMENTS_BY_ID_BATCHES_IN_FLIGHT = 2;
+    public static final int DEFAULT_GET_ELEMENTS_BY_ID_THREAD_COUNT = 8;
+    public static final boolean DEFAULT_TABLE_LAYOUT_ENABLED = false;
+    public static final boolean DEFAULT_PRE_SPLIT_TABLES = false;
+    public static final boolean DEFAULT_SCAN_FILTERS_ENABLED = true;
+    public static final boolean DEFAULT_DEDUPLICATE_STREAMING_PROPERTY_VALUES = false;
 
     public static final String[] HADOOP_CONF_FILENAMES = new String[]{
         "core-site.xml",
@@ -295,4 +337,182 @@ public class AccumuloGraphConfiguration extends GraphConfiguration {
     public int getLargeValueWarningThreshold() {
         return getInt(LARGE_VALUE_WARNING_THRESHOLD, DEFAULT_LARGE_VALUE_WARNING_THRESHOLD);
     }
+
+    /**
+     * If true, vertices and edges read by id are cached. See {@link #getElementCacheTtl()} for how long another
+     * graph's changes may go unnoticed.
+     */
+    public boolean isElementCacheEnabled() {
+        return getBoolean(ELEMENT_CACHE_ENABLED, DEFAULT_ELEMENT_CACHE_ENABLED);
+    }
+
+    /**
+     * The maximum number of vertices and of edges held in the element cache.
+     */
+    public int getElementCacheMaxSize() {
+        return getInt(ELEMENT_CACHE_MAX_SIZE, DEFAULT_ELEMENT_CACHE_MAX_SIZE);
+    }
+
+    /**
+     * How long an element stays in the element cache. This bounds how stale a cached element can be when it is
+     * changed by a process which does not publish invalidations, such as a bulk import.
+     */
+    public Duration getElementCacheTtl() {
+        return getDuration(ELEMENT_CACHE_TTL, DEFAULT_ELEMENT_CACHE_TTL);
+    }
+
+    /**
+     * The ZooKeeper node used to publish the ids of changed elements to other graphs with an element cache. Set to an
+     * empty string to disable publishing.
+     */
+    public String getElementCacheZookeeperInvalidationPath() {
+        return getString(ELEMENT_CACHE_ZOOKEEPER_INVALIDATION_PATH, DEFAULT_ELEMENT_CACHE_ZOOKEEPER_INVALIDATION_PATH);
+    }
+
+    /**
+     * If true, vertex and edge counts are maintained per visibility in a counts table as elements are created and
+     * deleted, and {@link AccumuloGraph#getVertexCount(org.vertexium.Authorizations)} and
+     * {@link AccumuloGraph#getEdgeCount(org.vertexium.Authorizations)} read them instead of scanning the tables.
+     */
+    public boolean isElementCountsEnabled() {
+        return getBoolean(ELEMENT_COUNTS_ENABLED, DEFAULT_ELEMENT_COUNTS_ENABLED);
+    }
+
+    /**
+     * If true, the vertices and edges changed by each mutation are logged in time order in a change log table, which
+     * {@link AccumuloGraph#getAllHistoricalEvents(org.vertexium.historicalEvent.HistoricalEventId, org.vertexium.HistoricalEventsFetchHints, org.vertexium.Authorizations)}
+     * reads instead of scanning every element.
+     */
+    public boolean isChangeLogEnabled() {
+        return getBoolean(CHANGE_LOG_ENABLED, DEFAULT_CHANGE_LOG_ENABLED);
+    }
+
+    /**
+     * The number of shards the change log table is split into. Must not be changed once the change log has entries.
+     */
+    public int getChangeLogShardCount() {
+        int shardCount = getInt(CHANGE_LOG_SHARD_COUNT, DEFAULT_CHANGE_LOG_SHARD_COUNT);
+        if (shardCount < 1) {
+            throw new VertexiumException("Invalid " + CHANGE_LOG_SHARD_COUNT + ": " + shardCount);
+        }
+        return shardCount;
+    }
+
+    /**
+     * How long change log entries are kept after they are written, the default of zero keeps them forever. Once
+     * entries are removed, reading all historical events only finds the events of elements changed since.
+     */
+    public Duration getChangeLogRetention() {
+        return getDuration(CHANGE_LOG_RETENTION, DEFAULT_CHANGE_LOG_RETENTION);
+    }
+
+    /**
+     * The number of elements fetched and deleted together by {@link AccumuloGraph#deleteElements}.
+     */
+    public int getDeleteElementsBatchSize() {
+        return getInt(DELETE_ELEMENTS_BATCH_SIZE, DEFAULT_DELETE_ELEMENTS_BATCH_SIZE);
+    }
+
+    /**
+     * The number of threads shared by all calls to {@link AccumuloGraph#deleteElements} to fetch elements and delete
+     * their rows, extended data and search index documents.
+     */
+    public int getDeleteElementsThreadCount() {
+        return getInt(DELETE_ELEMENTS_THREAD_COUNT, DEFAULT_DELETE_ELEMENTS_THREAD_COUNT);
+    }
+
+    /**
+     * The number of threads shared by all async reads, such as {@link AccumuloGraph#getVertexAsync}, to run their
+     * scans.
+     */
+    public int getAsyncReadThreadCount() {
+        return getInt(ASYNC_READ_THREAD_COUNT, DEFAULT_ASYNC_READ_THREAD_COUNT);
+    }
+
+    /**
+     * The number of async reads which can wait for a thread. Async reads started while the queue is full complete
+     * exceptionally with a {@link java.util.concurrent.RejectedExecutionException}.
+     */
+    public int getAsyncReadQueueSize() {
+        return getInt(ASYNC_READ_QUEUE_SIZE, DEFAULT_ASYNC_READ_QUEUE_SIZE);
+    }
+
+    /**
+     * The maximum number of ids scanned together by {@link AccumuloGraph#getVertices(Iterable, org.vertexium.FetchHints, Long, org.vertexium.Authorizations)}
+     * and {@link AccumuloGraph#getEdges(Iterable, org.vertexium.FetchHints, Long, org.vertexium.Authorizations)}.
+     * Larger id lists are read lazily and scanned in batches of this size.
+     */
+    public int getGetElementsByIdBatchSize() {
+        return getInt(GET_ELEMENTS_BY_ID_BATCH_SIZE, DEFAULT_GET_ELEMENTS_BY_ID_BATCH_SIZE);
+    }
+
+    /**
+     * The number of batches of ids scanned ahead of the batch being consumed when getting elements by id in batches.
+     */
+    public int getGetElementsByIdBatchesInFlight() {
+        return getInt(GET_ELEMENTS_BY_ID_BATCHES_IN_FLIGHT, DEFAULT_GET_ELEMENTS_BY_ID_BATCHES_IN_FLIGHT);
+    }
+
+    /**
+     * The number of threads shared by all batched gets of elements by id to scan their batches.
+     */
+    public int getGetElementsByIdThreadCount() {
+        return getInt(GET_ELEMENTS_BY_ID_THREAD_COUNT, DEFAULT_GET_ELEMENTS_BY_ID_THREAD_COUNT);
+    }
+
+    /**
+     * If true, {@link AccumuloGraph#create(AccumuloGraphConfiguration)} applies {@link AccumuloTableLayout} (row bloom
+     * filters and locality groups) to the graph tables.
+     */
+    public boolean isTableLayoutEnabled() {
+        return getBoolean(TABLE_LAYOUT_ENABLED, DEFAULT_TABLE_LAYOUT_ENABLED);
+    }
+
+    /**
+     * The file compression type (for example snappy or gz) set by {@link AccumuloTableLayout}, or null to keep the
+     * table setting.
+     */
+    public String getTableLayoutCompressionType() {
+        return getString(TABLE_LAYOUT_COMPRESSION_TYPE, null);
+    }
+
+    /**
+     * The compressed data block size (for example 64K) set by {@link AccumuloTableLayout}, or null to keep the table
+     * setting.
+     */
+    public String getTableLayoutDataBlockSize() {
+        return getString(TABLE_LAYOUT_DATA_BLOCK_SIZE, null);
+    }
+
+    /**
+     * The compressed index block size (for example 128K) set by {@link AccumuloTableLayout}, or null to keep the
+     * table setting.
+     */
+    public String getTableLayoutIndexBlockSize() {
+        return getString(TABLE_LAYOUT_INDEX_BLOCK_SIZE, null);
+    }
+
+    /**
+     * If true, {@link AccumuloGraph#create(AccumuloGraphConfiguration)} pre-splits the tables on the shard prefixes
+     * of the id generator, which must be a {@link org.vertexium.id.ShardedIdGenerator}.
+     */
+    public boolean isPreSplitTables() {
+        return getBoolean(PRE_SPLIT_TABLES, DEFAULT_PRE_SPLIT_TABLES);
+    }
+
+    /**
+     * If true, queries evaluated in memory push their edge label and property has containers down to the vertex and
+     * edge iterators, see {@link org.vertexium.GraphWithScanFilters}.
+     */
+    public boolean isScanFiltersEnabled() {
+        return getBoolean(SCAN_FILTERS_ENABLED, DEFAULT_SCAN_FILTERS_ENABLED);
+    }
+
+    /**
+     * If true, {@link OverflowIntoHdfsStreamingPropertyValueStorageStrategy} stores each unique streaming property
+     * value once, keyed by the hash of its content.
+     */
+    public boolean isDeduplicateStreamingPropertyValues() {
+        return getBoolean(DEDUPLICATE_STREAMING_PROPERTY_VALUES, DEFAULT_DEDUPLICATE_STREAMING_PROPERTY_VALUES);
+    }
 }
@@ -0,0 +1,119 @@
+package org.vertexium.accumulo;
+
+import org.vertexium.ElementType;
+import org.vertexium.IdRange;
+import org.vertexium.ProgressCallback;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Options for {@link AccumuloGraph#reindex(AccumuloReindexOptions, org.vertexium.Authorizations)}, which reindexes
+ * each split of the vertices and edges tables on its own worker thread.
+ */
+public class AccumuloReindexOptions {
+    private int threadCount = Runtime.getRuntime().availableProcessors();
+    private ProgressCallback progressCallback;
+    private RangeCompletedListener rangeCompletedListener;
+    private final Set<IdRange> completedVertexRanges = Collections.synchronizedSet(new HashSet<>());
+    private final Set<IdRange> completedEdgeRanges = Collections.synchronizedSet(new HashSet<>());
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * The number of ranges to reindex at the same time. Each worker streams its range into the search index, so this
+     * also bounds the number of elements held in memory.
+     */
+    public AccumuloReindexOptions setThreadCount(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("threadCount cannot be less than 1");
+        }
+        this.threadCount = threadCount;
+        return this;
+    }
+
+    public ProgressCallback getProgressCallback() {
+        return progressCallback;
+    }
+
+    /**
+     * Called after each range completes with the number of completed ranges and the total number of ranges of the
+     * table being reindexed.
+     */
+    public AccumuloReindexOptions setProgressCallback(ProgressCallback progressCallback) {
+        this.progressCallback = progressCallback;
+        return this;
+    }
+
+    public RangeCompletedListener getRangeCompletedListener() {
+        return rangeCompletedListener;
+    }
+
+    /**
+     * Called, possibly from several threads at once, after each range has been added to the search index and the
+     * index has been flushed. Record the ranges and pass them to {@link #addCompletedRanges(ElementType, Iterable)}
+     * to resume an interrupted reindex.
+     */
+    public AccumuloReindexOptions setRangeCompletedListener(RangeCompletedListener rangeCompletedListener) {
+        this.rangeCompletedListener = rangeCompletedListener;
+        return this;
+    }
+
+    /**
+     * Ranges which have already been reindexed and should be skipped. Since the splits of a table can change between
+     * runs, a range is skipped if it is contained in one of the completed ranges.
+     */
+    public AccumuloReindexOptions addCompletedRanges(ElementType elementType, Iterable<IdRange> ranges) {
+        Set<IdRange> completedRanges = getCompletedRanges(elementType);
+        for (IdRange range : ranges) {
+            completedRanges.add(range);
+        }
+        return this;
+    }
+
+    public boolean isRangeCompleted(ElementType elementType, IdRange range) {
+        Set<IdRange> completedRanges = getCompletedRanges(elementType);
+        synchronized (completedRanges) {
+            for (IdRange completedRange : completedRanges) {
+                if (contains(completedRange, range)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    void rangeCompleted(ElementType elementType, IdRange range) {
+        getCompletedRanges(elementType).add(range);
+        if (rangeCompletedListener != null) {
+            rangeCompletedListener.rangeCompleted(elementType, range);
+        }
+    }
+
+    private Set<IdRange> getCompletedRanges(ElementType elementType) {
+        switch (elementType) {
+            case VERTEX:
+                return completedVertexRanges;
+            case EDGE:
+                return completedEdgeRanges;
+            default:
+                throw new IllegalArgumentException("Unhandled element type: " + elementType);
+        }
+    }
+
+    private static boolean contains(IdRange outer, IdRange inner) {
+        // split ranges are always inclusive start, exclusive end with null meaning unbounded
+        boolean startContained = outer.getStart() == null
+            || (inner.getStart() != null && outer.getStart().compareTo(inner.getStart()) <= 0);
+        boolean endContained = outer.getEnd() == null
+            || (inner.getEnd() != null && inner.getEnd().compareTo(outer.getEnd()) <= 0);
+        return startContained && endContained;
+    }
+
+    public interface RangeCompletedListener {
+        void rangeCompleted(ElementType elementType, IdRange range);
+    }
+}
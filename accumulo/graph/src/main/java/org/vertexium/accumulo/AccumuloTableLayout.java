@@ -0,0 +1,114 @@
+package org.vertexium.accumulo;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.file.keyfunctor.RowFunctor;
+import org.apache.hadoop.io.Text;
+import org.vertexium.VertexiumException;
+import org.vertexium.util.VertexiumLogger;
+import org.vertexium.util.VertexiumLoggerFactory;
+
+import java.util.*;
+
+/**
+ * Tunes the vertex, edge, extended data and data tables for lookups by id. Row bloom filters let point lookups skip
+ * files which do not contain the row and locality groups store edge refs and properties in separate blocks, so a
+ * scan which only fetches edge refs (for example {@link org.vertexium.FetchHints#EDGE_REFS}) does not read property
+ * blocks. Compression and block sizes are only changed if configured.
+ *
+ * <p>
+ * Locality groups only apply to files written after they are set, use
+ * {@link org.vertexium.accumulo.tools.ApplyTableLayout} to compact existing tables.
+ */
+public class AccumuloTableLayout {
+    private static final VertexiumLogger LOGGER = VertexiumLoggerFactory.getLogger(AccumuloTableLayout.class);
+    public static final String LOCALITY_GROUP_EDGE_REFS = "edgeRefs";
+    public static final String LOCALITY_GROUP_PROPERTIES = "properties";
+    public static final String LOCALITY_GROUP_PROPERTY_METADATA = "propertyMetadata";
+    public static final Map<String, Set<Text>> VERTEX_LOCALITY_GROUPS = ImmutableMap.of(
+        LOCALITY_GROUP_EDGE_REFS, ImmutableSet.of(
+            AccumuloVertex.CF_OUT_EDGE,
+            AccumuloVertex.CF_OUT_EDGE_HIDDEN,
+            AccumuloVertex.CF_OUT_EDGE_SOFT_DELETE,
+            AccumuloVertex.CF_IN_EDGE,
+            AccumuloVertex.CF_IN_EDGE_HIDDEN,
+            AccumuloVertex.CF_IN_EDGE_SOFT_DELETE
+        ),
+        LOCALITY_GROUP_PROPERTIES, ImmutableSet.of(
+            AccumuloElement.CF_PROPERTY,
+            AccumuloElement.CF_PROPERTY_HIDDEN,
+            AccumuloElement.CF_PROPERTY_SOFT_DELETE
+        ),
+        LOCALITY_GROUP_PROPERTY_METADATA, ImmutableSet.of(
+            AccumuloElement.CF_PROPERTY_METADATA
+        )
+    );
+    public static final Map<String, Set<Text>> EDGE_LOCALITY_GROUPS = ImmutableMap.of(
+        LOCALITY_GROUP_PROPERTIES, VERTEX_LOCALITY_GROUPS.get(LOCALITY_GROUP_PROPERTIES),
+        LOCALITY_GROUP_PROPERTY_METADATA, VERTEX_LOCALITY_GROUPS.get(LOCALITY_GROUP_PROPERTY_METADATA)
+    );
+    private final AccumuloGraphConfiguration config;
+
+    public AccumuloTableLayout(AccumuloGraphConfiguration config) {
+        this.config = config;
+    }
+
+    /**
+     * Applies the layout to the tables of the graph, returning the names of the tables which were changed.
+     */
+    public List<String> apply(Connector connector) {
+        String prefix = config.getTableNamePrefix();
+        List<String> changedTables = new ArrayList<>();
+        applyToTable(connector, AccumuloGraph.getVerticesTableName(prefix), VERTEX_LOCALITY_GROUPS, changedTables);
+        applyToTable(connector, AccumuloGraph.getEdgesTableName(prefix), EDGE_LOCALITY_GROUPS, changedTables);
+        if (config.isHistoryInSeparateTable()) {
+            applyToTable(connector, AccumuloGraph.getHistoryVerticesTableName(prefix), VERTEX_LOCALITY_GROUPS, changedTables);
+            applyToTable(connector, AccumuloGraph.getHistoryEdgesTableName(prefix), EDGE_LOCALITY_GROUPS, changedTables);
+        }
+        applyToTable(connector, AccumuloGraph.getExtendedDataTableName(prefix), null, changedTables);
+        applyToTable(connector, AccumuloGraph.getDataTableName(prefix), null, changedTables);
+        return changedTables;
+    }
+
+    private void applyToTable(Connector connector, String tableName, Map<String, Set<Text>> localityGroups, List<String> changedTables) {
+        try {
+            Map<String, String> properties = new HashMap<>();
+            properties.put(Property.TABLE_BLOOM_ENABLED.getKey(), "true");
+            properties.put(Property.TABLE_BLOOM_KEY_FUNCTOR.getKey(), RowFunctor.class.getName());
+            if (config.getTableLayoutCompressionType() != null) {
+                properties.put(Property.TABLE_FILE_COMPRESSION_TYPE.getKey(), config.getTableLayoutCompressionType());
+            }
+            if (config.getTableLayoutDataBlockSize() != null) {
+                properties.put(Property.TABLE_FILE_COMPRESSED_BLOCK_SIZE.getKey(), config.getTableLayoutDataBlockSize());
+            }
+            if (config.getTableLayoutIndexBlockSize() != null) {
+                properties.put(Property.TABLE_FILE_COMPRESSED_BLOCK_SIZE_INDEX.getKey(), config.getTableLayoutIndexBlockSize());
+            }
+
+            boolean changed = false;
+            Map<String, String> existingProperties = new HashMap<>();
+            for (Map.Entry<String, String> property : connector.tableOperations().getProperties(tableName)) {
+                existingProperties.put(property.getKey(), property.getValue());
+            }
+            for (Map.Entry<String, String> property : properties.entrySet()) {
+                if (!property.getValue().equals(existingProperties.get(property.getKey()))) {
+                    LOGGER.info("setting %s on %s to %s", property.getKey(), tableName, property.getValue());
+                    connector.tableOperations().setProperty(tableName, property.getKey(), property.getValue());
+                    changed = true;
+                }
+            }
+            if (localityGroups != null && !localityGroups.equals(connector.tableOperations().getLocalityGroups(tableName))) {
+                LOGGER.info("setting locality groups on %s to %s", tableName, localityGroups.keySet());
+                connector.tableOperations().setLocalityGroups(tableName, localityGroups);
+                changed = true;
+            }
+            if (changed) {
+                changedTables.add(tableName);
+            }
+        } catch (Exception ex) {
+            throw new VertexiumException("Could not apply table layout to " + tableName, ex);
+        }
+    }
+}
@@ -410,6 +410,37 @@ public class AccumuloVertex extends AccumuloElement implements Vertex {
         }
     }
 
+    @Override
+    public EdgeInfoPage getEdgeInfos(Direction direction, String[] labels, String startAfterEdgeId, int limit, Authorizations authorizations) {
+        if (hasAllEdgeInfos(direction, labels)) {
+            return Vertex.super.getEdgeInfos(direction, labels, startAfterEdgeId, limit, authorizations);
+        }
+        EdgeInfoPage page = getGraph().getEdgeInfoPage(getId(), direction, labels, startAfterEdgeId, limit, authorizations);
+        if (page == null) {
+            return new EdgeInfoPage(new ArrayList<>(), 0, false);
+        }
+        return page;
+    }
+
+    private boolean hasAllEdgeInfos(Direction direction, String[] labels) {
+        FetchHints fetchHints = getFetchHints();
+        if (!fetchHints.isIncludeEdgeIds() || !fetchHints.isIncludeEdgeVertexIds()) {
+            return false;
+        }
+        if (fetchHints.isIncludeAllEdgeRefs()) {
+            return true;
+        }
+        boolean hasDirection = direction == Direction.OUT ? fetchHints.isIncludeOutEdgeRefs()
+            : direction == Direction.IN ? fetchHints.isIncludeInEdgeRefs()
+            : fetchHints.isIncludeOutEdgeRefs() && fetchHints.isIncludeInEdgeRefs();
+        if (hasDirection) {
+            return true;
+        }
+        return labels != null
+            && fetchHints.hasEdgeLabelsOfEdgeRefsToInclude()
+            && fetchHints.getEdgeLabelsOfEdgeRefsToInclude().containsAll(Arrays.asList(labels));
+    }
+
     private Iterable<EdgeInfo> filterEdgeInfosByLabel(Iterable<EdgeInfo> edgeInfos, String[] labels) {
         if (labels != null) {
             return new FilterIterable<EdgeInfo>(edgeInfos) {
@@ -659,6 +659,12 @@ public abstract class ElementMutationBuilder {
         return streamingPropertyValueStorageStrategy.saveStreamingPropertyValue(this, rowKey, property, propertyValue);
     }
 
+    public void deleteStreamingPropertyValue(String rowKey, Property property) {
+        if (property.getValue() instanceof StreamingPropertyValue) {
+            streamingPropertyValueStorageStrategy.deleteStreamingPropertyValue(this, rowKey, property);
+        }
+    }
+
     public void addPropertyDeleteToMutation(Mutation m, Property property) {
         Preconditions.checkNotNull(m, "mutation cannot be null");
         Preconditions.checkNotNull(property, "property cannot be null");
@@ -1,5 +1,6 @@
 package org.vertexium.accumulo;
 
+import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.vertexium.VertexiumException;
@@ -8,7 +9,7 @@ import org.vertexium.property.StreamingPropertyValue;
 import java.io.IOException;
 import java.io.InputStream;
 
-class StreamingPropertyValueHdfs extends StreamingPropertyValue {
+public class StreamingPropertyValueHdfs extends StreamingPropertyValue {
     private static final long serialVersionUID = 5936794077542255789L;
     private final FileSystem fs;
     private final Path path;
@@ -20,6 +21,10 @@ class StreamingPropertyValueHdfs extends StreamingPropertyValue {
         this.path = path;
     }
 
+    public Path getPath() {
+        return path;
+    }
+
     @Override
     public Long getLength() {
         try {
@@ -37,4 +42,21 @@ class StreamingPropertyValueHdfs extends StreamingPropertyValue {
             throw new VertexiumException("Could not open: " + this.path, ex);
         }
     }
+
+    @Override
+    public InputStream getInputStream(long offset, Long length) {
+        try {
+            FSDataInputStream in = fs.open(this.path);
+            try {
+                // seeking past the end of the file is an error so leave the stream at the end instead
+                in.seek(Math.min(offset, getLength()));
+            } catch (IOException ex) {
+                in.close();
+                throw ex;
+            }
+            return limitInputStream(in, length);
+        } catch (IOException ex) {
+            throw new VertexiumException("Could not open: " + this.path + " at offset " + offset, ex);
+        }
+    }
 }
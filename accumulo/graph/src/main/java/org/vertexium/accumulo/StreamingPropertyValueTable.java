@@ -10,6 +10,7 @@ import org.apache.accumulo.core.iterators.user.TimestampFilter;
 import org.apache.accumulo.core.trace.Span;
 import org.apache.accumulo.core.trace.Trace;
 import org.vertexium.VertexiumException;
+import org.vertexium.accumulo.keys.DataTableContentRowKey;
 import org.vertexium.accumulo.keys.DataTableRowKey;
 import org.vertexium.accumulo.util.RangeUtils;
 import org.vertexium.property.StreamingPropertyValue;
@@ -75,7 +76,8 @@ public class StreamingPropertyValueTable extends StreamingPropertyValue {
 
             long timerStartTime = System.currentTimeMillis();
             ScannerBase scanner = graph.createBatchScanner(graph.getDataTableName(), ranges, new org.apache.accumulo.core.security.Authorizations());
-            if (timestamp != null && !DataTableRowKey.isLegacy(dataRowKey)) {
+            // deduplicated content is shared by properties with different timestamps
+            if (timestamp != null && !DataTableRowKey.isLegacy(dataRowKey) && !DataTableContentRowKey.isContentRowKey(dataRowKey)) {
                 IteratorSetting iteratorSetting = new IteratorSetting(
                     80,
                     TimestampFilter.class.getSimpleName(),
@@ -94,7 +96,7 @@ public class StreamingPropertyValueTable extends StreamingPropertyValue {
                 for (Map.Entry<Key, Value> col : scanner) {
                     String foundKey = col.getKey().getRow().toString();
                     byte[] value = col.getValue().get();
-                    if (foundKey.equals(dataRowKey)) {
+                    if (foundKey.equals(dataRowKey) && col.getKey().getColumnFamily().getLength() == 0) {
                         result = value;
                     }
                 }
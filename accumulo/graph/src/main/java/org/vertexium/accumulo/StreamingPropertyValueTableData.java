@@ -16,7 +16,9 @@ import org.apache.hadoop.io.Text;
 import org.vertexium.StreamingPropertyValueChunk;
 import org.vertexium.VertexiumException;
 import org.vertexium.accumulo.iterator.RowTimestampFilter;
+import org.vertexium.accumulo.util.DataInDataTableStreamingPropertyValueStorageStrategy;
 import org.vertexium.accumulo.util.RangeUtils;
+import org.vertexium.accumulo.util.SnappyUtils;
 import org.vertexium.property.StreamingPropertyValue;
 import org.vertexium.util.ByteRingBuffer;
 import org.vertexium.util.ClosingIterator;
@@ -39,6 +41,7 @@ public class StreamingPropertyValueTableData extends StreamingPropertyValue {
     private final String dataRowKey;
     private Long length;
     private final long timestamp;
+    private final boolean compressed;
 
     public StreamingPropertyValueTableData(
         AccumuloGraph graph,
@@ -46,12 +49,24 @@ public class StreamingPropertyValueTableData extends StreamingPropertyValue {
         Class valueType,
         Long length,
         long timestamp
+    ) {
+        this(graph, dataRowKey, valueType, length, timestamp, false);
+    }
+
+    public StreamingPropertyValueTableData(
+        AccumuloGraph graph,
+        String dataRowKey,
+        Class valueType,
+        Long length,
+        long timestamp,
+        boolean compressed
     ) {
         super(valueType);
         this.graph = graph;
         this.dataRowKey = dataRowKey;
         this.length = length;
         this.timestamp = timestamp;
+        this.compressed = compressed;
     }
 
     public static Stream<StreamingPropertyValueChunk> readChunks(AccumuloGraph graph, Set<StreamingPropertyValueTableData> spvs) {
@@ -136,7 +151,7 @@ public class StreamingPropertyValueTableData extends StreamingPropertyValue {
                         }
                         long readLength = streamingPropertyValueReadLengthsByRowKey.getOrDefault(rowKey, 0L);
 
-                        byte[] data = column.getValue().get();
+                        byte[] data = readChunkData(column.getValue(), streamingPropertyValues.iterator().next().compressed);
                         int chunkSize = data.length;
                         readLength += chunkSize;
                         if (readLength > totalLength) {
@@ -158,6 +173,17 @@ public class StreamingPropertyValueTableData extends StreamingPropertyValue {
         }
     }
 
+    private static byte[] readChunkData(Value value, boolean compressed) {
+        if (!compressed) {
+            return value.get();
+        }
+        try {
+            return SnappyUtils.uncompress(value.get());
+        } catch (IOException ex) {
+            throw new VertexiumException("Could not uncompress streaming property value data", ex);
+        }
+    }
+
     @Override
     public Long getLength() {
         return length;
@@ -168,22 +194,29 @@ public class StreamingPropertyValueTableData extends StreamingPropertyValue {
         return new DataTableInputStream();
     }
 
+    @Override
+    public InputStream getInputStream(long offset, Long length) {
+        DataTableInputStream in = new DataTableInputStream();
+        in.seek(offset);
+        return limitInputStream(in, length);
+    }
+
+    /**
+     * Reads the data column chunks of the value. The column qualifier of each chunk is the hex encoded offset of the
+     * chunk's first byte, which lets the stream seek by starting a new scan near the requested offset.
+     */
     private class DataTableInputStream extends InputStream {
         private final ByteRingBuffer buffer = new ByteRingBuffer(1024 * 1024);
         private long timerStartTime;
         private Span trace;
         private ScannerBase scanner;
         private Iterator<Map.Entry<Key, Value>> scannerIterator;
-        private long previousLoadedDataLength;
+        private long scanStartOffset;
+        private long position;
         private long loadedDataLength;
+        private long markPosition;
         private boolean closed;
 
-        private long markRowIndex = 0;
-        private long markByteOffsetInRow = 0;
-        private long markLoadedDataLength = 0;
-        private long currentDataRowIndex = -1;
-        private long currentByteOffsetInRow;
-
         @Override
         public int read(byte[] dest, int off, int len) throws IOException {
             if (len == 0) {
@@ -198,7 +231,7 @@ public class StreamingPropertyValueTableData extends StreamingPropertyValue {
             }
 
             int bytesRead = buffer.read(dest, off, len);
-            currentByteOffsetInRow += bytesRead;
+            position += bytesRead;
             return bytesRead;
         }
 
@@ -210,38 +243,86 @@ public class StreamingPropertyValueTableData extends StreamingPropertyValue {
                     return -1;
                 }
             }
-            currentByteOffsetInRow++;
+            position++;
             return buffer.read();
         }
 
+        @Override
+        public long skip(long n) throws IOException {
+            if (n <= 0 || length == null) {
+                return super.skip(n);
+            }
+            long startPosition = position;
+            seek(Math.min(position + n, Math.max(position, length)));
+            return position - startPosition;
+        }
+
+        @Override
+        public int available() {
+            return buffer.getUsed();
+        }
+
         @Override
         public void close() throws IOException {
             if (closed) {
                 return;
             }
+            closeScanner();
+            super.close();
+            closed = true;
+        }
+
+        private void closeScanner() {
             scannerIterator = null;
             if (scanner != null) {
                 scanner.close();
                 scanner = null;
+                graph.getGraphLogger().logEndIterator(System.currentTimeMillis() - timerStartTime);
             }
             if (trace != null) {
                 trace.stop();
                 trace = null;
             }
+        }
 
-            graph.getGraphLogger().logEndIterator(System.currentTimeMillis() - timerStartTime);
-            super.close();
-            closed = true;
+        /**
+         * Moves the stream to the given offset. Offsets already in the buffer are reached by discarding buffered
+         * bytes, otherwise the next read starts a new scan.
+         */
+        private void seek(long offset) {
+            if (offset >= position && offset <= loadedDataLength) {
+                while (position < offset) {
+                    buffer.read();
+                    position++;
+                }
+                return;
+            }
+
+            closeScanner();
+            buffer.clear();
+            position = offset;
+            loadedDataLength = offset;
+            if (length == null) {
+                // the length is stored before the data so the scan needs to start at the beginning of the row
+                scanStartOffset = 0;
+            } else {
+                // chunks are at most one part long so the chunk containing the offset starts within one part of it
+                scanStartOffset = Math.max(0, Math.min(offset, length) - getPartSize());
+            }
         }
 
         private boolean loadMoreData() throws IOException {
             if (closed) {
                 return false;
             }
+            if (length != null && loadedDataLength >= length) {
+                closeScanner();
+                return false;
+            }
             Iterator<Map.Entry<Key, Value>> it = getScannerIterator();
             while (true) {
                 if (!it.hasNext()) {
-                    close();
+                    closeScanner();
                     return false;
                 }
                 Map.Entry<Key, Value> column = it.next();
@@ -255,16 +336,29 @@ public class StreamingPropertyValueTableData extends StreamingPropertyValue {
                 }
 
                 if (column.getKey().getColumnFamily().equals(DATA_COLUMN_FAMILY)) {
-                    currentDataRowIndex++;
-                    currentByteOffsetInRow = 0;
-
-                    byte[] data = column.getValue().get();
                     if (length == null) {
                         throw new VertexiumException("unexpected missing length (row: " + column.getKey().getRow() + ")");
                     }
-                    long len = Math.min(data.length, length - loadedDataLength);
-                    buffer.write(data, 0, (int) len);
-                    previousLoadedDataLength = loadedDataLength;
+                    long chunkOffset = Long.parseLong(column.getKey().getColumnQualifier().toString(), 16);
+                    byte[] data = readChunkData(column.getValue(), compressed);
+                    long chunkEnd = Math.min(chunkOffset + data.length, length);
+                    if (chunkEnd <= loadedDataLength) {
+                        continue;
+                    }
+                    if (chunkOffset > loadedDataLength) {
+                        if (scanStartOffset == 0) {
+                            throw new VertexiumException("missing data at offset " + loadedDataLength + " (row: " + column.getKey().getRow() + ")");
+                        }
+                        // the value was written with a larger part size, rescan from the beginning of the value
+                        closeScanner();
+                        scanStartOffset = 0;
+                        it = getScannerIterator();
+                        continue;
+                    }
+
+                    int start = (int) (loadedDataLength - chunkOffset);
+                    int len = (int) (chunkEnd - loadedDataLength);
+                    buffer.write(data, start, len);
                     loadedDataLength += len;
                     return true;
                 }
@@ -291,7 +385,12 @@ public class StreamingPropertyValueTableData extends StreamingPropertyValue {
             if (scanner != null) {
                 return scanner;
             }
-            ArrayList<Range> ranges = Lists.newArrayList(RangeUtils.createRangeFromString(dataRowKey));
+            Range range = RangeUtils.createRangeFromString(dataRowKey);
+            if (scanStartOffset > 0) {
+                Key startKey = new Key(new Text(dataRowKey), DATA_COLUMN_FAMILY, new Text(String.format("%08x", scanStartOffset)));
+                range = new Range(startKey, true, range.getEndKey(), range.isEndKeyInclusive());
+            }
+            ArrayList<Range> ranges = Lists.newArrayList(range);
 
             timerStartTime = System.currentTimeMillis();
             try {
@@ -315,49 +414,24 @@ public class StreamingPropertyValueTableData extends StreamingPropertyValue {
             return scanner;
         }
 
+        private int getPartSize() {
+            return graph.getConfiguration().getInt(
+                AccumuloGraphConfiguration.STREAMING_PROPERTY_VALUE_STORAGE_STRATEGY_PREFIX + ".partSize",
+                DataInDataTableStreamingPropertyValueStorageStrategy.DEFAULT_PART_SIZE
+            );
+        }
+
         @Override
         public synchronized void mark(int readlimit) {
-            markRowIndex = Math.max(0, currentDataRowIndex);
-            markByteOffsetInRow = currentByteOffsetInRow;
-            markLoadedDataLength = previousLoadedDataLength;
+            markPosition = position;
         }
 
         @Override
         public synchronized void reset() throws IOException {
-            buffer.clear();
-            if (scannerIterator != null) {
-                scannerIterator = null;
-            }
-
-            closed = false;
-
-            currentDataRowIndex = -1;
-            currentByteOffsetInRow = 0;
-            loadedDataLength = markLoadedDataLength;
-
-            Iterator<Map.Entry<Key, Value>> it = getScannerIterator();
-            while (true) {
-                if (!it.hasNext()) {
-                    close();
-                    return;
-                }
-                Map.Entry<Key, Value> column = it.next();
-                if (column.getKey().getColumnFamily().equals(DATA_COLUMN_FAMILY)) {
-                    currentDataRowIndex++;
-                    currentByteOffsetInRow = 0;
-                    if (currentDataRowIndex == markRowIndex) {
-                        byte[] data = column.getValue().get();
-                        long len = Math.min(data.length, length - loadedDataLength);
-                        buffer.write(data, 0, (int) len);
-                        loadedDataLength += len;
-                        while (currentByteOffsetInRow != markByteOffsetInRow) {
-                            buffer.read();
-                            currentByteOffsetInRow++;
-                        }
-                        return;
-                    }
-                }
+            if (closed) {
+                throw new IOException("stream already closed");
             }
+            seek(markPosition);
         }
 
         @Override
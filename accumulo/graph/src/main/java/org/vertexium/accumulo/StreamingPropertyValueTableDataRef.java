@@ -8,23 +8,30 @@ public class StreamingPropertyValueTableDataRef extends StreamingPropertyValueRe
     private final String dataRowKey;
     private final Class valueType;
     private final Long length;
+    private final boolean compressed;
 
     // here for serialization
     protected StreamingPropertyValueTableDataRef() {
         dataRowKey = null;
         valueType = null;
         length = null;
+        compressed = false;
     }
 
     public StreamingPropertyValueTableDataRef(String dataRowKey, StreamingPropertyValue propertyValue, long length) {
+        this(dataRowKey, propertyValue, length, false);
+    }
+
+    public StreamingPropertyValueTableDataRef(String dataRowKey, StreamingPropertyValue propertyValue, long length, boolean compressed) {
         super(propertyValue);
         this.dataRowKey = dataRowKey;
         this.valueType = propertyValue.getValueType();
         this.length = length;
+        this.compressed = compressed;
     }
 
     @Override
     public StreamingPropertyValue toStreamingPropertyValue(AccumuloGraph graph, long timestamp) {
-        return new StreamingPropertyValueTableData(graph, dataRowKey, valueType, length, timestamp);
+        return new StreamingPropertyValueTableData(graph, dataRowKey, valueType, length, timestamp, compressed);
     }
 }
@@ -0,0 +1,83 @@
+package org.vertexium.accumulo.keys;
+
+import org.apache.accumulo.core.data.Range;
+import org.apache.hadoop.io.Text;
+import org.vertexium.ElementId;
+import org.vertexium.ElementType;
+import org.vertexium.VertexiumException;
+import org.vertexium.accumulo.iterator.model.KeyBase;
+import org.vertexium.historicalEvent.ChangeLogEntry;
+
+/**
+ * Row key of a change log entry. Rows start with a shard prefix, so that entries written at the same time are spread
+ * over the tablets of the table instead of all going to its last tablet, followed by the timestamp written as fixed
+ * width hex so that the rows of a shard sort in time order.
+ */
+public class ChangeLogRowKey extends KeyBase {
+    private static final int PARTS_INDEX_SHARD_PREFIX = 0;
+    private static final int PARTS_INDEX_TIMESTAMP = 1;
+    private static final int PARTS_INDEX_ELEMENT_TYPE = 2;
+    private static final int PARTS_INDEX_ELEMENT_ID = 3;
+    private static final String VERTEX = "V";
+    private static final String EDGE = "E";
+    private final String shardPrefix;
+    private final ChangeLogEntry changeLogEntry;
+
+    public ChangeLogRowKey(String shardPrefix, ChangeLogEntry changeLogEntry) {
+        this.shardPrefix = shardPrefix;
+        this.changeLogEntry = changeLogEntry;
+    }
+
+    public ChangeLogRowKey(String shardPrefix, long timestamp, ElementId elementId) {
+        this(shardPrefix, new ChangeLogEntry(timestamp, elementId));
+    }
+
+    public String getShardPrefix() {
+        return shardPrefix;
+    }
+
+    public ChangeLogEntry getChangeLogEntry() {
+        return changeLogEntry;
+    }
+
+    public String getRowKey() {
+        ElementId elementId = changeLogEntry.getElementId();
+        assertNoValueSeparator(shardPrefix);
+        assertNoValueSeparator(elementId.getId());
+        return shardPrefix
+            + VALUE_SEPARATOR + timestampToString(changeLogEntry.getTimestamp())
+            + VALUE_SEPARATOR + (elementId.getElementType() == ElementType.VERTEX ? VERTEX : EDGE)
+            + VALUE_SEPARATOR + elementId.getId();
+    }
+
+    public static ChangeLogRowKey fromRowKey(String rowKey) {
+        String[] parts = splitOnValueSeparator(rowKey, 4);
+        String shardPrefix = parts[PARTS_INDEX_SHARD_PREFIX];
+        long timestamp = Long.parseUnsignedLong(parts[PARTS_INDEX_TIMESTAMP], 16);
+        String elementId = parts[PARTS_INDEX_ELEMENT_ID];
+        switch (parts[PARTS_INDEX_ELEMENT_TYPE]) {
+            case VERTEX:
+                return new ChangeLogRowKey(shardPrefix, timestamp, ElementId.vertex(elementId));
+            case EDGE:
+                return new ChangeLogRowKey(shardPrefix, timestamp, ElementId.edge(elementId));
+            default:
+                throw new VertexiumException("Invalid change log row key: " + rowKey);
+        }
+    }
+
+    /**
+     * The range of a shard of the change log starting at the given timestamp, or the whole shard if the timestamp is
+     * null.
+     */
+    public static Range getRange(String shardPrefix, Long startTimestamp) {
+        Text prefix = new Text(shardPrefix + VALUE_SEPARATOR);
+        if (startTimestamp == null) {
+            return Range.prefix(prefix);
+        }
+        return new Range(new Text(prefix + timestampToString(startTimestamp)), true, Range.followingPrefix(prefix), false);
+    }
+
+    private static String timestampToString(long timestamp) {
+        return String.format("%016x", timestamp);
+    }
+}
@@ -0,0 +1,70 @@
+package org.vertexium.accumulo.keys;
+
+import org.apache.accumulo.core.data.Range;
+import org.apache.hadoop.io.Text;
+import org.vertexium.accumulo.iterator.model.KeyBase;
+
+import java.util.UUID;
+
+/**
+ * Row key of a deduplicated streaming property value, which is stored once for each unique content hash. The key
+ * starts with the value separator, which element row keys can not contain, so it never collides with a
+ * {@link DataTableRowKey}.
+ */
+public class DataTableContentRowKey extends KeyBase {
+    private static final String ROW_KEY_PREFIX = VALUE_SEPARATOR + "sha256" + VALUE_SEPARATOR;
+    private static final String HDFS_DIRECTORY = ".sha256";
+    private static final String HDFS_TRASH_DIRECTORY = ".sha256-trash";
+    private final String contentHash;
+
+    public DataTableContentRowKey(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public String getRowKey() {
+        return ROW_KEY_PREFIX + contentHash;
+    }
+
+    /**
+     * The file name, relative to the data directory, used when the content is too large for the data table.
+     */
+    public String getHdfsFileName() {
+        return HDFS_DIRECTORY + "/" + contentHash.substring(0, 2) + "/" + contentHash;
+    }
+
+    /**
+     * A unique file name, relative to the data directory, the content file is moved to before it is deleted.
+     */
+    public String getHdfsTrashFileName() {
+        return HDFS_TRASH_DIRECTORY + "/" + contentHash + "-" + UUID.randomUUID();
+    }
+
+    public static boolean isContentRowKey(String dataRowKey) {
+        return dataRowKey.startsWith(ROW_KEY_PREFIX);
+    }
+
+    public static DataTableContentRowKey fromRowKey(String dataRowKey) {
+        if (!isContentRowKey(dataRowKey)) {
+            return null;
+        }
+        return new DataTableContentRowKey(dataRowKey.substring(ROW_KEY_PREFIX.length()));
+    }
+
+    public static DataTableContentRowKey fromHdfsFileName(String fileName) {
+        if (!fileName.startsWith(HDFS_DIRECTORY + "/")) {
+            return null;
+        }
+        return new DataTableContentRowKey(fileName.substring(fileName.lastIndexOf('/') + 1));
+    }
+
+    /**
+     * The range of the data table holding all deduplicated content.
+     */
+    public static Range getRange() {
+        return Range.prefix(new Text(ROW_KEY_PREFIX));
+    }
+}
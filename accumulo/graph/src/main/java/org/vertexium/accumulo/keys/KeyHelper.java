@@ -141,6 +141,14 @@ public class KeyHelper {
         return new Text(sb.toString());
     }
 
+    /**
+     * Creates the prefix of the row keys of all extended data rows of an element, ending with the separator so it
+     * does not also match elements whose id starts with the given id.
+     */
+    public static Text createExtendedDataRowKeyPrefix(ElementType elementType, String elementId) {
+        return new Text(getExtendedDataRowKeyElementTypePrefix(elementType) + elementId + KeyBase.VALUE_SEPARATOR);
+    }
+
     public static Text createExtendedDataColumnQualifier(ExtendedDataMutationBase edm) {
         if (edm.getKey() == null) {
             return new Text(edm.getColumnName());
@@ -0,0 +1,72 @@
+package org.vertexium.accumulo.tools;
+
+import org.vertexium.VertexiumException;
+import org.vertexium.accumulo.AccumuloGraph;
+import org.vertexium.accumulo.AccumuloTableLayout;
+import org.vertexium.util.VertexiumLogger;
+import org.vertexium.util.VertexiumLoggerFactory;
+
+import java.util.List;
+
+/**
+ * Applies {@link AccumuloTableLayout} to the tables of an existing graph and compacts the changed tables so their
+ * existing files are rewritten with bloom filters and locality groups.
+ * <p>
+ * To run in the Vertexium CLI
+ * <p>
+ * t = new org.vertexium.accumulo.tools.ApplyTableLayout(g)
+ * options = new org.vertexium.accumulo.tools.ApplyTableLayout.Options()
+ * options.setCompact(true)
+ * options.setWait(false)
+ * t.execute(options)
+ */
+public class ApplyTableLayout {
+    private static final VertexiumLogger LOGGER = VertexiumLoggerFactory.getLogger(ApplyTableLayout.class);
+    private final AccumuloGraph graph;
+
+    public ApplyTableLayout(AccumuloGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Returns the names of the tables which were changed.
+     */
+    public List<String> execute(Options options) {
+        List<String> changedTables = new AccumuloTableLayout(graph.getConfiguration()).apply(graph.getConnector());
+        if (!options.isCompact()) {
+            return changedTables;
+        }
+        for (String tableName : changedTables) {
+            try {
+                LOGGER.info("compacting table: %s (wait: %b)", tableName, options.isWait());
+                graph.getConnector().tableOperations().compact(tableName, null, null, true, options.isWait());
+            } catch (Exception ex) {
+                throw new VertexiumException("Could not compact table: " + tableName, ex);
+            }
+        }
+        return changedTables;
+    }
+
+    public static class Options {
+        private boolean compact = true;
+        private boolean wait = true;
+
+        public boolean isCompact() {
+            return compact;
+        }
+
+        public Options setCompact(boolean compact) {
+            this.compact = compact;
+            return this;
+        }
+
+        public boolean isWait() {
+            return wait;
+        }
+
+        public Options setWait(boolean wait) {
+            this.wait = wait;
+            return this;
+        }
+    }
+}
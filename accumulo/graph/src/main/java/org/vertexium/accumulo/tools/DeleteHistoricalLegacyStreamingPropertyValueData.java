@@ -9,6 +9,7 @@ import org.apache.accumulo.core.data.Value;
 import org.vertexium.Authorizations;
 import org.vertexium.VertexiumException;
 import org.vertexium.accumulo.AccumuloGraph;
+import org.vertexium.accumulo.keys.DataTableContentRowKey;
 import org.vertexium.accumulo.keys.DataTableRowKey;
 import org.vertexium.util.VertexiumLogger;
 import org.vertexium.util.VertexiumLoggerFactory;
@@ -63,6 +64,9 @@ public class DeleteHistoricalLegacyStreamingPropertyValueData {
                     }
 
                     String rowId = row.getKey().getRow().toString();
+                    if (DataTableContentRowKey.isContentRowKey(rowId)) {
+                        continue;
+                    }
                     String[] rowIdParts = rowId.split("" + DataTableRowKey.VALUE_SEPARATOR);
                     if (rowIdParts.length < 3) {
                         continue;
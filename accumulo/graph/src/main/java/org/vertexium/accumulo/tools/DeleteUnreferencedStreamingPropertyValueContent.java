@@ -0,0 +1,194 @@
+package org.vertexium.accumulo.tools;
+
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.SortedKeyIterator;
+import org.apache.accumulo.core.iterators.user.WholeRowIterator;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.vertexium.VertexiumException;
+import org.vertexium.accumulo.AccumuloGraph;
+import org.vertexium.accumulo.keys.DataTableContentRowKey;
+import org.vertexium.accumulo.util.OverflowIntoHdfsStreamingPropertyValueStorageStrategy;
+import org.vertexium.util.VertexiumLogger;
+import org.vertexium.util.VertexiumLoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.vertexium.accumulo.util.OverflowIntoHdfsStreamingPropertyValueStorageStrategy.CONTENT_REFERENCE_COLUMN_FAMILY;
+
+/**
+ * Deletes the deduplicated streaming property value content which is no longer referenced by any property. Content
+ * referenced or stored at or after {@link Options#getOlderThanTimestamp()} is kept, so values being saved while this
+ * runs are not deleted.
+ * <p>
+ * To run in the Vertexium CLI
+ * <p>
+ * d = new org.vertexium.accumulo.tools.DeleteUnreferencedStreamingPropertyValueContent(g)
+ * options = new org.vertexium.accumulo.tools.DeleteUnreferencedStreamingPropertyValueContent.Options()
+ * options.setDryRun(false)
+ * d.execute(options)
+ */
+public class DeleteUnreferencedStreamingPropertyValueContent {
+    private static final VertexiumLogger LOGGER = VertexiumLoggerFactory.getLogger(DeleteUnreferencedStreamingPropertyValueContent.class);
+    private final AccumuloGraph graph;
+
+    public DeleteUnreferencedStreamingPropertyValueContent(AccumuloGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * @return the number of unreferenced values found
+     */
+    public long execute(Options options) {
+        if (!(graph.getStreamingPropertyValueStorageStrategy() instanceof OverflowIntoHdfsStreamingPropertyValueStorageStrategy)) {
+            throw new VertexiumException("Expected " + OverflowIntoHdfsStreamingPropertyValueStorageStrategy.class.getName() + " found " + graph.getStreamingPropertyValueStorageStrategy().getClass().getName());
+        }
+        OverflowIntoHdfsStreamingPropertyValueStorageStrategy strategy = (OverflowIntoHdfsStreamingPropertyValueStorageStrategy) graph.getStreamingPropertyValueStorageStrategy();
+        try {
+            Scanner scanner = graph.getConnector().createScanner(graph.getDataTableName(), new Authorizations());
+            scanner.setRange(DataTableContentRowKey.getRange());
+            scanner.addScanIterator(new IteratorSetting(10, SortedKeyIterator.class.getSimpleName(), SortedKeyIterator.class));
+            scanner.addScanIterator(new IteratorSetting(20, WholeRowIterator.class.getSimpleName(), WholeRowIterator.class));
+            BatchWriter writer = graph.getConnector().createBatchWriter(
+                graph.getDataTableName(),
+                graph.getConfiguration().createBatchWriterConfig()
+            );
+            long unreferencedCount = 0;
+            try {
+                for (Map.Entry<Key, Value> row : scanner) {
+                    String dataRowKey = row.getKey().getRow().toString();
+                    Collection<Key> columns = WholeRowIterator.decodeRow(row.getKey(), row.getValue()).keySet();
+                    if (!isUnreferenced(columns, options)) {
+                        continue;
+                    }
+
+                    DataTableContentRowKey contentRowKey = DataTableContentRowKey.fromRowKey(dataRowKey);
+                    Path contentPath = new Path(strategy.getDataDir(), contentRowKey.getHdfsFileName());
+                    FileSystem fileSystem = strategy.getFileSystem();
+                    if (fileSystem.exists(contentPath)) {
+                        if (fileSystem.getFileStatus(contentPath).getModificationTime() >= options.getOlderThanTimestamp()) {
+                            continue;
+                        }
+                        LOGGER.debug("deleting file: %s", contentPath);
+                        if (!options.isDryRun() && !deleteContentFile(strategy, contentRowKey, options)) {
+                            continue;
+                        }
+                    }
+
+                    LOGGER.debug("deleting row: %s", dataRowKey);
+                    unreferencedCount++;
+                    if (!options.isDryRun()) {
+                        // delete only the columns which were read so a reference added since is kept
+                        Mutation mutation = new Mutation(dataRowKey);
+                        for (Key column : columns) {
+                            mutation.putDelete(column.getColumnFamily(), column.getColumnQualifier(), column.getTimestamp());
+                        }
+                        writer.addMutation(mutation);
+                    }
+                }
+            } finally {
+                writer.close();
+                scanner.close();
+            }
+            return unreferencedCount;
+        } catch (Exception ex) {
+            throw new VertexiumException("Could not delete unreferenced SPV content", ex);
+        }
+    }
+
+    /**
+     * A writer storing the same content marks the existing file as recently referenced instead of storing its own
+     * copy, see {@link OverflowIntoHdfsStreamingPropertyValueStorageStrategy}. To not delete a file which was marked
+     * after it was checked, the file is first moved to the trash directory, which makes writers from then on store
+     * their own copy, and is then checked again.
+     *
+     * @return true if the file was deleted, false if it was referenced again and has been kept
+     */
+    private boolean deleteContentFile(
+        OverflowIntoHdfsStreamingPropertyValueStorageStrategy strategy,
+        DataTableContentRowKey contentRowKey,
+        Options options
+    ) throws Exception {
+        FileSystem fileSystem = strategy.getFileSystem();
+        Path contentPath = new Path(strategy.getDataDir(), contentRowKey.getHdfsFileName());
+        Path trashPath = new Path(strategy.getDataDir(), contentRowKey.getHdfsTrashFileName());
+        if (!fileSystem.mkdirs(trashPath.getParent())) {
+            throw new VertexiumException("Could not create directory " + trashPath.getParent());
+        }
+        if (!fileSystem.rename(contentPath, trashPath)) {
+            // moved or deleted by another run
+            return false;
+        }
+        if (fileSystem.getFileStatus(trashPath).getModificationTime() >= options.getOlderThanTimestamp()
+            || !isUnreferenced(readRow(contentRowKey.getRowKey()), options)) {
+            LOGGER.debug("keeping referenced file: %s", contentPath);
+            if (!fileSystem.rename(trashPath, contentPath)) {
+                // a writer has stored the same content again
+                fileSystem.delete(trashPath, false);
+            }
+            return false;
+        }
+        fileSystem.delete(trashPath, false);
+        return true;
+    }
+
+    private Collection<Key> readRow(String dataRowKey) throws Exception {
+        Scanner scanner = graph.getConnector().createScanner(graph.getDataTableName(), new Authorizations());
+        try {
+            scanner.setRange(Range.exact(dataRowKey));
+            scanner.addScanIterator(new IteratorSetting(10, SortedKeyIterator.class.getSimpleName(), SortedKeyIterator.class));
+            List<Key> columns = new ArrayList<>();
+            for (Map.Entry<Key, Value> column : scanner) {
+                columns.add(column.getKey());
+            }
+            return columns;
+        } finally {
+            scanner.close();
+        }
+    }
+
+    private boolean isUnreferenced(Collection<Key> columns, Options options) {
+        for (Key column : columns) {
+            if (column.getColumnFamily().equals(CONTENT_REFERENCE_COLUMN_FAMILY)) {
+                return false;
+            }
+            if (column.getTimestamp() >= options.getOlderThanTimestamp()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static class Options {
+        private long olderThanTimestamp = System.currentTimeMillis() - 60 * 60 * 1000;
+        private boolean dryRun = true;
+
+        public long getOlderThanTimestamp() {
+            return olderThanTimestamp;
+        }
+
+        public Options setOlderThanTimestamp(long olderThanTimestamp) {
+            this.olderThanTimestamp = olderThanTimestamp;
+            return this;
+        }
+
+        public boolean isDryRun() {
+            return dryRun;
+        }
+
+        public Options setDryRun(boolean dryRun) {
+            this.dryRun = dryRun;
+            return this;
+        }
+    }
+}
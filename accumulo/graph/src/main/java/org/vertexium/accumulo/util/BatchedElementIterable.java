@@ -0,0 +1,153 @@
+package org.vertexium.accumulo.util;
+
+import org.vertexium.ElementId;
+import org.vertexium.VertexiumException;
+import org.vertexium.util.CloseableIterable;
+import org.vertexium.util.IterableUtils;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * Loads elements by id in batches of at most batchSize ids, keeping up to batchesInFlight batches loading on the
+ * executor while the elements of the previous batches are consumed. The ids are read lazily so only the elements of
+ * the batches in flight are held in memory. Repeated ids are skipped so each element is returned once, which means the
+ * ids already read are remembered until the iterator is done. If preserveOrder is true the elements are returned in
+ * the order of their first id, otherwise they are returned in the order each batch returns them.
+ */
+public class BatchedElementIterable<T extends ElementId> implements CloseableIterable<T> {
+    private final Iterable<String> ids;
+    private final int batchSize;
+    private final int batchesInFlight;
+    private final boolean preserveOrder;
+    private final Function<List<String>, Iterable<T>> batchLoader;
+    private final Executor executor;
+    private final List<BatchIterator> iterators = new ArrayList<>();
+
+    public BatchedElementIterable(
+        Iterable<String> ids,
+        int batchSize,
+        int batchesInFlight,
+        boolean preserveOrder,
+        Function<List<String>, Iterable<T>> batchLoader,
+        Executor executor
+    ) {
+        this.ids = ids;
+        this.batchSize = Math.max(1, batchSize);
+        this.batchesInFlight = Math.max(1, batchesInFlight);
+        this.preserveOrder = preserveOrder;
+        this.batchLoader = batchLoader;
+        this.executor = executor;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        BatchIterator iterator = new BatchIterator(ids.iterator());
+        synchronized (iterators) {
+            iterators.add(iterator);
+        }
+        return iterator;
+    }
+
+    @Override
+    public void close() {
+        synchronized (iterators) {
+            for (BatchIterator iterator : iterators) {
+                iterator.close();
+            }
+            iterators.clear();
+        }
+    }
+
+    private List<T> loadBatch(List<String> batchIds) {
+        List<T> elements = IterableUtils.toList(batchLoader.apply(batchIds));
+        if (!preserveOrder) {
+            return elements;
+        }
+        Map<String, T> elementsById = new HashMap<>();
+        for (T element : elements) {
+            elementsById.put(element.getId(), element);
+        }
+        List<T> results = new ArrayList<>(elements.size());
+        for (String id : batchIds) {
+            T element = elementsById.get(id);
+            if (element != null) {
+                results.add(element);
+            }
+        }
+        return results;
+    }
+
+    private class BatchIterator implements Iterator<T> {
+        private final Iterator<String> idsIterator;
+        private final Set<String> seenIds = new HashSet<>();
+        private final Deque<CompletableFuture<List<T>>> pendingBatches = new ArrayDeque<>();
+        private Iterator<T> current = Collections.emptyIterator();
+
+        private BatchIterator(Iterator<String> idsIterator) {
+            this.idsIterator = idsIterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext()) {
+                startBatches();
+                CompletableFuture<List<T>> batch = pendingBatches.poll();
+                if (batch == null) {
+                    return false;
+                }
+                startBatches();
+                current = getBatch(batch).iterator();
+            }
+            return true;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+
+        private void startBatches() {
+            while (pendingBatches.size() < batchesInFlight && idsIterator.hasNext()) {
+                List<String> batchIds = new ArrayList<>(batchSize);
+                while (batchIds.size() < batchSize && idsIterator.hasNext()) {
+                    String id = idsIterator.next();
+                    if (seenIds.add(id)) {
+                        batchIds.add(id);
+                    }
+                }
+                if (batchIds.isEmpty()) {
+                    continue;
+                }
+                pendingBatches.add(CompletableFuture.supplyAsync(() -> loadBatch(batchIds), executor));
+            }
+        }
+
+        private List<T> getBatch(CompletableFuture<List<T>> batch) {
+            try {
+                return batch.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new VertexiumException("Interrupted while loading elements", ex);
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) ex.getCause();
+                }
+                throw new VertexiumException("Could not load elements", ex.getCause());
+            }
+        }
+
+        private void close() {
+            for (CompletableFuture<List<T>> batch : pendingBatches) {
+                batch.cancel(false);
+            }
+            pendingBatches.clear();
+            seenIds.clear();
+            current = Collections.emptyIterator();
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package org.vertexium.accumulo.util;
 
+import com.google.common.io.ByteStreams;
 import com.google.common.primitives.Longs;
 import org.apache.accumulo.core.data.Mutation;
 import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.util.NamingThreadFactory;
 import org.apache.hadoop.io.Text;
 import org.vertexium.*;
 import org.vertexium.accumulo.*;
@@ -10,11 +12,17 @@ import org.vertexium.accumulo.keys.DataTableRowKey;
 import org.vertexium.property.StreamingPropertyValue;
 import org.vertexium.property.StreamingPropertyValueRef;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -22,8 +30,13 @@ import static org.vertexium.accumulo.StreamingPropertyValueTableData.*;
 
 public class DataInDataTableStreamingPropertyValueStorageStrategy implements StreamingPropertyValueStorageStrategy {
     public static final int DEFAULT_PART_SIZE = 10 * 1024;
+    public static final int DEFAULT_WRITE_THREADS = 1;
+    public static final boolean DEFAULT_COMPRESS = false;
     private final int dataInDataTablePartSize;
+    private final int writeThreads;
+    private final boolean compress;
     private final AccumuloGraph graph;
+    private ExecutorService writeExecutor;
 
     public DataInDataTableStreamingPropertyValueStorageStrategy(Graph graph, GraphConfiguration configuration) {
         if (!(graph instanceof AccumuloGraph)) {
@@ -36,6 +49,9 @@ public class DataInDataTableStreamingPropertyValueStorageStrategy implements Str
         }
         AccumuloGraphConfiguration config = (AccumuloGraphConfiguration) configuration;
         this.dataInDataTablePartSize = config.getInt(AccumuloGraphConfiguration.STREAMING_PROPERTY_VALUE_STORAGE_STRATEGY_PREFIX + ".partSize", DEFAULT_PART_SIZE);
+        this.writeThreads = config.getInt(AccumuloGraphConfiguration.STREAMING_PROPERTY_VALUE_STORAGE_STRATEGY_PREFIX + ".writeThreads", DEFAULT_WRITE_THREADS);
+        this.compress = config.getBoolean(AccumuloGraphConfiguration.STREAMING_PROPERTY_VALUE_STORAGE_STRATEGY_PREFIX + ".compress", DEFAULT_COMPRESS)
+            && SnappyUtils.testSnappySupport();
     }
 
     @Override
@@ -47,18 +63,11 @@ public class DataInDataTableStreamingPropertyValueStorageStrategy implements Str
     ) {
         try (InputStream in = streamingPropertyValue.getInputStream()) {
             String dataTableRowKey = new DataTableRowKey(rowKey, property).getRowKey();
-            byte[] buffer = new byte[dataInDataTablePartSize];
-            long offset = 0;
-            while (true) {
-                int read = in.read(buffer);
-                if (read <= 0) {
-                    break;
-                }
-                Mutation dataMutation = new Mutation(dataTableRowKey);
-                Text columnQualifier = new Text(String.format("%08x", offset));
-                dataMutation.put(DATA_COLUMN_FAMILY, columnQualifier, property.getTimestamp(), new Value(buffer, 0, read));
-                elementMutationBuilder.saveDataMutation(dataMutation);
-                offset += read;
+            long offset;
+            if (writeThreads > 1) {
+                offset = saveChunksInParallel(elementMutationBuilder, dataTableRowKey, property, in);
+            } else {
+                offset = saveChunks(elementMutationBuilder, dataTableRowKey, property, in);
             }
 
             if (streamingPropertyValue.getLength() != null && offset != streamingPropertyValue.getLength()) {
@@ -73,15 +82,111 @@ public class DataInDataTableStreamingPropertyValueStorageStrategy implements Str
             dataMutation.put(METADATA_COLUMN_FAMILY, METADATA_LENGTH_COLUMN_QUALIFIER, property.getTimestamp(), new Value(Longs.toByteArray(offset)));
             elementMutationBuilder.saveDataMutation(dataMutation);
 
-            return new StreamingPropertyValueTableDataRef(dataTableRowKey, streamingPropertyValue, offset);
+            return new StreamingPropertyValueTableDataRef(dataTableRowKey, streamingPropertyValue, offset, compress);
         } catch (Exception ex) {
             throw new VertexiumException("Could not store streaming property value", ex);
         }
     }
 
-    @Override
-    public void close() {
+    private long saveChunks(
+        ElementMutationBuilder elementMutationBuilder,
+        String dataTableRowKey,
+        Property property,
+        InputStream in
+    ) throws IOException {
+        byte[] buffer = new byte[dataInDataTablePartSize];
+        long offset = 0;
+        while (true) {
+            int read = in.read(buffer);
+            if (read <= 0) {
+                break;
+            }
+            elementMutationBuilder.saveDataMutation(createChunkMutation(dataTableRowKey, property, offset, buffer, read));
+            offset += read;
+        }
+        return offset;
+    }
 
+    /**
+     * Reads ahead into a bounded pool of buffers while the write threads compress the chunks and add them to the
+     * batch writer. Returns once every chunk has been added.
+     */
+    private long saveChunksInParallel(
+        ElementMutationBuilder elementMutationBuilder,
+        String dataTableRowKey,
+        Property property,
+        InputStream in
+    ) throws Exception {
+        int bufferCount = writeThreads * 2;
+        BlockingQueue<byte[]> buffers = new ArrayBlockingQueue<>(bufferCount);
+        for (int i = 0; i < bufferCount; i++) {
+            buffers.add(new byte[dataInDataTablePartSize]);
+        }
+        AtomicReference<Exception> error = new AtomicReference<>();
+        long offset = 0;
+        try {
+            while (error.get() == null) {
+                byte[] buffer = buffers.take();
+                boolean submitted = false;
+                try {
+                    int read = ByteStreams.read(in, buffer, 0, buffer.length);
+                    if (read <= 0) {
+                        break;
+                    }
+                    long chunkOffset = offset;
+                    getWriteExecutor().execute(() -> {
+                        try {
+                            Mutation dataMutation = createChunkMutation(dataTableRowKey, property, chunkOffset, buffer, read);
+                            synchronized (elementMutationBuilder) {
+                                elementMutationBuilder.saveDataMutation(dataMutation);
+                            }
+                        } catch (Exception ex) {
+                            error.compareAndSet(null, ex);
+                        } finally {
+                            buffers.add(buffer);
+                        }
+                    });
+                    submitted = true;
+                    offset += read;
+                } finally {
+                    if (!submitted) {
+                        buffers.add(buffer);
+                    }
+                }
+            }
+        } finally {
+            // every buffer is returned once its chunk has been written
+            for (int i = 0; i < bufferCount; i++) {
+                buffers.take();
+            }
+        }
+        if (error.get() != null) {
+            throw error.get();
+        }
+        return offset;
+    }
+
+    private Mutation createChunkMutation(String dataTableRowKey, Property property, long offset, byte[] buffer, int length) throws IOException {
+        Mutation dataMutation = new Mutation(dataTableRowKey);
+        Text columnQualifier = new Text(String.format("%08x", offset));
+        Value value = compress ? new Value(SnappyUtils.compress(buffer, 0, length)) : new Value(buffer, 0, length);
+        dataMutation.put(DATA_COLUMN_FAMILY, columnQualifier, property.getTimestamp(), value);
+        return dataMutation;
+    }
+
+    private synchronized ExecutorService getWriteExecutor() {
+        if (writeExecutor == null) {
+            writeExecutor = Executors.newFixedThreadPool(writeThreads, new NamingThreadFactory("vertexium-spv-write"));
+        }
+        return writeExecutor;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (writeExecutor != null) {
+            writeExecutor.shutdown();
+            writeExecutor = null;
+        }
     }
 
     @Override
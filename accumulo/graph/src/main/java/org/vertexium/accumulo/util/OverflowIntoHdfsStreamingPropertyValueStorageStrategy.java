@@ -1,5 +1,7 @@
 package org.vertexium.accumulo.util;
 
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingInputStream;
 import org.apache.accumulo.core.client.ScannerBase;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Mutation;
@@ -7,11 +9,14 @@ import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.trace.Span;
 import org.apache.accumulo.core.trace.Trace;
 import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
 import org.vertexium.Graph;
 import org.vertexium.GraphConfiguration;
 import org.vertexium.Property;
 import org.vertexium.VertexiumException;
 import org.vertexium.accumulo.*;
+import org.vertexium.accumulo.keys.DataTableContentRowKey;
 import org.vertexium.accumulo.keys.DataTableRowKey;
 import org.vertexium.property.StreamingPropertyValue;
 import org.vertexium.property.StreamingPropertyValueRef;
@@ -19,6 +24,7 @@ import org.vertexium.util.IOUtils;
 import org.vertexium.util.VertexiumLogger;
 import org.vertexium.util.VertexiumLoggerFactory;
 
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Collections;
@@ -28,13 +34,16 @@ import java.util.Map;
 import java.util.stream.Collectors;
 
 import static org.vertexium.accumulo.ElementMutationBuilder.EMPTY_TEXT;
+import static org.vertexium.util.IncreasingTime.currentTimeMillis;
 
 public class OverflowIntoHdfsStreamingPropertyValueStorageStrategy implements StreamingPropertyValueStorageStrategy {
     private static final VertexiumLogger LOGGER = VertexiumLoggerFactory.getLogger(ElementMutationBuilder.class);
+    public static final Text CONTENT_REFERENCE_COLUMN_FAMILY = new Text("r");
     private final FileSystem fileSystem;
     private final long maxStreamingPropertyValueTableDataSize;
     private final String dataDir;
     private final AccumuloGraph graph;
+    private final boolean deduplicate;
 
     public OverflowIntoHdfsStreamingPropertyValueStorageStrategy(Graph graph, GraphConfiguration configuration) throws Exception {
         if (!(configuration instanceof AccumuloGraphConfiguration)) {
@@ -48,6 +57,7 @@ public class OverflowIntoHdfsStreamingPropertyValueStorageStrategy implements St
         this.fileSystem = config.createFileSystem();
         this.maxStreamingPropertyValueTableDataSize = config.getMaxStreamingPropertyValueTableDataSize();
         this.dataDir = config.getDataDir();
+        this.deduplicate = config.isDeduplicateStreamingPropertyValues();
     }
 
     @Override
@@ -57,6 +67,9 @@ public class OverflowIntoHdfsStreamingPropertyValueStorageStrategy implements St
         Property property,
         StreamingPropertyValue streamingPropertyValue
     ) {
+        if (deduplicate) {
+            return saveStreamingPropertyValueContent(elementMutationBuilder, rowKey, property, streamingPropertyValue);
+        }
         try {
             HdfsLargeDataStore largeDataStore = new HdfsLargeDataStore(this.fileSystem, this.dataDir, rowKey, property);
             LimitOutputStream out = new LimitOutputStream(largeDataStore, maxStreamingPropertyValueTableDataSize);
@@ -77,6 +90,134 @@ public class OverflowIntoHdfsStreamingPropertyValueStorageStrategy implements St
         }
     }
 
+    /**
+     * Stores the value once for each unique content hash. The content row in the data table holds a reference column
+     * for each property using the content, and also holds the content itself unless it is too large and stored in
+     * HDFS.
+     */
+    private StreamingPropertyValueRef saveStreamingPropertyValueContent(
+        ElementMutationBuilder elementMutationBuilder,
+        String rowKey,
+        Property property,
+        StreamingPropertyValue streamingPropertyValue
+    ) {
+        try {
+            HdfsLargeDataStore largeDataStore = new HdfsLargeDataStore(this.fileSystem, this.dataDir, rowKey, property);
+            LimitOutputStream out = new LimitOutputStream(largeDataStore, maxStreamingPropertyValueTableDataSize);
+            HashingInputStream in = new HashingInputStream(Hashing.sha256(), streamingPropertyValue.getInputStream());
+            try {
+                IOUtils.copy(in, out);
+            } finally {
+                out.close();
+            }
+
+            DataTableContentRowKey contentRowKey = new DataTableContentRowKey(in.hash().toString());
+            Mutation contentMutation = new Mutation(contentRowKey.getRowKey());
+            contentMutation.put(
+                CONTENT_REFERENCE_COLUMN_FAMILY,
+                getContentReferenceColumnQualifier(rowKey, property),
+                currentTimeMillis(),
+                ElementMutationBuilder.EMPTY_VALUE
+            );
+            StreamingPropertyValueRef result;
+            if (out.hasExceededSizeLimit()) {
+                moveToContentFile(largeDataStore.getFullHdfsPath(), contentRowKey);
+                result = new StreamingPropertyValueHdfsRef(contentRowKey.getHdfsFileName(), streamingPropertyValue);
+            } else {
+                byte[] data = out.getSmall();
+                contentMutation.put(EMPTY_TEXT, EMPTY_TEXT, currentTimeMillis(), new Value(data));
+                result = new StreamingPropertyValueTableRef(contentRowKey.getRowKey(), streamingPropertyValue, data);
+            }
+            elementMutationBuilder.saveDataMutation(contentMutation);
+            return result;
+        } catch (IOException ex) {
+            throw new VertexiumException(ex);
+        }
+    }
+
+    private void moveToContentFile(Path path, DataTableContentRowKey contentRowKey) throws IOException {
+        Path contentPath = new Path(this.dataDir, contentRowKey.getHdfsFileName());
+        if (touchContentFile(contentPath)) {
+            this.fileSystem.delete(path, false);
+            return;
+        }
+        if (!this.fileSystem.mkdirs(contentPath.getParent())) {
+            throw new IOException("Could not create directory " + contentPath.getParent());
+        }
+        if (!this.fileSystem.rename(path, contentPath)) {
+            if (!touchContentFile(contentPath)) {
+                throw new IOException("Could not move " + path + " to " + contentPath);
+            }
+            // the same content was stored by another writer
+            this.fileSystem.delete(path, false);
+        }
+        LOGGER.debug("saved large file to \"%s\"", contentPath);
+    }
+
+    /**
+     * Marks existing content as recently referenced. DeleteUnreferencedStreamingPropertyValueContent moves content
+     * out of the way before checking this time again, so the content is either kept or, if it was moved before it
+     * was marked, this returns false and the caller stores its own copy.
+     *
+     * @return true if the content exists and was marked
+     */
+    private boolean touchContentFile(Path contentPath) throws IOException {
+        if (!this.fileSystem.exists(contentPath)) {
+            return false;
+        }
+        try {
+            this.fileSystem.setTimes(contentPath, System.currentTimeMillis(), -1);
+        } catch (FileNotFoundException ex) {
+            return false;
+        }
+        return this.fileSystem.exists(contentPath);
+    }
+
+    @Override
+    public void deleteStreamingPropertyValue(ElementMutationBuilder elementMutationBuilder, String rowKey, Property property) {
+        DataTableContentRowKey contentRowKey = getContentRowKey((StreamingPropertyValue) property.getValue());
+        if (contentRowKey == null) {
+            return;
+        }
+        Mutation contentMutation = new Mutation(contentRowKey.getRowKey());
+        contentMutation.putDelete(
+            CONTENT_REFERENCE_COLUMN_FAMILY,
+            getContentReferenceColumnQualifier(rowKey, property),
+            currentTimeMillis()
+        );
+        elementMutationBuilder.saveDataMutation(contentMutation);
+    }
+
+    @Override
+    public boolean isReferenceCounted() {
+        return deduplicate;
+    }
+
+    /**
+     * Properties with the same key and name but different visibilities are different properties, so each holds its
+     * own reference. The qualifier does not include the property timestamp, so the content of a replaced value stays
+     * referenced for the property history.
+     */
+    private static Text getContentReferenceColumnQualifier(String rowKey, Property property) {
+        return new Text(
+            new DataTableRowKey(rowKey, property).getRowKey()
+                + DataTableRowKey.VALUE_SEPARATOR + property.getVisibility().getVisibilityString()
+        );
+    }
+
+    private DataTableContentRowKey getContentRowKey(StreamingPropertyValue streamingPropertyValue) {
+        if (streamingPropertyValue instanceof StreamingPropertyValueTable) {
+            return DataTableContentRowKey.fromRowKey(((StreamingPropertyValueTable) streamingPropertyValue).getDataRowKey());
+        }
+        if (streamingPropertyValue instanceof StreamingPropertyValueHdfs) {
+            Path path = ((StreamingPropertyValueHdfs) streamingPropertyValue).getPath();
+            Path dataDirPath = new Path(this.dataDir);
+            String fileName = path.toUri().getPath().substring(dataDirPath.toUri().getPath().length());
+            return DataTableContentRowKey.fromHdfsFileName(fileName.startsWith("/") ? fileName.substring(1) : fileName);
+        }
+        return null;
+    }
+
     @Override
     public void close() {
         try {
@@ -133,7 +274,9 @@ public class OverflowIntoHdfsStreamingPropertyValueStorageStrategy implements St
             try {
                 Map<String, byte[]> results = new HashMap<>();
                 for (Map.Entry<Key, Value> col : scanner) {
-                    results.put(col.getKey().getRow().toString(), col.getValue().get());
+                    if (col.getKey().getColumnFamily().getLength() == 0) {
+                        results.put(col.getKey().getRow().toString(), col.getValue().get());
+                    }
                 }
                 return results;
             } finally {
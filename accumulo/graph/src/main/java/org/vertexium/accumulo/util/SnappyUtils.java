@@ -4,11 +4,14 @@ import org.vertexium.VertexiumException;
 import org.vertexium.util.IOUtils;
 import org.vertexium.util.VertexiumLogger;
 import org.vertexium.util.VertexiumLoggerFactory;
+import org.xerial.snappy.Snappy;
 import org.xerial.snappy.SnappyInputStream;
 import org.xerial.snappy.SnappyOutputStream;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
 
 public class SnappyUtils {
     private static final VertexiumLogger LOGGER = VertexiumLoggerFactory.getLogger(SnappyUtils.class);
@@ -35,4 +38,14 @@ public class SnappyUtils {
             return false;
         }
     }
+
+    public static byte[] compress(byte[] data, int offset, int length) throws IOException {
+        byte[] compressed = new byte[Snappy.maxCompressedLength(length)];
+        int compressedLength = Snappy.compress(data, offset, length, compressed, 0);
+        return Arrays.copyOf(compressed, compressedLength);
+    }
+
+    public static byte[] uncompress(byte[] data) throws IOException {
+        return Snappy.uncompress(data);
+    }
 }
@@ -18,6 +18,26 @@ public interface StreamingPropertyValueStorageStrategy {
         StreamingPropertyValue streamingPropertyValue
     );
 
+    /**
+     * Called when a property holding a streaming property value is deleted so the storage can release the value.
+     */
+    default void deleteStreamingPropertyValue(
+        ElementMutationBuilder elementMutationBuilder,
+        String rowKey,
+        Property property
+    ) {
+    }
+
+    /**
+     * If true, the storage keeps a reference for each property holding a streaming property value, and
+     * {@link #deleteStreamingPropertyValue(ElementMutationBuilder, String, Property)} must also be called when its
+     * element is deleted. Replaced and soft deleted values keep their references since they are still readable
+     * through the property history.
+     */
+    default boolean isReferenceCounted() {
+        return false;
+    }
+
     void close();
 
     List<InputStream> getInputStreams(List<StreamingPropertyValue> streamingPropertyValues);
@@ -1,9 +1,18 @@
 package org.vertexium.accumulo;
 
 import org.junit.ClassRule;
+import org.junit.Ignore;
 import org.junit.Test;
+import org.vertexium.Graph;
+import org.vertexium.property.StreamingPropertyValue;
+import org.vertexium.util.VertexiumLogger;
+import org.vertexium.util.VertexiumLoggerFactory;
+
+import java.io.InputStream;
+import java.util.Map;
 
 public class AccumuloGraphTest extends AccumuloGraphTestBase {
+    private static final VertexiumLogger LOGGER = VertexiumLoggerFactory.getLogger(AccumuloGraphTest.class);
 
     @ClassRule
     public static final AccumuloResource accumuloResource = new AccumuloResource();
@@ -27,4 +36,76 @@ public class AccumuloGraphTest extends AccumuloGraphTestBase {
             getGraph().traceOff();
         }
     }
+
+    @Test
+    @Ignore // performance test
+    @SuppressWarnings("unchecked")
+    public void testStreamingPropertyValueWritePerformance() throws Exception {
+        long[] sizes = new long[]{10L * 1024 * 1024, 100L * 1024 * 1024, 1024L * 1024 * 1024, 2048L * 1024 * 1024};
+        int[] partSizes = new int[]{10 * 1024, 256 * 1024};
+        int[] writeThreadCounts = new int[]{1, Runtime.getRuntime().availableProcessors()};
+
+        StringBuilder results = new StringBuilder("RESULTS\nsize,partSize,writeThreads,compress,writeTime,megabytesPerSecond");
+        int vertexIndex = 0;
+        for (long size : sizes) {
+            for (int partSize : partSizes) {
+                for (int writeThreads : writeThreadCounts) {
+                    for (boolean compress : new boolean[]{false, true}) {
+                        Map config = getAccumuloResource().createConfig();
+                        config.put(AccumuloGraphConfiguration.STREAMING_PROPERTY_VALUE_STORAGE_STRATEGY_PREFIX + ".partSize", Integer.toString(partSize));
+                        config.put(AccumuloGraphConfiguration.STREAMING_PROPERTY_VALUE_STORAGE_STRATEGY_PREFIX + ".writeThreads", Integer.toString(writeThreads));
+                        config.put(AccumuloGraphConfiguration.STREAMING_PROPERTY_VALUE_STORAGE_STRATEGY_PREFIX + ".compress", Boolean.toString(compress));
+                        Graph g = AccumuloGraph.create(new AccumuloGraphConfiguration(config));
+
+                        long writeTime;
+                        try {
+                            long startTime = System.currentTimeMillis();
+                            g.prepareVertex("v" + vertexIndex++, VISIBILITY_A)
+                                .setProperty("spv", StreamingPropertyValue.create(new PatternInputStream(size), byte[].class, size), VISIBILITY_A)
+                                .save(AUTHORIZATIONS_A);
+                            g.flush();
+                            writeTime = System.currentTimeMillis() - startTime;
+                        } finally {
+                            g.shutdown();
+                        }
+
+                        double megabytesPerSecond = (size / (1024.0 * 1024.0)) / (Math.max(writeTime, 1) / 1000.0);
+                        results.append(String.format("\n%d,%d,%d,%b,%d,%.1f", size, partSize, writeThreads, compress, writeTime, megabytesPerSecond));
+                    }
+                }
+            }
+        }
+        LOGGER.info("%s", results);
+    }
+
+    /**
+     * Generates size bytes of compressible data without holding it in memory.
+     */
+    private static class PatternInputStream extends InputStream {
+        private long left;
+
+        PatternInputStream(long size) {
+            this.left = size;
+        }
+
+        @Override
+        public int read() {
+            if (left <= 0) {
+                return -1;
+            }
+            return 'A' + (int) (--left % 26);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (left <= 0) {
+                return -1;
+            }
+            int count = (int) Math.min(len, left);
+            for (int i = 0; i < count; i++) {
+                b[off + i] = (byte) ('A' + (int) (--left % 26));
+            }
+            return count;
+        }
+    }
 }
@@ -1,11 +1,15 @@
 package org.vertexium.accumulo;
 
+import com.google.common.collect.Lists;
 import org.apache.accumulo.core.client.Scanner;
 import org.apache.accumulo.core.client.*;
+import org.apache.accumulo.core.client.admin.TableOperations;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Mutation;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.file.keyfunctor.RowFunctor;
+import org.apache.accumulo.core.iterators.IteratorUtil;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.time.StopWatch;
 import org.apache.hadoop.io.Text;
@@ -13,20 +17,33 @@ import org.junit.Before;
 import org.junit.Test;
 import org.vertexium.*;
 import org.vertexium.accumulo.iterator.model.VertexiumInvalidKeyException;
+import org.vertexium.accumulo.keys.DataTableContentRowKey;
 import org.vertexium.accumulo.keys.DataTableRowKey;
 import org.vertexium.accumulo.models.AccumuloEdgeInfo;
+import org.vertexium.accumulo.tools.ApplyTableLayout;
 import org.vertexium.accumulo.tools.DeleteHistoricalLegacyStreamingPropertyValueData;
+import org.vertexium.accumulo.tools.DeleteUnreferencedStreamingPropertyValueContent;
 import org.vertexium.accumulo.util.DataInDataTableStreamingPropertyValueStorageStrategy;
+import org.vertexium.accumulo.util.OverflowIntoHdfsStreamingPropertyValueStorageStrategy;
+import org.vertexium.historicalEvent.HistoricalEvent;
+import org.vertexium.historicalEvent.HistoricalEventId;
+import org.vertexium.historicalEvent.HistoricalSoftDeleteVertexEvent;
+import org.vertexium.id.ShardedIdGenerator;
 import org.vertexium.property.MutablePropertyImpl;
 import org.vertexium.property.StreamingPropertyValue;
+import org.vertexium.query.Compare;
 import org.vertexium.test.GraphTestBase;
+import org.vertexium.test.util.LargeStringInputStream;
+import org.vertexium.util.CloseableIterable;
 import org.vertexium.util.VertexiumLogger;
 import org.vertexium.util.VertexiumLoggerFactory;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
 import java.util.*;
+import java.util.stream.Collectors;
 
 import static junit.framework.TestCase.fail;
 import static org.junit.Assert.*;
@@ -34,6 +51,8 @@ import static org.junit.Assume.assumeTrue;
 import static org.vertexium.accumulo.ElementMutationBuilder.EMPTY_TEXT;
 import static org.vertexium.accumulo.iterator.model.KeyBase.VALUE_SEPARATOR;
 import static org.vertexium.accumulo.keys.KeyHelper.getColumnQualifierFromPropertyColumnQualifier;
+import static org.vertexium.test.util.VertexiumAssert.assertResultsCount;
+import static org.vertexium.util.IterableUtils.count;
 import static org.vertexium.util.IterableUtils.toList;
 
 public abstract class AccumuloGraphTestBase extends GraphTestBase {
@@ -431,6 +450,225 @@ public abstract class AccumuloGraphTestBase extends GraphTestBase {
         assertEquals(null, dataTableSplits.get(1).getEnd());
     }
 
+    @Test
+    public void testGetEdgeInfoPageWithoutEdgeRefs() {
+        graph.prepareVertex("v1", VISIBILITY_A).save(AUTHORIZATIONS_A);
+        graph.prepareVertex("v2", VISIBILITY_A).save(AUTHORIZATIONS_A);
+        graph.prepareEdge("e1", "v1", "v2", LABEL_LABEL1, VISIBILITY_A).save(AUTHORIZATIONS_A);
+        graph.prepareEdge("e2", "v2", "v1", LABEL_LABEL2, VISIBILITY_A).save(AUTHORIZATIONS_A);
+        graph.prepareEdge("e3", "v1", "v2", LABEL_LABEL1, VISIBILITY_B).save(AUTHORIZATIONS_B);
+        graph.prepareEdge("e4", "v1", "v2", LABEL_LABEL1, VISIBILITY_A).save(AUTHORIZATIONS_A);
+        graph.flush();
+
+        Vertex v1 = graph.getVertex("v1", FetchHints.NONE, AUTHORIZATIONS_A);
+        EdgeInfoPage page = v1.getEdgeInfos(Direction.BOTH, null, null, 2, AUTHORIZATIONS_A);
+        assertEquals(3, page.getTotalCount());
+        assertEquals("e1", page.getEdgeInfos().get(0).getEdgeId());
+        assertEquals(LABEL_LABEL1, page.getEdgeInfos().get(0).getLabel());
+        assertEquals("v2", page.getEdgeInfos().get(0).getVertexId());
+        assertEquals(Direction.IN, page.getEdgeInfos().get(1).getDirection());
+        assertEquals("e2", page.getNextStartAfterEdgeId());
+
+        page = v1.getEdgeInfos(Direction.OUT, new String[]{LABEL_LABEL1}, page.getNextStartAfterEdgeId(), 2, AUTHORIZATIONS_A);
+        assertEquals(2, page.getTotalCount());
+        assertEquals(1, page.getEdgeInfos().size());
+        assertEquals("e4", page.getEdgeInfos().get(0).getEdgeId());
+        assertFalse(page.hasMore());
+    }
+
+    @Test
+    public void testGetVerticesInOrderStreaming() {
+        for (int i = 0; i < 20; i++) {
+            graph.prepareVertex("v" + i, VISIBILITY_A).save(AUTHORIZATIONS_A);
+        }
+        graph.flush();
+
+        List<String> ids = new ArrayList<>();
+        for (int i = 19; i >= 0; i -= 2) {
+            ids.add("v" + i);
+        }
+        ids.add(1, "missing");
+        List<String> results = new ArrayList<>();
+        try (CloseableIterable<Vertex> vertices = getGraph().getVerticesInOrder(ids::iterator, FetchHints.ALL, null, AUTHORIZATIONS_A)) {
+            for (Vertex vertex : vertices) {
+                results.add(vertex.getId());
+            }
+        } catch (IOException ex) {
+            throw new VertexiumException(ex);
+        }
+        ids.remove("missing");
+        assertEquals(ids, results);
+        assertEquals(ids, graph.getVerticesInOrder(ids, FetchHints.ALL, AUTHORIZATIONS_A).stream().map(Element::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testPreSplitTables() throws Exception {
+        ShardedIdGenerator idGenerator = new ShardedIdGenerator(4);
+        getGraph().preSplitTables(idGenerator.getShardPrefixes());
+
+        TableOperations tableOperations = getGraph().getConnector().tableOperations();
+        List<Text> expectedSplits = Lists.newArrayList(new Text("1"), new Text("2"), new Text("3"));
+        assertEquals(expectedSplits, new ArrayList<>(tableOperations.listSplits(getGraph().getVerticesTableName())));
+        assertEquals(expectedSplits, new ArrayList<>(tableOperations.listSplits(getGraph().getEdgesTableName())));
+        assertEquals(7, tableOperations.listSplits(getGraph().getExtendedDataTableName()).size());
+
+        String vertexId = idGenerator.nextId();
+        graph.prepareVertex(vertexId, VISIBILITY_A)
+            .addExtendedData("table1", "row1", "column1", "value1", VISIBILITY_A)
+            .save(AUTHORIZATIONS_A);
+        graph.flush();
+        assertEquals(vertexId, graph.getVertex(vertexId, AUTHORIZATIONS_A).getId());
+        assertEquals(1, count(graph.getExtendedData(ElementType.VERTEX, vertexId, "table1", AUTHORIZATIONS_A)));
+    }
+
+    @Test
+    public void testQueryWithScanFilters() {
+        graph.prepareVertex("v1", VISIBILITY_A)
+            .addPropertyValue("k1", "name", "Joe", VISIBILITY_A)
+            .addPropertyValue("k1", "age", 25L, VISIBILITY_A)
+            .save(AUTHORIZATIONS_A);
+        graph.prepareVertex("v2", VISIBILITY_A)
+            .addPropertyValue("k1", "name", "Sam", VISIBILITY_A)
+            .addPropertyValue("k1", "age", 40, VISIBILITY_A)
+            .save(AUTHORIZATIONS_A);
+        graph.prepareVertex("v3", VISIBILITY_A)
+            .addPropertyValue("k1", "age", 30L, VISIBILITY_A)
+            .save(AUTHORIZATIONS_A);
+        graph.prepareEdge("e1", "v1", "v2", LABEL_LABEL1, VISIBILITY_A).save(AUTHORIZATIONS_A);
+        graph.prepareEdge("e2", "v1", "v3", LABEL_LABEL2, VISIBILITY_A).save(AUTHORIZATIONS_A);
+        graph.flush();
+
+        assertResultsCount(1, graph.query(AUTHORIZATIONS_A).has("name", "joe").vertices());
+        assertResultsCount(2, graph.query(AUTHORIZATIONS_A).has("name").vertices());
+        assertResultsCount(2, graph.query(AUTHORIZATIONS_A).has("age", Compare.GREATER_THAN_EQUAL, 30).vertices());
+        assertResultsCount(1, graph.query(AUTHORIZATIONS_A).has("age", Compare.LESS_THAN, "30").has("name").vertices());
+        assertResultsCount(1, graph.query(AUTHORIZATIONS_A).hasNot("name").vertices());
+        assertResultsCount(1, graph.query(AUTHORIZATIONS_A).hasEdgeLabel(LABEL_LABEL2).edges());
+    }
+
+    @Test
+    public void testBulkLoad() throws Exception {
+        AccumuloBulkLoadOptions options = new AccumuloBulkLoadOptions()
+            .setImportDirectory(Files.createTempDirectory("vertexium-bulk-load-test").toString())
+            .setMaxBufferedBytesPerTable(1024);
+        try (AccumuloBulkLoader bulkLoader = getGraph().createBulkLoader(options)) {
+            for (int i = 0; i < 20; i++) {
+                VertexBuilder vertexBuilder = graph.prepareVertex("v" + i, VISIBILITY_A);
+                vertexBuilder.addPropertyValue("k1", "name", "value" + i, VISIBILITY_A);
+                vertexBuilder.addExtendedData("table1", "row1", "column1", "value" + i, VISIBILITY_A);
+                bulkLoader.addVertex(vertexBuilder);
+            }
+            bulkLoader.addEdge(graph.prepareEdge("e1", "v0", "v1", LABEL_LABEL1, VISIBILITY_A));
+            bulkLoader.importFiles();
+        }
+
+        Vertex v5 = graph.getVertex("v5", AUTHORIZATIONS_A);
+        assertEquals("value5", v5.getPropertyValue("k1", "name"));
+        assertEquals(20, count(graph.getVertices(AUTHORIZATIONS_A)));
+        assertEquals(1, count(graph.getExtendedData(ElementType.VERTEX, "v5", "table1", AUTHORIZATIONS_A)));
+
+        Edge e1 = graph.getEdge("e1", AUTHORIZATIONS_A);
+        assertEquals("v0", e1.getVertexId(Direction.OUT));
+        assertEquals("v1", e1.getVertexId(Direction.IN));
+        assertEquals(1, count(graph.getVertex("v0", AUTHORIZATIONS_A).getEdgeIds(Direction.OUT, AUTHORIZATIONS_A)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testParallelCompressedStreamingPropertyValueWrites() throws Exception {
+        assumeTrue(getGraph().getStreamingPropertyValueStorageStrategy() instanceof DataInDataTableStreamingPropertyValueStorageStrategy);
+        Map config = getAccumuloResource().createConfig();
+        config.put(AccumuloGraphConfiguration.STREAMING_PROPERTY_VALUE_STORAGE_STRATEGY_PREFIX + ".partSize", "1000");
+        config.put(AccumuloGraphConfiguration.STREAMING_PROPERTY_VALUE_STORAGE_STRATEGY_PREFIX + ".writeThreads", "4");
+        config.put(AccumuloGraphConfiguration.STREAMING_PROPERTY_VALUE_STORAGE_STRATEGY_PREFIX + ".compress", "true");
+        String value = IOUtils.toString(new LargeStringInputStream(LARGE_PROPERTY_VALUE_SIZE));
+        Graph parallelGraph = AccumuloGraph.create(new AccumuloGraphConfiguration(config));
+        try {
+            parallelGraph.prepareVertex("v1", VISIBILITY_A)
+                .setProperty("spv", StreamingPropertyValue.create(value), VISIBILITY_A)
+                .save(AUTHORIZATIONS_A);
+            parallelGraph.flush();
+        } finally {
+            parallelGraph.shutdown();
+        }
+
+        // the value is read back by a graph which writes uncompressed chunks on the calling thread
+        StreamingPropertyValue spv = (StreamingPropertyValue) graph.getVertex("v1", AUTHORIZATIONS_A).getPropertyValue("spv");
+        assertEquals(value, spv.readToString());
+        assertEquals(value.substring(5500, 5600), spv.readToString(5500, 100));
+        List<StreamingPropertyValueData> data = graph.readStreamingPropertyValues(Collections.singletonList(spv)).collect(Collectors.toList());
+        assertEquals(1, data.size());
+        assertEquals(value, data.get(0).getDataAsString());
+    }
+
+    @Test
+    public void testDeleteElementsInBatches() {
+        int vertexCount = 250;
+        for (int i = 0; i < vertexCount; i++) {
+            graph.prepareVertex("v" + i, VISIBILITY_A)
+                .addExtendedData("table1", "row1", "column1", "value" + i, VISIBILITY_A)
+                .save(AUTHORIZATIONS_A);
+            if (i > 0) {
+                graph.prepareEdge("e" + i, "v" + (i - 1), "v" + i, LABEL_LABEL1, VISIBILITY_A).save(AUTHORIZATIONS_A);
+            }
+        }
+        graph.flush();
+
+        // v10 to v19 are kept to check their extended data is not deleted with v1's
+        List<ElementId> elementIds = new ArrayList<>();
+        for (int i = 1; i < vertexCount; i++) {
+            if (i < 10 || i > 19) {
+                elementIds.add(ElementId.vertex("v" + i));
+            }
+        }
+        graph.deleteElements(elementIds.stream(), AUTHORIZATIONS_A);
+        graph.flush();
+
+        assertEquals(11, graph.getVertexCount(AUTHORIZATIONS_A));
+        assertEquals(9, graph.getEdgeCount(AUTHORIZATIONS_A));
+        assertEquals(0, count(graph.getExtendedData(ElementType.VERTEX, "v1", "table1", AUTHORIZATIONS_A)));
+        assertEquals(1, count(graph.getExtendedData(ElementType.VERTEX, "v10", "table1", AUTHORIZATIONS_A)));
+        assertEquals(1, count(graph.getExtendedData(ElementType.VERTEX, "v0", "table1", AUTHORIZATIONS_A)));
+    }
+
+    @Test
+    public void testParallelReindex() throws AccumuloSecurityException, TableNotFoundException, AccumuloException {
+        graph.prepareVertex("v1", VISIBILITY_A).save(AUTHORIZATIONS_A);
+        graph.prepareVertex("v2", VISIBILITY_A).save(AUTHORIZATIONS_A);
+        graph.prepareEdge("e1", "v1", "v2", LABEL_LABEL1, VISIBILITY_A).save(AUTHORIZATIONS_A);
+        graph.flush();
+
+        SortedSet<Text> keys = new TreeSet<>();
+        keys.add(new Text("j"));
+        keys.add(new Text("v"));
+        getGraph().getConnector().tableOperations().addSplits(getGraph().getVerticesTableName(), keys);
+
+        List<IdRange> completedVertexRanges = Collections.synchronizedList(new ArrayList<>());
+        List<String> progress = Collections.synchronizedList(new ArrayList<>());
+        AccumuloReindexOptions options = new AccumuloReindexOptions()
+            .setThreadCount(2)
+            .addCompletedRanges(ElementType.VERTEX, Collections.singletonList(new IdRange(null, "j")))
+            .setRangeCompletedListener((elementType, range) -> {
+                if (elementType == ElementType.VERTEX) {
+                    completedVertexRanges.add(range);
+                }
+            })
+            .setProgressCallback(new ProgressCallback() {
+                @Override
+                public void progress(double progressPercent, Step step, Integer edgeIndex, Integer vertexCount) {
+                    progress.add(step.formatMessage(edgeIndex, vertexCount));
+                }
+            });
+        getGraph().reindex(options, AUTHORIZATIONS_A);
+
+        assertEquals(2, completedVertexRanges.size());
+        assertTrue(completedVertexRanges.contains(new IdRange("j", "v")));
+        assertTrue(completedVertexRanges.contains(new IdRange("v", null)));
+        assertTrue(options.isRangeCompleted(ElementType.VERTEX, new IdRange("a", "b")));
+        assertTrue(progress.contains("Reindexing vertex ranges 3 of 3"));
+        assertTrue(progress.contains("Reindexing edge ranges 1 of 1"));
+    }
+
     @Test
     public void testLegacyStreamingPropertyValuesWithTimestampInRowKey() throws Exception {
         String vertexId = "v1";
@@ -530,6 +768,288 @@ public abstract class AccumuloGraphTestBase extends GraphTestBase {
         assertEquals(propertyValue2, IOUtils.toString(spv.getInputStream()));
     }
 
+    @Test
+    public void testTableLayout() throws Exception {
+        Map<String, String> config = new HashMap<>();
+        config.put(AccumuloGraphConfiguration.TABLE_LAYOUT_ENABLED, "true");
+        config.put(AccumuloGraphConfiguration.TABLE_LAYOUT_DATA_BLOCK_SIZE, "32K");
+        AccumuloGraph g = createGraph(config);
+        try {
+            String verticesTableName = g.getVerticesTableName();
+            Map<String, String> properties = new HashMap<>();
+            g.getConnector().tableOperations().getProperties(verticesTableName).forEach(p -> properties.put(p.getKey(), p.getValue()));
+            assertEquals("true", properties.get(org.apache.accumulo.core.conf.Property.TABLE_BLOOM_ENABLED.getKey()));
+            assertEquals(RowFunctor.class.getName(), properties.get(org.apache.accumulo.core.conf.Property.TABLE_BLOOM_KEY_FUNCTOR.getKey()));
+            assertEquals("32K", properties.get(org.apache.accumulo.core.conf.Property.TABLE_FILE_COMPRESSED_BLOCK_SIZE.getKey()));
+            assertEquals(AccumuloTableLayout.VERTEX_LOCALITY_GROUPS, g.getConnector().tableOperations().getLocalityGroups(verticesTableName));
+            assertEquals(AccumuloTableLayout.EDGE_LOCALITY_GROUPS, g.getConnector().tableOperations().getLocalityGroups(g.getEdgesTableName()));
+
+            g.prepareVertex("v1", VISIBILITY_A).setProperty("prop1", "value1", VISIBILITY_A).save(AUTHORIZATIONS_A);
+            g.prepareVertex("v2", VISIBILITY_A).save(AUTHORIZATIONS_A);
+            g.prepareEdge("e1", "v1", "v2", LABEL_LABEL1, VISIBILITY_A).save(AUTHORIZATIONS_A);
+            g.flush();
+
+            assertTrue(new ApplyTableLayout(g).execute(new ApplyTableLayout.Options()).isEmpty());
+            g.getConnector().tableOperations().compact(verticesTableName, null, null, true, true);
+
+            Vertex v1 = g.getVertex("v1", FetchHints.EDGE_REFS, AUTHORIZATIONS_A);
+            assertEquals(1, count(v1.getEdgeIds(Direction.OUT, AUTHORIZATIONS_A)));
+            v1 = g.getVertex("v1", FetchHints.ALL, AUTHORIZATIONS_A);
+            assertEquals("value1", v1.getPropertyValue("prop1"));
+        } finally {
+            g.shutdown();
+        }
+    }
+
+    @Test
+    public void testElementCache() {
+        AccumuloGraph g = createGraph(Collections.singletonMap(AccumuloGraphConfiguration.ELEMENT_CACHE_ENABLED, "true"));
+        try {
+            g.prepareVertex("v1", VISIBILITY_A).setProperty("prop1", "value1", VISIBILITY_A).save(AUTHORIZATIONS_A);
+            g.flush();
+            assertEquals("value1", g.getVertex("v1", AUTHORIZATIONS_A).getPropertyValue("prop1"));
+            assertEquals("value1", g.getVertex("v1", AUTHORIZATIONS_A).getPropertyValue("prop1"));
+
+            g.getVertex("v1", AUTHORIZATIONS_A).prepareMutation()
+                .setProperty("prop1", "value2", VISIBILITY_A)
+                .save(AUTHORIZATIONS_A);
+            g.flush();
+            assertEquals("value2", g.getVertex("v1", AUTHORIZATIONS_A).getPropertyValue("prop1"));
+
+            g.deleteVertex("v1", AUTHORIZATIONS_A);
+            g.flush();
+            assertNull(g.getVertex("v1", AUTHORIZATIONS_A));
+        } finally {
+            g.shutdown();
+        }
+    }
+
+    @Test
+    public void testMaintainedElementCounts() {
+        AccumuloGraph g = createGraph(Collections.singletonMap(AccumuloGraphConfiguration.ELEMENT_COUNTS_ENABLED, "true"));
+        try {
+            g.prepareVertex("v1", VISIBILITY_A).save(AUTHORIZATIONS_A);
+            g.prepareVertex("v2", VISIBILITY_B).save(AUTHORIZATIONS_B);
+            g.prepareVertex("v2", VISIBILITY_B).save(AUTHORIZATIONS_B);
+            g.prepareEdge("e1", "v1", "v2", LABEL_LABEL1, VISIBILITY_A).save(AUTHORIZATIONS_A_AND_B);
+            g.flush();
+            g.prepareVertex("v1", VISIBILITY_A).save(AUTHORIZATIONS_A);
+            g.flush();
+
+            assertEquals(2, g.getVertexCount(AUTHORIZATIONS_A_AND_B));
+            assertEquals(1, g.getVertexCount(AUTHORIZATIONS_A));
+            assertEquals(1, g.getEdgeCount(AUTHORIZATIONS_A));
+            assertEquals(0, g.getEdgeCount(AUTHORIZATIONS_B));
+
+            g.getVertex("v1", AUTHORIZATIONS_A).prepareMutation().alterElementVisibility(VISIBILITY_B).save(AUTHORIZATIONS_A_AND_B);
+            g.flush();
+            assertEquals(0, g.getVertexCount(AUTHORIZATIONS_A));
+            assertEquals(2, g.getVertexCount(AUTHORIZATIONS_B));
+
+            g.deleteVertex("v2", AUTHORIZATIONS_A_AND_B);
+            g.flush();
+            assertEquals(1, g.getVertexCount(AUTHORIZATIONS_A_AND_B));
+            assertEquals(0, g.getEdgeCount(AUTHORIZATIONS_A_AND_B));
+            assertEquals(g.getVertexCount(AUTHORIZATIONS_A_AND_B), g.getExactVertexCount(AUTHORIZATIONS_A_AND_B));
+
+            g.recountElements(AUTHORIZATIONS_A_AND_B);
+            assertEquals(1, g.getVertexCount(AUTHORIZATIONS_A_AND_B));
+            assertEquals(0, g.getEdgeCount(AUTHORIZATIONS_A_AND_B));
+
+            AccumuloGraph g2 = createGraph(Collections.singletonMap(AccumuloGraphConfiguration.ELEMENT_COUNTS_ENABLED, "true"));
+            try {
+                g.prepareVertex("v3", VISIBILITY_A).save(AUTHORIZATIONS_A);
+                g2.prepareVertex("v3", VISIBILITY_A).save(AUTHORIZATIONS_A);
+                g.flush();
+                g2.flush();
+                assertEquals(2, g.getVertexCount(AUTHORIZATIONS_A_AND_B));
+                assertEquals(2, g2.getVertexCount(AUTHORIZATIONS_A_AND_B));
+            } finally {
+                g2.shutdown();
+            }
+        } finally {
+            g.shutdown();
+        }
+    }
+
+    @Test
+    public void testDeduplicatedStreamingPropertyValues() throws Exception {
+        AccumuloGraph g = createDeduplicatingGraph();
+        try {
+            String largeValue = IOUtils.toString(new LargeStringInputStream(LARGE_PROPERTY_VALUE_SIZE));
+            for (String vertexId : new String[]{"v1", "v2"}) {
+                g.prepareVertex(vertexId, VISIBILITY_A)
+                    .setProperty("small", StreamingPropertyValue.create("same small value"), VISIBILITY_A)
+                    .setProperty("large", StreamingPropertyValue.create(largeValue), VISIBILITY_A)
+                    .save(AUTHORIZATIONS_A);
+            }
+            g.flush();
+
+            for (String vertexId : new String[]{"v1", "v2"}) {
+                Vertex v = g.getVertex(vertexId, AUTHORIZATIONS_A);
+                assertEquals("same small value", ((StreamingPropertyValue) v.getPropertyValue("small")).readToString());
+                assertEquals(largeValue, ((StreamingPropertyValue) v.getPropertyValue("large")).readToString());
+            }
+            assertEquals(2, getContentRowKeys(g).size());
+
+            for (String vertexId : new String[]{"v1", "v2"}) {
+                Vertex v = g.getVertex(vertexId, AUTHORIZATIONS_A);
+                v.prepareMutation().deleteProperties("small").save(AUTHORIZATIONS_A);
+            }
+            g.flush();
+
+            assertEquals(1, deleteUnreferencedStreamingPropertyValueContent(g));
+            assertEquals(1, getContentRowKeys(g).size());
+
+            Vertex v2 = g.getVertex("v2", AUTHORIZATIONS_A);
+            assertEquals(largeValue, ((StreamingPropertyValue) v2.getPropertyValue("large")).readToString());
+        } finally {
+            g.shutdown();
+        }
+    }
+
+    @Test
+    public void testDeduplicatedStreamingPropertyValueReferences() throws Exception {
+        AccumuloGraph g = createDeduplicatingGraph();
+        try {
+            // the same property with different visibilities shares the content but holds a reference for each
+            String largeValue = IOUtils.toString(new LargeStringInputStream(LARGE_PROPERTY_VALUE_SIZE));
+            g.prepareVertex("v1", VISIBILITY_EMPTY)
+                .addPropertyValue("k1", "spv", StreamingPropertyValue.create(largeValue), VISIBILITY_A)
+                .addPropertyValue("k1", "spv", StreamingPropertyValue.create(largeValue), VISIBILITY_B)
+                .save(AUTHORIZATIONS_A_AND_B);
+            g.prepareVertex("v2", VISIBILITY_EMPTY)
+                .setProperty("spv", StreamingPropertyValue.create("v2 value"), VISIBILITY_A)
+                .save(AUTHORIZATIONS_A_AND_B);
+            g.flush();
+            assertEquals(2, getContentRowKeys(g).size());
+
+            g.getVertex("v1", AUTHORIZATIONS_A_AND_B).prepareMutation()
+                .deleteProperty("k1", "spv", VISIBILITY_A)
+                .save(AUTHORIZATIONS_A_AND_B);
+            g.flush();
+            assertEquals(0, deleteUnreferencedStreamingPropertyValueContent(g));
+            Vertex v1 = g.getVertex("v1", AUTHORIZATIONS_A_AND_B);
+            assertEquals(largeValue, ((StreamingPropertyValue) v1.getPropertyValue("k1", "spv")).readToString());
+
+            // replacing the value keeps the previous content for the property history
+            g.prepareVertex("v1", VISIBILITY_EMPTY)
+                .addPropertyValue("k1", "spv", StreamingPropertyValue.create("v1 value"), VISIBILITY_B)
+                .save(AUTHORIZATIONS_A_AND_B);
+            g.flush();
+            assertEquals(0, deleteUnreferencedStreamingPropertyValueContent(g));
+            v1 = g.getVertex("v1", AUTHORIZATIONS_A_AND_B);
+            assertEquals("v1 value", ((StreamingPropertyValue) v1.getPropertyValue("k1", "spv")).readToString());
+            assertEquals(3, getContentRowKeys(g).size());
+
+            // soft deleting the element keeps its content, deleting it releases the current content
+            g.softDeleteVertex("v2", AUTHORIZATIONS_A_AND_B);
+            g.flush();
+            assertEquals(0, deleteUnreferencedStreamingPropertyValueContent(g));
+            g.deleteVertex("v1", AUTHORIZATIONS_A_AND_B);
+            g.flush();
+            assertEquals(1, deleteUnreferencedStreamingPropertyValueContent(g));
+            assertEquals(2, getContentRowKeys(g).size());
+        } finally {
+            g.shutdown();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testDeduplicatedStreamingPropertyValueHistory() throws Exception {
+        AccumuloGraph g = createDeduplicatingGraph();
+        try {
+            String largeValue = IOUtils.toString(new LargeStringInputStream(LARGE_PROPERTY_VALUE_SIZE));
+            g.prepareVertex("v1", VISIBILITY_A)
+                .addPropertyValue("", "text", StreamingPropertyValue.create(largeValue), VISIBILITY_A)
+                .save(AUTHORIZATIONS_A);
+            g.flush();
+            g.prepareVertex("v1", VISIBILITY_A)
+                .addPropertyValue("", "text", StreamingPropertyValue.create("value2"), VISIBILITY_A)
+                .save(AUTHORIZATIONS_A);
+            g.flush();
+
+            assertEquals(0, deleteUnreferencedStreamingPropertyValueContent(g));
+
+            Vertex v1 = g.getVertex("v1", AUTHORIZATIONS_A);
+            assertEquals("value2", ((StreamingPropertyValue) v1.getPropertyValue("", "text")).readToString());
+            List<HistoricalPropertyValue> values = toList(v1.getHistoricalPropertyValues("", "text", VISIBILITY_A, AUTHORIZATIONS_A));
+            assertEquals(2, values.size());
+            assertEquals("value2", ((StreamingPropertyValue) values.get(0).getValue()).readToString());
+            assertEquals(largeValue, ((StreamingPropertyValue) values.get(1).getValue()).readToString());
+        } finally {
+            g.shutdown();
+        }
+    }
+
+    @Test
+    public void testChangeLog() throws Exception {
+        AccumuloGraph g = createGraph(Collections.singletonMap(AccumuloGraphConfiguration.CHANGE_LOG_ENABLED, "true"));
+        try {
+            // the table is split on the shards so that concurrent writes go to different tablets
+            assertEquals(
+                AccumuloGraphConfiguration.DEFAULT_CHANGE_LOG_SHARD_COUNT - 1,
+                g.getConnector().tableOperations().listSplits(g.getChangeLogTableName()).size()
+            );
+
+            g.prepareVertex("v1", VISIBILITY_A)
+                .addPropertyValue("k1", "prop1", "value1", VISIBILITY_A)
+                .save(AUTHORIZATIONS_A);
+            // written with a timestamp older than the rest of the graph
+            g.prepareVertex("v2", 1L, VISIBILITY_A)
+                .save(AUTHORIZATIONS_A);
+            g.prepareEdge("e1", "v1", "v2", LABEL_LABEL1, VISIBILITY_A)
+                .save(AUTHORIZATIONS_A);
+            g.flush();
+
+            List<ElementId> ids = Arrays.asList(ElementId.vertex("v1"), ElementId.vertex("v2"), ElementId.edge("e1"));
+            List<String> expected = g.getHistoricalEvents(ids, AUTHORIZATIONS_A)
+                .sorted()
+                .map(event -> event.getHistoricalEventId().toString())
+                .collect(Collectors.toList());
+            List<HistoricalEvent> events = g.getAllHistoricalEvents(null, AUTHORIZATIONS_A)
+                .collect(Collectors.toList());
+            assertEquals(expected, events.stream().map(event -> event.getHistoricalEventId().toString()).collect(Collectors.toList()));
+            assertEquals("v2", events.get(0).getElementId());
+
+            // events of deleted elements are still found from the change log
+            HistoricalEventId checkpoint = events.get(events.size() - 1).getHistoricalEventId();
+            g.softDeleteVertex("v2", AUTHORIZATIONS_A);
+            g.flush();
+            events = g.getAllHistoricalEvents(checkpoint, AUTHORIZATIONS_A)
+                .collect(Collectors.toList());
+            assertTrue(events.stream().anyMatch(event -> event instanceof HistoricalSoftDeleteVertexEvent && event.getElementId().equals("v2")));
+            assertTrue(events.stream().allMatch(event -> event.getHistoricalEventId().compareTo(checkpoint) > 0));
+        } finally {
+            g.shutdown();
+        }
+    }
+
+    @Test
+    public void testChangeLogRetention() throws Exception {
+        Map<String, String> config = new HashMap<>();
+        config.put(AccumuloGraphConfiguration.CHANGE_LOG_ENABLED, "true");
+        config.put(AccumuloGraphConfiguration.CHANGE_LOG_RETENTION, "1h");
+        AccumuloGraph g = createGraph(config);
+        try {
+            IteratorSetting ageOffFilter = g.getConnector().tableOperations()
+                .getIteratorSetting(g.getChangeLogTableName(), "changeLogAgeOffFilter", IteratorUtil.IteratorScope.majc);
+            assertNotNull(ageOffFilter);
+            assertEquals(Long.toString(60 * 60 * 1000), ageOffFilter.getOptions().get("ttl"));
+        } finally {
+            g.shutdown();
+        }
+
+        config.put(AccumuloGraphConfiguration.CHANGE_LOG_RETENTION, "0ms");
+        g = createGraph(config);
+        try {
+            assertFalse(g.getConnector().tableOperations().listIterators(g.getChangeLogTableName()).containsKey("changeLogAgeOffFilter"));
+        } finally {
+            g.shutdown();
+        }
+    }
+
     // need to add it manually because the key format changed
     private void addLegacySPVData(
         String vertexId,
@@ -557,6 +1077,45 @@ public abstract class AccumuloGraphTestBase extends GraphTestBase {
         getGraph().flush();
     }
 
+    /**
+     * Creates a graph on the same tables as {@link #graph} with the given configuration added, for tests of optional
+     * features. The caller must shut the graph down.
+     */
+    @SuppressWarnings("unchecked")
+    protected AccumuloGraph createGraph(Map<String, String> extraConfig) {
+        Map config = getAccumuloResource().createConfig();
+        config.putAll(extraConfig);
+        return AccumuloGraph.create(new AccumuloGraphConfiguration(config));
+    }
+
+    private AccumuloGraph createDeduplicatingGraph() {
+        Map<String, String> config = new HashMap<>();
+        config.put(AccumuloGraphConfiguration.STREAMING_PROPERTY_VALUE_STORAGE_STRATEGY_PREFIX, OverflowIntoHdfsStreamingPropertyValueStorageStrategy.class.getName());
+        config.put(AccumuloGraphConfiguration.DEDUPLICATE_STREAMING_PROPERTY_VALUES, "true");
+        return createGraph(config);
+    }
+
+    private long deleteUnreferencedStreamingPropertyValueContent(AccumuloGraph g) {
+        DeleteUnreferencedStreamingPropertyValueContent.Options options = new DeleteUnreferencedStreamingPropertyValueContent.Options()
+            .setOlderThanTimestamp(System.currentTimeMillis() + 1)
+            .setDryRun(false);
+        return new DeleteUnreferencedStreamingPropertyValueContent(g).execute(options);
+    }
+
+    private Set<String> getContentRowKeys(AccumuloGraph g) throws Exception {
+        Set<String> rowKeys = new HashSet<>();
+        Scanner scanner = g.getConnector().createScanner(g.getDataTableName(), new org.apache.accumulo.core.security.Authorizations());
+        try {
+            scanner.setRange(DataTableContentRowKey.getRange());
+            for (Map.Entry<Key, Value> column : scanner) {
+                rowKeys.add(column.getKey().getRow().toString());
+            }
+        } finally {
+            scanner.close();
+        }
+        return rowKeys;
+    }
+
     @Override
     public AccumuloGraph getGraph() {
         return (AccumuloGraph) super.getGraph();
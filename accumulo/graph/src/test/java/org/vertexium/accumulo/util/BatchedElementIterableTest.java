@@ -0,0 +1,92 @@
+package org.vertexium.accumulo.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.vertexium.ElementId;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class BatchedElementIterableTest {
+    private ExecutorService executor;
+    private List<List<String>> loadedBatches;
+
+    @Before
+    public void before() {
+        executor = Executors.newFixedThreadPool(4);
+        loadedBatches = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    @After
+    public void after() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testPreserveOrder() {
+        List<String> ids = IntStream.range(0, 25).mapToObj(i -> "v" + (24 - i)).collect(Collectors.toList());
+        ids.add("missing");
+        BatchedElementIterable<ElementId> iterable = new BatchedElementIterable<>(ids, 10, 2, true, this::loadReversed, executor);
+
+        List<String> results = new ArrayList<>();
+        for (ElementId elementId : iterable) {
+            results.add(elementId.getId());
+        }
+        assertEquals(ids.subList(0, 25), results);
+        assertEquals(3, loadedBatches.size());
+        for (List<String> batch : loadedBatches) {
+            assertTrue(batch.size() <= 10);
+        }
+    }
+
+    @Test
+    public void testUnorderedReadsIdsLazily() {
+        Iterator<String> ids = IntStream.range(0, 100).mapToObj(i -> "v" + i).iterator();
+        BatchedElementIterable<ElementId> iterable = new BatchedElementIterable<>(() -> ids, 5, 2, false, this::loadReversed, executor);
+
+        Iterator<ElementId> it = iterable.iterator();
+        Set<String> results = new HashSet<>();
+        for (int i = 0; i < 5; i++) {
+            results.add(it.next().getId());
+        }
+        assertEquals(IntStream.range(0, 5).mapToObj(i -> "v" + i).collect(Collectors.toSet()), results);
+        assertTrue(ids.hasNext());
+        iterable.close();
+    }
+
+    @Test
+    public void testRepeatedIdsAreReturnedOnce() {
+        List<String> ids = Arrays.asList("v1", "v2", "v1", "v3", "v2", "v4", "v1");
+        BatchedElementIterable<ElementId> iterable = new BatchedElementIterable<>(ids, 2, 2, true, this::loadReversed, executor);
+
+        List<String> results = new ArrayList<>();
+        for (ElementId elementId : iterable) {
+            results.add(elementId.getId());
+        }
+        assertEquals(Arrays.asList("v1", "v2", "v3", "v4"), results);
+        for (List<String> batch : loadedBatches) {
+            assertEquals(new HashSet<>(batch).size(), batch.size());
+        }
+    }
+
+    private Iterable<ElementId> loadReversed(List<String> ids) {
+        loadedBatches.add(ids);
+        List<ElementId> results = new ArrayList<>();
+        for (String id : ids) {
+            if (!id.equals("missing")) {
+                results.add(0, ElementId.vertex(id));
+            }
+        }
+        return results;
+    }
+}
@@ -6,6 +6,7 @@ import org.apache.accumulo.core.iterators.IteratorEnvironment;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
 import org.apache.hadoop.io.Text;
 import org.vertexium.accumulo.iterator.model.EdgeElementData;
+import org.vertexium.accumulo.iterator.model.IteratorElementFilter;
 import org.vertexium.accumulo.iterator.model.IteratorFetchHints;
 import org.vertexium.security.Authorizations;
 
@@ -74,6 +75,11 @@ public class EdgeIterator extends ElementIterator<EdgeElementData> {
         }
     }
 
+    @Override
+    protected boolean isElementFilterMatch(IteratorElementFilter elementFilter) {
+        return elementFilter.isEdgeLabelMatch(getElementData().label) && super.isElementFilterMatch(elementFilter);
+    }
+
     @Override
     protected byte[] getVisibilitySignal() {
         return CF_SIGNAL_BYTES;
@@ -81,10 +87,14 @@ public class EdgeIterator extends ElementIterator<EdgeElementData> {
 
     @Override
     public SortedKeyValueIterator<Key, Value> deepCopy(IteratorEnvironment env) {
+        EdgeIterator copy;
         if (getSourceIterator() != null) {
-            return new EdgeIterator(getSourceIterator().deepCopy(env), getFetchHints(), isCompressTransfer(), getAuthorizations());
+            copy = new EdgeIterator(getSourceIterator().deepCopy(env), getFetchHints(), isCompressTransfer(), getAuthorizations());
+        } else {
+            copy = new EdgeIterator(getFetchHints(), isCompressTransfer(), getAuthorizations());
         }
-        return new EdgeIterator(getFetchHints(), isCompressTransfer(), getAuthorizations());
+        copy.setElementFilter(getElementFilter());
+        return copy;
     }
 
     @Override
@@ -8,9 +8,10 @@ import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
 import org.apache.accumulo.core.iterators.user.RowDeletingIterator;
 import org.apache.hadoop.io.Text;
 import org.vertexium.accumulo.iterator.model.*;
+import org.vertexium.accumulo.iterator.util.JavaSerializedValueDecoder;
 import org.vertexium.accumulo.iterator.util.OptionsUtils;
 import org.vertexium.security.Authorizations;
-import org.vertexium.security.ColumnVisibility;
+import org.vertexium.security.VisibilityCache;
 import org.vertexium.security.VisibilityEvaluator;
 import org.vertexium.security.VisibilityParseException;
 
@@ -86,6 +87,10 @@ public abstract class ElementIterator<T extends ElementData> implements SortedKe
 
     private static final String SETTING_FETCH_HINTS_PREFIX = "fetchHints.";
     private static final String SETTING_OPTION_COMPRESS_TRANSFER = "compressTransfer";
+    private static final String SETTING_FILTER_PREFIX = "filter.";
+    private static final String SETTING_FILTER_EDGE_LABELS = SETTING_FILTER_PREFIX + "edgeLabels";
+    private static final String SETTING_FILTER_JAVA_SERIALIZED_VALUES = SETTING_FILTER_PREFIX + "javaSerializedValues";
+    private static final String SETTING_FILTER_PROPERTY_PREDICATE_PREFIX = SETTING_FILTER_PREFIX + "propertyPredicate.";
 
     private SortedKeyValueIterator<Key, Value> sourceIterator;
     private IteratorFetchHints fetchHints;
@@ -94,6 +99,8 @@ public abstract class ElementIterator<T extends ElementData> implements SortedKe
     private boolean compressTransfer;
     private Authorizations authorizations;
     private VisibilityEvaluator visibilityEvaluator;
+    private IteratorElementFilter elementFilter;
+    private boolean[] propertyPredicateMatches;
     private T elementData;
     private Key topKey;
     private Value topValue;
@@ -185,12 +192,16 @@ public abstract class ElementIterator<T extends ElementData> implements SortedKe
             Text currentRow = loadElement();
             if (currentRow != null) {
                 topKey = new Key(currentRow);
-                topValue = elementData.encode(fetchHints, compressTransfer);
+                topValue = encodeElementData();
                 break;
             }
         }
     }
 
+    protected Value encodeElementData() throws IOException {
+        return elementData.encode(fetchHints, compressTransfer);
+    }
+
     protected Text loadElement() throws IOException {
         clearElementData();
 
@@ -221,9 +232,26 @@ public abstract class ElementIterator<T extends ElementData> implements SortedKe
             }
         }
 
+        if (elementFilter != null && !isElementFilterMatch(elementFilter)) {
+            return null;
+        }
+
         return currentRow;
     }
 
+    /**
+     * Checks the element loaded from the current row against the filter set by
+     * {@link #setElementFilter(IteratorSetting, IteratorElementFilter)}.
+     */
+    protected boolean isElementFilterMatch(IteratorElementFilter elementFilter) {
+        for (boolean propertyPredicateMatch : propertyPredicateMatches) {
+            if (!propertyPredicateMatch) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     protected void clearElementData() {
         if (startingEdgeLabels == null) {
             EdgeLabels newEdgeLabels = new EdgeLabels();
@@ -240,12 +268,15 @@ public abstract class ElementIterator<T extends ElementData> implements SortedKe
             edgeLabelIndicesOfEdgeRefsToInclude = newEdgeLabelIndicesOfEdgeRefsToInclude;
         }
         this.elementData.clear(startingEdgeLabels.cloneEdgeLabels());
+        if (propertyPredicateMatches != null) {
+            Arrays.fill(propertyPredicateMatches, false);
+        }
     }
 
     private boolean hasAllAuthorizations(Set<Text> visibilities) {
         for (Text visibility : visibilities) {
             try {
-                if (!visibilityEvaluator.evaluate(new ColumnVisibility(visibility.getBytes()))) {
+                if (!visibilityEvaluator.evaluate(VisibilityCache.getCompiledVisibility(visibility.getBytes(), 0, visibility.getLength()))) {
                     return false;
                 }
             } catch (VisibilityParseException ex) {
@@ -408,6 +439,9 @@ public abstract class ElementIterator<T extends ElementData> implements SortedKe
             new PropertyColumnQualifierByteSequence(keyValue.takeColumnQualifierByteSequence());
         ByteSequence mapKey = propertyColumnQualifier.getDiscriminator(keyValue.peekColumnVisibilityByteSequence(), keyValue.getTimestamp());
         long timestamp = keyValue.getTimestamp();
+        if (elementFilter != null) {
+            evaluatePropertyPredicates(propertyColumnQualifier.getPropertyName(), keyValue.peekValue());
+        }
         if (shouldIncludeProperty(propertyColumnQualifier.getPropertyName())) {
             this.elementData.propertyColumnQualifiers.put(mapKey, propertyColumnQualifier);
             this.elementData.propertyValues.put(mapKey, keyValue.takeValue().get());
@@ -416,6 +450,23 @@ public abstract class ElementIterator<T extends ElementData> implements SortedKe
         }
     }
 
+    private void evaluatePropertyPredicates(ByteSequence propertyName, Value value) {
+        List<IteratorPropertyPredicate> propertyPredicates = elementFilter.getPropertyPredicates();
+        boolean decoded = false;
+        Object propertyValue = null;
+        for (int i = 0; i < propertyPredicates.size(); i++) {
+            IteratorPropertyPredicate propertyPredicate = propertyPredicates.get(i);
+            if (propertyPredicateMatches[i] || !propertyPredicate.getPropertyNames().contains(propertyName)) {
+                continue;
+            }
+            if (!decoded && propertyPredicate.getCompare() != IteratorPropertyPredicate.Compare.EXISTS) {
+                propertyValue = elementFilter.isJavaSerializedValues() ? JavaSerializedValueDecoder.decode(value.get()) : null;
+                decoded = true;
+            }
+            propertyPredicateMatches[i] = propertyPredicate.isMatch(propertyValue);
+        }
+    }
+
     private boolean shouldIncludeProperty(ByteSequence propertyName) {
         if (fetchHints.isIncludeAllProperties()) {
             return true;
@@ -455,6 +506,9 @@ public abstract class ElementIterator<T extends ElementData> implements SortedKe
         namedOptions.put(SETTING_FETCH_HINTS_PREFIX + "includeEdgeLabelsAndCounts", "true to include edge labels with counts");
         namedOptions.put(SETTING_FETCH_HINTS_PREFIX + "includeExtendedDataTableNames", "true to include extended data table names");
         namedOptions.put(SETTING_FETCH_HINTS_PREFIX + "includePreviousMetadata", "true to include metadata from previous property values");
+        namedOptions.put(SETTING_FILTER_EDGE_LABELS, "Set of edge labels an edge must have one of separated by \\u001f");
+        namedOptions.put(SETTING_FILTER_JAVA_SERIALIZED_VALUES, "true if property values can be decoded with Java serialization");
+        namedOptions.put(SETTING_FILTER_PROPERTY_PREDICATE_PREFIX + "<n>", "Encoded property predicates an element must match");
         return new IteratorOptions(getClass().getSimpleName(), getDescription(), namedOptions, null);
     }
 
@@ -490,9 +544,33 @@ public abstract class ElementIterator<T extends ElementData> implements SortedKe
         String[] authorizationsArray = authString.length() == 0 ? new String[0] : authString.split(Pattern.quote("\u001f"));
         this.authorizations = new Authorizations(authorizationsArray);
         this.visibilityEvaluator = new VisibilityEvaluator(this.authorizations);
+        setElementFilter(parseElementFilter(options));
         this.elementData = createElementData();
     }
 
+    private static IteratorElementFilter parseElementFilter(Map<String, String> options) {
+        Set<String> edgeLabelStrings = OptionsUtils.parseSet(options.get(SETTING_FILTER_EDGE_LABELS));
+        Set<Text> edgeLabels = null;
+        if (edgeLabelStrings != null) {
+            edgeLabels = new HashSet<>();
+            for (String edgeLabel : edgeLabelStrings) {
+                edgeLabels.add(new Text(edgeLabel));
+            }
+        }
+        List<IteratorPropertyPredicate> propertyPredicates = new ArrayList<>();
+        for (int i = 0; options.containsKey(SETTING_FILTER_PROPERTY_PREDICATE_PREFIX + i); i++) {
+            propertyPredicates.add(IteratorPropertyPredicate.decode(options.get(SETTING_FILTER_PROPERTY_PREDICATE_PREFIX + i)));
+        }
+        if (edgeLabels == null && propertyPredicates.isEmpty()) {
+            return null;
+        }
+        return new IteratorElementFilter(
+            edgeLabels,
+            propertyPredicates,
+            Boolean.parseBoolean(options.get(SETTING_FILTER_JAVA_SERIALIZED_VALUES))
+        );
+    }
+
     public SortedKeyValueIterator<Key, Value> getSourceIterator() {
         return sourceIterator;
     }
@@ -517,6 +595,21 @@ public abstract class ElementIterator<T extends ElementData> implements SortedKe
         OptionsUtils.addOption(iteratorSettings, SETTING_FETCH_HINTS_PREFIX + "includePreviousMetadata", Boolean.toString(fetchHints.isIncludePreviousMetadata()));
     }
 
+    public static void setElementFilter(IteratorSetting iteratorSettings, IteratorElementFilter elementFilter) {
+        if (elementFilter.getEdgeLabels() != null) {
+            Set<String> edgeLabels = new HashSet<>();
+            for (Text edgeLabel : elementFilter.getEdgeLabels()) {
+                edgeLabels.add(edgeLabel.toString());
+            }
+            iteratorSettings.addOption(SETTING_FILTER_EDGE_LABELS, OptionsUtils.setToString(edgeLabels));
+        }
+        iteratorSettings.addOption(SETTING_FILTER_JAVA_SERIALIZED_VALUES, Boolean.toString(elementFilter.isJavaSerializedValues()));
+        List<IteratorPropertyPredicate> propertyPredicates = elementFilter.getPropertyPredicates();
+        for (int i = 0; i < propertyPredicates.size(); i++) {
+            iteratorSettings.addOption(SETTING_FILTER_PROPERTY_PREDICATE_PREFIX + i, propertyPredicates.get(i).encode());
+        }
+    }
+
     public static void setAuthorizations(IteratorSetting iteratorSettings, String[] authorizations) {
         iteratorSettings.addOption("authorizations", String.join("\u001f", authorizations));
     }
@@ -529,6 +622,15 @@ public abstract class ElementIterator<T extends ElementData> implements SortedKe
         return fetchHints;
     }
 
+    public IteratorElementFilter getElementFilter() {
+        return elementFilter;
+    }
+
+    protected void setElementFilter(IteratorElementFilter elementFilter) {
+        this.elementFilter = elementFilter;
+        this.propertyPredicateMatches = elementFilter == null ? null : new boolean[elementFilter.getPropertyPredicates().size()];
+    }
+
     public List<Integer> getEdgeLabelIndicesOfEdgeRefsToInclude() {
         return edgeLabelIndicesOfEdgeRefsToInclude;
     }
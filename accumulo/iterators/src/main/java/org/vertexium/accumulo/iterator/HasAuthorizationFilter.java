@@ -1,26 +1,29 @@
 package org.vertexium.accumulo.iterator;
 
 import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.data.ArrayByteSequence;
+import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.iterators.Filter;
 import org.apache.accumulo.core.iterators.IteratorEnvironment;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
-import org.apache.hadoop.io.Text;
 import org.vertexium.ElementFilter;
 import org.vertexium.accumulo.iterator.util.SetOfStringsEncoder;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.regex.Pattern;
 
 public class HasAuthorizationFilter extends Filter {
     private static final String SETTING_AUTHORIZATION_TO_MATCH = "authorizationToMatch";
     private static final String SETTING_FILTERS = "filters";
+    // same split as org.vertexium.Visibility.hasAuthorization so both backends match the same visibilities
     private static final Pattern SPLIT_PATTERN = Pattern.compile("[^A-Za-z0-9_\\-\\.]");
     private String authorizationToMatch;
     private EnumSet<ElementFilter> filters;
-    private Map<Text, Boolean> matchCache;
+    private Map<ByteSequence, Boolean> matchCache;
 
     public static void setAuthorizationToMatch(IteratorSetting settings, String authorizationToMatch) {
         settings.addOption(SETTING_AUTHORIZATION_TO_MATCH, authorizationToMatch);
@@ -76,23 +79,25 @@ public class HasAuthorizationFilter extends Filter {
     }
 
     private boolean isMatch(Key k) {
-        Text columnVisibilityText = k.getColumnVisibility();
-        if (columnVisibilityText.getLength() == 0) {
+        ByteSequence columnVisibility = k.getColumnVisibilityData();
+        if (columnVisibility.length() == 0) {
             return false;
         }
-        Boolean match = matchCache.get(columnVisibilityText);
+        Boolean match = matchCache.get(columnVisibility);
         if (match != null) {
             return match;
         }
 
-        String[] parts = SPLIT_PATTERN.split(k.getColumnVisibilityParsed().toString());
-        for (String part : parts) {
+        // the key's bytes may be reused by the source so the cache gets its own copy
+        byte[] columnVisibilityBytes = columnVisibility.toArray();
+        match = false;
+        for (String part : SPLIT_PATTERN.split(new String(columnVisibilityBytes, StandardCharsets.UTF_8))) {
             if (part.equals(authorizationToMatch)) {
-                matchCache.put(columnVisibilityText, true);
-                return true;
+                match = true;
+                break;
             }
         }
-        matchCache.put(columnVisibilityText, false);
-        return false;
+        matchCache.put(new ArrayByteSequence(columnVisibilityBytes), match);
+        return match;
     }
 }
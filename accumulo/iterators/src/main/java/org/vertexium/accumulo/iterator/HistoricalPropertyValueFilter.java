@@ -0,0 +1,99 @@
+package org.vertexium.accumulo.iterator;
+
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.data.ArrayByteSequence;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.Filter;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.vertexium.accumulo.iterator.model.PropertyColumnQualifierByteSequence;
+import org.vertexium.accumulo.iterator.model.PropertyMetadataColumnQualifierByteSequence;
+import org.vertexium.accumulo.iterator.util.ByteSequenceUtils;
+import org.vertexium.accumulo.iterator.util.OptionsUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Keeps only the property, property soft delete and property metadata columns of the given property key, name and
+ * visibility so that the history of a single property can be read without transferring the rest of the element.
+ * Any of the key, name or visibility may be left unset to match all values.
+ */
+public class HistoricalPropertyValueFilter extends Filter {
+    private static final String SETTING_PROPERTY_KEY = "propertyKey";
+    private static final String SETTING_PROPERTY_NAME = "propertyName";
+    private static final String SETTING_PROPERTY_VISIBILITY = "propertyVisibility";
+    private ByteSequence propertyKey;
+    private ByteSequence propertyName;
+    private ByteSequence propertyVisibility;
+
+    public static void setPropertyKey(IteratorSetting settings, String propertyKey) {
+        addHexOption(settings, SETTING_PROPERTY_KEY, propertyKey);
+    }
+
+    public static void setPropertyName(IteratorSetting settings, String propertyName) {
+        addHexOption(settings, SETTING_PROPERTY_NAME, propertyName);
+    }
+
+    public static void setPropertyVisibility(IteratorSetting settings, String propertyVisibility) {
+        addHexOption(settings, SETTING_PROPERTY_VISIBILITY, propertyVisibility);
+    }
+
+    private static void addHexOption(IteratorSetting settings, String key, String value) {
+        if (value == null) {
+            return;
+        }
+        settings.addOption(key, OptionsUtils.bytesToHex(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Override
+    public void init(SortedKeyValueIterator<Key, Value> source, Map<String, String> options, IteratorEnvironment env) throws IOException {
+        super.init(source, options, env);
+        propertyKey = parseHexOption(options, SETTING_PROPERTY_KEY);
+        propertyName = parseHexOption(options, SETTING_PROPERTY_NAME);
+        propertyVisibility = parseHexOption(options, SETTING_PROPERTY_VISIBILITY);
+    }
+
+    private static ByteSequence parseHexOption(Map<String, String> options, String key) {
+        String value = options.get(key);
+        if (value == null) {
+            return null;
+        }
+        return new ArrayByteSequence(OptionsUtils.hexToBytes(value));
+    }
+
+    @Override
+    public SortedKeyValueIterator<Key, Value> deepCopy(IteratorEnvironment env) {
+        HistoricalPropertyValueFilter filter = (HistoricalPropertyValueFilter) super.deepCopy(env);
+        filter.propertyKey = this.propertyKey;
+        filter.propertyName = this.propertyName;
+        filter.propertyVisibility = this.propertyVisibility;
+        return filter;
+    }
+
+    @Override
+    public boolean accept(Key key, Value value) {
+        ByteSequence columnFamily = key.getColumnFamilyData();
+        if (ByteSequenceUtils.equals(columnFamily, ElementIterator.CF_PROPERTY_BYTES)
+            || ByteSequenceUtils.equals(columnFamily, ElementIterator.CF_PROPERTY_SOFT_DELETE_BYTES)) {
+            PropertyColumnQualifierByteSequence columnQualifier = new PropertyColumnQualifierByteSequence(key.getColumnQualifierData());
+            return matches(propertyName, columnQualifier.getPropertyName())
+                && matches(propertyKey, columnQualifier.getPropertyKey())
+                && matches(propertyVisibility, key.getColumnVisibilityData());
+        }
+        if (ByteSequenceUtils.equals(columnFamily, ElementIterator.CF_PROPERTY_METADATA_BYTES)) {
+            PropertyMetadataColumnQualifierByteSequence columnQualifier = new PropertyMetadataColumnQualifierByteSequence(key.getColumnQualifierData());
+            return matches(propertyName, columnQualifier.getPropertyName())
+                && matches(propertyKey, columnQualifier.getPropertyKey())
+                && matches(propertyVisibility, columnQualifier.getPropertyVisibilityString());
+        }
+        return false;
+    }
+
+    private static boolean matches(ByteSequence expected, ByteSequence actual) {
+        return expected == null || expected.equals(actual);
+    }
+}
@@ -0,0 +1,268 @@
+package org.vertexium.accumulo.iterator;
+
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.hadoop.io.Text;
+import org.vertexium.accumulo.iterator.model.*;
+import org.vertexium.accumulo.iterator.util.ByteArrayWrapper;
+import org.vertexium.accumulo.iterator.util.DataInputStreamUtils;
+import org.vertexium.accumulo.iterator.util.DataOutputStreamUtils;
+import org.vertexium.accumulo.iterator.util.OptionsUtils;
+import org.vertexium.security.Authorizations;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Replaces each vertex row with one page of its edge refs ordered by edge id and the total number of edge refs
+ * matching the directions and labels, so a page of the edges of a vertex with many edges can be shown without
+ * moving all of its edge refs to the client. Edge refs are filtered the same way as {@link VertexIterator} (hidden,
+ * soft deleted and not visible edge refs are removed). Edge refs with the same edge id, such as both ends of an edge
+ * from a vertex to itself, are never split between pages.
+ */
+public class VertexEdgeInfoPageIterator extends VertexIterator {
+    private static final String SETTING_DIRECTIONS = "edgeInfoPageDirections";
+    private static final String SETTING_LABELS = "edgeInfoPageLabels";
+    private static final String SETTING_START_AFTER_EDGE_ID = "edgeInfoPageStartAfterEdgeId";
+    private static final String SETTING_LIMIT = "edgeInfoPageLimit";
+    private static final Comparator<PageEntry> PAGE_ENTRY_COMPARATOR = Comparator
+        .comparing((PageEntry entry) -> entry.edgeId)
+        .thenComparing(entry -> entry.direction);
+    private Set<Direction> directions;
+    private Set<ByteArrayWrapper> labels;
+    private Text startAfterEdgeId;
+    private int limit;
+
+    public VertexEdgeInfoPageIterator() {
+        super();
+    }
+
+    public VertexEdgeInfoPageIterator(
+        SortedKeyValueIterator<Key, Value> source,
+        IteratorFetchHints fetchHints,
+        Authorizations authorizations,
+        Set<Direction> directions,
+        Set<ByteArrayWrapper> labels,
+        Text startAfterEdgeId,
+        int limit
+    ) {
+        super(source, fetchHints, false, authorizations);
+        this.directions = directions;
+        this.labels = labels;
+        this.startAfterEdgeId = startAfterEdgeId;
+        this.limit = limit;
+    }
+
+    /**
+     * Only include edge refs in the given directions.
+     */
+    public static void setDirections(IteratorSetting settings, Set<Direction> directions) {
+        Set<String> directionNames = new HashSet<>();
+        for (Direction direction : directions) {
+            directionNames.add(direction.name());
+        }
+        OptionsUtils.addOption(settings, SETTING_DIRECTIONS, OptionsUtils.setToString(directionNames));
+    }
+
+    /**
+     * Only include edge refs with one of the given (deflated) labels.
+     */
+    public static void setLabels(IteratorSetting settings, Set<String> labels) {
+        OptionsUtils.addOption(settings, SETTING_LABELS, OptionsUtils.setToString(labels));
+    }
+
+    /**
+     * Only include edge refs with an edge id after the given edge id.
+     */
+    public static void setStartAfterEdgeId(IteratorSetting settings, String startAfterEdgeId) {
+        OptionsUtils.addOption(settings, SETTING_START_AFTER_EDGE_ID, startAfterEdgeId);
+    }
+
+    public static void setLimit(IteratorSetting settings, int limit) {
+        settings.addOption(SETTING_LIMIT, Integer.toString(limit));
+    }
+
+    @Override
+    public void init(SortedKeyValueIterator<Key, Value> source, Map<String, String> options, IteratorEnvironment env) {
+        super.init(source, options, env);
+        Set<String> directionNames = OptionsUtils.parseSet(options.get(SETTING_DIRECTIONS));
+        this.directions = EnumSet.noneOf(Direction.class);
+        if (directionNames == null) {
+            this.directions.addAll(Arrays.asList(Direction.values()));
+        } else {
+            for (String directionName : directionNames) {
+                this.directions.add(Direction.valueOf(directionName));
+            }
+        }
+        Set<String> labelStrings = OptionsUtils.parseSet(options.get(SETTING_LABELS));
+        if (labelStrings == null) {
+            this.labels = null;
+        } else {
+            this.labels = new HashSet<>();
+            for (String label : labelStrings) {
+                this.labels.add(new ByteArrayWrapper(label.getBytes(StandardCharsets.UTF_8)));
+            }
+        }
+        String startAfterEdgeIdString = options.get(SETTING_START_AFTER_EDGE_ID);
+        this.startAfterEdgeId = startAfterEdgeIdString == null ? null : new Text(startAfterEdgeIdString);
+        String limitString = options.get(SETTING_LIMIT);
+        this.limit = limitString == null ? Integer.MAX_VALUE : Integer.parseInt(limitString);
+    }
+
+    @Override
+    protected Value encodeElementData() throws IOException {
+        EdgeLabels edgeLabels = getElementData().edgeLabels;
+        long totalCount = 0;
+        List<PageEntry> entries = new ArrayList<>();
+        if (directions.contains(Direction.OUT)) {
+            totalCount += addPageEntries(entries, Direction.OUT, edgeLabels, getElementData().outEdges);
+        }
+        if (directions.contains(Direction.IN)) {
+            totalCount += addPageEntries(entries, Direction.IN, edgeLabels, getElementData().inEdges);
+        }
+        entries.sort(PAGE_ENTRY_COMPARATOR);
+
+        int end = Math.min(limit, entries.size());
+        while (end > 0 && end < entries.size() && entries.get(end).edgeId.equals(entries.get(end - 1).edgeId)) {
+            end++;
+        }
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(baos);
+        out.writeLong(totalCount);
+        out.writeBoolean(end < entries.size());
+        out.writeInt(end);
+        for (PageEntry entry : entries.subList(0, end)) {
+            DataOutputStreamUtils.encodeDirection(out, entry.direction);
+            DataOutputStreamUtils.encodeText(out, entry.edgeId);
+            DataOutputStreamUtils.encodeByteArray(out, edgeLabels.get(entry.edgeInfo.getLabelIndex()));
+            DataOutputStreamUtils.encodeByteArray(out, entry.edgeInfo.getVertexIdBytes());
+        }
+        return new Value(baos.toByteArray());
+    }
+
+    private long addPageEntries(List<PageEntry> entries, Direction direction, EdgeLabels edgeLabels, IteratorEdgesWithEdgeInfo edges) {
+        long count = 0;
+        for (Map.Entry<Text, IteratorEdgeInfo> edge : edges.getEntries()) {
+            IteratorEdgeInfo edgeInfo = edge.getValue();
+            if (labels != null && !labels.contains(new ByteArrayWrapper(edgeLabels.get(edgeInfo.getLabelIndex())))) {
+                continue;
+            }
+            count++;
+            if (startAfterEdgeId == null || edge.getKey().compareTo(startAfterEdgeId) > 0) {
+                entries.add(new PageEntry(direction, edge.getKey(), edgeInfo));
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Decodes the page of a row returned by this iterator.
+     */
+    public static Page decodeValue(Value value) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(value.get()))) {
+            long totalCount = in.readLong();
+            boolean hasMore = in.readBoolean();
+            int count = in.readInt();
+            List<Page.Entry> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Direction direction = DataInputStreamUtils.decodeDirection(in);
+                String edgeId = DataInputStreamUtils.decodeString(in);
+                String label = DataInputStreamUtils.decodeString(in);
+                String vertexId = DataInputStreamUtils.decodeString(in);
+                entries.add(new Page.Entry(direction, edgeId, label, vertexId));
+            }
+            return new Page(entries, totalCount, hasMore);
+        } catch (IOException e) {
+            throw new VertexiumAccumuloIteratorException("Could not decode edge info page", e);
+        }
+    }
+
+    @Override
+    public SortedKeyValueIterator<Key, Value> deepCopy(IteratorEnvironment env) {
+        return new VertexEdgeInfoPageIterator(
+            getSourceIterator() == null ? null : getSourceIterator().deepCopy(env),
+            getFetchHints(),
+            getAuthorizations(),
+            directions,
+            labels,
+            startAfterEdgeId,
+            limit
+        );
+    }
+
+    @Override
+    protected String getDescription() {
+        return "This iterator replaces each Vertex with one page of its edge refs.";
+    }
+
+    private static class PageEntry {
+        private final Direction direction;
+        private final Text edgeId;
+        private final IteratorEdgeInfo edgeInfo;
+
+        private PageEntry(Direction direction, Text edgeId, IteratorEdgeInfo edgeInfo) {
+            this.direction = direction;
+            this.edgeId = edgeId;
+            this.edgeInfo = edgeInfo;
+        }
+    }
+
+    public static class Page {
+        private final List<Entry> entries;
+        private final long totalCount;
+        private final boolean hasMore;
+
+        public Page(List<Entry> entries, long totalCount, boolean hasMore) {
+            this.entries = entries;
+            this.totalCount = totalCount;
+            this.hasMore = hasMore;
+        }
+
+        public List<Entry> getEntries() {
+            return entries;
+        }
+
+        public long getTotalCount() {
+            return totalCount;
+        }
+
+        public boolean hasMore() {
+            return hasMore;
+        }
+
+        public static class Entry {
+            private final Direction direction;
+            private final String edgeId;
+            private final String label;
+            private final String vertexId;
+
+            public Entry(Direction direction, String edgeId, String label, String vertexId) {
+                this.direction = direction;
+                this.edgeId = edgeId;
+                this.label = label;
+                this.vertexId = vertexId;
+            }
+
+            public Direction getDirection() {
+                return direction;
+            }
+
+            public String getEdgeId() {
+                return edgeId;
+            }
+
+            public String getLabel() {
+                return label;
+            }
+
+            public String getVertexId() {
+                return vertexId;
+            }
+        }
+    }
+}
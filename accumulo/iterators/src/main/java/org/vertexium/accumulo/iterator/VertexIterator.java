@@ -187,15 +187,19 @@ public class VertexIterator extends ElementIterator<VertexElementData> {
 
     @Override
     public SortedKeyValueIterator<Key, Value> deepCopy(IteratorEnvironment env) {
+        VertexIterator copy;
         if (getSourceIterator() != null) {
-            return new VertexIterator(
+            copy = new VertexIterator(
                 getSourceIterator().deepCopy(env),
                 getFetchHints(),
                 isCompressTransfer(),
                 getAuthorizations()
             );
+        } else {
+            copy = new VertexIterator(getFetchHints(), isCompressTransfer(), getAuthorizations());
         }
-        return new VertexIterator(getFetchHints(), isCompressTransfer(), getAuthorizations());
+        copy.setElementFilter(getElementFilter());
+        return copy;
     }
 
     @Override
@@ -0,0 +1,183 @@
+package org.vertexium.accumulo.iterator;
+
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.hadoop.util.bloom.BloomFilter;
+import org.apache.hadoop.util.hash.Hash;
+import org.vertexium.accumulo.iterator.model.EdgeLabels;
+import org.vertexium.accumulo.iterator.model.IteratorEdgeInfo;
+import org.vertexium.accumulo.iterator.model.IteratorFetchHints;
+import org.vertexium.accumulo.iterator.model.VertexiumAccumuloIteratorException;
+import org.vertexium.accumulo.iterator.util.ByteArrayWrapper;
+import org.vertexium.accumulo.iterator.util.DataOutputStreamUtils;
+import org.vertexium.accumulo.iterator.util.OptionsUtils;
+import org.vertexium.security.Authorizations;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Replaces each vertex row with the distinct ids of the vertices it is connected to, so expanding a set of vertices
+ * by one hop moves only vertex ids to the client. Edge refs are filtered the same way as {@link VertexIterator}
+ * (hidden, soft deleted and not visible edge refs are removed) and can additionally be filtered by label and by a
+ * bloom filter of vertex ids which have already been visited. Since a bloom filter can give false positives, the
+ * visited filter must only be used when missing an unvisited vertex is acceptable.
+ */
+public class VertexNeighborIdIterator extends VertexIterator {
+    private static final String SETTING_LABELS = "neighborLabels";
+    private static final String SETTING_EXCLUDED_LABELS = "neighborExcludedLabels";
+    private static final String SETTING_VISITED_BLOOM_FILTER = "neighborVisitedBloomFilter";
+    private static final double VISITED_FALSE_POSITIVE_RATE = 0.01;
+    private Set<ByteArrayWrapper> labels;
+    private Set<ByteArrayWrapper> excludedLabels;
+    private BloomFilter visitedBloomFilter;
+
+    public VertexNeighborIdIterator() {
+        super();
+    }
+
+    public VertexNeighborIdIterator(
+        SortedKeyValueIterator<Key, Value> source,
+        IteratorFetchHints fetchHints,
+        Authorizations authorizations,
+        Set<ByteArrayWrapper> labels,
+        Set<ByteArrayWrapper> excludedLabels,
+        BloomFilter visitedBloomFilter
+    ) {
+        super(source, fetchHints, false, authorizations);
+        this.labels = labels;
+        this.excludedLabels = excludedLabels;
+        this.visitedBloomFilter = visitedBloomFilter;
+    }
+
+    /**
+     * Only include edges with one of the given (deflated) labels.
+     */
+    public static void setLabels(IteratorSetting settings, Set<String> labels) {
+        OptionsUtils.addOption(settings, SETTING_LABELS, OptionsUtils.setToString(labels));
+    }
+
+    /**
+     * Exclude edges with any of the given (deflated) labels.
+     */
+    public static void setExcludedLabels(IteratorSetting settings, Set<String> excludedLabels) {
+        OptionsUtils.addOption(settings, SETTING_EXCLUDED_LABELS, OptionsUtils.setToString(excludedLabels));
+    }
+
+    /**
+     * Exclude connected vertices which are probably in the given set of vertex ids. The ids are sent to the tablet
+     * servers as a bloom filter sized for a 1% false positive rate.
+     */
+    public static void setVisitedVertexIds(IteratorSetting settings, Collection<String> visitedVertexIds) {
+        if (visitedVertexIds.isEmpty()) {
+            return;
+        }
+        int n = visitedVertexIds.size();
+        int vectorSize = (int) Math.ceil(-n * Math.log(VISITED_FALSE_POSITIVE_RATE) / (Math.log(2) * Math.log(2)));
+        int nbHash = Math.max(1, (int) Math.round((double) vectorSize / n * Math.log(2)));
+        BloomFilter bloomFilter = new BloomFilter(vectorSize, nbHash, Hash.MURMUR_HASH);
+        for (String visitedVertexId : visitedVertexIds) {
+            bloomFilter.add(new org.apache.hadoop.util.bloom.Key(visitedVertexId.getBytes(StandardCharsets.UTF_8)));
+        }
+        try {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            bloomFilter.write(new DataOutputStream(baos));
+            settings.addOption(SETTING_VISITED_BLOOM_FILTER, Base64.getEncoder().encodeToString(baos.toByteArray()));
+        } catch (IOException e) {
+            throw new VertexiumAccumuloIteratorException("Could not write visited bloom filter", e);
+        }
+    }
+
+    @Override
+    public void init(SortedKeyValueIterator<Key, Value> source, Map<String, String> options, IteratorEnvironment env) {
+        super.init(source, options, env);
+        this.labels = parseLabels(options.get(SETTING_LABELS));
+        this.excludedLabels = parseLabels(options.get(SETTING_EXCLUDED_LABELS));
+        String visitedBloomFilterString = options.get(SETTING_VISITED_BLOOM_FILTER);
+        if (visitedBloomFilterString == null) {
+            this.visitedBloomFilter = null;
+        } else {
+            try {
+                byte[] bytes = Base64.getDecoder().decode(visitedBloomFilterString);
+                this.visitedBloomFilter = new BloomFilter();
+                this.visitedBloomFilter.readFields(new DataInputStream(new ByteArrayInputStream(bytes)));
+            } catch (IOException e) {
+                throw new VertexiumAccumuloIteratorException("Could not read visited bloom filter", e);
+            }
+        }
+    }
+
+    private static Set<ByteArrayWrapper> parseLabels(String str) {
+        Set<String> labels = OptionsUtils.parseSet(str);
+        if (labels == null) {
+            return null;
+        }
+        Set<ByteArrayWrapper> results = new HashSet<>();
+        for (String label : labels) {
+            results.add(new ByteArrayWrapper(label.getBytes(StandardCharsets.UTF_8)));
+        }
+        return results;
+    }
+
+    @Override
+    protected Value encodeElementData() throws IOException {
+        EdgeLabels edgeLabels = getElementData().edgeLabels;
+        Set<ByteArrayWrapper> neighborIds = new LinkedHashSet<>();
+        addNeighborIds(neighborIds, edgeLabels, getElementData().outEdges.getEdgeInfos());
+        addNeighborIds(neighborIds, edgeLabels, getElementData().inEdges.getEdgeInfos());
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(baos);
+        for (ByteArrayWrapper neighborId : neighborIds) {
+            DataOutputStreamUtils.encodeByteArray(out, neighborId.getData());
+        }
+        return new Value(baos.toByteArray());
+    }
+
+    private void addNeighborIds(Set<ByteArrayWrapper> neighborIds, EdgeLabels edgeLabels, Iterable<IteratorEdgeInfo> edgeInfos) {
+        for (IteratorEdgeInfo edgeInfo : edgeInfos) {
+            if (labels != null || excludedLabels != null) {
+                ByteArrayWrapper label = new ByteArrayWrapper(edgeLabels.get(edgeInfo.getLabelIndex()));
+                if (excludedLabels != null && excludedLabels.contains(label)) {
+                    continue;
+                }
+                if (labels != null && !labels.contains(label)) {
+                    continue;
+                }
+            }
+            byte[] vertexIdBytes = edgeInfo.getVertexIdBytes();
+            if (visitedBloomFilter != null && visitedBloomFilter.membershipTest(new org.apache.hadoop.util.bloom.Key(vertexIdBytes))) {
+                continue;
+            }
+            neighborIds.add(new ByteArrayWrapper(vertexIdBytes));
+        }
+    }
+
+    /**
+     * Decodes the connected vertex ids of a row returned by this iterator.
+     */
+    public static Iterable<ByteArrayWrapper> decodeValue(Value value) {
+        return VertexEdgeIdIterator.decodeValue(value);
+    }
+
+    @Override
+    public SortedKeyValueIterator<Key, Value> deepCopy(IteratorEnvironment env) {
+        return new VertexNeighborIdIterator(
+            getSourceIterator() == null ? null : getSourceIterator().deepCopy(env),
+            getFetchHints(),
+            getAuthorizations(),
+            labels,
+            excludedLabels,
+            visitedBloomFilter
+        );
+    }
+
+    @Override
+    protected String getDescription() {
+        return "This iterator replaces each Vertex with the distinct ids of the vertices it is connected to.";
+    }
+}
@@ -0,0 +1,49 @@
+package org.vertexium.accumulo.iterator.model;
+
+import org.apache.hadoop.io.Text;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Has-predicates evaluated by {@link org.vertexium.accumulo.iterator.ElementIterator} before an element is encoded,
+ * so elements which can not match a query are not returned to the client. The filter may return elements which do
+ * not match, the client still needs to evaluate the query against each element.
+ */
+public class IteratorElementFilter {
+    private final Set<Text> edgeLabels;
+    private final List<IteratorPropertyPredicate> propertyPredicates;
+    private final boolean javaSerializedValues;
+
+    /**
+     * @param edgeLabels           The labels an edge must have one of, or null to include edges with any label.
+     * @param propertyPredicates   The predicates an element must match all of.
+     * @param javaSerializedValues true if property values are written with Java serialization and can be decoded on
+     *                             the tablet server to evaluate value predicates.
+     */
+    public IteratorElementFilter(
+        Set<Text> edgeLabels,
+        List<IteratorPropertyPredicate> propertyPredicates,
+        boolean javaSerializedValues
+    ) {
+        this.edgeLabels = edgeLabels;
+        this.propertyPredicates = propertyPredicates;
+        this.javaSerializedValues = javaSerializedValues;
+    }
+
+    public Set<Text> getEdgeLabels() {
+        return edgeLabels;
+    }
+
+    public boolean isEdgeLabelMatch(Text edgeLabel) {
+        return edgeLabels == null || (edgeLabel != null && edgeLabels.contains(edgeLabel));
+    }
+
+    public List<IteratorPropertyPredicate> getPropertyPredicates() {
+        return propertyPredicates;
+    }
+
+    public boolean isJavaSerializedValues() {
+        return javaSerializedValues;
+    }
+}
@@ -0,0 +1,225 @@
+package org.vertexium.accumulo.iterator.model;
+
+import org.apache.accumulo.core.data.ByteSequence;
+import org.vertexium.accumulo.iterator.util.MultiFieldStringEncoder;
+import org.vertexium.accumulo.iterator.util.OptionsUtils;
+
+import java.util.Date;
+import java.util.Set;
+
+/**
+ * A has-predicate on the properties of an element evaluated by {@link org.vertexium.accumulo.iterator.ElementIterator}.
+ * The predicate matches an element if any value of one of the property names matches. Values which can not be decoded
+ * or compared on the tablet server always match, the predicate only removes elements which can not match.
+ */
+public class IteratorPropertyPredicate {
+    private static final MultiFieldStringEncoder ENCODER = new MultiFieldStringEncoder(":", 4);
+    private static final String NULL_STRING = "null";
+
+    public enum Compare {
+        EXISTS,
+        EQUAL,
+        GREATER_THAN,
+        GREATER_THAN_EQUAL,
+        LESS_THAN,
+        LESS_THAN_EQUAL
+    }
+
+    private enum ValueType {
+        NULL,
+        STRING,
+        LONG,
+        INTEGER,
+        DOUBLE,
+        FLOAT,
+        BOOLEAN,
+        DATE
+    }
+
+    private final Set<ByteSequence> propertyNames;
+    private final Compare compare;
+    private final Object value;
+
+    public IteratorPropertyPredicate(Set<ByteSequence> propertyNames, Compare compare, Object value) {
+        if (compare != Compare.EXISTS && !isSupportedValue(value)) {
+            throw new VertexiumAccumuloIteratorException("Unsupported value: " + value);
+        }
+        this.propertyNames = propertyNames;
+        this.compare = compare;
+        this.value = compare == Compare.EXISTS ? null : value;
+    }
+
+    public static boolean isSupportedValue(Object value) {
+        return value != null && getValueType(value) != null;
+    }
+
+    public Set<ByteSequence> getPropertyNames() {
+        return propertyNames;
+    }
+
+    public Compare getCompare() {
+        return compare;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    /**
+     * Evaluates the predicate against a decoded property value.
+     *
+     * @param propertyValue The decoded value or null if it could not be decoded.
+     */
+    public boolean isMatch(Object propertyValue) {
+        if (compare == Compare.EXISTS || propertyValue == null) {
+            return true;
+        }
+        Integer result = compare(propertyValue, value);
+        if (result == null) {
+            return true;
+        }
+        switch (compare) {
+            case EQUAL:
+                return result == 0;
+            case GREATER_THAN:
+                return result > 0;
+            case GREATER_THAN_EQUAL:
+                return result >= 0;
+            case LESS_THAN:
+                return result < 0;
+            case LESS_THAN_EQUAL:
+                return result <= 0;
+            default:
+                throw new VertexiumAccumuloIteratorException("Unhandled compare: " + compare);
+        }
+    }
+
+    /**
+     * Compares the values like org.vertexium.util.ObjectUtils#compare for the types it can decode.
+     *
+     * @return null if the values can not be compared on the tablet server.
+     */
+    private static Integer compare(Object first, Object second) {
+        if (first instanceof String) {
+            first = ((String) first).toLowerCase();
+        }
+        if (second instanceof String) {
+            second = ((String) second).toLowerCase();
+        }
+
+        if (first instanceof Long && second instanceof Long) {
+            return Long.compare((Long) first, (Long) second);
+        }
+        if (first instanceof Integer && second instanceof Integer) {
+            return Integer.compare((Integer) first, (Integer) second);
+        }
+        if (first instanceof Number && second instanceof Number) {
+            return Double.compare(((Number) first).doubleValue(), ((Number) second).doubleValue());
+        }
+        if (first instanceof Number && second instanceof String) {
+            try {
+                return Double.compare(((Number) first).doubleValue(), Double.parseDouble((String) second));
+            } catch (NumberFormatException ex) {
+                return -1;
+            }
+        }
+        if (first instanceof String && second instanceof Number) {
+            try {
+                return Double.compare(Double.parseDouble((String) first), ((Number) second).doubleValue());
+            } catch (NumberFormatException ex) {
+                return 1;
+            }
+        }
+        if (first instanceof String && second instanceof String) {
+            return ((String) first).compareTo((String) second);
+        }
+        if (first instanceof Date && second instanceof Date) {
+            return ((Date) first).compareTo((Date) second);
+        }
+        if (first instanceof Boolean && second instanceof Boolean) {
+            return ((Boolean) first).compareTo((Boolean) second);
+        }
+        return null;
+    }
+
+    public String encode() {
+        ValueType valueType = value == null ? ValueType.NULL : getValueType(value);
+        return ENCODER.encode(
+            compare.name(),
+            valueType.name(),
+            valueToString(valueType, value),
+            OptionsUtils.textSetToString(propertyNames)
+        );
+    }
+
+    public static IteratorPropertyPredicate decode(String str) {
+        String[] parts = ENCODER.decode(str);
+        Compare compare = Compare.valueOf(parts[0]);
+        Object value = stringToValue(ValueType.valueOf(parts[1]), parts[2]);
+        Set<ByteSequence> propertyNames = OptionsUtils.parseTextSet(parts[3]);
+        return new IteratorPropertyPredicate(propertyNames, compare, value);
+    }
+
+    private static ValueType getValueType(Object value) {
+        Class<?> valueClass = value.getClass();
+        if (valueClass == String.class) {
+            return ValueType.STRING;
+        } else if (valueClass == Long.class) {
+            return ValueType.LONG;
+        } else if (valueClass == Integer.class) {
+            return ValueType.INTEGER;
+        } else if (valueClass == Double.class) {
+            return ValueType.DOUBLE;
+        } else if (valueClass == Float.class) {
+            return ValueType.FLOAT;
+        } else if (valueClass == Boolean.class) {
+            return ValueType.BOOLEAN;
+        } else if (valueClass == Date.class) {
+            return ValueType.DATE;
+        }
+        return null;
+    }
+
+    private static String valueToString(ValueType valueType, Object value) {
+        switch (valueType) {
+            case NULL:
+                return NULL_STRING;
+            case DATE:
+                return Long.toString(((Date) value).getTime());
+            default:
+                return value.toString();
+        }
+    }
+
+    private static Object stringToValue(ValueType valueType, String str) {
+        switch (valueType) {
+            case NULL:
+                return null;
+            case STRING:
+                return str;
+            case LONG:
+                return Long.parseLong(str);
+            case INTEGER:
+                return Integer.parseInt(str);
+            case DOUBLE:
+                return Double.parseDouble(str);
+            case FLOAT:
+                return Float.parseFloat(str);
+            case BOOLEAN:
+                return Boolean.parseBoolean(str);
+            case DATE:
+                return new Date(Long.parseLong(str));
+            default:
+                throw new VertexiumAccumuloIteratorException("Unhandled value type: " + valueType);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "IteratorPropertyPredicate{" +
+            "propertyNames=" + OptionsUtils.textSetToString(propertyNames) +
+            ", compare=" + compare +
+            ", value=" + value +
+            '}';
+    }
+}
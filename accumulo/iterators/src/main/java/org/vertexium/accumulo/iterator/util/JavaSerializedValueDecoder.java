@@ -0,0 +1,59 @@
+package org.vertexium.accumulo.iterator.util;
+
+import java.io.*;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Decodes property values written with Java serialization on the tablet server. Only strings, boxed primitives and
+ * dates are decoded, other classes are never loaded.
+ */
+public class JavaSerializedValueDecoder {
+    private static final Set<String> ALLOWED_CLASS_NAMES = new HashSet<>();
+
+    static {
+        ALLOWED_CLASS_NAMES.add(Number.class.getName());
+        ALLOWED_CLASS_NAMES.add(Long.class.getName());
+        ALLOWED_CLASS_NAMES.add(Integer.class.getName());
+        ALLOWED_CLASS_NAMES.add(Short.class.getName());
+        ALLOWED_CLASS_NAMES.add(Byte.class.getName());
+        ALLOWED_CLASS_NAMES.add(Double.class.getName());
+        ALLOWED_CLASS_NAMES.add(Float.class.getName());
+        ALLOWED_CLASS_NAMES.add(Boolean.class.getName());
+        ALLOWED_CLASS_NAMES.add(Date.class.getName());
+    }
+
+    /**
+     * @return the value or null if the bytes are empty or contain a value of a class which is not decoded.
+     */
+    public static Object decode(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        try (ObjectInputStream in = new AllowedClassesObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        } catch (IOException | ClassNotFoundException ex) {
+            return null;
+        }
+    }
+
+    private static class AllowedClassesObjectInputStream extends ObjectInputStream {
+        public AllowedClassesObjectInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            if (!ALLOWED_CLASS_NAMES.contains(desc.getName())) {
+                throw new InvalidClassException(desc.getName(), "Class is not decoded by the iterator");
+            }
+            return super.resolveClass(desc);
+        }
+
+        @Override
+        protected Class<?> resolveProxyClass(String[] interfaces) throws IOException {
+            throw new InvalidClassException("Proxy classes are not decoded by the iterator");
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package org.vertexium.accumulo.iterator;
+
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.data.ArrayByteSequence;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iterators.SortedMapIterator;
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+import org.vertexium.accumulo.iterator.model.IteratorElementFilter;
+import org.vertexium.accumulo.iterator.model.IteratorFetchHints;
+import org.vertexium.accumulo.iterator.model.IteratorPropertyPredicate;
+import org.vertexium.accumulo.iterator.model.KeyBase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+
+public class ElementIteratorFilterTest {
+    @Test
+    public void testEdgeLabelFilter() throws IOException {
+        TreeMap<Key, Value> rows = new TreeMap<>();
+        addEdge(rows, "e1", "knows");
+        addEdge(rows, "e2", "likes");
+        addEdge(rows, "e3", "knows");
+
+        IteratorElementFilter filter = new IteratorElementFilter(
+            Collections.singleton(new Text("knows")),
+            Collections.emptyList(),
+            true
+        );
+        assertEquals(Arrays.asList("e1", "e3"), scan(new EdgeIterator(), rows, filter));
+    }
+
+    @Test
+    public void testPropertyPredicates() throws IOException {
+        TreeMap<Key, Value> rows = new TreeMap<>();
+        addVertex(rows, "v1");
+        addProperty(rows, "v1", "name", "Joe");
+        addProperty(rows, "v1", "age", 25L);
+        addVertex(rows, "v2");
+        addProperty(rows, "v2", "name", "Sam");
+        addProperty(rows, "v2", "age", 40);
+        addVertex(rows, "v3");
+        addProperty(rows, "v3", "age", 30L);
+        addVertex(rows, "v4");
+        addProperty(rows, "v4", "name", new StringBuilder("joe"));
+
+        assertEquals(
+            Arrays.asList("v1", "v2", "v4"),
+            scan(new VertexIterator(), rows, filter(predicate("name", IteratorPropertyPredicate.Compare.EXISTS, null)))
+        );
+        // v4's value can not be decoded on the tablet server so it is left for the client to compare
+        assertEquals(
+            Arrays.asList("v1", "v4"),
+            scan(new VertexIterator(), rows, filter(predicate("name", IteratorPropertyPredicate.Compare.EQUAL, "joe")))
+        );
+        assertEquals(
+            Arrays.asList("v2", "v3"),
+            scan(new VertexIterator(), rows, filter(predicate("age", IteratorPropertyPredicate.Compare.GREATER_THAN_EQUAL, 30L)))
+        );
+        assertEquals(
+            Collections.singletonList("v2"),
+            scan(new VertexIterator(), rows, filter(
+                predicate("age", IteratorPropertyPredicate.Compare.GREATER_THAN, 26.5),
+                predicate("name", IteratorPropertyPredicate.Compare.EXISTS, null)
+            ))
+        );
+    }
+
+    private static IteratorElementFilter filter(IteratorPropertyPredicate... propertyPredicates) {
+        return new IteratorElementFilter(null, Arrays.asList(propertyPredicates), true);
+    }
+
+    private static IteratorPropertyPredicate predicate(String propertyName, IteratorPropertyPredicate.Compare compare, Object value) {
+        Set<ByteSequence> propertyNames = Collections.singleton(new ArrayByteSequence(propertyName));
+        return new IteratorPropertyPredicate(propertyNames, compare, value);
+    }
+
+    private List<String> scan(ElementIterator<?> iterator, TreeMap<Key, Value> rows, IteratorElementFilter filter) throws IOException {
+        IteratorSetting settings = new IteratorSetting(1000, "element", iterator.getClass().getName());
+        IteratorFetchHints fetchHints = new IteratorFetchHints(
+            true, null, false, null, false, false, false, false, true, true, false, null, false, false, false
+        );
+        ElementIterator.setFetchHints(settings, fetchHints);
+        ElementIterator.setAuthorizations(settings, new String[0]);
+        ElementIterator.setElementFilter(settings, filter);
+
+        iterator.init(new SortedMapIterator(rows), settings.getOptions(), null);
+        // the filter is kept by copies made by the tablet server
+        SortedKeyValueIterator<Key, Value> copy = iterator.deepCopy(null);
+        copy.seek(new Range(), Collections.emptyList(), false);
+        List<String> results = new ArrayList<>();
+        while (copy.hasTop()) {
+            results.add(copy.getTopKey().getRow().toString());
+            copy.next();
+        }
+        return results;
+    }
+
+    private static void addVertex(TreeMap<Key, Value> rows, String vertexId) {
+        rows.put(new Key(vertexId, VertexIterator.CF_SIGNAL_STRING, "", "", 1L), new Value(new byte[0]));
+    }
+
+    private static void addEdge(TreeMap<Key, Value> rows, String edgeId, String label) {
+        rows.put(new Key(edgeId, EdgeIterator.CF_SIGNAL_STRING, label, "", 1L), new Value(new byte[0]));
+        rows.put(new Key(edgeId, EdgeIterator.CF_OUT_VERTEX_STRING, "v1", "", 1L), new Value(new byte[0]));
+        rows.put(new Key(edgeId, EdgeIterator.CF_IN_VERTEX_STRING, "v2", "", 1L), new Value(new byte[0]));
+    }
+
+    private static void addProperty(TreeMap<Key, Value> rows, String vertexId, String propertyName, Object value) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(baos)) {
+            out.writeObject(value);
+        }
+        String columnQualifier = propertyName + KeyBase.VALUE_SEPARATOR + "k1";
+        rows.put(new Key(vertexId, ElementIterator.CF_PROPERTY_STRING, columnQualifier, "", 1L), new Value(baos.toByteArray()));
+    }
+}
@@ -0,0 +1,48 @@
+package org.vertexium.accumulo.iterator;
+
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iterators.SortedMapIterator;
+import org.junit.Test;
+import org.vertexium.ElementFilter;
+
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+
+public class HasAuthorizationFilterTest {
+    @Test
+    public void testSplitsVisibilityIntoTerms() throws IOException {
+        TreeMap<Key, Value> rows = new TreeMap<>();
+        rows.put(new Key("v1", VertexIterator.CF_SIGNAL_STRING, "", "a&\"x:y\"", 1L), new Value(new byte[0]));
+        rows.put(new Key("v2", VertexIterator.CF_SIGNAL_STRING, "", "a|b", 1L), new Value(new byte[0]));
+        rows.put(new Key("v3", VertexIterator.CF_SIGNAL_STRING, "", "a&\"x:y\"", 1L), new Value(new byte[0]));
+
+        assertEquals(Arrays.asList("v1", "v2", "v3"), scan(rows, "a"));
+        assertEquals(Arrays.asList("v2"), scan(rows, "b"));
+        assertEquals(Arrays.asList("v1", "v3"), scan(rows, "x"));
+        assertEquals(Arrays.asList("v1", "v3"), scan(rows, "y"));
+        assertEquals(Collections.emptyList(), scan(rows, "x:y"));
+    }
+
+    private List<String> scan(TreeMap<Key, Value> rows, String authorizationToMatch) throws IOException {
+        IteratorSetting settings = new IteratorSetting(100, "filter", HasAuthorizationFilter.class);
+        HasAuthorizationFilter.setAuthorizationToMatch(settings, authorizationToMatch);
+        HasAuthorizationFilter.setFilters(settings, EnumSet.of(ElementFilter.ELEMENT));
+
+        HasAuthorizationFilter filter = new HasAuthorizationFilter();
+        filter.init(new SortedMapIterator(rows), settings.getOptions(), null);
+        SortedKeyValueIterator<Key, Value> copy = filter.deepCopy(null);
+        copy.seek(new Range(), Collections.emptyList(), false);
+        List<String> results = new ArrayList<>();
+        while (copy.hasTop()) {
+            results.add(copy.getTopKey().getRow().toString());
+            copy.next();
+        }
+        return results;
+    }
+}
@@ -0,0 +1,66 @@
+package org.vertexium.accumulo.iterator;
+
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iterators.SortedMapIterator;
+import org.junit.Test;
+import org.vertexium.accumulo.iterator.model.KeyBase;
+
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+
+public class HistoricalPropertyValueFilterTest {
+    @Test
+    public void testFilter() throws IOException {
+        TreeMap<Key, Value> rows = new TreeMap<>();
+        rows.put(new Key("v1", VertexIterator.CF_SIGNAL_STRING, "", "", 1L), new Value(new byte[0]));
+        addProperty(rows, "name", "k1", "a", 1L);
+        addProperty(rows, "name", "k1", "a", 2L);
+        addProperty(rows, "name", "k1", "b", 3L);
+        addProperty(rows, "name", "k2", "a", 4L);
+        addProperty(rows, "age", "k1", "a", 5L);
+        rows.put(new Key("v1", ElementIterator.CF_PROPERTY_SOFT_DELETE_STRING, "name" + KeyBase.VALUE_SEPARATOR + "k1", "a", 6L), new Value(new byte[0]));
+        rows.put(new Key("v1", ElementIterator.CF_PROPERTY_SOFT_DELETE_STRING, "age" + KeyBase.VALUE_SEPARATOR + "k1", "a", 7L), new Value(new byte[0]));
+        addPropertyMetadata(rows, "name", "k1", "a", "m1", 1L);
+        addPropertyMetadata(rows, "name", "k1", "b", "m1", 3L);
+        addPropertyMetadata(rows, "age", "k1", "a", "m1", 5L);
+
+        assertEquals(Arrays.asList(2L, 1L, 6L, 1L), scan(rows, "k1", "name", "a"));
+        assertEquals(Arrays.asList(2L, 1L, 4L, 6L, 1L), scan(rows, null, "name", "a"));
+        assertEquals(Arrays.asList(2L, 1L, 3L, 6L, 1L, 3L), scan(rows, "k1", "name", null));
+        assertEquals(Arrays.asList(5L, 7L, 5L), scan(rows, null, "age", null));
+    }
+
+    private List<Long> scan(TreeMap<Key, Value> rows, String propertyKey, String propertyName, String propertyVisibility) throws IOException {
+        IteratorSetting settings = new IteratorSetting(100, "filter", HistoricalPropertyValueFilter.class);
+        HistoricalPropertyValueFilter.setPropertyKey(settings, propertyKey);
+        HistoricalPropertyValueFilter.setPropertyName(settings, propertyName);
+        HistoricalPropertyValueFilter.setPropertyVisibility(settings, propertyVisibility);
+
+        HistoricalPropertyValueFilter filter = new HistoricalPropertyValueFilter();
+        filter.init(new SortedMapIterator(rows), settings.getOptions(), null);
+        SortedKeyValueIterator<Key, Value> copy = filter.deepCopy(null);
+        copy.seek(new Range(), Collections.emptyList(), false);
+        List<Long> results = new ArrayList<>();
+        while (copy.hasTop()) {
+            results.add(copy.getTopKey().getTimestamp());
+            copy.next();
+        }
+        return results;
+    }
+
+    private static void addProperty(TreeMap<Key, Value> rows, String propertyName, String propertyKey, String visibility, long timestamp) {
+        String columnQualifier = propertyName + KeyBase.VALUE_SEPARATOR + propertyKey;
+        rows.put(new Key("v1", ElementIterator.CF_PROPERTY_STRING, columnQualifier, visibility, timestamp), new Value(new byte[0]));
+    }
+
+    private static void addPropertyMetadata(TreeMap<Key, Value> rows, String propertyName, String propertyKey, String propertyVisibility, String metadataKey, long timestamp) {
+        String columnQualifier = propertyName + KeyBase.VALUE_SEPARATOR + propertyKey + KeyBase.VALUE_SEPARATOR + propertyVisibility + KeyBase.VALUE_SEPARATOR + metadataKey;
+        rows.put(new Key("v1", ElementIterator.CF_PROPERTY_METADATA_STRING, columnQualifier, "", timestamp), new Value(new byte[0]));
+    }
+}
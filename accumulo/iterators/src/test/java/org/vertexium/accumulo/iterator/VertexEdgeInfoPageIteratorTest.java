@@ -0,0 +1,101 @@
+package org.vertexium.accumulo.iterator;
+
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.SortedMapIterator;
+import org.junit.Test;
+import org.vertexium.accumulo.iterator.model.Direction;
+import org.vertexium.accumulo.iterator.model.IteratorFetchHints;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class VertexEdgeInfoPageIteratorTest {
+    @Test
+    public void testPages() throws IOException {
+        TreeMap<Key, Value> rows = new TreeMap<>();
+        addVertex(rows, "v1");
+        addEdgeRef(rows, "v1", VertexIterator.CF_OUT_EDGE_STRING, "e1", "knows", "v2");
+        addEdgeRef(rows, "v1", VertexIterator.CF_OUT_EDGE_STRING, "e3", "knows", "v3");
+        addEdgeRef(rows, "v1", VertexIterator.CF_OUT_EDGE_STRING, "e5", "likes", "v1");
+        addEdgeRef(rows, "v1", VertexIterator.CF_IN_EDGE_STRING, "e2", "likes", "v2");
+        addEdgeRef(rows, "v1", VertexIterator.CF_IN_EDGE_STRING, "e4", "knows", "v4");
+        addEdgeRef(rows, "v1", VertexIterator.CF_IN_EDGE_STRING, "e5", "likes", "v1");
+        addEdgeRef(rows, "v1", VertexIterator.CF_IN_EDGE_HIDDEN_STRING, "e4", "", "");
+
+        IteratorSetting settings = new IteratorSetting(1000, VertexEdgeInfoPageIterator.class);
+        VertexEdgeInfoPageIterator.setLimit(settings, 2);
+        VertexEdgeInfoPageIterator.Page page = scan(rows, settings);
+        assertEquals(5, page.getTotalCount());
+        assertTrue(page.hasMore());
+        assertEquals(Arrays.asList("e1", "e2"), edgeIds(page));
+        assertEquals(Direction.IN, page.getEntries().get(1).getDirection());
+        assertEquals("likes", page.getEntries().get(1).getLabel());
+        assertEquals("v2", page.getEntries().get(1).getVertexId());
+
+        settings = new IteratorSetting(1000, VertexEdgeInfoPageIterator.class);
+        VertexEdgeInfoPageIterator.setStartAfterEdgeId(settings, "e2");
+        VertexEdgeInfoPageIterator.setLimit(settings, 2);
+        page = scan(rows, settings);
+        // both ends of e5 are returned together
+        assertEquals(Arrays.asList("e3", "e5", "e5"), edgeIds(page));
+        assertFalse(page.hasMore());
+
+        settings = new IteratorSetting(1000, VertexEdgeInfoPageIterator.class);
+        VertexEdgeInfoPageIterator.setDirections(settings, EnumSet.of(Direction.OUT));
+        VertexEdgeInfoPageIterator.setLabels(settings, Collections.singleton("knows"));
+        page = scan(rows, settings);
+        assertEquals(2, page.getTotalCount());
+        assertEquals(Arrays.asList("e1", "e3"), edgeIds(page));
+        assertFalse(page.hasMore());
+    }
+
+    private VertexEdgeInfoPageIterator.Page scan(TreeMap<Key, Value> rows, IteratorSetting settings) throws IOException {
+        IteratorFetchHints fetchHints = new IteratorFetchHints(
+            false, null, false, null, false, true, false, false, true, true, false, null, false, false, false
+        );
+        VertexEdgeInfoPageIterator.setFetchHints(settings, fetchHints);
+        VertexEdgeInfoPageIterator.setAuthorizations(settings, new String[0]);
+
+        VertexEdgeInfoPageIterator iterator = new VertexEdgeInfoPageIterator();
+        iterator.init(new SortedMapIterator(rows), settings.getOptions(), null);
+        iterator.seek(new Range(), Collections.emptyList(), false);
+        assertTrue(iterator.hasTop());
+        VertexEdgeInfoPageIterator.Page page = VertexEdgeInfoPageIterator.decodeValue(iterator.getTopValue());
+        iterator.next();
+        assertFalse(iterator.hasTop());
+        return page;
+    }
+
+    private static List<String> edgeIds(VertexEdgeInfoPageIterator.Page page) {
+        return page.getEntries().stream()
+            .map(VertexEdgeInfoPageIterator.Page.Entry::getEdgeId)
+            .collect(Collectors.toList());
+    }
+
+    private void addVertex(TreeMap<Key, Value> rows, String vertexId) {
+        rows.put(new Key(vertexId, VertexIterator.CF_SIGNAL_STRING, "", "", 1L), new Value(new byte[0]));
+    }
+
+    private void addEdgeRef(TreeMap<Key, Value> rows, String vertexId, String columnFamily, String edgeId, String label, String otherVertexId) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(baos);
+        byte[] labelBytes = label.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(labelBytes.length);
+        out.write(labelBytes);
+        byte[] otherVertexIdBytes = otherVertexId.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(otherVertexIdBytes.length);
+        out.write(otherVertexIdBytes);
+        rows.put(new Key(vertexId, columnFamily, edgeId, "", 1L), new Value(baos.toByteArray()));
+    }
+}
@@ -0,0 +1,100 @@
+package org.vertexium.accumulo.iterator;
+
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.SortedMapIterator;
+import org.junit.Test;
+import org.vertexium.accumulo.iterator.model.IteratorFetchHints;
+import org.vertexium.accumulo.iterator.util.ByteArrayWrapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class VertexNeighborIdIteratorTest {
+    @Test
+    public void testNeighborIds() throws IOException {
+        TreeMap<Key, Value> rows = new TreeMap<>();
+        addVertex(rows, "v1");
+        addEdgeRef(rows, "v1", VertexIterator.CF_OUT_EDGE_STRING, "e1", "knows", "v2");
+        addEdgeRef(rows, "v1", VertexIterator.CF_OUT_EDGE_STRING, "e2", "knows", "v3");
+        addEdgeRef(rows, "v1", VertexIterator.CF_IN_EDGE_STRING, "e3", "likes", "v2");
+        addEdgeRef(rows, "v1", VertexIterator.CF_IN_EDGE_STRING, "e4", "likes", "v4");
+        addVertex(rows, "v2");
+        addEdgeRef(rows, "v2", VertexIterator.CF_IN_EDGE_STRING, "e1", "knows", "v1");
+
+        Map<String, Set<String>> results = scan(rows, new IteratorSetting(1000, VertexNeighborIdIterator.class));
+        assertEquals(set("v1", "v2"), results.keySet());
+        assertEquals(set("v2", "v3", "v4"), results.get("v1"));
+        assertEquals(set("v1"), results.get("v2"));
+
+        IteratorSetting labelSettings = new IteratorSetting(1000, VertexNeighborIdIterator.class);
+        VertexNeighborIdIterator.setLabels(labelSettings, set("likes"));
+        results = scan(rows, labelSettings);
+        assertEquals(set("v2", "v4"), results.get("v1"));
+        assertEquals(set(), results.get("v2"));
+
+        IteratorSetting excludedLabelSettings = new IteratorSetting(1000, VertexNeighborIdIterator.class);
+        VertexNeighborIdIterator.setExcludedLabels(excludedLabelSettings, set("likes"));
+        results = scan(rows, excludedLabelSettings);
+        assertEquals(set("v2", "v3"), results.get("v1"));
+
+        IteratorSetting visitedSettings = new IteratorSetting(1000, VertexNeighborIdIterator.class);
+        VertexNeighborIdIterator.setVisitedVertexIds(visitedSettings, Arrays.asList("v1", "v2"));
+        results = scan(rows, visitedSettings);
+        assertTrue(results.get("v1").contains("v3"));
+        assertTrue(results.get("v1").contains("v4"));
+        assertFalse(results.get("v1").contains("v2"));
+        assertEquals(set(), results.get("v2"));
+    }
+
+    private Map<String, Set<String>> scan(TreeMap<Key, Value> rows, IteratorSetting settings) throws IOException {
+        IteratorFetchHints fetchHints = new IteratorFetchHints(
+            false, null, false, null, false, true, false, false, false, false, false, null, false, false, false
+        );
+        VertexNeighborIdIterator.setFetchHints(settings, fetchHints);
+        VertexNeighborIdIterator.setAuthorizations(settings, new String[0]);
+
+        VertexNeighborIdIterator iterator = new VertexNeighborIdIterator();
+        iterator.init(new SortedMapIterator(rows), settings.getOptions(), null);
+        iterator.seek(new Range(), Collections.emptyList(), false);
+        Map<String, Set<String>> results = new HashMap<>();
+        while (iterator.hasTop()) {
+            Set<String> neighborIds = new HashSet<>();
+            for (ByteArrayWrapper neighborId : VertexNeighborIdIterator.decodeValue(iterator.getTopValue())) {
+                neighborIds.add(new String(neighborId.getData(), StandardCharsets.UTF_8));
+            }
+            results.put(iterator.getTopKey().getRow().toString(), neighborIds);
+            iterator.next();
+        }
+        return results;
+    }
+
+    private void addVertex(TreeMap<Key, Value> rows, String vertexId) {
+        rows.put(new Key(vertexId, VertexIterator.CF_SIGNAL_STRING, "", "", 1L), new Value(new byte[0]));
+    }
+
+    private void addEdgeRef(TreeMap<Key, Value> rows, String vertexId, String columnFamily, String edgeId, String label, String otherVertexId) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(baos);
+        byte[] labelBytes = label.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(labelBytes.length);
+        out.write(labelBytes);
+        byte[] otherVertexIdBytes = otherVertexId.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(otherVertexIdBytes.length);
+        out.write(otherVertexIdBytes);
+        rows.put(new Key(vertexId, columnFamily, edgeId, "", 1L), new Value(baos.toByteArray()));
+    }
+
+    private static Set<String> set(String... items) {
+        return new HashSet<>(Arrays.asList(items));
+    }
+}
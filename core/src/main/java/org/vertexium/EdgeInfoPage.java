@@ -0,0 +1,76 @@
+package org.vertexium;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A page of the edge infos of a vertex ordered by edge id, see
+ * {@link Vertex#getEdgeInfos(Direction, String[], String, int, Authorizations)}.
+ */
+public class EdgeInfoPage {
+    private static final Comparator<EdgeInfo> EDGE_ID_COMPARATOR = Comparator.comparing(EdgeInfo::getEdgeId)
+        .thenComparing(EdgeInfo::getDirection);
+    private final List<EdgeInfo> edgeInfos;
+    private final long totalCount;
+    private final boolean hasMore;
+
+    public EdgeInfoPage(List<EdgeInfo> edgeInfos, long totalCount, boolean hasMore) {
+        this.edgeInfos = edgeInfos;
+        this.totalCount = totalCount;
+        this.hasMore = hasMore;
+    }
+
+    /**
+     * Creates a page from all the edge infos of a vertex. Edge infos with the same edge id, such as both ends of an
+     * edge from a vertex to itself, are never split between pages so a page can have more than limit edge infos.
+     */
+    public static EdgeInfoPage create(Iterable<EdgeInfo> allEdgeInfos, String startAfterEdgeId, int limit) {
+        long totalCount = 0;
+        List<EdgeInfo> edgeInfos = new ArrayList<>();
+        for (EdgeInfo edgeInfo : allEdgeInfos) {
+            totalCount++;
+            if (startAfterEdgeId == null || edgeInfo.getEdgeId().compareTo(startAfterEdgeId) > 0) {
+                edgeInfos.add(edgeInfo);
+            }
+        }
+        edgeInfos.sort(EDGE_ID_COMPARATOR);
+
+        int end = Math.min(limit, edgeInfos.size());
+        while (end > 0 && end < edgeInfos.size() && edgeInfos.get(end).getEdgeId().equals(edgeInfos.get(end - 1).getEdgeId())) {
+            end++;
+        }
+        return new EdgeInfoPage(new ArrayList<>(edgeInfos.subList(0, end)), totalCount, end < edgeInfos.size());
+    }
+
+    /**
+     * The edge infos of this page ordered by edge id.
+     */
+    public List<EdgeInfo> getEdgeInfos() {
+        return edgeInfos;
+    }
+
+    /**
+     * The number of edge infos matching the direction and labels on all pages.
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * True if there are edge infos after this page.
+     */
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    /**
+     * The edge id to pass as startAfterEdgeId to get the next page, or null if this is the last page.
+     */
+    public String getNextStartAfterEdgeId() {
+        if (!hasMore || edgeInfos.isEmpty()) {
+            return null;
+        }
+        return edgeInfos.get(edgeInfos.size() - 1).getEdgeId();
+    }
+}
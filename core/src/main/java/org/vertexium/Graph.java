@@ -12,11 +12,16 @@ import org.vertexium.query.Aggregation;
 import org.vertexium.query.GraphQuery;
 import org.vertexium.query.MultiVertexQuery;
 import org.vertexium.query.SimilarToGraphQuery;
+import org.vertexium.util.CompletableFutureUtils;
 import org.vertexium.util.JoinIterable;
 
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 import static org.vertexium.util.Preconditions.checkNotNull;
@@ -1595,6 +1600,46 @@ public interface Graph {
         Authorizations authorizations
     );
 
+    /**
+     * Gets the historical events of all elements in the graph in ascending order.
+     *
+     * @param after          Find events after the given id, use the id of the last event consumed to resume a feed
+     * @param authorizations The authorizations required to load the events
+     * @return A stream of historic events
+     */
+    default Stream<HistoricalEvent> getAllHistoricalEvents(HistoricalEventId after, Authorizations authorizations) {
+        return getAllHistoricalEvents(after, HistoricalEventsFetchHints.ALL, authorizations);
+    }
+
+    /**
+     * Gets the historical events of all elements in the graph in ascending order. Graphs which keep a change log
+     * only read the elements changed since after, otherwise every vertex and edge is read and events of deleted
+     * elements are not returned.
+     *
+     * @param after          Find events after the given id, use the id of the last event consumed to resume a feed
+     * @param fetchHints     Fetch hints to filter historical events, only ascending order is supported
+     * @param authorizations The authorizations required to load the events
+     * @return A stream of historic events
+     */
+    default Stream<HistoricalEvent> getAllHistoricalEvents(
+        HistoricalEventId after,
+        HistoricalEventsFetchHints fetchHints,
+        Authorizations authorizations
+    ) {
+        if (fetchHints.getSortDirection() != HistoricalEventsFetchHints.SortDirection.ASCENDING) {
+            throw new VertexiumException("Graph historical events can only be read in ascending order");
+        }
+        FetchHints elementFetchHints = new FetchHintsBuilder()
+            .setIncludeHidden(true)
+            .build();
+        return getHistoricalEvents(
+            new JoinIterable<>(getVertices(elementFetchHints, authorizations), getEdges(elementFetchHints, authorizations)),
+            after,
+            fetchHints,
+            authorizations
+        );
+    }
+
     /**
      * Deletes an extended data row
      */
@@ -1633,4 +1678,127 @@ public interface Graph {
      * Gets the metrics registry to record internal Vertexium metrics
      */
     VertexiumMetricRegistry getMetricsRegistry();
+
+    /**
+     * The executor the async read methods, such as {@link #getVertexAsync(String, FetchHints, Authorizations)}, run
+     * on. Graphs which read from a remote store should return a dedicated bounded executor.
+     */
+    default Executor getAsyncReadExecutor() {
+        return ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Get a vertex from the graph without blocking the calling thread.
+     *
+     * @param vertexId       The vertex id to retrieve from the graph.
+     * @param fetchHints     Hint at what parts of the vertex to fetch.
+     * @param authorizations The authorizations required to load the vertex.
+     * @return A future completed with the vertex, or null if the vertex is not found or the required authorizations
+     * were not provided.
+     */
+    default CompletableFuture<Vertex> getVertexAsync(String vertexId, FetchHints fetchHints, Authorizations authorizations) {
+        return CompletableFutureUtils.supplyAsync(() -> getVertex(vertexId, fetchHints, authorizations), getAsyncReadExecutor());
+    }
+
+    /**
+     * Gets vertices from the graph without blocking the calling thread.
+     *
+     * @param ids            The ids of the vertices to get.
+     * @param fetchHints     Hint at what parts of the vertex to fetch.
+     * @param authorizations The authorizations required to load the vertex.
+     * @return A future completed with the found vertices.
+     */
+    default CompletableFuture<List<Vertex>> getVerticesAsync(Iterable<String> ids, FetchHints fetchHints, Authorizations authorizations) {
+        return CompletableFutureUtils.toListAsync(() -> getVertices(ids, fetchHints, authorizations), getAsyncReadExecutor());
+    }
+
+    /**
+     * Gets vertices from the graph without blocking the calling thread, passing each vertex to the consumer as it
+     * is read instead of collecting them.
+     *
+     * @param ids            The ids of the vertices to get.
+     * @param fetchHints     Hint at what parts of the vertex to fetch.
+     * @param consumer       Called with each found vertex on a thread of {@link #getAsyncReadExecutor()}.
+     * @param authorizations The authorizations required to load the vertex.
+     * @return A future completed when all vertices have been passed to the consumer.
+     */
+    default CompletableFuture<Void> getVerticesAsync(
+        Iterable<String> ids,
+        FetchHints fetchHints,
+        Consumer<? super Vertex> consumer,
+        Authorizations authorizations
+    ) {
+        return CompletableFutureUtils.forEachAsync(() -> getVertices(ids, fetchHints, authorizations), consumer, getAsyncReadExecutor());
+    }
+
+    /**
+     * Get an edge from the graph without blocking the calling thread.
+     *
+     * @param edgeId         The edge id to retrieve from the graph.
+     * @param fetchHints     Hint at what parts of the edge to fetch.
+     * @param authorizations The authorizations required to load the edge.
+     * @return A future completed with the edge, or null if the edge is not found or the required authorizations were
+     * not provided.
+     */
+    default CompletableFuture<Edge> getEdgeAsync(String edgeId, FetchHints fetchHints, Authorizations authorizations) {
+        return CompletableFutureUtils.supplyAsync(() -> getEdge(edgeId, fetchHints, authorizations), getAsyncReadExecutor());
+    }
+
+    /**
+     * Gets edges from the graph without blocking the calling thread.
+     *
+     * @param ids            The ids of the edges to get.
+     * @param fetchHints     Hint at what parts of the edge to fetch.
+     * @param authorizations The authorizations required to load the edges.
+     * @return A future completed with the found edges.
+     */
+    default CompletableFuture<List<Edge>> getEdgesAsync(Iterable<String> ids, FetchHints fetchHints, Authorizations authorizations) {
+        return CompletableFutureUtils.toListAsync(() -> getEdges(ids, fetchHints, authorizations), getAsyncReadExecutor());
+    }
+
+    /**
+     * Gets edges from the graph without blocking the calling thread, passing each edge to the consumer as it is
+     * read instead of collecting them.
+     *
+     * @param ids            The ids of the edges to get.
+     * @param fetchHints     Hint at what parts of the edge to fetch.
+     * @param consumer       Called with each found edge on a thread of {@link #getAsyncReadExecutor()}.
+     * @param authorizations The authorizations required to load the edges.
+     * @return A future completed when all edges have been passed to the consumer.
+     */
+    default CompletableFuture<Void> getEdgesAsync(
+        Iterable<String> ids,
+        FetchHints fetchHints,
+        Consumer<? super Edge> consumer,
+        Authorizations authorizations
+    ) {
+        return CompletableFutureUtils.forEachAsync(() -> getEdges(ids, fetchHints, authorizations), consumer, getAsyncReadExecutor());
+    }
+
+    /**
+     * Gets the specified extended data rows without blocking the calling thread.
+     *
+     * @param ids            The ids of the rows to get.
+     * @param fetchHints     Hint at what parts of the rows to fetch.
+     * @param authorizations The authorizations used to get the rows
+     * @return A future completed with the found rows.
+     */
+    default CompletableFuture<List<ExtendedDataRow>> getExtendedDataAsync(
+        Iterable<ExtendedDataRowId> ids,
+        FetchHints fetchHints,
+        Authorizations authorizations
+    ) {
+        return CompletableFutureUtils.toListAsync(() -> getExtendedData(ids, fetchHints, authorizations), getAsyncReadExecutor());
+    }
+
+    /**
+     * Given a list of vertex ids, find all the edges that connect them without blocking the calling thread.
+     *
+     * @param vertexIds      The list of vertex ids.
+     * @param authorizations The authorizations required to load the edges.
+     * @return A future completed with summary information about the related edges.
+     */
+    default CompletableFuture<List<RelatedEdge>> findRelatedEdgeSummaryAsync(Iterable<String> vertexIds, Authorizations authorizations) {
+        return CompletableFutureUtils.toListAsync(() -> findRelatedEdgeSummary(vertexIds, authorizations), getAsyncReadExecutor());
+    }
 }
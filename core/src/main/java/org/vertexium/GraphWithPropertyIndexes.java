@@ -0,0 +1,19 @@
+package org.vertexium;
+
+import org.vertexium.query.QueryBase;
+
+import java.util.Set;
+
+/**
+ * A graph which maintains secondary indexes of property values which queries evaluated in memory, such as
+ * {@link org.vertexium.query.DefaultGraphQuery}, can use to avoid evaluating every element.
+ */
+public interface GraphWithPropertyIndexes extends Graph {
+    /**
+     * Gets the ids of the elements which may match the given container.
+     *
+     * @return null if the container can not be answered using an index. Otherwise a superset of the ids of the
+     * matching elements, the container still needs to be evaluated against each of them.
+     */
+    Set<String> getCandidateElementIds(ElementType elementType, QueryBase.HasContainer hasContainer);
+}
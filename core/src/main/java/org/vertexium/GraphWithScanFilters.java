@@ -0,0 +1,17 @@
+package org.vertexium;
+
+import org.vertexium.query.QueryParameters;
+
+/**
+ * A graph which can evaluate some of a query's has containers while scanning its storage, so queries evaluated in
+ * memory, such as {@link org.vertexium.query.DefaultGraphQuery}, do not receive elements which can not match.
+ */
+public interface GraphWithScanFilters extends Graph {
+    /**
+     * Gets the elements of the given type which may match the query parameters.
+     *
+     * @return null if none of the parameters can be evaluated while scanning. Otherwise a superset of the matching
+     * elements, the query still needs to be evaluated against each of them.
+     */
+    Iterable<? extends Element> getCandidateElements(ElementType elementType, QueryParameters parameters, FetchHints fetchHints);
+}
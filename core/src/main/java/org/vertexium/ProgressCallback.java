@@ -14,7 +14,9 @@ public abstract class ProgressCallback {
         MERGING_EDGES("Merging edges"),
         ADDING_PATHS("Adding paths"),
         SEARCHING_EDGES("Searching edges %d of %d"),
-        FINDING_PATH("Finding path");
+        FINDING_PATH("Finding path"),
+        REINDEXING_VERTICES("Reindexing vertex ranges %d of %d"),
+        REINDEXING_EDGES("Reindexing edge ranges %d of %d");
 
         private final String messageFormat;
 
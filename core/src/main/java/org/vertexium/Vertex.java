@@ -242,6 +242,21 @@ public interface Vertex extends Element {
      */
     Iterable<EdgeInfo> getEdgeInfos(Direction direction, String[] labels, Authorizations authorizations);
 
+    /**
+     * Get a page of EdgeInfo ordered by edge id. Unlike the other getEdgeInfos methods this does not require the
+     * vertex to have been fetched with edge refs, implementations may fetch only the requested page.
+     *
+     * @param direction        The direction of the edge.
+     * @param labels           The labels of edges to include or null to include all edges.
+     * @param startAfterEdgeId Only include edges with an id after this id or null to get the first page.
+     * @param limit            The maximum number of edge infos to return.
+     * @param authorizations   The authorizations used to find the edges.
+     * @return The page of EdgeInfo along with the total number of matching edge infos.
+     */
+    default EdgeInfoPage getEdgeInfos(Direction direction, String[] labels, String startAfterEdgeId, int limit, Authorizations authorizations) {
+        return EdgeInfoPage.create(getEdgeInfos(direction, labels, authorizations), startAfterEdgeId, limit);
+    }
+
     /**
      * Similar to getEdges but gets the vertices on the other side of the edges attached to this vertex.
      *
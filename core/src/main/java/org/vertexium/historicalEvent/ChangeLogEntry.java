@@ -0,0 +1,68 @@
+package org.vertexium.historicalEvent;
+
+import org.vertexium.ElementId;
+
+/**
+ * An entry in a graph's change log recording that an element was changed at the given timestamp. The entry does not
+ * hold the change itself, the change is read from the element's historical events.
+ */
+public class ChangeLogEntry implements Comparable<ChangeLogEntry> {
+    private final long timestamp;
+    private final ElementId elementId;
+
+    public ChangeLogEntry(long timestamp, ElementId elementId) {
+        this.timestamp = timestamp;
+        this.elementId = elementId;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public ElementId getElementId() {
+        return elementId;
+    }
+
+    @Override
+    public int compareTo(ChangeLogEntry other) {
+        int result = Long.compare(getTimestamp(), other.getTimestamp());
+        if (result != 0) {
+            return result;
+        }
+
+        result = getElementId().getElementType().compareTo(other.getElementId().getElementType());
+        if (result != 0) {
+            return result;
+        }
+
+        return getElementId().getId().compareTo(other.getElementId().getId());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return compareTo((ChangeLogEntry) o) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Long.hashCode(timestamp);
+        result = 31 * result + elementId.getElementType().hashCode();
+        result = 31 * result + elementId.getId().hashCode();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "ChangeLogEntry{" +
+            "timestamp=" + timestamp +
+            ", elementType=" + elementId.getElementType() +
+            ", elementId='" + elementId.getId() + '\'' +
+            '}';
+    }
+}
@@ -0,0 +1,166 @@
+package org.vertexium.historicalEvent;
+
+import org.vertexium.ElementId;
+import org.vertexium.HistoricalEventsFetchHints;
+import org.vertexium.HistoricalEventsFetchHintsBuilder;
+import org.vertexium.VertexiumException;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Merges the historical events of the elements named by a graph's change log into a single stream ordered by
+ * {@link HistoricalEventId}, so that the whole graph can be followed from a checkpoint without scanning every element.
+ * <p>
+ * The change log is read in batches which always end on a timestamp boundary. The events after the checkpoint of the
+ * elements in a batch are read and those up to the last timestamp of the batch are returned. An element with events
+ * past the end of the batch, which happens when a column is timestamped by the server after its change log entry was
+ * written, is read again with the next batch.
+ */
+public class ChangeLogHistoricalEvents {
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    /**
+     * Reads the historical events of a set of elements.
+     */
+    @FunctionalInterface
+    public interface HistoricalEventsReader {
+        Stream<HistoricalEvent> getHistoricalEvents(
+            Set<ElementId> elementIds,
+            HistoricalEventId after,
+            HistoricalEventsFetchHints fetchHints
+        );
+    }
+
+    /**
+     * @param changeLogEntries The change log entries in order, starting at the timestamp of after or at the beginning
+     *                         of the log if after is null. Closed when the returned stream is closed.
+     * @param after            Only return events after this event id, may be null
+     * @param fetchHints       Fetch hints to filter historical events, only ascending order is supported
+     * @param batchSize        The number of change log entries to read at a time
+     * @param reader           Reads the historical events of the elements in a batch
+     */
+    public static Stream<HistoricalEvent> stream(
+        Stream<ChangeLogEntry> changeLogEntries,
+        HistoricalEventId after,
+        HistoricalEventsFetchHints fetchHints,
+        int batchSize,
+        HistoricalEventsReader reader
+    ) {
+        if (fetchHints.getSortDirection() != HistoricalEventsFetchHints.SortDirection.ASCENDING) {
+            throw new VertexiumException("Graph historical events can only be read in ascending order");
+        }
+        HistoricalEventsFetchHints batchFetchHints = new HistoricalEventsFetchHintsBuilder()
+            .startTime(fetchHints.getStartTime())
+            .endTime(fetchHints.getEndTime())
+            .includePropertyValues(fetchHints.isIncludePropertyValues())
+            .includePreviousPropertyValues(fetchHints.isIncludePreviousPropertyValues())
+            .build();
+        Iterator<HistoricalEvent> it = new ChangeLogHistoricalEventsIterator(
+            changeLogEntries.iterator(),
+            after,
+            batchFetchHints,
+            batchSize,
+            reader
+        );
+        Stream<HistoricalEvent> events = StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(it, Spliterator.ORDERED | Spliterator.NONNULL),
+            false
+        ).onClose(changeLogEntries::close);
+        if (fetchHints.getLimit() != null) {
+            events = events.limit(fetchHints.getLimit());
+        }
+        return events;
+    }
+
+    private static class ChangeLogHistoricalEventsIterator implements Iterator<HistoricalEvent> {
+        private final Iterator<ChangeLogEntry> changeLogEntries;
+        private final HistoricalEventsFetchHints fetchHints;
+        private final int batchSize;
+        private final HistoricalEventsReader reader;
+        private final Deque<HistoricalEvent> events = new ArrayDeque<>();
+        private final Set<ElementId> pendingElementIds = new LinkedHashSet<>();
+        private ChangeLogEntry nextChangeLogEntry;
+        private HistoricalEventId after;
+        private boolean done;
+
+        ChangeLogHistoricalEventsIterator(
+            Iterator<ChangeLogEntry> changeLogEntries,
+            HistoricalEventId after,
+            HistoricalEventsFetchHints fetchHints,
+            int batchSize,
+            HistoricalEventsReader reader
+        ) {
+            if (batchSize < 1) {
+                throw new VertexiumException("batchSize must be greater than 0 but was " + batchSize);
+            }
+            this.changeLogEntries = changeLogEntries;
+            this.after = after;
+            this.fetchHints = fetchHints;
+            this.batchSize = batchSize;
+            this.reader = reader;
+            this.nextChangeLogEntry = changeLogEntries.hasNext() ? changeLogEntries.next() : null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (events.isEmpty() && !done) {
+                readNextBatch();
+            }
+            return !events.isEmpty();
+        }
+
+        @Override
+        public HistoricalEvent next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            HistoricalEvent event = events.removeFirst();
+            after = event.getHistoricalEventId();
+            return event;
+        }
+
+        private void readNextBatch() {
+            Set<ElementId> elementIds = new LinkedHashSet<>(pendingElementIds);
+            pendingElementIds.clear();
+
+            if (nextChangeLogEntry == null) {
+                // the end of the change log, anything left over from the previous batch can be returned as is
+                done = true;
+                if (!elementIds.isEmpty()) {
+                    events.addAll(readHistoricalEvents(elementIds));
+                }
+                return;
+            }
+
+            long batchEndTimestamp = nextChangeLogEntry.getTimestamp();
+            int count = 0;
+            while (nextChangeLogEntry != null
+                && (count < batchSize || nextChangeLogEntry.getTimestamp() == batchEndTimestamp)) {
+                batchEndTimestamp = nextChangeLogEntry.getTimestamp();
+                elementIds.add(nextChangeLogEntry.getElementId());
+                count++;
+                nextChangeLogEntry = changeLogEntries.hasNext() ? changeLogEntries.next() : null;
+            }
+
+            for (HistoricalEvent event : readHistoricalEvents(elementIds)) {
+                if (event.getTimestamp().toInstant().toEpochMilli() <= batchEndTimestamp) {
+                    events.add(event);
+                } else {
+                    pendingElementIds.add(ElementId.create(event.getElementType(), event.getElementId()));
+                }
+            }
+        }
+
+        private List<HistoricalEvent> readHistoricalEvents(Set<ElementId> elementIds) {
+            try (Stream<HistoricalEvent> historicalEvents = reader.getHistoricalEvents(elementIds, after, fetchHints)) {
+                return historicalEvents
+                    .filter(event -> after == null || event.getHistoricalEventId().compareTo(after) > 0)
+                    .sorted()
+                    .collect(Collectors.toList());
+            }
+        }
+    }
+}
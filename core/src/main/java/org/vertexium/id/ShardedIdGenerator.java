@@ -0,0 +1,59 @@
+package org.vertexium.id;
+
+import org.apache.commons.lang3.StringUtils;
+import org.vertexium.GraphConfiguration;
+import org.vertexium.VertexiumException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generates UUID based ids prefixed with one of shardCount fixed width hex shard prefixes chosen at random, so new
+ * ids are spread evenly over the id space. Storage which splits its tables by id (for example Accumulo, see
+ * AccumuloGraph#preSplitTables) can split on {@link #getShardPrefixes()} before loading data.
+ */
+public class ShardedIdGenerator implements IdGenerator {
+    public static final String SHARD_COUNT = GraphConfiguration.IDGENERATOR_PROP_PREFIX + ".shardCount";
+    public static final int DEFAULT_SHARD_COUNT = 16;
+    private final int shardCount;
+    private final List<String> shardPrefixes;
+
+    public ShardedIdGenerator(GraphConfiguration configuration) {
+        this(configuration.getInt(SHARD_COUNT, DEFAULT_SHARD_COUNT));
+    }
+
+    public ShardedIdGenerator(int shardCount) {
+        if (shardCount < 1) {
+            throw new VertexiumException("Invalid " + SHARD_COUNT + ": " + shardCount);
+        }
+        this.shardCount = shardCount;
+        this.shardPrefixes = createShardPrefixes(shardCount);
+    }
+
+    /**
+     * Creates shardCount fixed width hex prefixes in sorted order.
+     */
+    public static List<String> createShardPrefixes(int shardCount) {
+        int width = Integer.toHexString(shardCount - 1).length();
+        List<String> prefixes = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            prefixes.add(StringUtils.leftPad(Integer.toHexString(shard), width, '0'));
+        }
+        return prefixes;
+    }
+
+    @Override
+    public String nextId() {
+        String shardPrefix = shardPrefixes.get(ThreadLocalRandom.current().nextInt(shardCount));
+        return shardPrefix + StringUtils.remove(UUID.randomUUID().toString(), '-');
+    }
+
+    /**
+     * The shard prefixes in sorted order. Every generated id starts with one of them.
+     */
+    public List<String> getShardPrefixes() {
+        return shardPrefixes;
+    }
+}
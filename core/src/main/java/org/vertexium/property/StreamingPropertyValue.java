@@ -1,10 +1,12 @@
 package org.vertexium.property;
 
+import com.google.common.io.ByteStreams;
 import org.vertexium.StreamingPropertyValueChunk;
 import org.vertexium.VertexiumException;
 import org.vertexium.util.IOUtils;
 
 import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
@@ -30,6 +32,29 @@ public abstract class StreamingPropertyValue extends PropertyValue implements Se
 
     public abstract InputStream getInputStream();
 
+    /**
+     * Gets a stream over part of the value. Implementations backed by seekable storage override this so the bytes
+     * before the offset are not read, and so {@link InputStream#skip(long)} on the returned stream seeks.
+     *
+     * @param offset the offset of the first byte to read
+     * @param length the maximum number of bytes to read, or null to read to the end of the value
+     */
+    public InputStream getInputStream(long offset, Long length) {
+        InputStream in = getInputStream();
+        try {
+            ByteStreams.skipFully(in, offset);
+        } catch (EOFException ex) {
+            // reading past the end of the value returns an empty stream
+        } catch (IOException ex) {
+            throw new VertexiumException("Could not skip to offset " + offset + " of streaming property value", ex);
+        }
+        return limitInputStream(in, length);
+    }
+
+    protected static InputStream limitInputStream(InputStream in, Long length) {
+        return length == null ? in : ByteStreams.limit(in, length);
+    }
+
     public String readToString() {
         try (InputStream in = getInputStream()) {
             return IOUtils.toString(in);
@@ -39,8 +64,8 @@ public abstract class StreamingPropertyValue extends PropertyValue implements Se
     }
 
     public String readToString(long offset, long limit) {
-        try (InputStream in = getInputStream()) {
-            return IOUtils.toString(in, offset, limit);
+        try (InputStream in = getInputStream(offset, limit)) {
+            return IOUtils.toString(in);
         } catch (IOException e) {
             throw new VertexiumException("Could not read streaming property value into string", e);
         }
@@ -3,6 +3,9 @@ package org.vertexium.query;
 import org.vertexium.*;
 import org.vertexium.util.JoinIterable;
 
+import java.util.Set;
+import java.util.TreeSet;
+
 public class DefaultGraphQuery extends GraphQueryBase {
     public DefaultGraphQuery(Graph graph, String queryString, Authorizations authorizations) {
         super(graph, queryString, authorizations);
@@ -12,7 +15,7 @@ public class DefaultGraphQuery extends GraphQueryBase {
     public QueryResultsIterable<Vertex> vertices(FetchHints fetchHints) {
         return new DefaultGraphQueryIterableWithAggregations<>(
             getParameters(),
-            this.<Vertex>getIterableFromElementType(ElementType.VERTEX, fetchHints),
+            this.<Vertex>getCandidatesFromElementType(ElementType.VERTEX, fetchHints),
             true,
             true,
             true,
@@ -24,7 +27,7 @@ public class DefaultGraphQuery extends GraphQueryBase {
     public QueryResultsIterable<Edge> edges(FetchHints fetchHints) {
         return new DefaultGraphQueryIterableWithAggregations<>(
             getParameters(),
-            this.<Edge>getIterableFromElementType(ElementType.EDGE, fetchHints),
+            this.<Edge>getCandidatesFromElementType(ElementType.EDGE, fetchHints),
             true,
             true,
             true,
@@ -32,6 +35,53 @@ public class DefaultGraphQuery extends GraphQueryBase {
         );
     }
 
+    /**
+     * Gets the elements which may match this query's has containers, using the graph's property indexes or scan
+     * filters to narrow the elements when possible.
+     */
+    @SuppressWarnings("unchecked")
+    private <T extends Element> Iterable<T> getCandidatesFromElementType(ElementType elementType, FetchHints fetchHints) {
+        Set<String> candidateElementIds = getCandidateElementIds(elementType);
+        if (candidateElementIds == null) {
+            if (getGraph() instanceof GraphWithScanFilters) {
+                Iterable<? extends Element> candidates = ((GraphWithScanFilters) getGraph()).getCandidateElements(elementType, getParameters(), fetchHints);
+                if (candidates != null) {
+                    return (Iterable<T>) candidates;
+                }
+            }
+            return getIterableFromElementType(elementType, fetchHints);
+        }
+        switch (elementType) {
+            case VERTEX:
+                return (Iterable<T>) getGraph().getVertices(candidateElementIds, fetchHints, getParameters().getAuthorizations());
+            case EDGE:
+                return (Iterable<T>) getGraph().getEdges(candidateElementIds, fetchHints, getParameters().getAuthorizations());
+            default:
+                throw new VertexiumException("Unexpected element type: " + elementType);
+        }
+    }
+
+    private Set<String> getCandidateElementIds(ElementType elementType) {
+        if (!(getGraph() instanceof GraphWithPropertyIndexes)) {
+            return null;
+        }
+        GraphWithPropertyIndexes graph = (GraphWithPropertyIndexes) getGraph();
+        Set<String> results = null;
+        for (HasContainer hasContainer : getParameters().getHasContainers()) {
+            Set<String> elementIds = graph.getCandidateElementIds(elementType, hasContainer);
+            if (elementIds == null) {
+                continue;
+            }
+            if (results == null) {
+                // sorted to return elements in the same order as a scan of the graph
+                results = new TreeSet<>(elementIds);
+            } else {
+                results.retainAll(elementIds);
+            }
+        }
+        return results;
+    }
+
     @SuppressWarnings("unchecked")
     private <T extends Element> Iterable<T> getIterableFromElementType(ElementType elementType, FetchHints fetchHints) throws VertexiumException {
         switch (elementType) {
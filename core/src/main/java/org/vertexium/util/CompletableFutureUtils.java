@@ -0,0 +1,51 @@
+package org.vertexium.util;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static org.vertexium.util.CloseableUtils.closeQuietly;
+
+public class CompletableFutureUtils {
+    /**
+     * Same as {@link CompletableFuture#supplyAsync(Supplier, Executor)} except that if the executor rejects the task
+     * the returned future is completed exceptionally instead of throwing.
+     */
+    public static <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier, Executor executor) {
+        try {
+            return CompletableFuture.supplyAsync(supplier, executor);
+        } catch (RejectedExecutionException ex) {
+            CompletableFuture<T> result = new CompletableFuture<>();
+            result.completeExceptionally(ex);
+            return result;
+        }
+    }
+
+    /**
+     * Iterates the iterable on the executor passing each item to the consumer as it is produced and closes the
+     * iterable when done. The returned future completes when all items have been consumed.
+     */
+    public static <T> CompletableFuture<Void> forEachAsync(Supplier<Iterable<T>> iterableSupplier, Consumer<? super T> consumer, Executor executor) {
+        return supplyAsync(() -> {
+            Iterable<T> iterable = iterableSupplier.get();
+            try {
+                for (T item : iterable) {
+                    consumer.accept(item);
+                }
+            } finally {
+                closeQuietly(iterable);
+            }
+            return null;
+        }, executor);
+    }
+
+    /**
+     * Gets the iterable on the executor and collects its items into a list.
+     */
+    public static <T> CompletableFuture<List<T>> toListAsync(Supplier<Iterable<T>> iterableSupplier, Executor executor) {
+        return supplyAsync(() -> IterableUtils.toList(iterableSupplier.get()), executor);
+    }
+}
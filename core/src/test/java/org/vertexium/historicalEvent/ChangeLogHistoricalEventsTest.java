@@ -0,0 +1,91 @@
+package org.vertexium.historicalEvent;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.vertexium.ElementId;
+import org.vertexium.ElementType;
+import org.vertexium.HistoricalEventsFetchHints;
+import org.vertexium.HistoricalEventsFetchHintsBuilder;
+import org.vertexium.Visibility;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(JUnit4.class)
+public class ChangeLogHistoricalEventsTest {
+    private static final List<HistoricalEvent> EVENTS = Arrays.asList(
+        event(ElementType.VERTEX, "v1", 1),
+        event(ElementType.VERTEX, "v2", 1),
+        event(ElementType.VERTEX, "v1", 2),
+        event(ElementType.EDGE, "e1", 3),
+        // timestamped after its change log entry
+        event(ElementType.VERTEX, "v2", 5),
+        event(ElementType.VERTEX, "v3", 6)
+    );
+    private static final List<ChangeLogEntry> CHANGE_LOG = Arrays.asList(
+        new ChangeLogEntry(1, ElementId.vertex("v1")),
+        new ChangeLogEntry(1, ElementId.vertex("v2")),
+        new ChangeLogEntry(2, ElementId.vertex("v1")),
+        new ChangeLogEntry(3, ElementId.edge("e1")),
+        new ChangeLogEntry(4, ElementId.vertex("v2")),
+        new ChangeLogEntry(6, ElementId.vertex("v3"))
+    );
+
+    @Test
+    public void testStream() {
+        for (int batchSize = 1; batchSize <= CHANGE_LOG.size(); batchSize++) {
+            assertEquals("batchSize " + batchSize, toString(EVENTS), toString(stream(null, HistoricalEventsFetchHints.ALL, batchSize)));
+        }
+    }
+
+    @Test
+    public void testStreamAfter() {
+        HistoricalEventId after = EVENTS.get(2).getHistoricalEventId();
+        assertEquals(toString(EVENTS.subList(3, EVENTS.size())), toString(stream(after, HistoricalEventsFetchHints.ALL, 1)));
+    }
+
+    @Test
+    public void testStreamLimit() {
+        HistoricalEventsFetchHints fetchHints = new HistoricalEventsFetchHintsBuilder()
+            .limit(2L)
+            .build();
+        assertEquals(toString(EVENTS.subList(0, 2)), toString(stream(null, fetchHints, 1)));
+    }
+
+    private static List<HistoricalEvent> stream(HistoricalEventId after, HistoricalEventsFetchHints fetchHints, int batchSize) {
+        long startTimestamp = after == null ? 0 : after.getTimestamp().toInstant().toEpochMilli();
+        Stream<ChangeLogEntry> changeLogEntries = CHANGE_LOG.stream()
+            .filter(entry -> entry.getTimestamp() >= startTimestamp);
+        return ChangeLogHistoricalEvents.stream(
+            changeLogEntries,
+            after,
+            fetchHints,
+            batchSize,
+            (elementIds, batchAfter, batchFetchHints) -> EVENTS.stream()
+                .filter(event -> elementIds.contains(ElementId.create(event.getElementType(), event.getElementId())))
+                .filter(event -> batchAfter == null || event.getHistoricalEventId().compareTo(batchAfter) > 0)
+        ).collect(Collectors.toList());
+    }
+
+    private static HistoricalEvent event(ElementType elementType, String elementId, long timestamp) {
+        return new HistoricalMarkVisibleEvent(
+            elementType,
+            elementId,
+            Visibility.EMPTY,
+            HistoricalEvent.zonedDateTimeFromTimestamp(timestamp),
+            null,
+            HistoricalEventsFetchHints.ALL
+        );
+    }
+
+    private static List<String> toString(List<HistoricalEvent> events) {
+        return events.stream()
+            .map(event -> event.getHistoricalEventId().toString())
+            .collect(Collectors.toList());
+    }
+}
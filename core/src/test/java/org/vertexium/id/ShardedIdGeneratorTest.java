@@ -0,0 +1,39 @@
+package org.vertexium.id;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class ShardedIdGeneratorTest {
+    @Test
+    public void testShardPrefixes() {
+        assertEquals(Lists.newArrayList("0"), new ShardedIdGenerator(1).getShardPrefixes());
+        assertEquals(Lists.newArrayList("0", "1", "2", "3"), new ShardedIdGenerator(4).getShardPrefixes());
+        ShardedIdGenerator idGenerator = new ShardedIdGenerator(20);
+        assertEquals(20, idGenerator.getShardPrefixes().size());
+        assertEquals("00", idGenerator.getShardPrefixes().get(0));
+        assertEquals("13", idGenerator.getShardPrefixes().get(19));
+    }
+
+    @Test
+    public void testNextIdUsesAllShards() {
+        ShardedIdGenerator idGenerator = new ShardedIdGenerator(4);
+        Set<String> usedPrefixes = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            String id = idGenerator.nextId();
+            assertEquals(33, id.length());
+            String prefix = id.substring(0, 1);
+            assertTrue(idGenerator.getShardPrefixes().contains(prefix));
+            usedPrefixes.add(prefix);
+        }
+        assertEquals(new HashSet<>(idGenerator.getShardPrefixes()), usedPrefixes);
+    }
+}
@@ -0,0 +1,166 @@
+package org.vertexium.inmemory;
+
+import org.vertexium.Direction;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Maintains a per-vertex index of edge ids, keyed by direction and edge label, so that
+ * neighborhood lookups cost O(degree) instead of a scan of the entire edge table.
+ * <p>
+ * Only the current vertices and label of edges which are not soft deleted are indexed, reads of past states need
+ * to scan the edge table.
+ * <p>
+ * Writes lock only the entry of the edge and the vertices it is attached to, using the per-key atomicity of
+ * {@link ConcurrentHashMap#compute}, so edges of different vertices are indexed concurrently.
+ */
+public class InMemoryAdjacencyIndex {
+    private final ConcurrentHashMap<String, Map<String, Set<String>>> outEdgeIdsByVertexId = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Map<String, Set<String>>> inEdgeIdsByVertexId = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Entry> entriesByEdgeId = new ConcurrentHashMap<>();
+
+    /**
+     * Brings the entry of the edge up to date. The edge is looked up and read while the index is locked so that
+     * concurrent updates of the same edge can not leave the entry of an older state behind.
+     *
+     * @param edgeSupplier supplies the edge from the edge table, or null if it has been removed.
+     */
+    public void update(String edgeId, Supplier<InMemoryTableEdge> edgeSupplier) {
+        entriesByEdgeId.compute(edgeId, (id, existingEntry) -> {
+            Entry newEntry = Entry.create(edgeSupplier.get());
+            if (Objects.equals(newEntry, existingEntry)) {
+                return existingEntry;
+            }
+            if (existingEntry != null) {
+                removeEntry(edgeId, existingEntry);
+            }
+            if (newEntry != null) {
+                add(outEdgeIdsByVertexId, newEntry.outVertexId, newEntry.label, edgeId);
+                add(inEdgeIdsByVertexId, newEntry.inVertexId, newEntry.label, edgeId);
+            }
+            return newEntry;
+        });
+    }
+
+    public void remove(String edgeId) {
+        entriesByEdgeId.computeIfPresent(edgeId, (id, existingEntry) -> {
+            removeEntry(edgeId, existingEntry);
+            return null;
+        });
+    }
+
+    public void clear() {
+        outEdgeIdsByVertexId.clear();
+        inEdgeIdsByVertexId.clear();
+        entriesByEdgeId.clear();
+    }
+
+    /**
+     * Gets the ids of the edges attached to the given vertex. Edges which loop back to the same vertex are
+     * only returned once.
+     *
+     * @param labels the labels to include, or null to include all labels.
+     */
+    public Set<String> getEdgeIds(String vertexId, Direction direction, String[] labels) {
+        Set<String> results = new LinkedHashSet<>();
+        if (direction == Direction.OUT || direction == Direction.BOTH) {
+            addEdgeIds(results, outEdgeIdsByVertexId.get(vertexId), labels);
+        }
+        if (direction == Direction.IN || direction == Direction.BOTH) {
+            addEdgeIds(results, inEdgeIdsByVertexId.get(vertexId), labels);
+        }
+        return results;
+    }
+
+    private void removeEntry(String edgeId, Entry entry) {
+        remove(outEdgeIdsByVertexId, entry.outVertexId, entry.label, edgeId);
+        remove(inEdgeIdsByVertexId, entry.inVertexId, entry.label, edgeId);
+    }
+
+    private static void addEdgeIds(Set<String> results, Map<String, Set<String>> edgeIdsByLabel, String[] labels) {
+        if (edgeIdsByLabel == null) {
+            return;
+        }
+        if (labels == null) {
+            for (Set<String> edgeIds : edgeIdsByLabel.values()) {
+                results.addAll(edgeIds);
+            }
+        } else {
+            for (String label : labels) {
+                Set<String> edgeIds = edgeIdsByLabel.get(label);
+                if (edgeIds != null) {
+                    results.addAll(edgeIds);
+                }
+            }
+        }
+    }
+
+    private static void add(ConcurrentHashMap<String, Map<String, Set<String>>> index, String vertexId, String label, String edgeId) {
+        index.compute(vertexId, (k, edgeIdsByLabel) -> {
+            if (edgeIdsByLabel == null) {
+                edgeIdsByLabel = new ConcurrentHashMap<>();
+            }
+            edgeIdsByLabel.computeIfAbsent(label, l -> ConcurrentHashMap.newKeySet()).add(edgeId);
+            return edgeIdsByLabel;
+        });
+    }
+
+    private static void remove(ConcurrentHashMap<String, Map<String, Set<String>>> index, String vertexId, String label, String edgeId) {
+        index.computeIfPresent(vertexId, (k, edgeIdsByLabel) -> {
+            edgeIdsByLabel.computeIfPresent(label, (l, edgeIds) -> {
+                edgeIds.remove(edgeId);
+                return edgeIds.isEmpty() ? null : edgeIds;
+            });
+            return edgeIdsByLabel.isEmpty() ? null : edgeIdsByLabel;
+        });
+    }
+
+    private static class Entry {
+        private final String outVertexId;
+        private final String inVertexId;
+        private final String label;
+
+        private Entry(String outVertexId, String inVertexId, String label) {
+            this.outVertexId = outVertexId;
+            this.inVertexId = inVertexId;
+            this.label = label;
+        }
+
+        /**
+         * @return the entry of the edge, or null if the edge should not be indexed.
+         */
+        private static Entry create(InMemoryTableEdge edge) {
+            if (edge == null || edge.isDeleted(null, null)) {
+                return null;
+            }
+            String outVertexId = edge.getOutVertexId();
+            String inVertexId = edge.getInVertexId();
+            String label = edge.getLabel();
+            if (outVertexId == null || inVertexId == null || label == null) {
+                return null;
+            }
+            return new Entry(outVertexId, inVertexId, label);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Entry entry = (Entry) o;
+            return outVertexId.equals(entry.outVertexId)
+                && inVertexId.equals(entry.inVertexId)
+                && label.equals(entry.label);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(outVertexId, inVertexId, label);
+        }
+    }
+}
@@ -3,7 +3,7 @@ package org.vertexium.inmemory;
 import org.vertexium.VertexiumException;
 import org.vertexium.Visibility;
 import org.vertexium.security.Authorizations;
-import org.vertexium.security.ColumnVisibility;
+import org.vertexium.security.VisibilityCache;
 import org.vertexium.security.VisibilityEvaluator;
 import org.vertexium.security.VisibilityParseException;
 import org.vertexium.util.ArrayUtils;
@@ -15,6 +15,7 @@ import java.util.Arrays;
 public class InMemoryAuthorizations implements org.vertexium.Authorizations, Serializable {
     private static final long serialVersionUID = 1L;
     private final String[] authorizations;
+    private transient volatile VisibilityEvaluator visibilityEvaluator;
 
     public InMemoryAuthorizations(String... authorizations) {
         this.authorizations = authorizations;
@@ -44,15 +45,22 @@ public class InMemoryAuthorizations implements org.vertexium.Authorizations, Ser
             return true;
         }
 
-        VisibilityEvaluator visibilityEvaluator = new VisibilityEvaluator(new Authorizations(this.getAuthorizations()));
-        ColumnVisibility columnVisibility = new ColumnVisibility(visibility.getVisibilityString());
         try {
-            return visibilityEvaluator.evaluate(columnVisibility);
+            return getVisibilityEvaluator().evaluate(VisibilityCache.getCompiledVisibility(visibility.getVisibilityString()));
         } catch (VisibilityParseException e) {
             throw new VertexiumException("could not evaluate visibility " + visibility.getVisibilityString(), e);
         }
     }
 
+    private VisibilityEvaluator getVisibilityEvaluator() {
+        VisibilityEvaluator visibilityEvaluator = this.visibilityEvaluator;
+        if (visibilityEvaluator == null) {
+            visibilityEvaluator = new VisibilityEvaluator(new Authorizations(this.getAuthorizations()));
+            this.visibilityEvaluator = visibilityEvaluator;
+        }
+        return visibilityEvaluator;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
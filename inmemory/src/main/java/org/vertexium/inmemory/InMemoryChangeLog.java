@@ -0,0 +1,130 @@
+package org.vertexium.inmemory;
+
+import org.vertexium.ElementId;
+import org.vertexium.ElementType;
+import org.vertexium.historicalEvent.ChangeLogEntry;
+import org.vertexium.inmemory.mutations.EdgeSetupMutation;
+import org.vertexium.inmemory.mutations.Mutation;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+
+/**
+ * Time ordered log of the elements changed by the mutations added to the vertex and edge tables. Changes to an edge
+ * are also logged against its vertices since they show up in the vertices' historical events.
+ * <p>
+ * If a retention is given, entries appended longer ago than the retention are dropped as new entries are logged and
+ * before entries are read. Entries age from the time they were appended rather than from their timestamp, so writes
+ * with an old timestamp stay in the log for the whole retention.
+ */
+public class InMemoryChangeLog {
+    private final NavigableSet<ChangeLogEntry> entries = new ConcurrentSkipListSet<>();
+    private final long retentionMillis;
+    // last append time of each entry and the appends in the order they happened, only used when there is a
+    // retention, guarded by appendQueue
+    private final Map<ChangeLogEntry, Long> appendTimes = new HashMap<>();
+    private final Queue<AppendedEntry> appendQueue = new ArrayDeque<>();
+
+    public InMemoryChangeLog() {
+        this(Duration.ZERO);
+    }
+
+    /**
+     * @param retention How long to keep entries for, zero or negative to keep all entries
+     */
+    public InMemoryChangeLog(Duration retention) {
+        this.retentionMillis = retention.isNegative() ? 0 : retention.toMillis();
+    }
+
+    void logAppend(InMemoryTableElement<?> inMemoryTableElement, Collection<Mutation> mutations) {
+        if (mutations.isEmpty()) {
+            return;
+        }
+        Set<ElementId> elementIds = new HashSet<>();
+        elementIds.add(ElementId.create(inMemoryTableElement.getElementType(), inMemoryTableElement.getId()));
+        if (inMemoryTableElement instanceof InMemoryTableEdge) {
+            for (EdgeSetupMutation edgeSetupMutation : inMemoryTableElement.findMutations(EdgeSetupMutation.class)) {
+                elementIds.add(ElementId.vertex(edgeSetupMutation.getOutVertexId()));
+                elementIds.add(ElementId.vertex(edgeSetupMutation.getInVertexId()));
+            }
+        }
+        Set<Long> timestamps = new HashSet<>();
+        for (Mutation mutation : mutations) {
+            timestamps.add(mutation.getTimestamp());
+        }
+        List<ChangeLogEntry> newEntries = new ArrayList<>();
+        for (long timestamp : timestamps) {
+            for (ElementId elementId : elementIds) {
+                newEntries.add(new ChangeLogEntry(timestamp, elementId));
+            }
+        }
+        if (retentionMillis == 0) {
+            entries.addAll(newEntries);
+            return;
+        }
+        synchronized (appendQueue) {
+            long appendTime = System.currentTimeMillis();
+            for (ChangeLogEntry entry : newEntries) {
+                appendTimes.put(entry, appendTime);
+                appendQueue.add(new AppendedEntry(entry, appendTime));
+                entries.add(entry);
+            }
+        }
+        trim();
+    }
+
+    private void trim() {
+        if (retentionMillis == 0) {
+            return;
+        }
+        synchronized (appendQueue) {
+            long cutoff = System.currentTimeMillis() - retentionMillis;
+            AppendedEntry appended;
+            while ((appended = appendQueue.peek()) != null && appended.appendTime < cutoff) {
+                appendQueue.poll();
+                // entries appended again since keep their later append time
+                if (appendTimes.remove(appended.entry, appended.appendTime)) {
+                    entries.remove(appended.entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * The entry sorting before any other entry with the given timestamp.
+     */
+    private static ChangeLogEntry getFirstEntry(long timestamp) {
+        return new ChangeLogEntry(timestamp, ElementId.create(ElementType.values()[0], ""));
+    }
+
+    /**
+     * @param startTimestamp The timestamp of the first entry to return, or null to return all entries
+     */
+    public Stream<ChangeLogEntry> getEntries(Long startTimestamp) {
+        trim();
+        if (startTimestamp == null) {
+            return entries.stream();
+        }
+        return entries.tailSet(getFirstEntry(startTimestamp), true).stream();
+    }
+
+    public void clear() {
+        synchronized (appendQueue) {
+            entries.clear();
+            appendTimes.clear();
+            appendQueue.clear();
+        }
+    }
+
+    private static class AppendedEntry {
+        private final ChangeLogEntry entry;
+        private final long appendTime;
+
+        private AppendedEntry(ChangeLogEntry entry, long appendTime) {
+            this.entry = entry;
+            this.appendTime = appendTime;
+        }
+    }
+}
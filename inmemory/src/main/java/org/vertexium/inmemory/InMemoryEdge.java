@@ -1,7 +1,6 @@
 package org.vertexium.inmemory;
 
 import org.vertexium.*;
-import org.vertexium.inmemory.mutations.AlterEdgeLabelMutation;
 import org.vertexium.inmemory.mutations.EdgeSetupMutation;
 import org.vertexium.mutation.ExistingEdgeMutation;
 import org.vertexium.search.IndexHint;
@@ -9,6 +8,7 @@ import org.vertexium.search.IndexHint;
 @SuppressWarnings("unchecked")
 public class InMemoryEdge extends InMemoryElement<InMemoryEdge> implements Edge {
     private final EdgeSetupMutation edgeSetupMutation;
+    private final Long endTime;
 
     public InMemoryEdge(
         InMemoryGraph graph,
@@ -20,11 +20,12 @@ public class InMemoryEdge extends InMemoryElement<InMemoryEdge> implements Edge
     ) {
         super(graph, id, inMemoryTableElement, fetchHints, endTime, authorizations);
         edgeSetupMutation = inMemoryTableElement.findLastMutation(EdgeSetupMutation.class);
+        this.endTime = endTime;
     }
 
     @Override
     public String getLabel() {
-        return getInMemoryTableElement().findLastMutation(AlterEdgeLabelMutation.class).getNewEdgeLabel();
+        return ((InMemoryTableEdge) getInMemoryTableElement()).getLabel(endTime);
     }
 
     @Override
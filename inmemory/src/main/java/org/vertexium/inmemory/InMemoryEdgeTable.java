@@ -1,24 +1,69 @@
 package org.vertexium.inmemory;
 
+import org.vertexium.Direction;
+import org.vertexium.ElementType;
 import org.vertexium.MetadataPlugin;
+import org.vertexium.inmemory.mutations.Mutation;
 import org.vertexium.util.ConvertingIterable;
 
 import java.util.Map;
+import java.util.Set;
 
 public class InMemoryEdgeTable extends InMemoryTable<InMemoryEdge> {
+    private final InMemoryAdjacencyIndex adjacencyIndex = new InMemoryAdjacencyIndex();
+
     public InMemoryEdgeTable(Map<String, InMemoryTableElement<InMemoryEdge>> rows, MetadataPlugin metadataPlugin) {
         super(rows, metadataPlugin);
+        for (InMemoryTableEdge inMemoryTableEdge : getAllTableElements()) {
+            updateAdjacencyIndex(inMemoryTableEdge.getId());
+        }
     }
 
     public InMemoryEdgeTable(MetadataPlugin metadataPlugin) {
         super(metadataPlugin);
     }
 
+    public InMemoryEdgeTable(MetadataPlugin metadataPlugin, int lockStripes) {
+        super(metadataPlugin, lockStripes);
+    }
+
+    @Override
+    public ElementType getElementType() {
+        return ElementType.EDGE;
+    }
+
     @Override
     protected InMemoryTableElement<InMemoryEdge> createInMemoryTableElement(String id, MetadataPlugin metadataPlugin) {
         return new InMemoryTableEdge(id, metadataPlugin);
     }
 
+    @Override
+    public void append(String id, Mutation... newMutations) {
+        super.append(id, newMutations);
+        updateAdjacencyIndex(id);
+    }
+
+    @Override
+    public void remove(String id) {
+        super.remove(id);
+        adjacencyIndex.remove(id);
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        adjacencyIndex.clear();
+    }
+
+    /**
+     * Refreshes the adjacency index entry for the given edge. This needs to be called whenever mutations
+     * which change the edge's vertices, label or soft deleted state are added without going through
+     * {@link #append(String, Mutation...)}.
+     */
+    public void updateAdjacencyIndex(String id) {
+        adjacencyIndex.update(id, () -> (InMemoryTableEdge) getTableElement(id));
+    }
+
     public Iterable<InMemoryTableEdge> getAllTableElements() {
         return new ConvertingIterable<InMemoryTableElement<InMemoryEdge>, InMemoryTableEdge>(super.getRowValues()) {
             @Override
@@ -27,4 +72,14 @@ public class InMemoryEdgeTable extends InMemoryTable<InMemoryEdge> {
             }
         };
     }
+
+    public Iterable<InMemoryTableEdge> getTableElementsForVertex(String vertexId, Direction direction, String[] labels) {
+        Set<String> edgeIds = adjacencyIndex.getEdgeIds(vertexId, direction, labels);
+        return new ConvertingIterable<String, InMemoryTableEdge>(edgeIds) {
+            @Override
+            protected InMemoryTableEdge convert(String edgeId) {
+                return (InMemoryTableEdge) getTableElement(edgeId);
+            }
+        };
+    }
 }
@@ -41,4 +41,9 @@ public abstract class InMemoryExtendedDataTable {
         ExtendedDataRowId extendedDataRowId,
         String additionalVisibility
     );
+
+    /**
+     * Gets every row regardless of visibility, used when snapshotting the graph.
+     */
+    public abstract Iterable<InMemoryExtendedDataRow> getAllRows();
 }
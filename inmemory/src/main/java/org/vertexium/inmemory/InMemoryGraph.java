@@ -4,7 +4,9 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import org.vertexium.*;
 import org.vertexium.event.*;
+import org.vertexium.historicalEvent.ChangeLogHistoricalEvents;
 import org.vertexium.historicalEvent.HistoricalEvent;
+import org.vertexium.historicalEvent.HistoricalEventId;
 import org.vertexium.id.IdGenerator;
 import org.vertexium.inmemory.mutations.AlterEdgeLabelMutation;
 import org.vertexium.inmemory.mutations.AlterVisibilityMutation;
@@ -12,6 +14,7 @@ import org.vertexium.inmemory.mutations.EdgeSetupMutation;
 import org.vertexium.inmemory.mutations.ElementTimestampMutation;
 import org.vertexium.mutation.*;
 import org.vertexium.property.StreamingPropertyValue;
+import org.vertexium.query.QueryBase;
 import org.vertexium.property.StreamingPropertyValueRef;
 import org.vertexium.search.IndexHint;
 import org.vertexium.search.SearchIndex;
@@ -21,20 +24,23 @@ import org.vertexium.util.IncreasingTime;
 import org.vertexium.util.IterableUtils;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static org.vertexium.util.Preconditions.checkNotNull;
 import static org.vertexium.util.StreamUtils.stream;
 
-public class InMemoryGraph extends GraphBaseWithSearchIndex {
+public class InMemoryGraph extends GraphBaseWithSearchIndex implements GraphWithPropertyIndexes {
     protected static final InMemoryGraphConfiguration DEFAULT_CONFIGURATION =
         new InMemoryGraphConfiguration(new HashMap<>());
-    private final Set<String> validAuthorizations = new HashSet<>();
+    private final Set<String> validAuthorizations = ConcurrentHashMap.newKeySet();
     private final InMemoryVertexTable vertices;
     private final InMemoryEdgeTable edges;
     private final InMemoryExtendedDataTable extendedDataTable;
     private final GraphMetadataStore graphMetadataStore;
+    private final InMemoryGraphPersistence persistence;
+    private final InMemoryChangeLog changeLog;
 
     protected InMemoryGraph(InMemoryGraphConfiguration configuration) {
         this(configuration, new MapInMemoryExtendedDataTable());
@@ -46,10 +52,14 @@ public class InMemoryGraph extends GraphBaseWithSearchIndex {
 
     protected InMemoryGraph(InMemoryGraphConfiguration configuration, InMemoryExtendedDataTable extendedDataTable) {
         super(configuration);
-        this.vertices = new InMemoryVertexTable(getMetadataPlugin());
-        this.edges = new InMemoryEdgeTable(getMetadataPlugin());
-        this.extendedDataTable = extendedDataTable;
-        this.graphMetadataStore = newGraphMetadataStore(configuration);
+        this.vertices = new InMemoryVertexTable(getMetadataPlugin(), configuration.getTableLockStripes());
+        this.edges = new InMemoryEdgeTable(getMetadataPlugin(), configuration.getTableLockStripes());
+        configuration.getPropertyIndexes().forEach(this::addPropertyIndex);
+        GraphMetadataStore graphMetadataStore = newGraphMetadataStore(configuration);
+        this.persistence = newPersistence(configuration, extendedDataTable, graphMetadataStore);
+        this.extendedDataTable = persistence == null ? extendedDataTable : persistence.getExtendedDataTable();
+        this.graphMetadataStore = persistence == null ? graphMetadataStore : persistence.getGraphMetadataStore();
+        this.changeLog = configuration.isChangeLogEnabled() ? new InMemoryChangeLog(configuration.getChangeLogRetention()) : null;
     }
 
     protected InMemoryGraph(
@@ -59,16 +69,80 @@ public class InMemoryGraph extends GraphBaseWithSearchIndex {
         InMemoryExtendedDataTable extendedDataTable
     ) {
         super(configuration, idGenerator, searchIndex);
-        this.vertices = new InMemoryVertexTable(getMetadataPlugin());
-        this.edges = new InMemoryEdgeTable(getMetadataPlugin());
-        this.extendedDataTable = extendedDataTable;
-        this.graphMetadataStore = newGraphMetadataStore(configuration);
+        this.vertices = new InMemoryVertexTable(getMetadataPlugin(), configuration.getTableLockStripes());
+        this.edges = new InMemoryEdgeTable(getMetadataPlugin(), configuration.getTableLockStripes());
+        configuration.getPropertyIndexes().forEach(this::addPropertyIndex);
+        GraphMetadataStore graphMetadataStore = newGraphMetadataStore(configuration);
+        this.persistence = newPersistence(configuration, extendedDataTable, graphMetadataStore);
+        this.extendedDataTable = persistence == null ? extendedDataTable : persistence.getExtendedDataTable();
+        this.graphMetadataStore = persistence == null ? graphMetadataStore : persistence.getGraphMetadataStore();
+        this.changeLog = configuration.isChangeLogEnabled() ? new InMemoryChangeLog(configuration.getChangeLogRetention()) : null;
     }
 
     protected GraphMetadataStore newGraphMetadataStore(GraphConfiguration configuration) {
         return new InMemoryGraphMetadataStore();
     }
 
+    private InMemoryGraphPersistence newPersistence(
+        InMemoryGraphConfiguration configuration,
+        InMemoryExtendedDataTable extendedDataTable,
+        GraphMetadataStore graphMetadataStore
+    ) {
+        if (configuration.getPersistenceDir() == null) {
+            return null;
+        }
+        return new InMemoryGraphPersistence(
+            configuration,
+            configuration.createSerializer(this),
+            vertices,
+            edges,
+            extendedDataTable,
+            graphMetadataStore,
+            validAuthorizations
+        );
+    }
+
+    /**
+     * Indexes the values of the given property on both vertices and edges so that queries with a has clause on the
+     * property only evaluate the elements the index returns.
+     */
+    public void addPropertyIndex(String propertyName, InMemoryPropertyIndex.Type type) {
+        vertices.addPropertyIndex(propertyName, type);
+        edges.addPropertyIndex(propertyName, type);
+    }
+
+    @Override
+    public Set<String> getCandidateElementIds(ElementType elementType, QueryBase.HasContainer hasContainer) {
+        switch (elementType) {
+            case VERTEX:
+                return vertices.getPropertyIndexes().getCandidateElementIds(hasContainer);
+            case EDGE:
+                return edges.getPropertyIndexes().getCandidateElementIds(hasContainer);
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    protected void setup() {
+        if (persistence != null) {
+            persistence.open();
+        }
+        if (changeLog != null) {
+            vertices.setChangeLog(changeLog);
+            edges.setChangeLog(changeLog);
+        }
+        super.setup();
+    }
+
+    @Override
+    public void shutdown() {
+        super.shutdown();
+        if (persistence != null) {
+            persistence.close();
+        }
+    }
+
     @SuppressWarnings("unused")
     public static InMemoryGraph create() {
         return create(DEFAULT_CONFIGURATION);
@@ -181,7 +255,23 @@ public class InMemoryGraph extends GraphBaseWithSearchIndex {
     }
 
     private void addValidAuthorizations(String[] authorizations) {
-        Collections.addAll(this.validAuthorizations, authorizations);
+        if (persistence == null) {
+            Collections.addAll(this.validAuthorizations, authorizations);
+            return;
+        }
+        List<String> newAuthorizations = Arrays.stream(authorizations)
+            .filter(authorization -> !this.validAuthorizations.contains(authorization))
+            .collect(Collectors.toList());
+        if (newAuthorizations.size() == 0) {
+            return;
+        }
+        persistence.beginWrite();
+        try {
+            this.validAuthorizations.addAll(newAuthorizations);
+            persistence.logValidAuthorizations(newAuthorizations);
+        } finally {
+            persistence.endWrite();
+        }
     }
 
     @Override
@@ -489,6 +579,7 @@ public class InMemoryGraph extends GraphBaseWithSearchIndex {
         }
 
         this.edges.getTableElement(edge.getId()).appendSoftDeleteMutation(timestamp, eventData);
+        this.edges.updateAdjacencyIndex(edge.getId());
 
         getSearchIndex().deleteElement(this, edge, authorizations);
 
@@ -588,7 +679,7 @@ public class InMemoryGraph extends GraphBaseWithSearchIndex {
         if (sourceVertexId.equals(destVertexId)) {
             foundPaths.add(currentPath);
         } else if (hops > 0) {
-            Stream<Edge> edges = stream(getEdgesFromVertex(sourceVertexId, getDefaultFetchHints(), null, authorizations))
+            Stream<Edge> edges = stream(getEdgesFromVertex(sourceVertexId, Direction.BOTH, options.getLabels(), getDefaultFetchHints(), null, authorizations))
                 .filter(edge -> {
                     if (options.getExcludedLabels() != null) {
                         if (ArrayUtils.contains(options.getExcludedLabels(), edge.getLabel())) {
@@ -635,12 +726,24 @@ public class InMemoryGraph extends GraphBaseWithSearchIndex {
         seenVertices.remove(sourceVertexId);
     }
 
-    private Stream<InMemoryTableEdge> getInMemoryTableEdges() {
-        return stream(edges.getAllTableElements());
+    private Stream<InMemoryTableEdge> getInMemoryTableEdgesForVertex(
+        String vertexId,
+        Direction direction,
+        String[] labels,
+        FetchHints fetchHints,
+        Authorizations authorizations
+    ) {
+        return stream(edges.getTableElementsForVertex(vertexId, direction, labels))
+            .filter(inMemoryTableElement -> inMemoryTableElement != null // edge removed since the index was read
+                && InMemoryGraph.this.isIncluded(inMemoryTableElement, fetchHints, authorizations));
     }
 
-    private Stream<InMemoryTableEdge> getInMemoryTableEdgesForVertex(String vertexId, FetchHints fetchHints, Authorizations authorizations) {
-        return getInMemoryTableEdges()
+    /**
+     * Scans the edge table for the edges which have ever been attached to the vertex, including soft deleted edges,
+     * for reads of past states which the adjacency index does not cover.
+     */
+    private Stream<InMemoryTableEdge> scanInMemoryTableEdgesForVertex(String vertexId, FetchHints fetchHints, Authorizations authorizations) {
+        return stream(edges.getAllTableElements())
             .filter(inMemoryTableElement -> {
                 EdgeSetupMutation edgeSetupMutation = inMemoryTableElement.findLastMutation(EdgeSetupMutation.class);
                 String inVertexId = edgeSetupMutation.getInVertexId();
@@ -659,12 +762,46 @@ public class InMemoryGraph extends GraphBaseWithSearchIndex {
         Long endTime,
         Authorizations authorizations
     ) {
-        return getInMemoryTableEdgesForVertex(vertexId, fetchHints, authorizations)
+        return getEdgesFromVertex(vertexId, Direction.BOTH, null, fetchHints, endTime, authorizations);
+    }
+
+    protected Iterable<Edge> getEdgesFromVertex(
+        String vertexId,
+        Direction direction,
+        String[] labels,
+        FetchHints fetchHints,
+        Long endTime,
+        Authorizations authorizations
+    ) {
+        if (endTime == null) {
+            return getInMemoryTableEdgesForVertex(vertexId, direction, labels, fetchHints, authorizations)
+                .map(inMemoryTableElement -> inMemoryTableElement.createElement(InMemoryGraph.this, fetchHints, null, authorizations))
+                .filter(Objects::nonNull) // edge deleted since the index was read
+                .collect(Collectors.toList());
+        }
+
+        // the adjacency index only holds the current label of edges which are not soft deleted
+        return scanInMemoryTableEdgesForVertex(vertexId, fetchHints, authorizations)
             .map(inMemoryTableElement -> inMemoryTableElement.createElement(InMemoryGraph.this, fetchHints, endTime, authorizations))
             .filter(Objects::nonNull) // edge deleted or outside of time range
+            .filter(edge -> isEdgeIncluded(edge, vertexId, direction, labels))
             .collect(Collectors.toList());
     }
 
+    private static boolean isEdgeIncluded(Edge edge, String vertexId, Direction direction, String[] labels) {
+        if (labels != null && !ArrayUtils.contains(labels, edge.getLabel())) {
+            return false;
+        }
+        switch (direction) {
+            case IN:
+                return edge.getVertexId(Direction.IN).equals(vertexId);
+            case OUT:
+                return edge.getVertexId(Direction.OUT).equals(vertexId);
+            default:
+                return true;
+        }
+    }
+
     protected boolean isIncluded(
         InMemoryTableElement element, FetchHints fetchHints,
         Authorizations authorizations
@@ -947,6 +1084,9 @@ public class InMemoryGraph extends GraphBaseWithSearchIndex {
     public void truncate() {
         this.vertices.clear();
         this.edges.clear();
+        if (changeLog != null) {
+            changeLog.clear();
+        }
         getSearchIndex().truncate(this);
     }
 
@@ -954,11 +1094,15 @@ public class InMemoryGraph extends GraphBaseWithSearchIndex {
     public void drop() {
         this.vertices.clear();
         this.edges.clear();
+        if (changeLog != null) {
+            changeLog.clear();
+        }
         getSearchIndex().drop(this);
     }
 
     protected void alterEdgeLabel(InMemoryTableEdge inMemoryTableEdge, long timestamp, String newEdgeLabel) {
         inMemoryTableEdge.appendAlterEdgeLabelMutation(timestamp, newEdgeLabel);
+        this.edges.updateAdjacencyIndex(inMemoryTableEdge.getId());
     }
 
     protected void deleteProperty(
@@ -1110,6 +1254,33 @@ public class InMemoryGraph extends GraphBaseWithSearchIndex {
         // no need to do anything here
     }
 
+    @Override
+    public Stream<HistoricalEvent> getAllHistoricalEvents(
+        HistoricalEventId after,
+        HistoricalEventsFetchHints fetchHints,
+        Authorizations authorizations
+    ) {
+        if (changeLog == null) {
+            return super.getAllHistoricalEvents(after, fetchHints, authorizations);
+        }
+        return ChangeLogHistoricalEvents.stream(
+            changeLog.getEntries(after == null ? null : after.getTimestamp().toInstant().toEpochMilli()),
+            after,
+            fetchHints,
+            ChangeLogHistoricalEvents.DEFAULT_BATCH_SIZE,
+            (elementIds, batchAfter, batchFetchHints) -> elementIds.stream()
+                .flatMap(elementId -> {
+                    InMemoryTableElement<?> inMemoryTableElement = elementId.getElementType() == ElementType.VERTEX
+                        ? vertices.getTableElement(elementId.getId())
+                        : edges.getTableElement(elementId.getId());
+                    if (inMemoryTableElement == null) {
+                        return Stream.empty();
+                    }
+                    return inMemoryTableElement.getHistoricalEvents(this, batchAfter, batchFetchHints, authorizations);
+                })
+        );
+    }
+
     Stream<HistoricalEvent> getHistoricalVertexEdgeEvents(
         String vertexId,
         HistoricalEventsFetchHints historicalEventsFetchHints,
@@ -1121,7 +1292,7 @@ public class InMemoryGraph extends GraphBaseWithSearchIndex {
             .setIncludeHidden(true)
             .setIncludeAllEdgeRefs(true)
             .build();
-        return getInMemoryTableEdgesForVertex(vertexId, elementFetchHints, authorizations)
+        return scanInMemoryTableEdgesForVertex(vertexId, elementFetchHints, authorizations)
             .flatMap(inMemoryTableElement -> inMemoryTableElement.getHistoricalEventsForVertex(vertexId, historicalEventsFetchHints, authorizations));
     }
 }
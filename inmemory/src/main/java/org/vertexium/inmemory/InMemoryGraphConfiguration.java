@@ -1,11 +1,102 @@
 package org.vertexium.inmemory;
 
 import org.vertexium.GraphConfiguration;
+import org.vertexium.VertexiumException;
 
+import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 public class InMemoryGraphConfiguration extends GraphConfiguration {
+    public static final String TABLE_LOCK_STRIPES = "tableLockStripes";
+    public static final int DEFAULT_TABLE_LOCK_STRIPES = 1;
+    public static final String PERSISTENCE_DIR = "persistence.dir";
+    public static final String DEFAULT_PERSISTENCE_DIR = null;
+    public static final String PERSISTENCE_SNAPSHOT_INTERVAL = "persistence.snapshotInterval";
+    public static final String DEFAULT_PERSISTENCE_SNAPSHOT_INTERVAL = "15m";
+    public static final String PERSISTENCE_SYNC_LOG = "persistence.syncLog";
+    public static final boolean DEFAULT_PERSISTENCE_SYNC_LOG = false;
+    public static final String PROPERTY_INDEXES = "propertyIndexes";
+    public static final String DEFAULT_PROPERTY_INDEXES = "";
+    public static final String CHANGE_LOG_ENABLED = "changeLog.enabled";
+    public static final boolean DEFAULT_CHANGE_LOG_ENABLED = false;
+    public static final String CHANGE_LOG_RETENTION = "changeLog.retention";
+    public static final String DEFAULT_CHANGE_LOG_RETENTION = "0ms";
+
     public InMemoryGraphConfiguration(Map<String, Object> config) {
         super(config);
     }
+
+    /**
+     * The number of locks used to guard the rows of the vertex and edge tables. The default of 1 serializes all
+     * writes to a table. Larger values allow writes to different elements to proceed concurrently.
+     */
+    public int getTableLockStripes() {
+        return getInt(TABLE_LOCK_STRIPES, DEFAULT_TABLE_LOCK_STRIPES);
+    }
+
+    /**
+     * The directory the mutation log and snapshots are written to. When not set the graph is not persisted.
+     */
+    public String getPersistenceDir() {
+        return getString(PERSISTENCE_DIR, DEFAULT_PERSISTENCE_DIR);
+    }
+
+    /**
+     * How often a snapshot of the graph is written, after which the mutation log is truncated. A zero duration only
+     * writes a snapshot on shutdown.
+     */
+    public Duration getPersistenceSnapshotInterval() {
+        return getDuration(PERSISTENCE_SNAPSHOT_INTERVAL, DEFAULT_PERSISTENCE_SNAPSHOT_INTERVAL);
+    }
+
+    /**
+     * If true the mutation log is forced to disk after every write, otherwise it is only flushed to the operating
+     * system which survives a process crash but not a machine crash.
+     */
+    public boolean isPersistenceSyncLog() {
+        return getBoolean(PERSISTENCE_SYNC_LOG, DEFAULT_PERSISTENCE_SYNC_LOG);
+    }
+
+    /**
+     * The properties to index for queries, as a comma separated list of propertyName:type where type is one of
+     * HASH (equality), SORTED (equality, ranges and prefixes) or GEOHASH (geo shapes). For example
+     * "name:HASH,age:SORTED,location:GEOHASH".
+     */
+    public Map<String, InMemoryPropertyIndex.Type> getPropertyIndexes() {
+        Map<String, InMemoryPropertyIndex.Type> results = new LinkedHashMap<>();
+        for (String propertyIndex : getString(PROPERTY_INDEXES, DEFAULT_PROPERTY_INDEXES).split(",")) {
+            propertyIndex = propertyIndex.trim();
+            if (propertyIndex.isEmpty()) {
+                continue;
+            }
+            int separator = propertyIndex.lastIndexOf(':');
+            if (separator <= 0) {
+                throw new VertexiumException("Invalid " + PROPERTY_INDEXES + " entry, expected propertyName:type: " + propertyIndex);
+            }
+            String typeString = propertyIndex.substring(separator + 1).trim().toUpperCase();
+            try {
+                results.put(propertyIndex.substring(0, separator).trim(), InMemoryPropertyIndex.Type.valueOf(typeString));
+            } catch (IllegalArgumentException ex) {
+                throw new VertexiumException("Invalid " + PROPERTY_INDEXES + " type: " + typeString, ex);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * If true a time ordered log of changed elements is kept so that
+     * {@link org.vertexium.Graph#getAllHistoricalEvents(org.vertexium.historicalEvent.HistoricalEventId, org.vertexium.HistoricalEventsFetchHints, org.vertexium.Authorizations)}
+     * only reads the elements changed since the given event.
+     */
+    public boolean isChangeLogEnabled() {
+        return getBoolean(CHANGE_LOG_ENABLED, DEFAULT_CHANGE_LOG_ENABLED);
+    }
+
+    /**
+     * How long change log entries are kept, by the timestamp of the change. The default of zero keeps them forever.
+     */
+    public Duration getChangeLogRetention() {
+        return getDuration(CHANGE_LOG_RETENTION, DEFAULT_CHANGE_LOG_RETENTION);
+    }
 }
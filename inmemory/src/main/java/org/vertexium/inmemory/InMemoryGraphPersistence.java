@@ -0,0 +1,859 @@
+package org.vertexium.inmemory;
+
+import com.google.common.collect.ImmutableSet;
+import org.vertexium.*;
+import org.vertexium.inmemory.mutations.Mutation;
+import org.vertexium.inmemory.util.MappedFileInputStream;
+import org.vertexium.util.IterableUtils;
+import org.vertexium.util.VertexiumLogger;
+import org.vertexium.util.VertexiumLoggerFactory;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+import static org.vertexium.inmemory.InMemoryGraphPersistenceCodec.*;
+
+/**
+ * Persists an {@link InMemoryGraph} to a local directory using an append-only log of the mutations applied to the
+ * vertex, edge and extended data tables plus periodic snapshots of those tables. On startup the latest snapshot is
+ * loaded and the log segments written after it are replayed.
+ * <p>
+ * Snapshot and log files share the same format: a header followed by length prefixed, checksummed records. A new
+ * log segment is started on every startup and every snapshot, once a snapshot is written the log segments it covers
+ * are deleted.
+ * <p>
+ * Writers hold a shared lock while they apply and log a mutation, snapshots hold the exclusive lock while they start
+ * a new log segment and copy the graph's state so that the snapshot and the log agree on which mutations are included.
+ * The copy is written to disk after the lock is released. Writers must acquire the shared lock, using
+ * {@link #beginWrite()}, before any table or element lock.
+ * <p>
+ * The directory is locked while the graph is open, only one graph, in this or any other process, can use it.
+ */
+public class InMemoryGraphPersistence {
+    private static final VertexiumLogger LOGGER = VertexiumLoggerFactory.getLogger(InMemoryGraphPersistence.class);
+    private static final int LOG_MAGIC = 0x56584c47;
+    private static final int SNAPSHOT_MAGIC = 0x56585353;
+    private static final int FORMAT_VERSION = 1;
+    private static final String LOG_PREFIX = "log-";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String FILE_SUFFIX = ".bin";
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+    private static final String LOCK_FILE_NAME = "lock";
+    private static final Pattern FILE_NAME_PATTERN = Pattern.compile("^(log|snapshot)-(\\d+)\\.bin$");
+
+    private static final byte RECORD_APPEND = 1;
+    private static final byte RECORD_DELETE_PROPERTY = 2;
+    private static final byte RECORD_REMOVE = 3;
+    private static final byte RECORD_CLEAR = 4;
+    private static final byte RECORD_EXTENDED_DATA_ADD = 5;
+    private static final byte RECORD_EXTENDED_DATA_REMOVE_ROW = 6;
+    private static final byte RECORD_EXTENDED_DATA_REMOVE_COLUMN = 7;
+    private static final byte RECORD_EXTENDED_DATA_ADD_ADDITIONAL_VISIBILITY = 8;
+    private static final byte RECORD_EXTENDED_DATA_DELETE_ADDITIONAL_VISIBILITY = 9;
+    private static final byte RECORD_METADATA = 10;
+    private static final byte RECORD_VALID_AUTHORIZATIONS = 11;
+
+    private final File dir;
+    private final Duration snapshotInterval;
+    private final boolean syncLog;
+    private final InMemoryGraphPersistenceCodec codec;
+    private final InMemoryVertexTable vertices;
+    private final InMemoryEdgeTable edges;
+    private final InMemoryExtendedDataTable extendedDataTable;
+    private final GraphMetadataStore graphMetadataStore;
+    private final Set<String> validAuthorizations;
+    private final InMemoryExtendedDataTable loggingExtendedDataTable = new LoggingExtendedDataTable();
+    private final GraphMetadataStore loggingGraphMetadataStore = new LoggingGraphMetadataStore();
+    private final ReadWriteLock snapshotLock = new ReentrantReadWriteLock();
+    private final Object logLock = new Object();
+    private final Object snapshotWriteLock = new Object();
+    private FileChannel lockFileChannel;
+    private FileLock dirLock;
+    private ScheduledExecutorService snapshotExecutor;
+    private long logSequence;
+    private FileOutputStream logFileOut;
+    private DataOutputStream logOut;
+    private boolean closed;
+
+    public InMemoryGraphPersistence(
+        InMemoryGraphConfiguration configuration,
+        VertexiumSerializer serializer,
+        InMemoryVertexTable vertices,
+        InMemoryEdgeTable edges,
+        InMemoryExtendedDataTable extendedDataTable,
+        GraphMetadataStore graphMetadataStore,
+        Set<String> validAuthorizations
+    ) {
+        this.dir = new File(configuration.getPersistenceDir());
+        this.snapshotInterval = configuration.getPersistenceSnapshotInterval();
+        this.syncLog = configuration.isPersistenceSyncLog();
+        this.codec = new InMemoryGraphPersistenceCodec(serializer);
+        this.vertices = vertices;
+        this.edges = edges;
+        this.extendedDataTable = extendedDataTable;
+        this.graphMetadataStore = graphMetadataStore;
+        this.validAuthorizations = validAuthorizations;
+    }
+
+    /**
+     * The extended data table the graph should write through so that changes are logged.
+     */
+    public InMemoryExtendedDataTable getExtendedDataTable() {
+        return loggingExtendedDataTable;
+    }
+
+    /**
+     * The metadata store the graph should write through so that changes are logged.
+     */
+    public GraphMetadataStore getGraphMetadataStore() {
+        return loggingGraphMetadataStore;
+    }
+
+    /**
+     * Loads the latest snapshot, replays the log and starts logging new mutations.
+     */
+    public void open() {
+        try {
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                throw new VertexiumException("Could not create persistence directory: " + dir.getAbsolutePath());
+            }
+            lockDir();
+            try {
+                deleteTempFiles();
+                long lastSequence = load();
+                vertices.setPersistence(this);
+                edges.setPersistence(this);
+                synchronized (logLock) {
+                    openLog(lastSequence + 1);
+                }
+            } catch (IOException | RuntimeException ex) {
+                unlockDir();
+                throw ex;
+            }
+        } catch (IOException ex) {
+            throw new VertexiumException("Could not open in-memory graph persistence: " + dir.getAbsolutePath(), ex);
+        }
+
+        if (!snapshotInterval.isZero() && !snapshotInterval.isNegative()) {
+            snapshotExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "vertexium-inmemory-snapshot");
+                t.setDaemon(true);
+                return t;
+            });
+            long intervalMillis = snapshotInterval.toMillis();
+            snapshotExecutor.scheduleWithFixedDelay(() -> {
+                try {
+                    snapshot();
+                } catch (Throwable ex) {
+                    LOGGER.error("Could not snapshot in-memory graph to %s", dir.getAbsolutePath(), ex);
+                }
+            }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Writes a final snapshot and stops logging.
+     */
+    public void close() {
+        if (snapshotExecutor != null) {
+            snapshotExecutor.shutdown();
+            try {
+                snapshotExecutor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException ex) {
+                throw new VertexiumException("Interrupted waiting for snapshot to complete", ex);
+            }
+            snapshotExecutor = null;
+        }
+        try {
+            snapshot();
+            synchronized (logLock) {
+                try {
+                    closeLog();
+                } catch (IOException ex) {
+                    throw new VertexiumException("Could not close mutation log", ex);
+                }
+                closed = true;
+            }
+        } finally {
+            try {
+                unlockDir();
+            } catch (IOException ex) {
+                LOGGER.warn("could not unlock %s", dir.getAbsolutePath(), ex);
+            }
+        }
+    }
+
+    private void lockDir() throws IOException {
+        lockFileChannel = FileChannel.open(new File(dir, LOCK_FILE_NAME).toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            dirLock = lockFileChannel.tryLock();
+        } catch (OverlappingFileLockException ex) {
+            dirLock = null;
+        }
+        if (dirLock == null) {
+            lockFileChannel.close();
+            lockFileChannel = null;
+            throw new VertexiumException("Persistence directory is in use by another graph: " + dir.getAbsolutePath());
+        }
+    }
+
+    private void unlockDir() throws IOException {
+        if (lockFileChannel == null) {
+            return;
+        }
+        try {
+            dirLock.release();
+        } finally {
+            lockFileChannel.close();
+            lockFileChannel = null;
+            dirLock = null;
+        }
+    }
+
+    /**
+     * Writes a snapshot of the graph and removes the log segments and snapshots which it replaces. Writes are
+     * blocked while a new log segment is started and the graph's state is copied, not while the copy is written.
+     */
+    public void snapshot() {
+        synchronized (snapshotWriteLock) {
+            long snapshotSequence;
+            SnapshotState state;
+            snapshotLock.writeLock().lock();
+            try {
+                synchronized (logLock) {
+                    if (closed) {
+                        return;
+                    }
+                    snapshotSequence = logSequence;
+                    closeLog();
+                    openLog(snapshotSequence + 1);
+                }
+                state = copySnapshotState();
+            } catch (IOException ex) {
+                throw new VertexiumException("Could not start a new mutation log segment in " + dir.getAbsolutePath(), ex);
+            } finally {
+                snapshotLock.writeLock().unlock();
+            }
+
+            try {
+                long startTime = System.currentTimeMillis();
+                File snapshotFile = getFile(SNAPSHOT_PREFIX, snapshotSequence);
+                File tempFile = new File(dir, snapshotFile.getName() + TEMP_FILE_SUFFIX);
+                try (FileOutputStream fileOut = new FileOutputStream(tempFile)) {
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut));
+                    writeHeader(out, SNAPSHOT_MAGIC);
+                    writeSnapshotRecords(out, state);
+                    out.flush();
+                    fileOut.getFD().sync();
+                }
+                Files.move(tempFile.toPath(), snapshotFile.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+                for (Map.Entry<File, Long> entry : listFiles(LOG_PREFIX).entrySet()) {
+                    if (entry.getValue() <= snapshotSequence) {
+                        deleteFile(entry.getKey());
+                    }
+                }
+                for (Map.Entry<File, Long> entry : listFiles(SNAPSHOT_PREFIX).entrySet()) {
+                    if (entry.getValue() < snapshotSequence) {
+                        deleteFile(entry.getKey());
+                    }
+                }
+                LOGGER.debug("wrote snapshot %s in %dms", snapshotFile.getAbsolutePath(), System.currentTimeMillis() - startTime);
+            } catch (IOException ex) {
+                throw new VertexiumException("Could not snapshot in-memory graph to " + dir.getAbsolutePath(), ex);
+            }
+        }
+    }
+
+    void beginWrite() {
+        snapshotLock.readLock().lock();
+    }
+
+    void endWrite() {
+        snapshotLock.readLock().unlock();
+    }
+
+    void logAppend(ElementType elementType, String id, Collection<Mutation> mutations) {
+        log(out -> writeAppend(out, elementType, id, mutations));
+    }
+
+    void logDeleteProperty(ElementType elementType, String id, String key, String name, Visibility visibility) {
+        log(out -> {
+            out.writeByte(RECORD_DELETE_PROPERTY);
+            writeElementType(out, elementType);
+            writeString(out, id);
+            writeString(out, key);
+            writeString(out, name);
+            writeVisibility(out, visibility);
+        });
+    }
+
+    void logRemove(ElementType elementType, String id) {
+        log(out -> {
+            out.writeByte(RECORD_REMOVE);
+            writeElementType(out, elementType);
+            writeString(out, id);
+        });
+    }
+
+    void logClear(ElementType elementType) {
+        log(out -> {
+            out.writeByte(RECORD_CLEAR);
+            writeElementType(out, elementType);
+        });
+    }
+
+    void logValidAuthorizations(Collection<String> authorizations) {
+        log(out -> writeValidAuthorizations(out, authorizations));
+    }
+
+    private void log(RecordWriter recordWriter) {
+        byte[] record = encodeRecord(recordWriter);
+        synchronized (logLock) {
+            if (logOut == null) {
+                throw new VertexiumException("Mutation log is not open");
+            }
+            try {
+                writeFramedRecord(logOut, record);
+                logOut.flush();
+                if (syncLog) {
+                    logFileOut.getFD().sync();
+                }
+            } catch (IOException ex) {
+                throw new VertexiumException("Could not write to mutation log", ex);
+            }
+        }
+    }
+
+    private long load() throws IOException {
+        long startTime = System.currentTimeMillis();
+        Map<File, Long> snapshotFiles = listFiles(SNAPSHOT_PREFIX);
+        Map<File, Long> logFiles = listFiles(LOG_PREFIX);
+
+        long lastSequence = -1;
+        long snapshotSequence = -1;
+        for (Map.Entry<File, Long> entry : snapshotFiles.entrySet()) {
+            if (entry.getValue() > snapshotSequence) {
+                snapshotSequence = entry.getValue();
+            }
+        }
+        if (snapshotSequence >= 0) {
+            readFile(getFile(SNAPSHOT_PREFIX, snapshotSequence), SNAPSHOT_MAGIC);
+            lastSequence = snapshotSequence;
+        }
+
+        List<Long> logSequences = new ArrayList<>(logFiles.values());
+        Collections.sort(logSequences);
+        for (Long sequence : logSequences) {
+            if (sequence > snapshotSequence) {
+                readFile(getFile(LOG_PREFIX, sequence), LOG_MAGIC);
+            }
+            lastSequence = Math.max(lastSequence, sequence);
+        }
+        if (lastSequence >= 0) {
+            LOGGER.info("loaded in-memory graph from %s in %dms", dir.getAbsolutePath(), System.currentTimeMillis() - startTime);
+        }
+        return lastSequence;
+    }
+
+    private void readFile(File file, int magic) throws IOException {
+        boolean isLog = magic == LOG_MAGIC;
+        try (DataInputStream in = new DataInputStream(new MappedFileInputStream(file))) {
+            try {
+                if (in.readInt() != magic) {
+                    throw new VertexiumException("Invalid persistence file: " + file.getAbsolutePath());
+                }
+                int version = in.readInt();
+                if (version != FORMAT_VERSION) {
+                    throw new VertexiumException("Unsupported persistence file version " + version + ": " + file.getAbsolutePath());
+                }
+            } catch (EOFException ex) {
+                if (isLog) {
+                    // the process stopped before the header of a new log segment was written
+                    return;
+                }
+                throw new VertexiumException("Truncated snapshot: " + file.getAbsolutePath(), ex);
+            }
+
+            while (true) {
+                byte[] record;
+                try {
+                    record = readFramedRecord(in);
+                } catch (EOFException ex) {
+                    if (isLog) {
+                        LOGGER.warn("ignoring incomplete record at the end of %s", file.getAbsolutePath());
+                        return;
+                    }
+                    throw new VertexiumException("Corrupt snapshot: " + file.getAbsolutePath(), ex);
+                }
+                if (record == null) {
+                    return;
+                }
+                applyRecord(new DataInputStream(new ByteArrayInputStream(record)));
+            }
+        }
+    }
+
+    private void applyRecord(DataInput in) throws IOException {
+        byte recordType = in.readByte();
+        switch (recordType) {
+            case RECORD_APPEND: {
+                InMemoryTable<?> table = getTable(readElementType(in));
+                String id = readString(in);
+                table.append(id, codec.readMutations(in));
+                break;
+            }
+            case RECORD_DELETE_PROPERTY: {
+                InMemoryTable<?> table = getTable(readElementType(in));
+                InMemoryTableElement<?> element = table.getTableElement(readString(in));
+                String key = readString(in);
+                String name = readString(in);
+                Visibility visibility = readVisibility(in);
+                if (element != null) {
+                    element.deletePropertyMutations(key, name, visibility);
+                }
+                break;
+            }
+            case RECORD_REMOVE:
+                getTable(readElementType(in)).remove(readString(in));
+                break;
+            case RECORD_CLEAR:
+                getTable(readElementType(in)).clear();
+                break;
+            case RECORD_EXTENDED_DATA_ADD: {
+                ExtendedDataRowId rowId = readExtendedDataRowId(in);
+                String column = readString(in);
+                String key = readString(in);
+                Object value = codec.readObject(in);
+                long timestamp = in.readLong();
+                Visibility visibility = readVisibility(in);
+                extendedDataTable.addData(rowId, column, key, value, timestamp, visibility);
+                break;
+            }
+            case RECORD_EXTENDED_DATA_REMOVE_ROW:
+                extendedDataTable.remove(readExtendedDataRowId(in));
+                break;
+            case RECORD_EXTENDED_DATA_REMOVE_COLUMN: {
+                ExtendedDataRowId rowId = readExtendedDataRowId(in);
+                String columnName = readString(in);
+                String key = readString(in);
+                Visibility visibility = readVisibility(in);
+                extendedDataTable.removeColumn(rowId, columnName, key, visibility);
+                break;
+            }
+            case RECORD_EXTENDED_DATA_ADD_ADDITIONAL_VISIBILITY: {
+                ExtendedDataRowId rowId = readExtendedDataRowId(in);
+                extendedDataTable.addAdditionalVisibility(rowId, readString(in));
+                break;
+            }
+            case RECORD_EXTENDED_DATA_DELETE_ADDITIONAL_VISIBILITY: {
+                ExtendedDataRowId rowId = readExtendedDataRowId(in);
+                extendedDataTable.deleteAdditionalVisibility(rowId, readString(in));
+                break;
+            }
+            case RECORD_METADATA: {
+                String key = readString(in);
+                graphMetadataStore.setMetadata(key, codec.readObject(in));
+                break;
+            }
+            case RECORD_VALID_AUTHORIZATIONS: {
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    validAuthorizations.add(readString(in));
+                }
+                break;
+            }
+            default:
+                throw new VertexiumException("Unhandled record type: " + recordType);
+        }
+    }
+
+    /**
+     * Copies the state to snapshot, must be called with writes blocked. Mutations and extended data columns are not
+     * changed once created so only the collections holding them are copied.
+     */
+    private SnapshotState copySnapshotState() {
+        SnapshotState state = new SnapshotState();
+        for (InMemoryTable<?> table : Arrays.<InMemoryTable<?>>asList(vertices, edges)) {
+            for (InMemoryTableElement<?> element : table.getRowValues()) {
+                List<Mutation> mutations = IterableUtils.toList(element.findMutations(Mutation.class));
+                state.elements.add(new SnapshotElement(table.getElementType(), element.getId(), mutations));
+            }
+        }
+        for (InMemoryExtendedDataRow row : extendedDataTable.getAllRows()) {
+            state.extendedDataRows.add(new SnapshotExtendedDataRow(
+                row.getId(),
+                IterableUtils.toList(row.getProperties()),
+                new ArrayList<>(row.getAdditionalVisibilities())
+            ));
+        }
+        state.metadata.addAll(IterableUtils.toList(graphMetadataStore.getMetadata()));
+        state.validAuthorizations.addAll(validAuthorizations);
+        return state;
+    }
+
+    private void writeSnapshotRecords(DataOutputStream out, SnapshotState state) throws IOException {
+        for (SnapshotElement element : state.elements) {
+            writeFramedRecord(out, encodeRecord(o -> writeAppend(o, element.elementType, element.id, element.mutations)));
+        }
+
+        for (SnapshotExtendedDataRow row : state.extendedDataRows) {
+            for (Property column : row.columns) {
+                writeFramedRecord(out, encodeRecord(o -> writeExtendedDataAdd(
+                    o,
+                    row.id,
+                    column.getName(),
+                    column.getKey(),
+                    column.getValue(),
+                    column.getTimestamp(),
+                    column.getVisibility()
+                )));
+            }
+            for (String additionalVisibility : row.additionalVisibilities) {
+                writeFramedRecord(out, encodeRecord(o -> writeExtendedDataAdditionalVisibility(
+                    o,
+                    RECORD_EXTENDED_DATA_ADD_ADDITIONAL_VISIBILITY,
+                    row.id,
+                    additionalVisibility
+                )));
+            }
+        }
+
+        for (GraphMetadataEntry entry : state.metadata) {
+            writeFramedRecord(out, encodeRecord(o -> writeMetadata(o, entry.getKey(), entry.getValue())));
+        }
+
+        writeFramedRecord(out, encodeRecord(o -> writeValidAuthorizations(o, state.validAuthorizations)));
+    }
+
+    private void writeAppend(DataOutput out, ElementType elementType, String id, Collection<Mutation> mutations) throws IOException {
+        out.writeByte(RECORD_APPEND);
+        writeElementType(out, elementType);
+        writeString(out, id);
+        codec.writeMutations(out, mutations);
+    }
+
+    private void writeExtendedDataAdd(
+        DataOutput out,
+        ExtendedDataRowId rowId,
+        String column,
+        String key,
+        Object value,
+        long timestamp,
+        Visibility visibility
+    ) throws IOException {
+        out.writeByte(RECORD_EXTENDED_DATA_ADD);
+        writeExtendedDataRowId(out, rowId);
+        writeString(out, column);
+        writeString(out, key);
+        codec.writeObject(out, value);
+        out.writeLong(timestamp);
+        writeVisibility(out, visibility);
+    }
+
+    private static void writeExtendedDataAdditionalVisibility(
+        DataOutput out,
+        byte recordType,
+        ExtendedDataRowId rowId,
+        String additionalVisibility
+    ) throws IOException {
+        out.writeByte(recordType);
+        writeExtendedDataRowId(out, rowId);
+        writeString(out, additionalVisibility);
+    }
+
+    private void writeMetadata(DataOutput out, String key, Object value) throws IOException {
+        out.writeByte(RECORD_METADATA);
+        writeString(out, key);
+        codec.writeObject(out, value);
+    }
+
+    private static void writeValidAuthorizations(DataOutput out, Collection<String> authorizations) throws IOException {
+        out.writeByte(RECORD_VALID_AUTHORIZATIONS);
+        out.writeInt(authorizations.size());
+        for (String authorization : authorizations) {
+            writeString(out, authorization);
+        }
+    }
+
+    private InMemoryTable<?> getTable(ElementType elementType) {
+        switch (elementType) {
+            case VERTEX:
+                return vertices;
+            case EDGE:
+                return edges;
+            default:
+                throw new VertexiumException("Unhandled element type: " + elementType);
+        }
+    }
+
+    private static byte[] encodeRecord(RecordWriter recordWriter) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            recordWriter.write(new DataOutputStream(bytes));
+            return bytes.toByteArray();
+        } catch (IOException ex) {
+            throw new VertexiumException("Could not encode record", ex);
+        }
+    }
+
+    private static void writeFramedRecord(DataOutputStream out, byte[] record) throws IOException {
+        out.writeInt(record.length);
+        out.write(record);
+        out.writeLong(checksum(record));
+    }
+
+    /**
+     * @return the record or null at the end of the file.
+     * @throws EOFException if the record is incomplete or does not match its checksum.
+     */
+    private static byte[] readFramedRecord(DataInputStream in) throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException ex) {
+            return null;
+        }
+        if (length < 0) {
+            throw new EOFException("Invalid record length: " + length);
+        }
+        byte[] record = new byte[length];
+        in.readFully(record);
+        if (in.readLong() != checksum(record)) {
+            throw new EOFException("Record checksum mismatch");
+        }
+        return record;
+    }
+
+    private static long checksum(byte[] record) {
+        CRC32 crc = new CRC32();
+        crc.update(record, 0, record.length);
+        return crc.getValue();
+    }
+
+    private static void writeHeader(DataOutputStream out, int magic) throws IOException {
+        out.writeInt(magic);
+        out.writeInt(FORMAT_VERSION);
+    }
+
+    private void openLog(long sequence) throws IOException {
+        logSequence = sequence;
+        logFileOut = new FileOutputStream(getFile(LOG_PREFIX, sequence));
+        logOut = new DataOutputStream(new BufferedOutputStream(logFileOut));
+        writeHeader(logOut, LOG_MAGIC);
+        logOut.flush();
+    }
+
+    private void closeLog() throws IOException {
+        if (logOut == null) {
+            return;
+        }
+        logOut.flush();
+        logFileOut.getFD().sync();
+        logOut.close();
+        logOut = null;
+        logFileOut = null;
+    }
+
+    private File getFile(String prefix, long sequence) {
+        return new File(dir, String.format("%s%016d%s", prefix, sequence, FILE_SUFFIX));
+    }
+
+    private Map<File, Long> listFiles(String prefix) {
+        Map<File, Long> results = new HashMap<>();
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return results;
+        }
+        for (File file : files) {
+            Matcher m = FILE_NAME_PATTERN.matcher(file.getName());
+            if (m.matches() && file.getName().startsWith(prefix)) {
+                results.put(file, Long.parseLong(m.group(2)));
+            }
+        }
+        return results;
+    }
+
+    private void deleteTempFiles() {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.getName().endsWith(TEMP_FILE_SUFFIX)) {
+                deleteFile(file);
+            }
+        }
+    }
+
+    private static void deleteFile(File file) {
+        if (!file.delete()) {
+            LOGGER.warn("could not delete %s", file.getAbsolutePath());
+        }
+    }
+
+    private interface RecordWriter {
+        void write(DataOutput out) throws IOException;
+    }
+
+    private static class SnapshotState {
+        final List<SnapshotElement> elements = new ArrayList<>();
+        final List<SnapshotExtendedDataRow> extendedDataRows = new ArrayList<>();
+        final List<GraphMetadataEntry> metadata = new ArrayList<>();
+        final List<String> validAuthorizations = new ArrayList<>();
+    }
+
+    private static class SnapshotElement {
+        final ElementType elementType;
+        final String id;
+        final List<Mutation> mutations;
+
+        SnapshotElement(ElementType elementType, String id, List<Mutation> mutations) {
+            this.elementType = elementType;
+            this.id = id;
+            this.mutations = mutations;
+        }
+    }
+
+    private static class SnapshotExtendedDataRow {
+        final ExtendedDataRowId id;
+        final List<Property> columns;
+        final List<String> additionalVisibilities;
+
+        SnapshotExtendedDataRow(ExtendedDataRowId id, List<Property> columns, List<String> additionalVisibilities) {
+            this.id = id;
+            this.columns = columns;
+            this.additionalVisibilities = additionalVisibilities;
+        }
+    }
+
+    private class LoggingExtendedDataTable extends InMemoryExtendedDataTable {
+        @Override
+        public ImmutableSet<String> getTableNames(ElementType elementType, String elementId, FetchHints fetchHints, Authorizations authorizations) {
+            return extendedDataTable.getTableNames(elementType, elementId, fetchHints, authorizations);
+        }
+
+        @Override
+        public Iterable<? extends ExtendedDataRow> getTable(
+            ElementType elementType,
+            String elementId,
+            String tableName,
+            FetchHints fetchHints,
+            Authorizations authorizations
+        ) {
+            return extendedDataTable.getTable(elementType, elementId, tableName, fetchHints, authorizations);
+        }
+
+        @Override
+        public Iterable<InMemoryExtendedDataRow> getAllRows() {
+            return extendedDataTable.getAllRows();
+        }
+
+        @Override
+        public synchronized void addData(ExtendedDataRowId rowId, String column, String key, Object value, long timestamp, Visibility visibility) {
+            beginWrite();
+            try {
+                extendedDataTable.addData(rowId, column, key, value, timestamp, visibility);
+                log(out -> writeExtendedDataAdd(out, rowId, column, key, value, timestamp, visibility));
+            } finally {
+                endWrite();
+            }
+        }
+
+        @Override
+        public synchronized void remove(ExtendedDataRowId rowId) {
+            beginWrite();
+            try {
+                extendedDataTable.remove(rowId);
+                log(out -> {
+                    out.writeByte(RECORD_EXTENDED_DATA_REMOVE_ROW);
+                    writeExtendedDataRowId(out, rowId);
+                });
+            } finally {
+                endWrite();
+            }
+        }
+
+        @Override
+        public synchronized void removeColumn(ExtendedDataRowId rowId, String columnName, String key, Visibility visibility) {
+            beginWrite();
+            try {
+                extendedDataTable.removeColumn(rowId, columnName, key, visibility);
+                log(out -> {
+                    out.writeByte(RECORD_EXTENDED_DATA_REMOVE_COLUMN);
+                    writeExtendedDataRowId(out, rowId);
+                    writeString(out, columnName);
+                    writeString(out, key);
+                    writeVisibility(out, visibility);
+                });
+            } finally {
+                endWrite();
+            }
+        }
+
+        @Override
+        public synchronized void addAdditionalVisibility(ExtendedDataRowId rowId, String additionalVisibility) {
+            beginWrite();
+            try {
+                extendedDataTable.addAdditionalVisibility(rowId, additionalVisibility);
+                log(out -> writeExtendedDataAdditionalVisibility(out, RECORD_EXTENDED_DATA_ADD_ADDITIONAL_VISIBILITY, rowId, additionalVisibility));
+            } finally {
+                endWrite();
+            }
+        }
+
+        @Override
+        public synchronized void deleteAdditionalVisibility(ExtendedDataRowId rowId, String additionalVisibility) {
+            beginWrite();
+            try {
+                extendedDataTable.deleteAdditionalVisibility(rowId, additionalVisibility);
+                log(out -> writeExtendedDataAdditionalVisibility(out, RECORD_EXTENDED_DATA_DELETE_ADDITIONAL_VISIBILITY, rowId, additionalVisibility));
+            } finally {
+                endWrite();
+            }
+        }
+    }
+
+    private class LoggingGraphMetadataStore extends GraphMetadataStore {
+        @Override
+        public Iterable<GraphMetadataEntry> getMetadata() {
+            return graphMetadataStore.getMetadata();
+        }
+
+        @Override
+        public Object getMetadata(String key) {
+            return graphMetadataStore.getMetadata(key);
+        }
+
+        @Override
+        public synchronized void setMetadata(String key, Object value) {
+            beginWrite();
+            try {
+                graphMetadataStore.setMetadata(key, value);
+                log(out -> writeMetadata(out, key, value));
+            } finally {
+                endWrite();
+            }
+        }
+
+        @Override
+        public void reloadMetadata() {
+            graphMetadataStore.reloadMetadata();
+        }
+    }
+}
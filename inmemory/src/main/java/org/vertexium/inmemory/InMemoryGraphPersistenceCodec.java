@@ -0,0 +1,273 @@
+package org.vertexium.inmemory;
+
+import org.vertexium.*;
+import org.vertexium.inmemory.mutations.*;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+/**
+ * Compact binary encoding of the in-memory mutations used by {@link InMemoryGraphPersistence}. Each mutation type
+ * is written field by field, only property values, metadata values and event data go through the graph's
+ * {@link VertexiumSerializer}.
+ */
+class InMemoryGraphPersistenceCodec {
+    private static final byte ADD_ADDITIONAL_VISIBILITY = 1;
+    private static final byte ADD_PROPERTY_METADATA = 2;
+    private static final byte ADD_PROPERTY_VALUE = 3;
+    private static final byte ALTER_EDGE_LABEL = 4;
+    private static final byte ALTER_VISIBILITY = 5;
+    private static final byte DELETE_ADDITIONAL_VISIBILITY = 6;
+    private static final byte EDGE_SETUP = 7;
+    private static final byte ELEMENT_TIMESTAMP = 8;
+    private static final byte MARK_HIDDEN = 9;
+    private static final byte MARK_PROPERTY_HIDDEN = 10;
+    private static final byte MARK_PROPERTY_VISIBLE = 11;
+    private static final byte MARK_VISIBLE = 12;
+    private static final byte SOFT_DELETE = 13;
+    private static final byte SOFT_DELETE_PROPERTY = 14;
+
+    private final VertexiumSerializer serializer;
+
+    InMemoryGraphPersistenceCodec(VertexiumSerializer serializer) {
+        this.serializer = serializer;
+    }
+
+    void writeMutations(DataOutput out, Collection<? extends Mutation> mutations) throws IOException {
+        out.writeInt(mutations.size());
+        for (Mutation mutation : mutations) {
+            writeMutation(out, mutation);
+        }
+    }
+
+    Mutation[] readMutations(DataInput in) throws IOException {
+        Mutation[] mutations = new Mutation[in.readInt()];
+        for (int i = 0; i < mutations.length; i++) {
+            mutations[i] = readMutation(in);
+        }
+        return mutations;
+    }
+
+    void writeMutation(DataOutput out, Mutation m) throws IOException {
+        if (m instanceof AddAdditionalVisibilityMutation) {
+            AddAdditionalVisibilityMutation mutation = (AddAdditionalVisibilityMutation) m;
+            out.writeByte(ADD_ADDITIONAL_VISIBILITY);
+            out.writeLong(mutation.getTimestamp());
+            writeString(out, mutation.getAdditionalVisibility());
+            writeObject(out, mutation.getEventData());
+        } else if (m instanceof AddPropertyMetadataMutation) {
+            AddPropertyMetadataMutation mutation = (AddPropertyMetadataMutation) m;
+            out.writeByte(ADD_PROPERTY_METADATA);
+            out.writeLong(mutation.getTimestamp());
+            writeString(out, mutation.getPropertyKey());
+            writeString(out, mutation.getPropertyName());
+            writeMetadata(out, mutation.getMetadata(FetchHints.ALL_INCLUDING_HIDDEN));
+            writeVisibility(out, mutation.getPropertyVisibility());
+        } else if (m instanceof AddPropertyValueMutation) {
+            AddPropertyValueMutation mutation = (AddPropertyValueMutation) m;
+            out.writeByte(ADD_PROPERTY_VALUE);
+            out.writeLong(mutation.getTimestamp());
+            writeString(out, mutation.getPropertyKey());
+            writeString(out, mutation.getPropertyName());
+            writeObject(out, mutation.getValue());
+            writeMetadata(out, mutation.getMetadata(FetchHints.ALL_INCLUDING_HIDDEN));
+            writeVisibility(out, mutation.getPropertyVisibility());
+            writeObject(out, mutation.getData());
+        } else if (m instanceof AlterEdgeLabelMutation) {
+            out.writeByte(ALTER_EDGE_LABEL);
+            out.writeLong(m.getTimestamp());
+            writeString(out, ((AlterEdgeLabelMutation) m).getNewEdgeLabel());
+        } else if (m instanceof AlterVisibilityMutation) {
+            AlterVisibilityMutation mutation = (AlterVisibilityMutation) m;
+            out.writeByte(ALTER_VISIBILITY);
+            out.writeLong(mutation.getTimestamp());
+            writeVisibility(out, mutation.getNewVisibility());
+            writeObject(out, mutation.getData());
+        } else if (m instanceof DeleteAdditionalVisibilityMutation) {
+            DeleteAdditionalVisibilityMutation mutation = (DeleteAdditionalVisibilityMutation) m;
+            out.writeByte(DELETE_ADDITIONAL_VISIBILITY);
+            out.writeLong(mutation.getTimestamp());
+            writeString(out, mutation.getAdditionalVisibility());
+            writeObject(out, mutation.getEventData());
+        } else if (m instanceof EdgeSetupMutation) {
+            EdgeSetupMutation mutation = (EdgeSetupMutation) m;
+            out.writeByte(EDGE_SETUP);
+            out.writeLong(mutation.getTimestamp());
+            writeString(out, mutation.getOutVertexId());
+            writeString(out, mutation.getInVertexId());
+        } else if (m instanceof ElementTimestampMutation) {
+            out.writeByte(ELEMENT_TIMESTAMP);
+            out.writeLong(m.getTimestamp());
+        } else if (m instanceof MarkHiddenMutation) {
+            out.writeByte(MARK_HIDDEN);
+            out.writeLong(m.getTimestamp());
+            writeVisibility(out, m.getVisibility());
+            writeObject(out, ((MarkHiddenMutation) m).getData());
+        } else if (m instanceof MarkPropertyHiddenMutation) {
+            out.writeByte(MARK_PROPERTY_HIDDEN);
+            writePropertyVisibilityMutation(out, (PropertyMutation) m, ((MarkPropertyHiddenMutation) m).getData());
+        } else if (m instanceof MarkPropertyVisibleMutation) {
+            out.writeByte(MARK_PROPERTY_VISIBLE);
+            writePropertyVisibilityMutation(out, (PropertyMutation) m, ((MarkPropertyVisibleMutation) m).getData());
+        } else if (m instanceof MarkVisibleMutation) {
+            out.writeByte(MARK_VISIBLE);
+            out.writeLong(m.getTimestamp());
+            writeVisibility(out, m.getVisibility());
+            writeObject(out, ((MarkVisibleMutation) m).getData());
+        } else if (m instanceof SoftDeleteMutation) {
+            out.writeByte(SOFT_DELETE);
+            out.writeLong(m.getTimestamp());
+            writeObject(out, ((SoftDeleteMutation) m).getData());
+        } else if (m instanceof SoftDeletePropertyMutation) {
+            SoftDeletePropertyMutation mutation = (SoftDeletePropertyMutation) m;
+            out.writeByte(SOFT_DELETE_PROPERTY);
+            out.writeLong(mutation.getTimestamp());
+            writeString(out, mutation.getPropertyKey());
+            writeString(out, mutation.getPropertyName());
+            writeVisibility(out, mutation.getPropertyVisibility());
+            writeObject(out, mutation.getData());
+        } else {
+            throw new VertexiumException("Unhandled mutation type: " + m.getClass().getName());
+        }
+    }
+
+    private void writePropertyVisibilityMutation(DataOutput out, PropertyMutation m, Object data) throws IOException {
+        writeString(out, m.getPropertyKey());
+        writeString(out, m.getPropertyName());
+        writeVisibility(out, m.getPropertyVisibility());
+        out.writeLong(m.getTimestamp());
+        writeVisibility(out, m.getVisibility());
+        writeObject(out, data);
+    }
+
+    Mutation readMutation(DataInput in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case ADD_ADDITIONAL_VISIBILITY:
+                return new AddAdditionalVisibilityMutation(in.readLong(), readString(in), readObject(in));
+            case ADD_PROPERTY_METADATA:
+                return new AddPropertyMetadataMutation(in.readLong(), readString(in), readString(in), readMetadata(in), readVisibility(in));
+            case ADD_PROPERTY_VALUE:
+                return new AddPropertyValueMutation(
+                    in.readLong(),
+                    readString(in),
+                    readString(in),
+                    readObject(in),
+                    readMetadata(in),
+                    readVisibility(in),
+                    readObject(in)
+                );
+            case ALTER_EDGE_LABEL:
+                return new AlterEdgeLabelMutation(in.readLong(), readString(in));
+            case ALTER_VISIBILITY:
+                return new AlterVisibilityMutation(in.readLong(), readVisibility(in), readObject(in));
+            case DELETE_ADDITIONAL_VISIBILITY:
+                return new DeleteAdditionalVisibilityMutation(in.readLong(), readString(in), readObject(in));
+            case EDGE_SETUP:
+                return new EdgeSetupMutation(in.readLong(), readString(in), readString(in));
+            case ELEMENT_TIMESTAMP:
+                return new ElementTimestampMutation(in.readLong());
+            case MARK_HIDDEN:
+                return new MarkHiddenMutation(in.readLong(), readVisibility(in), readObject(in));
+            case MARK_PROPERTY_HIDDEN:
+                return new MarkPropertyHiddenMutation(readString(in), readString(in), readVisibility(in), in.readLong(), readVisibility(in), readObject(in));
+            case MARK_PROPERTY_VISIBLE:
+                return new MarkPropertyVisibleMutation(readString(in), readString(in), readVisibility(in), in.readLong(), readVisibility(in), readObject(in));
+            case MARK_VISIBLE:
+                return new MarkVisibleMutation(in.readLong(), readVisibility(in), readObject(in));
+            case SOFT_DELETE:
+                return new SoftDeleteMutation(in.readLong(), readObject(in));
+            case SOFT_DELETE_PROPERTY:
+                return new SoftDeletePropertyMutation(in.readLong(), readString(in), readString(in), readVisibility(in), readObject(in));
+            default:
+                throw new VertexiumException("Unhandled mutation type: " + type);
+        }
+    }
+
+    void writeMetadata(DataOutput out, Metadata metadata) throws IOException {
+        Collection<Metadata.Entry> entries = metadata.entrySet();
+        out.writeInt(entries.size());
+        for (Metadata.Entry entry : entries) {
+            writeString(out, entry.getKey());
+            writeObject(out, entry.getValue());
+            writeVisibility(out, entry.getVisibility());
+        }
+    }
+
+    Metadata readMetadata(DataInput in) throws IOException {
+        Metadata metadata = Metadata.create();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            metadata.add(readString(in), readObject(in), readVisibility(in));
+        }
+        return metadata;
+    }
+
+    void writeObject(DataOutput out, Object value) throws IOException {
+        writeBytes(out, value == null ? null : serializer.objectToBytes(value));
+    }
+
+    Object readObject(DataInput in) throws IOException {
+        byte[] bytes = readBytes(in);
+        return bytes == null ? null : serializer.bytesToObject(bytes);
+    }
+
+    static void writeVisibility(DataOutput out, Visibility visibility) throws IOException {
+        writeString(out, visibility == null ? null : visibility.getVisibilityString());
+    }
+
+    static Visibility readVisibility(DataInput in) throws IOException {
+        String visibilityString = readString(in);
+        return visibilityString == null ? null : new Visibility(visibilityString);
+    }
+
+    static void writeExtendedDataRowId(DataOutput out, ExtendedDataRowId rowId) throws IOException {
+        writeElementType(out, rowId.getElementType());
+        writeString(out, rowId.getElementId());
+        writeString(out, rowId.getTableName());
+        writeString(out, rowId.getRowId());
+    }
+
+    static ExtendedDataRowId readExtendedDataRowId(DataInput in) throws IOException {
+        return new ExtendedDataRowId(readElementType(in), readString(in), readString(in), readString(in));
+    }
+
+    static void writeElementType(DataOutput out, ElementType elementType) throws IOException {
+        out.writeByte(elementType.ordinal());
+    }
+
+    static ElementType readElementType(DataInput in) throws IOException {
+        return ElementType.values()[in.readByte()];
+    }
+
+    static void writeString(DataOutput out, String str) throws IOException {
+        writeBytes(out, str == null ? null : str.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String readString(DataInput in) throws IOException {
+        byte[] bytes = readBytes(in);
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void writeBytes(DataOutput out, byte[] bytes) throws IOException {
+        if (bytes == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static byte[] readBytes(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+}
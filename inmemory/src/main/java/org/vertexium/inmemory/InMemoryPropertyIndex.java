@@ -0,0 +1,415 @@
+package org.vertexium.inmemory;
+
+import org.vertexium.DateOnly;
+import org.vertexium.VertexiumException;
+import org.vertexium.query.Compare;
+import org.vertexium.query.Contains;
+import org.vertexium.query.GeoCompare;
+import org.vertexium.query.Predicate;
+import org.vertexium.type.*;
+import org.vertexium.util.GeoUtils;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index of the values of a single property to the ids of the elements which have them. Lookups return a superset of
+ * the matching elements: values are normalized the way {@link org.vertexium.util.ObjectUtils#compare(Object, Object)}
+ * compares them and visibility, hidden and soft deleted state are ignored. When the property holds values of more
+ * than one kind, or the query value can not be compared to them using the index, no candidates are returned and the
+ * query falls back to evaluating every element.
+ */
+public class InMemoryPropertyIndex {
+    private static final int GEOHASH_PRECISION = 12;
+    private static final int MAX_GEOHASH_CELLS = 64;
+    private static final double GEO_TOLERANCE_DEGREES = 0.001;
+
+    public enum Type {
+        /**
+         * Supports {@link Compare#EQUAL} and {@link Contains#IN}.
+         */
+        HASH,
+
+        /**
+         * Supports {@link Compare#EQUAL}, {@link Contains#IN}, {@link Compare#STARTS_WITH} and the range comparisons.
+         */
+        SORTED,
+
+        /**
+         * Supports {@link GeoCompare#INTERSECTS} and {@link GeoCompare#WITHIN} of {@link GeoPoint} values.
+         */
+        GEOHASH
+    }
+
+    private enum ValueKind {
+        STRING, NUMBER, DATE, DATE_ONLY, BOOLEAN, GEO_POINT, OTHER
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final String propertyName;
+    private final Type type;
+    private final Map<IndexKey, Set<String>> elementIdsByKey;
+    private final Map<String, List<IndexKey>> keysByElementId = new HashMap<>();
+    private final Map<ValueKind, Integer> valueKindCounts = new EnumMap<>(ValueKind.class);
+
+    public InMemoryPropertyIndex(String propertyName, Type type) {
+        this.propertyName = propertyName;
+        this.type = type;
+        this.elementIdsByKey = type == Type.HASH ? new HashMap<>() : new TreeMap<>();
+    }
+
+    public String getPropertyName() {
+        return propertyName;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Replaces the indexed values of an element.
+     */
+    public void update(String elementId, Collection<Object> values) {
+        List<IndexKey> keys = new ArrayList<>(values.size());
+        for (Object value : values) {
+            IndexKey key = toIndexKey(value);
+            if (!keys.contains(key)) {
+                keys.add(key);
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeInternal(elementId);
+            if (keys.isEmpty()) {
+                return;
+            }
+            keysByElementId.put(elementId, keys);
+            for (IndexKey key : keys) {
+                elementIdsByKey.computeIfAbsent(key, k -> new HashSet<>()).add(elementId);
+                valueKindCounts.merge(key.kind, 1, Integer::sum);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String elementId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(elementId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            elementIdsByKey.clear();
+            keysByElementId.clear();
+            valueKindCounts.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeInternal(String elementId) {
+        List<IndexKey> existingKeys = keysByElementId.remove(elementId);
+        if (existingKeys == null) {
+            return;
+        }
+        for (IndexKey key : existingKeys) {
+            Set<String> elementIds = elementIdsByKey.get(key);
+            if (elementIds != null) {
+                elementIds.remove(elementId);
+                if (elementIds.isEmpty()) {
+                    elementIdsByKey.remove(key);
+                }
+            }
+            valueKindCounts.computeIfPresent(key.kind, (k, count) -> count == 1 ? null : count - 1);
+        }
+    }
+
+    /**
+     * @return a superset of the ids of the elements with a value matching the predicate, or null if the index can
+     * not answer the predicate.
+     */
+    public Set<String> getCandidateElementIds(Predicate predicate, Object value) {
+        lock.readLock().lock();
+        try {
+            if (valueKindCounts.isEmpty()) {
+                // no element has this property so no element can match a predicate this index supports
+                return isSupported(predicate) ? new HashSet<>() : null;
+            }
+            if (valueKindCounts.size() > 1) {
+                return null;
+            }
+            ValueKind indexedKind = valueKindCounts.keySet().iterator().next();
+            if (predicate == Compare.EQUAL) {
+                return getCandidateElementIdsEqual(indexedKind, Collections.singletonList(value));
+            } else if (predicate == Contains.IN) {
+                return getCandidateElementIdsEqual(indexedKind, toCollection(value));
+            } else if (type == Type.SORTED && predicate instanceof Compare) {
+                return getCandidateElementIdsSorted(indexedKind, (Compare) predicate, value);
+            } else if (type == Type.GEOHASH && (predicate == GeoCompare.INTERSECTS || predicate == GeoCompare.WITHIN)) {
+                return getCandidateElementIdsGeo(indexedKind, value);
+            }
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean isSupported(Predicate predicate) {
+        switch (type) {
+            case HASH:
+                return predicate == Compare.EQUAL || predicate == Contains.IN;
+            case SORTED:
+                return predicate == Compare.EQUAL
+                    || predicate == Contains.IN
+                    || predicate == Compare.STARTS_WITH
+                    || predicate == Compare.GREATER_THAN
+                    || predicate == Compare.GREATER_THAN_EQUAL
+                    || predicate == Compare.LESS_THAN
+                    || predicate == Compare.LESS_THAN_EQUAL;
+            case GEOHASH:
+                return predicate == GeoCompare.INTERSECTS || predicate == GeoCompare.WITHIN;
+            default:
+                return false;
+        }
+    }
+
+    private Set<String> getCandidateElementIdsEqual(ValueKind indexedKind, Collection<?> values) {
+        if (type == Type.GEOHASH || values == null) {
+            return null;
+        }
+        Set<String> results = new HashSet<>();
+        for (Object value : values) {
+            IndexKey key = toIndexKey(value);
+            if (key.kind != indexedKind || key.kind == ValueKind.OTHER) {
+                return null;
+            }
+            Set<String> elementIds = elementIdsByKey.get(key);
+            if (elementIds != null) {
+                results.addAll(elementIds);
+            }
+        }
+        return results;
+    }
+
+    private Set<String> getCandidateElementIdsSorted(ValueKind indexedKind, Compare compare, Object value) {
+        IndexKey key = toIndexKey(value);
+        if (key.kind != indexedKind || key.kind == ValueKind.OTHER || key.kind == ValueKind.GEO_POINT) {
+            return null;
+        }
+        NavigableMap<IndexKey, Set<String>> sorted = (NavigableMap<IndexKey, Set<String>>) elementIdsByKey;
+        // bounds are always inclusive, normalizing numbers to doubles can make distinct values equal
+        Map<IndexKey, Set<String>> matching;
+        switch (compare) {
+            case GREATER_THAN:
+            case GREATER_THAN_EQUAL:
+                matching = sorted.tailMap(key, true);
+                break;
+            case LESS_THAN:
+            case LESS_THAN_EQUAL:
+                matching = sorted.headMap(key, true);
+                break;
+            case STARTS_WITH:
+                if (key.kind != ValueKind.STRING) {
+                    return null;
+                }
+                matching = sorted.subMap(key, true, new IndexKey(ValueKind.STRING, (String) key.value + Character.MAX_VALUE), true);
+                break;
+            default:
+                return null;
+        }
+        Set<String> results = new HashSet<>();
+        for (Set<String> elementIds : matching.values()) {
+            results.addAll(elementIds);
+        }
+        return results;
+    }
+
+    private Set<String> getCandidateElementIdsGeo(ValueKind indexedKind, Object value) {
+        if (indexedKind != ValueKind.GEO_POINT || !(value instanceof GeoShape)) {
+            return null;
+        }
+        double[] boundingBox = getBoundingBox((GeoShape) value);
+        if (boundingBox == null) {
+            return null;
+        }
+        double minLatitude = Math.max(-90.0, boundingBox[0] - GEO_TOLERANCE_DEGREES);
+        double minLongitude = Math.max(-180.0, boundingBox[1] - GEO_TOLERANCE_DEGREES);
+        double maxLatitude = Math.min(90.0, boundingBox[2] + GEO_TOLERANCE_DEGREES);
+        double maxLongitude = Math.min(180.0, boundingBox[3] + GEO_TOLERANCE_DEGREES);
+
+        Set<String> cells = getGeohashCells(minLatitude, minLongitude, maxLatitude, maxLongitude);
+        NavigableMap<IndexKey, Set<String>> sorted = (NavigableMap<IndexKey, Set<String>>) elementIdsByKey;
+        Set<String> results = new HashSet<>();
+        for (String cell : cells) {
+            Map<IndexKey, Set<String>> matching = sorted.subMap(
+                new IndexKey(ValueKind.GEO_POINT, cell), true,
+                new IndexKey(ValueKind.GEO_POINT, cell + Character.MAX_VALUE), true
+            );
+            for (Set<String> elementIds : matching.values()) {
+                results.addAll(elementIds);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * @return min latitude, min longitude, max latitude, max longitude or null if the shape's bounding box could not
+     * be determined or it crosses the antimeridian.
+     */
+    private static double[] getBoundingBox(GeoShape shape) {
+        GeoShape envelope;
+        try {
+            envelope = GeoUtils.getEnvelope(shape);
+        } catch (VertexiumException ex) {
+            return null;
+        }
+        List<GeoPoint> points;
+        if (envelope instanceof GeoPoint) {
+            points = Collections.singletonList((GeoPoint) envelope);
+        } else if (envelope instanceof GeoRect) {
+            points = Arrays.asList(((GeoRect) envelope).getNorthWest(), ((GeoRect) envelope).getSouthEast());
+            if (points.get(0).getLongitude() > points.get(1).getLongitude()) {
+                return null;
+            }
+        } else if (envelope instanceof GeoPolygon) {
+            points = ((GeoPolygon) envelope).getOuterBoundary();
+        } else {
+            return null;
+        }
+        double[] boundingBox = new double[]{Double.MAX_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+        for (GeoPoint point : points) {
+            boundingBox[0] = Math.min(boundingBox[0], point.getLatitude());
+            boundingBox[1] = Math.min(boundingBox[1], point.getLongitude());
+            boundingBox[2] = Math.max(boundingBox[2], point.getLatitude());
+            boundingBox[3] = Math.max(boundingBox[3], point.getLongitude());
+        }
+        return boundingBox;
+    }
+
+    /**
+     * Gets the geohash cells covering the bounding box, using the finest precision which needs no more than
+     * {@link #MAX_GEOHASH_CELLS} cells.
+     */
+    private static Set<String> getGeohashCells(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+        for (int precision = GEOHASH_PRECISION; precision > 1; precision--) {
+            double cellHeight = 180.0 / Math.pow(2, (5 * precision) / 2);
+            double cellWidth = 360.0 / Math.pow(2, (5 * precision + 1) / 2);
+            double cellCount = (Math.floor((maxLatitude - minLatitude) / cellHeight) + 2)
+                * (Math.floor((maxLongitude - minLongitude) / cellWidth) + 2);
+            if (cellCount <= MAX_GEOHASH_CELLS) {
+                return getGeohashCells(minLatitude, minLongitude, maxLatitude, maxLongitude, precision, cellHeight, cellWidth);
+            }
+        }
+        return getGeohashCells(minLatitude, minLongitude, maxLatitude, maxLongitude, 1, 45.0, 45.0);
+    }
+
+    private static Set<String> getGeohashCells(
+        double minLatitude,
+        double minLongitude,
+        double maxLatitude,
+        double maxLongitude,
+        int precision,
+        double cellHeight,
+        double cellWidth
+    ) {
+        Set<String> cells = new HashSet<>();
+        for (double latitude = minLatitude; ; latitude = Math.min(maxLatitude, latitude + cellHeight)) {
+            for (double longitude = minLongitude; ; longitude = Math.min(maxLongitude, longitude + cellWidth)) {
+                cells.add(new GeoHash(latitude, longitude, precision).getHash());
+                if (longitude >= maxLongitude) {
+                    break;
+                }
+            }
+            if (latitude >= maxLatitude) {
+                break;
+            }
+        }
+        return cells;
+    }
+
+    private static Collection<?> toCollection(Object value) {
+        if (value instanceof Collection) {
+            return (Collection<?>) value;
+        }
+        if (value instanceof Iterable) {
+            List<Object> results = new ArrayList<>();
+            for (Object o : (Iterable<?>) value) {
+                results.add(o);
+            }
+            return results;
+        }
+        if (value instanceof Object[]) {
+            return Arrays.asList((Object[]) value);
+        }
+        return null;
+    }
+
+    private static IndexKey toIndexKey(Object value) {
+        if (value instanceof String) {
+            return new IndexKey(ValueKind.STRING, ((String) value).toLowerCase());
+        }
+        if (value instanceof Number) {
+            return new IndexKey(ValueKind.NUMBER, ((Number) value).doubleValue());
+        }
+        if (value instanceof DateOnly) {
+            return new IndexKey(ValueKind.DATE_ONLY, ((DateOnly) value).getDate().getTime());
+        }
+        if (value instanceof Date) {
+            return new IndexKey(ValueKind.DATE, ((Date) value).getTime());
+        }
+        if (value instanceof Boolean) {
+            return new IndexKey(ValueKind.BOOLEAN, (Boolean) value);
+        }
+        if (value instanceof GeoPoint) {
+            GeoPoint geoPoint = (GeoPoint) value;
+            return new IndexKey(ValueKind.GEO_POINT, new GeoHash(geoPoint.getLatitude(), geoPoint.getLongitude(), GEOHASH_PRECISION).getHash());
+        }
+        return IndexKey.OTHER;
+    }
+
+    private static class IndexKey implements Comparable<IndexKey> {
+        private static final IndexKey OTHER = new IndexKey(ValueKind.OTHER, 0);
+        private final ValueKind kind;
+        private final Comparable<?> value;
+
+        private IndexKey(ValueKind kind, Comparable<?> value) {
+            this.kind = kind;
+            this.value = value;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public int compareTo(IndexKey o) {
+            int result = kind.compareTo(o.kind);
+            if (result != 0) {
+                return result;
+            }
+            return ((Comparable<Object>) value).compareTo(o.value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            IndexKey indexKey = (IndexKey) o;
+            return kind == indexKey.kind && value.equals(indexKey.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(kind, value);
+        }
+    }
+}
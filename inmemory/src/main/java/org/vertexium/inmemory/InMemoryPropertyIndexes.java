@@ -0,0 +1,72 @@
+package org.vertexium.inmemory;
+
+import org.vertexium.query.QueryBase;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The property indexes of an {@link InMemoryTable}, kept up to date by the table's elements as their property
+ * values change.
+ */
+public class InMemoryPropertyIndexes {
+    private final Map<String, InMemoryPropertyIndex> indexesByPropertyName = new ConcurrentHashMap<>();
+
+    public boolean isIndexed(String propertyName) {
+        return !indexesByPropertyName.isEmpty() && indexesByPropertyName.containsKey(propertyName);
+    }
+
+    public InMemoryPropertyIndex getIndex(String propertyName) {
+        return indexesByPropertyName.get(propertyName);
+    }
+
+    void addIndex(InMemoryPropertyIndex index) {
+        indexesByPropertyName.put(index.getPropertyName(), index);
+    }
+
+    void update(String elementId, String propertyName, Collection<Object> values) {
+        InMemoryPropertyIndex index = indexesByPropertyName.get(propertyName);
+        if (index != null) {
+            index.update(elementId, values);
+        }
+    }
+
+    void remove(String elementId) {
+        for (InMemoryPropertyIndex index : indexesByPropertyName.values()) {
+            index.remove(elementId);
+        }
+    }
+
+    void clear() {
+        for (InMemoryPropertyIndex index : indexesByPropertyName.values()) {
+            index.clear();
+        }
+    }
+
+    /**
+     * @return a superset of the ids of the elements matching the container or null if it can not be answered using
+     * the indexes.
+     */
+    public Set<String> getCandidateElementIds(QueryBase.HasContainer hasContainer) {
+        if (indexesByPropertyName.isEmpty() || !(hasContainer instanceof QueryBase.HasValueContainer)) {
+            return null;
+        }
+        QueryBase.HasValueContainer hasValueContainer = (QueryBase.HasValueContainer) hasContainer;
+        Set<String> results = new HashSet<>();
+        for (String propertyName : hasValueContainer.getKeys()) {
+            InMemoryPropertyIndex index = indexesByPropertyName.get(propertyName);
+            if (index == null) {
+                return null;
+            }
+            Set<String> elementIds = index.getCandidateElementIds(hasValueContainer.predicate, hasValueContainer.value);
+            if (elementIds == null) {
+                return null;
+            }
+            results.addAll(elementIds);
+        }
+        return results;
+    }
+}
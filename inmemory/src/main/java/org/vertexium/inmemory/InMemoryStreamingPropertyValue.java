@@ -18,4 +18,11 @@ public class InMemoryStreamingPropertyValue extends DefaultStreamingPropertyValu
     public InputStream getInputStream() {
         return new ByteArrayInputStream(this.data);
     }
+
+    @Override
+    public InputStream getInputStream(long offset, Long length) {
+        int start = (int) Math.min(offset, this.data.length);
+        int available = this.data.length - start;
+        return new ByteArrayInputStream(this.data, start, length == null ? available : (int) Math.min(length, available));
+    }
 }
@@ -1,32 +1,64 @@
 package org.vertexium.inmemory;
 
 import org.vertexium.Authorizations;
+import org.vertexium.ElementType;
 import org.vertexium.FetchHints;
 import org.vertexium.MetadataPlugin;
+import org.vertexium.VertexiumException;
 import org.vertexium.inmemory.mutations.Mutation;
 import org.vertexium.util.StreamUtils;
 
 import java.util.ArrayList;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 
 public abstract class InMemoryTable<TElement extends InMemoryElement> {
-    private final ReadWriteLock rowsLock = new ReentrantReadWriteLock();
+    private final ReadWriteLock[] rowsLocks;
     private final Map<String, InMemoryTableElement<TElement>> rows;
     private final MetadataPlugin metadataPlugin;
+    private final InMemoryPropertyIndexes propertyIndexes = new InMemoryPropertyIndexes();
+    private volatile InMemoryGraphPersistence persistence;
+    private volatile InMemoryChangeLog changeLog;
 
     protected InMemoryTable(Map<String, InMemoryTableElement<TElement>> rows, MetadataPlugin metadataPlugin) {
+        this(rows, metadataPlugin, InMemoryGraphConfiguration.DEFAULT_TABLE_LOCK_STRIPES);
+    }
+
+    /**
+     * @param lockStripes The number of locks to spread the rows over. With a single stripe every write is
+     *                    serialized across the whole table. With more than one stripe, writes to rows in different
+     *                    stripes can proceed concurrently which requires rows to be a {@link ConcurrentMap}.
+     */
+    protected InMemoryTable(Map<String, InMemoryTableElement<TElement>> rows, MetadataPlugin metadataPlugin, int lockStripes) {
+        if (lockStripes < 1) {
+            throw new VertexiumException("lockStripes must be greater than 0 but was " + lockStripes);
+        }
+        if (lockStripes > 1 && !(rows instanceof ConcurrentMap)) {
+            throw new VertexiumException("rows must be a " + ConcurrentMap.class.getName() + " when using more than one lock stripe");
+        }
         this.rows = rows;
         this.metadataPlugin = metadataPlugin;
+        this.rowsLocks = new ReadWriteLock[lockStripes];
+        for (int i = 0; i < lockStripes; i++) {
+            this.rowsLocks[i] = new ReentrantReadWriteLock();
+        }
+        for (InMemoryTableElement<TElement> inMemoryTableElement : rows.values()) {
+            inMemoryTableElement.setPropertyIndexes(propertyIndexes);
+        }
     }
 
     protected InMemoryTable(MetadataPlugin metadataPlugin) {
         this(new ConcurrentSkipListMap<>(), metadataPlugin);
     }
 
+    protected InMemoryTable(MetadataPlugin metadataPlugin, int lockStripes) {
+        this(new ConcurrentSkipListMap<>(), metadataPlugin, lockStripes);
+    }
+
     public TElement get(InMemoryGraph graph, String id, FetchHints fetchHints, Authorizations authorizations) {
         InMemoryTableElement<TElement> inMemoryTableElement = getTableElement(id);
         if (inMemoryTableElement == null) {
@@ -36,6 +68,7 @@ public abstract class InMemoryTable<TElement extends InMemoryElement> {
     }
 
     public InMemoryTableElement<TElement> getTableElement(String id) {
+        ReadWriteLock rowsLock = getRowsLock(id);
         rowsLock.readLock().lock();
         try {
             return rows.get(id);
@@ -45,36 +78,122 @@ public abstract class InMemoryTable<TElement extends InMemoryElement> {
     }
 
     public void append(String id, Mutation... newMutations) {
-        rowsLock.writeLock().lock();
+        InMemoryGraphPersistence persistence = this.persistence;
+        if (persistence != null) {
+            persistence.beginWrite();
+        }
         try {
-            InMemoryTableElement<TElement> inMemoryTableElement = rows.get(id);
-            if (inMemoryTableElement == null) {
-                inMemoryTableElement = createInMemoryTableElement(id, metadataPlugin);
-                rows.put(id, inMemoryTableElement);
+            ReadWriteLock rowsLock = getRowsLock(id);
+            rowsLock.writeLock().lock();
+            try {
+                InMemoryTableElement<TElement> inMemoryTableElement = rows.get(id);
+                if (inMemoryTableElement == null) {
+                    inMemoryTableElement = createInMemoryTableElement(id, metadataPlugin);
+                    inMemoryTableElement.setPersistence(persistence);
+                    inMemoryTableElement.setPropertyIndexes(propertyIndexes);
+                    inMemoryTableElement.setChangeLog(changeLog);
+                    rows.put(id, inMemoryTableElement);
+                }
+                inMemoryTableElement.addAll(newMutations);
+            } finally {
+                rowsLock.writeLock().unlock();
             }
-            inMemoryTableElement.addAll(newMutations);
         } finally {
-            rowsLock.writeLock().unlock();
+            if (persistence != null) {
+                persistence.endWrite();
+            }
         }
     }
 
     protected abstract InMemoryTableElement<TElement> createInMemoryTableElement(String id, MetadataPlugin metadataPlugin);
 
+    public abstract ElementType getElementType();
+
     public void remove(String id) {
-        rowsLock.writeLock().lock();
+        InMemoryGraphPersistence persistence = this.persistence;
+        if (persistence != null) {
+            persistence.beginWrite();
+        }
         try {
-            rows.remove(id);
+            ReadWriteLock rowsLock = getRowsLock(id);
+            rowsLock.writeLock().lock();
+            try {
+                rows.remove(id);
+                propertyIndexes.remove(id);
+                if (persistence != null) {
+                    persistence.logRemove(getElementType(), id);
+                }
+            } finally {
+                rowsLock.writeLock().unlock();
+            }
         } finally {
-            rowsLock.writeLock().unlock();
+            if (persistence != null) {
+                persistence.endWrite();
+            }
         }
     }
 
     public void clear() {
-        rowsLock.writeLock().lock();
+        InMemoryGraphPersistence persistence = this.persistence;
+        if (persistence != null) {
+            persistence.beginWrite();
+        }
         try {
-            rows.clear();
+            for (ReadWriteLock rowsLock : rowsLocks) {
+                rowsLock.writeLock().lock();
+            }
+            try {
+                rows.clear();
+                propertyIndexes.clear();
+                if (persistence != null) {
+                    persistence.logClear(getElementType());
+                }
+            } finally {
+                for (int i = rowsLocks.length - 1; i >= 0; i--) {
+                    rowsLocks[i].writeLock().unlock();
+                }
+            }
         } finally {
-            rowsLock.writeLock().unlock();
+            if (persistence != null) {
+                persistence.endWrite();
+            }
+        }
+    }
+
+    public InMemoryPropertyIndexes getPropertyIndexes() {
+        return propertyIndexes;
+    }
+
+    /**
+     * Indexes the values of the given property so that queries can find the elements with matching values without
+     * evaluating every element. Existing elements are indexed before this method returns.
+     */
+    public void addPropertyIndex(String propertyName, InMemoryPropertyIndex.Type type) {
+        propertyIndexes.addIndex(new InMemoryPropertyIndex(propertyName, type));
+        for (InMemoryTableElement<TElement> inMemoryTableElement : getRowValues()) {
+            inMemoryTableElement.updatePropertyIndex(propertyName);
+        }
+    }
+
+    /**
+     * Starts logging changes to this table and its elements. Must be called before the table is written to
+     * concurrently.
+     */
+    void setPersistence(InMemoryGraphPersistence persistence) {
+        this.persistence = persistence;
+        for (InMemoryTableElement<TElement> inMemoryTableElement : getRowValues()) {
+            inMemoryTableElement.setPersistence(persistence);
+        }
+    }
+
+    /**
+     * Starts logging the elements changed in this table, including the changes already made. Must be called before
+     * the table is written to concurrently.
+     */
+    void setChangeLog(InMemoryChangeLog changeLog) {
+        this.changeLog = changeLog;
+        for (InMemoryTableElement<TElement> inMemoryTableElement : getRowValues()) {
+            inMemoryTableElement.setChangeLog(changeLog);
         }
     }
 
@@ -91,6 +210,11 @@ public abstract class InMemoryTable<TElement extends InMemoryElement> {
     }
 
     public Iterable<InMemoryTableElement<TElement>> getRowValues() {
+        if (rowsLocks.length > 1) {
+            // rows is a concurrent map so it is safe to iterate while other stripes are being written to
+            return new ArrayList<>(this.rows.values());
+        }
+        ReadWriteLock rowsLock = rowsLocks[0];
         rowsLock.readLock().lock();
         try {
             return new ArrayList<>(this.rows.values());
@@ -98,4 +222,13 @@ public abstract class InMemoryTable<TElement extends InMemoryElement> {
             rowsLock.readLock().unlock();
         }
     }
+
+    private ReadWriteLock getRowsLock(String id) {
+        if (rowsLocks.length == 1) {
+            return rowsLocks[0];
+        }
+        int hash = id.hashCode();
+        hash ^= (hash >>> 16);
+        return rowsLocks[Math.floorMod(hash, rowsLocks.length)];
+    }
 }
@@ -102,4 +102,29 @@ public class InMemoryTableEdge extends InMemoryTableElement<InMemoryEdge> {
         }
         return m.getInVertexId();
     }
+
+    public String getLabel() {
+        AlterEdgeLabelMutation m = findLastMutation(AlterEdgeLabelMutation.class);
+        if (m == null) {
+            return null;
+        }
+        return m.getNewEdgeLabel();
+    }
+
+    /**
+     * @param endTime the time to get the label at, or null to get the current label.
+     */
+    public String getLabel(Long endTime) {
+        if (endTime == null) {
+            return getLabel();
+        }
+        AlterEdgeLabelMutation result = null;
+        for (AlterEdgeLabelMutation m : findMutations(AlterEdgeLabelMutation.class)) {
+            // the label the edge was created with is used if it was created after the end time
+            if (result == null || m.getTimestamp() <= endTime) {
+                result = m;
+            }
+        }
+        return result == null ? null : result.getNewEdgeLabel();
+    }
 }
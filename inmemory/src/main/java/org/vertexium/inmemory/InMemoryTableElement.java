@@ -18,6 +18,7 @@ import java.util.*;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -27,6 +28,21 @@ public abstract class InMemoryTableElement<TElement extends InMemoryElement> imp
     private final MetadataPlugin metadataPlugin;
     protected final TreeSet<Mutation> mutations = new TreeSet<>();
 
+    // Current state of the element, maintained as mutations are added so that reads which are not bounded by an
+    // end time do not need to filter the whole mutation history. Guarded by mutationLock.
+    private final Map<Class<?>, Mutation> firstMutationByClass = new HashMap<>();
+    private final Map<Class<?>, Mutation> lastMutationByClass = new HashMap<>();
+    private final Set<Visibility> hiddenVisibilities = new HashSet<>();
+    private final Set<String> additionalVisibilities = new HashSet<>();
+    private final TreeMap<String, List<PropertyMutation>> propertyMutationsByMapKey = new TreeMap<>();
+    // last mutation of each type and mutation visibility per property, enough to build the current property for any
+    // authorizations unless previous metadata is requested
+    private final TreeMap<String, List<PropertyMutation>> propertyHeadsByMapKey = new TreeMap<>();
+    private boolean currentStateStale;
+    private transient volatile InMemoryGraphPersistence persistence;
+    private transient volatile InMemoryPropertyIndexes propertyIndexes;
+    private transient volatile InMemoryChangeLog changeLog;
+
     protected InMemoryTableElement(String id, MetadataPlugin metadataPlugin) {
         this.id = id;
         this.metadataPlugin = metadataPlugin;
@@ -38,29 +54,132 @@ public abstract class InMemoryTableElement<TElement extends InMemoryElement> imp
     }
 
     public void addAll(Mutation... newMutations) {
+        InMemoryGraphPersistence persistence = this.persistence;
+        if (persistence != null) {
+            persistence.beginWrite();
+        }
+        try {
+            List<Mutation> addedMutations = new ArrayList<>(newMutations.length);
+            mutationLock.writeLock().lock();
+            try {
+                Set<String> indexedPropertyNames = null;
+                for (Mutation newMutation : newMutations) {
+                    if (addMutationInternal(newMutation)) {
+                        addedMutations.add(newMutation);
+                        if (isIndexedPropertyValue(newMutation)) {
+                            if (indexedPropertyNames == null) {
+                                indexedPropertyNames = new HashSet<>();
+                            }
+                            indexedPropertyNames.add(((PropertyMutation) newMutation).getPropertyName());
+                        }
+                    }
+                }
+                if (indexedPropertyNames != null) {
+                    for (String propertyName : indexedPropertyNames) {
+                        updatePropertyIndexInternal(propertyName);
+                    }
+                }
+                if (persistence != null && addedMutations.size() > 0) {
+                    persistence.logAppend(getElementType(), getId(), addedMutations);
+                }
+            } finally {
+                mutationLock.writeLock().unlock();
+            }
+            InMemoryChangeLog changeLog = this.changeLog;
+            if (changeLog != null) {
+                changeLog.logAppend(this, addedMutations);
+            }
+        } finally {
+            if (persistence != null) {
+                persistence.endWrite();
+            }
+        }
+    }
+
+    void setPersistence(InMemoryGraphPersistence persistence) {
+        this.persistence = persistence;
+    }
+
+    /**
+     * Starts logging changes to this element, logging the existing mutations first.
+     */
+    void setChangeLog(InMemoryChangeLog changeLog) {
+        this.changeLog = changeLog;
+        if (changeLog != null) {
+            changeLog.logAppend(this, getFilteredMutations(m -> true));
+        }
+    }
+
+    void setPropertyIndexes(InMemoryPropertyIndexes propertyIndexes) {
+        this.propertyIndexes = propertyIndexes;
+    }
+
+    void updatePropertyIndex(String propertyName) {
         mutationLock.writeLock().lock();
         try {
-            Collections.addAll(mutations, newMutations);
+            updatePropertyIndexInternal(propertyName);
         } finally {
             mutationLock.writeLock().unlock();
         }
     }
 
+    private boolean isIndexedPropertyValue(Mutation mutation) {
+        InMemoryPropertyIndexes propertyIndexes = this.propertyIndexes;
+        return propertyIndexes != null
+            && mutation instanceof AddPropertyValueMutation
+            && propertyIndexes.isIndexed(((AddPropertyValueMutation) mutation).getPropertyName());
+    }
+
+    private void updatePropertyIndexInternal(String propertyName) {
+        InMemoryPropertyIndexes propertyIndexes = this.propertyIndexes;
+        if (propertyIndexes == null || !propertyIndexes.isIndexed(propertyName)) {
+            return;
+        }
+        if (currentStateStale) {
+            rebuildCurrentState();
+        }
+        // readers see the last value they are authorized to read, so keep the last value per mutation visibility
+        List<Object> values = new ArrayList<>();
+        for (List<PropertyMutation> propertyMutations : propertyMutationsByMapKey.values()) {
+            Map<Visibility, Object> lastValueByVisibility = new HashMap<>();
+            for (PropertyMutation propertyMutation : propertyMutations) {
+                if (propertyMutation instanceof AddPropertyValueMutation && propertyMutation.getPropertyName().equals(propertyName)) {
+                    lastValueByVisibility.put(propertyMutation.getVisibility(), ((AddPropertyValueMutation) propertyMutation).getValue());
+                }
+            }
+            values.addAll(lastValueByVisibility.values());
+        }
+        propertyIndexes.update(getId(), propertyName, values);
+    }
+
     public long getFirstTimestamp() {
         return findFirstMutation(ElementTimestampMutation.class).getTimestamp();
     }
 
     @SuppressWarnings("unchecked")
     protected <T extends Mutation> T findLastMutation(Class<T> clazz) {
-        List<Mutation> filteredMutations = getFilteredMutations(m -> clazz.isAssignableFrom(m.getClass()));
-        return filteredMutations.isEmpty() ? null : (T) filteredMutations.get(filteredMutations.size() - 1);
+        return withCurrentState(() -> {
+            Mutation result = null;
+            for (Map.Entry<Class<?>, Mutation> entry : lastMutationByClass.entrySet()) {
+                if (clazz.isAssignableFrom(entry.getKey()) && (result == null || entry.getValue().compareTo(result) > 0)) {
+                    result = entry.getValue();
+                }
+            }
+            return (T) result;
+        });
     }
 
     @SuppressWarnings("unchecked")
     protected <T extends Mutation> T findFirstMutation(Class<T> clazz) {
-        List<Mutation> filteredMutations = getFilteredMutations(m -> clazz.isAssignableFrom(m.getClass()));
-        //noinspection unchecked
-        return filteredMutations.isEmpty() ? null : (T) filteredMutations.get(0);
+        return withCurrentState(() -> {
+            Mutation result = null;
+            for (Map.Entry<Class<?>, Mutation> entry : firstMutationByClass.entrySet()) {
+                if (clazz.isAssignableFrom(entry.getKey()) && (result == null || entry.getValue().compareTo(result) < 0)) {
+                    result = entry.getValue();
+                }
+            }
+            return (T) result;
+        });
     }
 
     @SuppressWarnings("unchecked")
@@ -77,10 +196,6 @@ public abstract class InMemoryTableElement<TElement extends InMemoryElement> imp
         return findLastMutation(ElementTimestampMutation.class).getTimestamp();
     }
 
-    private List<PropertyMutation> findPropertyMutations(Property p) {
-        return findPropertyMutations(p.getKey(), p.getName(), p.getVisibility());
-    }
-
     public Property deleteProperty(String key, String name, Authorizations authorizations) {
         return deleteProperty(key, name, null, authorizations);
     }
@@ -102,12 +217,33 @@ public abstract class InMemoryTableElement<TElement extends InMemoryElement> imp
     }
 
     protected void deleteProperty(Property p) {
-        List<PropertyMutation> propertyMutations = findPropertyMutations(p);
-        mutationLock.writeLock().lock();
+        deletePropertyMutations(p.getKey(), p.getName(), p.getVisibility());
+    }
+
+    void deletePropertyMutations(String key, String name, Visibility visibility) {
+        InMemoryGraphPersistence persistence = this.persistence;
+        if (persistence != null) {
+            persistence.beginWrite();
+        }
         try {
-            this.mutations.removeAll(propertyMutations);
+            List<PropertyMutation> propertyMutations = findPropertyMutations(key, name, visibility);
+            mutationLock.writeLock().lock();
+            try {
+                this.mutations.removeAll(propertyMutations);
+                currentStateStale = true;
+                if (name != null) {
+                    updatePropertyIndexInternal(name);
+                }
+                if (persistence != null) {
+                    persistence.logDeleteProperty(getElementType(), getId(), key, name, visibility);
+                }
+            } finally {
+                mutationLock.writeLock().unlock();
+            }
         } finally {
-            mutationLock.writeLock().unlock();
+            if (persistence != null) {
+                persistence.endWrite();
+            }
         }
     }
 
@@ -414,6 +550,20 @@ public abstract class InMemoryTableElement<TElement extends InMemoryElement> imp
     }
 
     private List<PropertyMutation> findPropertyMutations(String key, String name, Visibility visibility) {
+        if (key != null && name != null && visibility != null) {
+            String mapKey = toMapKey(key, name, visibility);
+            return withCurrentState(() -> {
+                List<PropertyMutation> propertyMutations = propertyMutationsByMapKey.get(mapKey);
+                if (propertyMutations == null) {
+                    return new ArrayList<>();
+                }
+                return propertyMutations.stream()
+                    .filter(m -> m.getPropertyKey().equals(key)
+                        && m.getPropertyName().equals(name)
+                        && m.getPropertyVisibility().equals(visibility))
+                    .collect(Collectors.toList());
+            });
+        }
         return getFilteredMutations(m ->
             m instanceof PropertyMutation &&
                 (key == null || ((PropertyMutation) m).getPropertyKey().equals(key))
@@ -513,14 +663,26 @@ public abstract class InMemoryTableElement<TElement extends InMemoryElement> imp
 
     public Iterable<Property> getProperties(FetchHints fetchHints, Long endTime, Authorizations authorizations) {
         final TreeMap<String, List<PropertyMutation>> propertiesMutations = new TreeMap<>();
-        for (PropertyMutation m : findMutations(PropertyMutation.class)) {
-            if (endTime != null && m.getTimestamp() > endTime) {
-                continue;
-            }
+        if (endTime == null) {
+            TreeMap<String, List<PropertyMutation>> source = fetchHints.isIncludePreviousMetadata()
+                ? propertyMutationsByMapKey
+                : propertyHeadsByMapKey;
+            withCurrentState(() -> {
+                for (Map.Entry<String, List<PropertyMutation>> entry : source.entrySet()) {
+                    propertiesMutations.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+                }
+                return null;
+            });
+        } else {
+            for (PropertyMutation m : findMutations(PropertyMutation.class)) {
+                if (m.getTimestamp() > endTime) {
+                    continue;
+                }
 
-            String mapKey = toMapKey(m);
-            List<PropertyMutation> propertyMutations = propertiesMutations.computeIfAbsent(mapKey, k -> new ArrayList<>());
-            propertyMutations.add(m);
+                String mapKey = toMapKey(m);
+                List<PropertyMutation> propertyMutations = propertiesMutations.computeIfAbsent(mapKey, k -> new ArrayList<>());
+                propertyMutations.add(m);
+            }
         }
         return new LookAheadIterable<List<PropertyMutation>, Property>() {
             @Override
@@ -635,7 +797,11 @@ public abstract class InMemoryTableElement<TElement extends InMemoryElement> imp
     }
 
     private String toMapKey(PropertyMutation m) {
-        return m.getPropertyName() + m.getPropertyKey() + m.getPropertyVisibility().getVisibilityString();
+        return toMapKey(m.getPropertyKey(), m.getPropertyName(), m.getPropertyVisibility());
+    }
+
+    private static String toMapKey(String key, String name, Visibility visibility) {
+        return name + key + visibility.getVisibilityString();
     }
 
     public void appendSoftDeleteMutation(Long timestamp, Object data) {
@@ -787,39 +953,11 @@ public abstract class InMemoryTableElement<TElement extends InMemoryElement> imp
     }
 
     public ImmutableSet<String> getAdditionalVisibilities() {
-        Set<String> results = new HashSet<>();
-
-        mutationLock.readLock().lock();
-        try {
-            for (Mutation m : this.mutations) {
-                if (m instanceof AddAdditionalVisibilityMutation) {
-                    results.add(((AddAdditionalVisibilityMutation) m).getAdditionalVisibility());
-                } else if (m instanceof DeleteAdditionalVisibilityMutation) {
-                    results.remove(((DeleteAdditionalVisibilityMutation) m).getAdditionalVisibility());
-                }
-            }
-        } finally {
-            mutationLock.readLock().unlock();
-        }
-        return ImmutableSet.copyOf(results);
+        return withCurrentState(() -> ImmutableSet.copyOf(additionalVisibilities));
     }
 
     public Set<Visibility> getHiddenVisibilities() {
-        Set<Visibility> results = new HashSet<>();
-
-        mutationLock.readLock().lock();
-        try {
-            for (Mutation m : this.mutations) {
-                if (m instanceof MarkHiddenMutation) {
-                    results.add(m.getVisibility());
-                } else if (m instanceof MarkVisibleMutation) {
-                    results.remove(m.getVisibility());
-                }
-            }
-        } finally {
-            mutationLock.readLock().unlock();
-        }
-        return results;
+        return withCurrentState(() -> new HashSet<>(hiddenVisibilities));
     }
 
     public boolean isHidden(Authorizations authorizations) {
@@ -846,6 +984,16 @@ public abstract class InMemoryTableElement<TElement extends InMemoryElement> imp
     }
 
     public boolean isDeleted(Long endTime, Authorizations authorizations) {
+        if (endTime == null) {
+            // soft delete and element timestamp mutations are always written with an empty visibility so there is
+            // no need to check the authorizations when looking at the current state
+            Mutation lastSoftDeleteMutation = findLastMutation(SoftDeleteMutation.class);
+            Mutation lastElementTimestampMutation = findLastMutation(ElementTimestampMutation.class);
+            if (lastSoftDeleteMutation == null) {
+                return lastElementTimestampMutation == null;
+            }
+            return lastElementTimestampMutation == null || lastSoftDeleteMutation.compareTo(lastElementTimestampMutation) > 0;
+        }
         List<Mutation> filteredMutations = getFilteredMutations(m ->
             canRead(m.getVisibility(), authorizations) &&
                 (endTime == null || m.getTimestamp() <= endTime) &&
@@ -868,11 +1016,76 @@ public abstract class InMemoryTableElement<TElement extends InMemoryElement> imp
     }
 
     private void addMutation(Mutation mutation) {
-        mutationLock.writeLock().lock();
-        try {
-            this.mutations.add(mutation);
-        } finally {
-            mutationLock.writeLock().unlock();
+        addAll(mutation);
+    }
+
+    private boolean addMutationInternal(Mutation mutation) {
+        boolean isLastMutation = this.mutations.isEmpty() || mutation.compareTo(this.mutations.last()) > 0;
+        if (!this.mutations.add(mutation)) {
+            return false;
+        }
+        if (isLastMutation && !currentStateStale) {
+            applyToCurrentState(mutation);
+        } else {
+            // the current state depends on mutation order, rebuild it from the full history on the next read
+            currentStateStale = true;
+        }
+        return true;
+    }
+
+    private void applyToCurrentState(Mutation m) {
+        firstMutationByClass.putIfAbsent(m.getClass(), m);
+        lastMutationByClass.put(m.getClass(), m);
+        if (m instanceof MarkHiddenMutation) {
+            hiddenVisibilities.add(m.getVisibility());
+        } else if (m instanceof MarkVisibleMutation) {
+            hiddenVisibilities.remove(m.getVisibility());
+        } else if (m instanceof AddAdditionalVisibilityMutation) {
+            additionalVisibilities.add(((AddAdditionalVisibilityMutation) m).getAdditionalVisibility());
+        } else if (m instanceof DeleteAdditionalVisibilityMutation) {
+            additionalVisibilities.remove(((DeleteAdditionalVisibilityMutation) m).getAdditionalVisibility());
+        } else if (m instanceof PropertyMutation) {
+            PropertyMutation propertyMutation = (PropertyMutation) m;
+            String mapKey = toMapKey(propertyMutation);
+            propertyMutationsByMapKey.computeIfAbsent(mapKey, k -> new ArrayList<>()).add(propertyMutation);
+            List<PropertyMutation> heads = propertyHeadsByMapKey.computeIfAbsent(mapKey, k -> new ArrayList<>());
+            heads.removeIf(head -> head.getClass() == m.getClass() && Objects.equals(head.getVisibility(), m.getVisibility()));
+            heads.add(propertyMutation);
+        }
+    }
+
+    private void rebuildCurrentState() {
+        firstMutationByClass.clear();
+        lastMutationByClass.clear();
+        hiddenVisibilities.clear();
+        additionalVisibilities.clear();
+        propertyMutationsByMapKey.clear();
+        propertyHeadsByMapKey.clear();
+        for (Mutation m : this.mutations) {
+            applyToCurrentState(m);
+        }
+        currentStateStale = false;
+    }
+
+    private <T> T withCurrentState(Supplier<T> fn) {
+        while (true) {
+            mutationLock.readLock().lock();
+            try {
+                if (!currentStateStale) {
+                    return fn.get();
+                }
+            } finally {
+                mutationLock.readLock().unlock();
+            }
+
+            mutationLock.writeLock().lock();
+            try {
+                if (currentStateStale) {
+                    rebuildCurrentState();
+                }
+            } finally {
+                mutationLock.writeLock().unlock();
+            }
         }
     }
 }
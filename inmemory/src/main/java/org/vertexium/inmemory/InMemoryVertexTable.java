@@ -1,5 +1,6 @@
 package org.vertexium.inmemory;
 
+import org.vertexium.ElementType;
 import org.vertexium.MetadataPlugin;
 
 import java.util.Map;
@@ -13,6 +14,15 @@ public class InMemoryVertexTable extends InMemoryTable<InMemoryVertex> {
         super(metadataPlugin);
     }
 
+    public InMemoryVertexTable(MetadataPlugin metadataPlugin, int lockStripes) {
+        super(metadataPlugin, lockStripes);
+    }
+
+    @Override
+    public ElementType getElementType() {
+        return ElementType.VERTEX;
+    }
+
     @Override
     protected InMemoryTableElement<InMemoryVertex> createInMemoryTableElement(String id, MetadataPlugin metadataPlugin) {
         return new InMemoryTableVertex(id, metadataPlugin);
@@ -91,6 +91,15 @@ public class MapInMemoryExtendedDataTable extends InMemoryExtendedDataTable {
         data.deleteAdditionalVisibility(rowId, additionalVisibility);
     }
 
+    @Override
+    public synchronized Iterable<InMemoryExtendedDataRow> getAllRows() {
+        List<InMemoryExtendedDataRow> results = new ArrayList<>();
+        for (ElementTypeData data : elementTypeData.values()) {
+            data.addAllRows(results);
+        }
+        return results;
+    }
+
     private static class ElementTypeData {
         Map<String, ElementData> elementData = new HashMap<>();
 
@@ -154,6 +163,12 @@ public class MapInMemoryExtendedDataTable extends InMemoryExtendedDataTable {
                 data.deleteAdditionalVisibility(rowId, additionalVisibility);
             }
         }
+
+        public synchronized void addAllRows(List<InMemoryExtendedDataRow> results) {
+            for (ElementData data : elementData.values()) {
+                data.addAllRows(results);
+            }
+        }
     }
 
     private static class ElementData {
@@ -225,6 +240,12 @@ public class MapInMemoryExtendedDataTable extends InMemoryExtendedDataTable {
             }
         }
 
+        public synchronized void addAllRows(List<InMemoryExtendedDataRow> results) {
+            for (Table table : tables.values()) {
+                table.addAllRows(results);
+            }
+        }
+
         private class Table {
             private final TreeSet<InMemoryExtendedDataRow> rows = new TreeSet<>();
 
@@ -238,6 +259,12 @@ public class MapInMemoryExtendedDataTable extends InMemoryExtendedDataTable {
                 }
             }
 
+            public void addAllRows(List<InMemoryExtendedDataRow> results) {
+                synchronized (rows) {
+                    results.addAll(rows);
+                }
+            }
+
             public boolean canRead(VisibilityEvaluator visibilityEvaluator, FetchHints fetchHints) {
                 synchronized (rows) {
                     return rows.stream().anyMatch(r -> r.canRead(visibilityEvaluator, fetchHints));
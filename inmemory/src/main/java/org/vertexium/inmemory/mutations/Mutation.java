@@ -1,12 +1,14 @@
 package org.vertexium.inmemory.mutations;
 
 import org.vertexium.Visibility;
-import org.vertexium.util.IncreasingTime;
 
 import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
 
 public abstract class Mutation implements Comparable<Mutation>, Serializable {
-    private final long objectCreationTimestamp = IncreasingTime.currentTimeMillis();
+    // a sequence rather than IncreasingTime so that replaying a persisted graph does not push the clock forward
+    private static final AtomicLong NEXT_OBJECT_CREATION_ORDER = new AtomicLong();
+    private final long objectCreationOrder = NEXT_OBJECT_CREATION_ORDER.incrementAndGet();
     private final long timestamp;
     private final Visibility visibility;
 
@@ -36,7 +38,7 @@ public abstract class Mutation implements Comparable<Mutation>, Serializable {
         }
 
         // ensure mutation ordering when working with in memory graph
-        result = Long.compare(objectCreationTimestamp, o.objectCreationTimestamp);
+        result = Long.compare(objectCreationOrder, o.objectCreationOrder);
         if (result != 0) {
             return result;
         }
@@ -0,0 +1,83 @@
+package org.vertexium.inmemory.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads a file through read-only memory mapped windows so that large files are paged in by the operating system
+ * instead of being copied through buffered reads.
+ */
+public class MappedFileInputStream extends InputStream {
+    private static final long DEFAULT_WINDOW_SIZE = 256L * 1024 * 1024;
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final long size;
+    private final long windowSize;
+    private long windowStart;
+    private MappedByteBuffer window;
+
+    public MappedFileInputStream(File file) throws IOException {
+        this(file, DEFAULT_WINDOW_SIZE);
+    }
+
+    public MappedFileInputStream(File file, long windowSize) throws IOException {
+        this.file = new RandomAccessFile(file, "r");
+        this.channel = this.file.getChannel();
+        this.size = channel.size();
+        this.windowSize = windowSize;
+        this.windowStart = 0;
+        this.window = map(0);
+    }
+
+    private MappedByteBuffer map(long position) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowSize, size - position));
+    }
+
+    private boolean ensureAvailable() throws IOException {
+        if (window.hasRemaining()) {
+            return true;
+        }
+        long nextWindowStart = windowStart + window.capacity();
+        if (nextWindowStart >= size) {
+            return false;
+        }
+        windowStart = nextWindowStart;
+        window = map(windowStart);
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureAvailable()) {
+            return -1;
+        }
+        return window.get() & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureAvailable()) {
+            return -1;
+        }
+        int count = Math.min(len, window.remaining());
+        window.get(b, off, count);
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return window.remaining();
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+}
@@ -1,23 +1,61 @@
 package org.vertexium.inmemory;
 
+import com.google.common.collect.ImmutableSet;
 import org.junit.After;
 import org.junit.Before;
+import org.junit.Ignore;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 import org.vertexium.*;
+import org.vertexium.historicalEvent.HistoricalEvent;
+import org.vertexium.historicalEvent.HistoricalEventId;
+import org.vertexium.historicalEvent.HistoricalSoftDeleteVertexEvent;
 import org.vertexium.id.UUIDIdGenerator;
+import org.vertexium.query.Compare;
+import org.vertexium.query.Contains;
+import org.vertexium.query.GeoCompare;
+import org.vertexium.query.QueryBase;
 import org.vertexium.search.DefaultSearchIndex;
 import org.vertexium.test.GraphTestBase;
 import org.vertexium.test.TestMetadataPlugin;
+import org.vertexium.type.GeoCircle;
+import org.vertexium.type.GeoPoint;
+import org.vertexium.type.GeoRect;
+import org.vertexium.util.IncreasingTime;
+import org.vertexium.util.VertexiumLogger;
+import org.vertexium.util.VertexiumLoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.vertexium.test.util.VertexiumAssert.assertIdsAnyOrder;
+import static org.vertexium.test.util.VertexiumAssert.assertVertexIdsAnyOrder;
+import static org.vertexium.util.IterableUtils.count;
+import static org.vertexium.util.IterableUtils.toList;
 
 @RunWith(JUnit4.class)
 public class InMemoryGraphTest extends GraphTestBase {
+    private static final VertexiumLogger LOGGER = VertexiumLoggerFactory.getLogger(InMemoryGraphTest.class);
+
     @Override
     protected Graph createGraph() {
         Map<String, String> config = createConfig();
@@ -86,4 +124,367 @@ public class InMemoryGraphTest extends GraphTestBase {
             assertEquals(String.class, ex.getValueClass());
         }
     }
+
+    @Test
+    public void testAdjacencyIndexTracksEdgeChanges() {
+        Vertex v1 = getGraph().prepareVertex("v1", VISIBILITY_A).save(AUTHORIZATIONS_A);
+        getGraph().prepareVertex("v2", VISIBILITY_A).save(AUTHORIZATIONS_A);
+        getGraph().prepareVertex("v3", VISIBILITY_A).save(AUTHORIZATIONS_A);
+        getGraph().prepareEdge("e1", "v1", "v2", LABEL_LABEL1, VISIBILITY_A).save(AUTHORIZATIONS_A);
+        getGraph().prepareEdge("e2", "v3", "v1", LABEL_LABEL1, VISIBILITY_A).save(AUTHORIZATIONS_A);
+        getGraph().prepareEdge("e3", "v1", "v1", LABEL_LABEL2, VISIBILITY_A).save(AUTHORIZATIONS_A);
+        getGraph().flush();
+
+        v1 = getGraph().getVertex("v1", AUTHORIZATIONS_A);
+        assertIdsAnyOrder(v1.getEdgeIds(Direction.BOTH, AUTHORIZATIONS_A), "e1", "e2", "e3");
+        assertIdsAnyOrder(v1.getEdgeIds(Direction.OUT, AUTHORIZATIONS_A), "e1", "e3");
+        assertIdsAnyOrder(v1.getEdgeIds(Direction.IN, AUTHORIZATIONS_A), "e2", "e3");
+        assertIdsAnyOrder(v1.getEdgeIds(Direction.BOTH, LABEL_LABEL2, AUTHORIZATIONS_A), "e3");
+
+        long beforeLabelChange = IncreasingTime.currentTimeMillis();
+        getGraph().getEdge("e1", AUTHORIZATIONS_A).prepareMutation()
+            .alterEdgeLabel(LABEL_LABEL2)
+            .save(AUTHORIZATIONS_A);
+        getGraph().flush();
+        v1 = getGraph().getVertex("v1", AUTHORIZATIONS_A);
+        assertIdsAnyOrder(v1.getEdgeIds(Direction.OUT, LABEL_LABEL1, AUTHORIZATIONS_A));
+        assertIdsAnyOrder(v1.getEdgeIds(Direction.OUT, LABEL_LABEL2, AUTHORIZATIONS_A), "e1", "e3");
+        // reads of past states see the label the edge had then
+        List<Edge> pastEdges = toList(v1.getEdges(Direction.OUT, FetchHints.ALL, beforeLabelChange, AUTHORIZATIONS_A));
+        assertEquals(
+            Arrays.asList("e1:" + LABEL_LABEL1, "e3:" + LABEL_LABEL2),
+            pastEdges.stream().map(e -> e.getId() + ":" + e.getLabel()).sorted().collect(Collectors.toList())
+        );
+
+        getGraph().deleteEdge("e2", AUTHORIZATIONS_A);
+        long beforeSoftDelete = IncreasingTime.currentTimeMillis();
+        getGraph().softDeleteEdge("e3", AUTHORIZATIONS_A);
+        getGraph().flush();
+        v1 = getGraph().getVertex("v1", AUTHORIZATIONS_A);
+        assertIdsAnyOrder(v1.getEdgeIds(Direction.BOTH, AUTHORIZATIONS_A), "e1");
+        assertIdsAnyOrder(toList(v1.getEdges(Direction.BOTH, FetchHints.ALL, beforeSoftDelete, AUTHORIZATIONS_A)).stream().map(Edge::getId).collect(Collectors.toList()), "e1", "e3");
+
+        getGraph().prepareEdge("e3", "v1", "v1", LABEL_LABEL2, VISIBILITY_A).save(AUTHORIZATIONS_A);
+        getGraph().flush();
+        v1 = getGraph().getVertex("v1", AUTHORIZATIONS_A);
+        assertIdsAnyOrder(v1.getEdgeIds(Direction.BOTH, AUTHORIZATIONS_A), "e1", "e3");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testMultiThreadedIngestWithLockStripes() throws Exception {
+        Map<String, String> config = createConfig();
+        config.put(InMemoryGraphConfiguration.TABLE_LOCK_STRIPES, "16");
+        InMemoryGraph g = InMemoryGraph.create((Map) config);
+        g.createAuthorizations("a");
+
+        ingestMultiThreaded(g, 4, 50);
+
+        assertEquals(4 * 50 + 1, g.getVertexCount(AUTHORIZATIONS_A));
+        assertEquals(4 * 50, g.getEdgeCount(AUTHORIZATIONS_A));
+        Vertex hub = g.getVertex("hub", AUTHORIZATIONS_A);
+        assertEquals(4 * 50, count(hub.getEdgeIds(Direction.IN, AUTHORIZATIONS_A)));
+    }
+
+    @Test
+    @Ignore // performance test
+    @SuppressWarnings("unchecked")
+    public void testMultiThreadedIngestPerformance() throws Exception {
+        int threadCount = Runtime.getRuntime().availableProcessors();
+        int verticesPerThread = 50000;
+
+        StringBuilder results = new StringBuilder("RESULTS\nlockStripes,threadCount,verticesPerThread,ingestTime");
+        for (int lockStripes : new int[]{1, 64}) {
+            Map<String, String> config = createConfig();
+            config.put(InMemoryGraphConfiguration.TABLE_LOCK_STRIPES, Integer.toString(lockStripes));
+            InMemoryGraph g = InMemoryGraph.create((Map) config);
+            g.createAuthorizations("a");
+
+            long startTime = System.currentTimeMillis();
+            ingestMultiThreaded(g, threadCount, verticesPerThread);
+            long ingestTime = System.currentTimeMillis() - startTime;
+
+            assertEquals(threadCount * verticesPerThread + 1, g.getVertexCount(AUTHORIZATIONS_A));
+            results.append(String.format("\n%d,%d,%d,%d", lockStripes, threadCount, verticesPerThread, ingestTime));
+        }
+        LOGGER.info("%s", results);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testPersistence() throws Exception {
+        Path dir = Files.createTempDirectory("vertexium-inmemory-persistence");
+        try {
+            Map<String, String> config = createConfig();
+            config.put(InMemoryGraphConfiguration.PERSISTENCE_DIR, dir.toString());
+            config.put(InMemoryGraphConfiguration.PERSISTENCE_SNAPSHOT_INTERVAL, "0ms");
+
+            Path replayDir = Files.createTempDirectory("vertexium-inmemory-persistence-replay");
+            try {
+                Map<String, String> replayConfig = createConfig();
+                replayConfig.put(InMemoryGraphConfiguration.PERSISTENCE_DIR, replayDir.toString());
+                replayConfig.put(InMemoryGraphConfiguration.PERSISTENCE_SNAPSHOT_INTERVAL, "0ms");
+
+                InMemoryGraph g = InMemoryGraph.create((Map) config);
+                try {
+                    g.createAuthorizations("a");
+                    g.prepareVertex("v1", VISIBILITY_A)
+                        .addPropertyValue("k1", "prop1", "value1", VISIBILITY_A)
+                        .addPropertyValue("k1", "prop2", "value2", VISIBILITY_A)
+                        .addExtendedData("table1", "row1", "column1", "extended1", VISIBILITY_A)
+                        .save(AUTHORIZATIONS_A);
+                    g.prepareVertex("v2", VISIBILITY_A).save(AUTHORIZATIONS_A);
+                    g.prepareVertex("v3", VISIBILITY_A).save(AUTHORIZATIONS_A);
+                    g.prepareEdge("e1", "v1", "v2", LABEL_LABEL1, VISIBILITY_A).save(AUTHORIZATIONS_A);
+                    g.getEdge("e1", AUTHORIZATIONS_A).prepareMutation().alterEdgeLabel(LABEL_LABEL2).save(AUTHORIZATIONS_A);
+                    g.getVertex("v1", AUTHORIZATIONS_A).prepareMutation().deleteProperties("k1", "prop2").save(AUTHORIZATIONS_A);
+                    g.deleteVertex("v3", AUTHORIZATIONS_A);
+                    g.setMetadata("key1", "metadata1");
+                    g.flush();
+
+                    // the directory is locked while the graph is open
+                    try {
+                        InMemoryGraph.create((Map) config);
+                        fail("expected the persistence directory to be locked");
+                    } catch (VertexiumException ex) {
+                        // expected
+                    }
+
+                    // a graph on a copy of the directory, as left by a process which stopped without a snapshot,
+                    // replays the mutation log
+                    try (Stream<Path> paths = Files.list(dir)) {
+                        for (Path path : paths.collect(Collectors.toList())) {
+                            Files.copy(path, replayDir.resolve(path.getFileName()));
+                        }
+                    }
+                    InMemoryGraph replayed = InMemoryGraph.create((Map) replayConfig);
+                    try {
+                        assertPersistedGraph(replayed);
+                    } finally {
+                        replayed.shutdown();
+                    }
+                } finally {
+                    g.shutdown();
+                }
+
+                // shutdown writes a snapshot which replaces the log
+                InMemoryGraph restored = InMemoryGraph.create((Map) config);
+                try {
+                    assertPersistedGraph(restored);
+                    restored.prepareVertex("v4", VISIBILITY_A).save(AUTHORIZATIONS_A);
+                    restored.flush();
+                } finally {
+                    restored.shutdown();
+                }
+
+                InMemoryGraph reopened = InMemoryGraph.create((Map) config);
+                try {
+                    assertVertexIdsAnyOrder(reopened.getVertices(AUTHORIZATIONS_A), "v1", "v2", "v4");
+                } finally {
+                    reopened.shutdown();
+                }
+            } finally {
+                try (Stream<Path> paths = Files.walk(replayDir)) {
+                    paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+                }
+            }
+        } finally {
+            try (Stream<Path> paths = Files.walk(dir)) {
+                paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testPropertyIndexes() {
+        Map<String, String> config = createConfig();
+        config.put(InMemoryGraphConfiguration.PROPERTY_INDEXES, "name:HASH,age:SORTED");
+        InMemoryGraph g = InMemoryGraph.create((Map) config);
+        g.createAuthorizations("a");
+        g.prepareVertex("v1", VISIBILITY_A)
+            .addPropertyValue("k1", "name", "Joe", VISIBILITY_A)
+            .addPropertyValue("k1", "age", 25, VISIBILITY_A)
+            .addPropertyValue("k1", "location", new GeoPoint(38.9, -77.0), VISIBILITY_A)
+            .save(AUTHORIZATIONS_A);
+        g.prepareVertex("v2", VISIBILITY_A)
+            .addPropertyValue("k1", "name", "Bob", VISIBILITY_A)
+            .addPropertyValue("k1", "age", 30L, VISIBILITY_A)
+            .addPropertyValue("k1", "location", new GeoPoint(51.5, -0.1), VISIBILITY_A)
+            .save(AUTHORIZATIONS_A);
+        g.prepareVertex("v3", VISIBILITY_A)
+            .addPropertyValue("k1", "name", "Joel", VISIBILITY_A)
+            .addPropertyValue("k1", "age", 35.5, VISIBILITY_A)
+            .addPropertyValue("k1", "title", "Joe", VISIBILITY_A)
+            .save(AUTHORIZATIONS_A);
+        g.prepareEdge("e1", "v1", "v2", LABEL_LABEL1, VISIBILITY_A)
+            .addPropertyValue("k1", "name", "Joe", VISIBILITY_A)
+            .save(AUTHORIZATIONS_A);
+        // added after the data so the existing values are indexed
+        g.addPropertyIndex("location", InMemoryPropertyIndex.Type.GEOHASH);
+        g.flush();
+
+        assertEquals(ImmutableSet.of("v1"), g.getCandidateElementIds(ElementType.VERTEX, new QueryBase.HasValueContainer("name", Compare.EQUAL, "joe", g.getPropertyDefinitions())));
+        assertNull(g.getCandidateElementIds(ElementType.VERTEX, new QueryBase.HasValueContainer("title", Compare.EQUAL, "joe", g.getPropertyDefinitions())));
+
+        assertVertexIdsAnyOrder(g.query(AUTHORIZATIONS_A).has("name", "Joe").vertices(), "v1");
+        assertIdsAnyOrder(toList(g.query(AUTHORIZATIONS_A).has("name", "Joe").edgeIds()), "e1");
+        assertVertexIdsAnyOrder(g.query(AUTHORIZATIONS_A).has("name", Contains.IN, new String[]{"Joe", "Bob"}).vertices(), "v1", "v2");
+        assertVertexIdsAnyOrder(g.query(AUTHORIZATIONS_A).has("age", Compare.GREATER_THAN, 25).vertices(), "v2", "v3");
+        assertVertexIdsAnyOrder(g.query(AUTHORIZATIONS_A).has("age", Compare.LESS_THAN_EQUAL, 30).vertices(), "v1", "v2");
+        assertVertexIdsAnyOrder(g.query(AUTHORIZATIONS_A).has("age", Compare.GREATER_THAN_EQUAL, 25).has("name", "Bob").vertices(), "v2");
+        assertVertexIdsAnyOrder(g.query(AUTHORIZATIONS_A).has("location", GeoCompare.WITHIN, new GeoCircle(38.9, -77.0, 10)).vertices(), "v1");
+        assertVertexIdsAnyOrder(g.query(AUTHORIZATIONS_A).has("location", GeoCompare.WITHIN, new GeoRect(new GeoPoint(60, -10), new GeoPoint(30, 10))).vertices(), "v2");
+
+        g.getVertex("v1", AUTHORIZATIONS_A).prepareMutation()
+            .addPropertyValue("k1", "name", "Alice", VISIBILITY_A)
+            .save(AUTHORIZATIONS_A);
+        g.getVertex("v2", AUTHORIZATIONS_A).prepareMutation()
+            .deleteProperties("k1", "age")
+            .save(AUTHORIZATIONS_A);
+        g.deleteVertex("v3", AUTHORIZATIONS_A);
+        g.flush();
+
+        assertVertexIdsAnyOrder(g.query(AUTHORIZATIONS_A).has("name", "Joe").vertices());
+        assertVertexIdsAnyOrder(g.query(AUTHORIZATIONS_A).has("name", "Alice").vertices(), "v1");
+        assertVertexIdsAnyOrder(g.query(AUTHORIZATIONS_A).has("age", Compare.GREATER_THAN, 20).vertices(), "v1");
+        assertEquals(ImmutableSet.of("v1"), g.getCandidateElementIds(ElementType.VERTEX, new QueryBase.HasValueContainer("age", Compare.GREATER_THAN, 20, g.getPropertyDefinitions())));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testChangeLog() {
+        Map<String, String> config = createConfig();
+        config.put(InMemoryGraphConfiguration.CHANGE_LOG_ENABLED, "true");
+        InMemoryGraph g = InMemoryGraph.create((Map) config);
+        g.createAuthorizations("a");
+        g.prepareVertex("v1", VISIBILITY_A)
+            .addPropertyValue("k1", "prop1", "value1", VISIBILITY_A)
+            .save(AUTHORIZATIONS_A);
+        // written with a timestamp older than the rest of the graph
+        g.prepareVertex("v2", 1L, VISIBILITY_A)
+            .save(AUTHORIZATIONS_A);
+        g.prepareEdge("e1", "v1", "v2", LABEL_LABEL1, VISIBILITY_A)
+            .save(AUTHORIZATIONS_A);
+        g.flush();
+
+        List<ElementId> ids = Arrays.asList(ElementId.vertex("v1"), ElementId.vertex("v2"), ElementId.edge("e1"));
+        List<String> expected = g.getHistoricalEvents(ids, AUTHORIZATIONS_A)
+            .sorted()
+            .map(event -> event.getHistoricalEventId().toString())
+            .collect(Collectors.toList());
+        List<HistoricalEvent> events = g.getAllHistoricalEvents(null, AUTHORIZATIONS_A)
+            .collect(Collectors.toList());
+        assertEquals(expected, events.stream().map(event -> event.getHistoricalEventId().toString()).collect(Collectors.toList()));
+        assertEquals("v2", events.get(0).getElementId());
+
+        // events of deleted elements are still found from the change log
+        HistoricalEventId checkpoint = events.get(events.size() - 1).getHistoricalEventId();
+        g.softDeleteVertex("v2", AUTHORIZATIONS_A);
+        g.flush();
+        events = g.getAllHistoricalEvents(checkpoint, AUTHORIZATIONS_A)
+            .collect(Collectors.toList());
+        assertTrue(events.stream().anyMatch(event -> event instanceof HistoricalSoftDeleteVertexEvent && event.getElementId().equals("v2")));
+        assertTrue(events.stream().allMatch(event -> event.getHistoricalEventId().compareTo(checkpoint) > 0));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testChangeLogRetention() throws InterruptedException {
+        Map<String, String> config = createConfig();
+        config.put(InMemoryGraphConfiguration.CHANGE_LOG_ENABLED, "true");
+        config.put(InMemoryGraphConfiguration.CHANGE_LOG_RETENTION, "500ms");
+        InMemoryGraph g = InMemoryGraph.create((Map) config);
+        g.createAuthorizations("a");
+        g.prepareVertex("v1", VISIBILITY_A).save(AUTHORIZATIONS_A);
+        // entries age from when they were logged, so a write with an old timestamp is kept for the retention
+        g.prepareVertex("v2", 1L, VISIBILITY_A).save(AUTHORIZATIONS_A);
+        g.flush();
+
+        Set<String> elementIds = g.getAllHistoricalEvents(null, AUTHORIZATIONS_A)
+            .map(HistoricalEvent::getElementId)
+            .collect(Collectors.toSet());
+        assertEquals(ImmutableSet.of("v1", "v2"), elementIds);
+
+        Thread.sleep(1000);
+        g.prepareVertex("v3", VISIBILITY_A).save(AUTHORIZATIONS_A);
+        g.flush();
+
+        elementIds = g.getAllHistoricalEvents(null, AUTHORIZATIONS_A)
+            .map(HistoricalEvent::getElementId)
+            .collect(Collectors.toSet());
+        assertEquals(ImmutableSet.of("v3"), elementIds);
+    }
+
+    @Test
+    @Ignore // performance test
+    @SuppressWarnings("unchecked")
+    public void testPropertyIndexesPerformance() {
+        int vertexCount = 100000;
+        int queryCount = 1000;
+
+        StringBuilder results = new StringBuilder("RESULTS\npropertyIndexes,vertexCount,queryCount,queryTime");
+        for (String propertyIndexes : new String[]{"", "name:HASH,age:SORTED"}) {
+            Map<String, String> config = createConfig();
+            config.put(InMemoryGraphConfiguration.PROPERTY_INDEXES, propertyIndexes);
+            InMemoryGraph g = InMemoryGraph.create((Map) config);
+            g.createAuthorizations("a");
+            for (int i = 0; i < vertexCount; i++) {
+                g.prepareVertex("v" + i, VISIBILITY_A)
+                    .addPropertyValue("k1", "name", "name" + i, VISIBILITY_A)
+                    .addPropertyValue("k1", "age", i, VISIBILITY_A)
+                    .save(AUTHORIZATIONS_A);
+            }
+            g.flush();
+
+            long startTime = System.currentTimeMillis();
+            for (int i = 0; i < queryCount; i++) {
+                assertEquals(1, count(g.query(AUTHORIZATIONS_A).has("name", "name" + i).vertexIds()));
+                assertEquals(10, count(g.query(AUTHORIZATIONS_A).has("age", Compare.GREATER_THAN_EQUAL, i).has("age", Compare.LESS_THAN, i + 10).vertexIds()));
+            }
+            long queryTime = System.currentTimeMillis() - startTime;
+            results.append(String.format("\n%s,%d,%d,%d", propertyIndexes, vertexCount, queryCount, queryTime));
+        }
+        LOGGER.info("%s", results);
+    }
+
+    private void assertPersistedGraph(InMemoryGraph g) {
+        assertVertexIdsAnyOrder(g.getVertices(AUTHORIZATIONS_A), "v1", "v2");
+        Vertex v1 = g.getVertex("v1", AUTHORIZATIONS_A);
+        assertEquals("value1", v1.getPropertyValue("k1", "prop1"));
+        assertNull(v1.getProperty("k1", "prop2"));
+        assertIdsAnyOrder(v1.getEdgeIds(Direction.OUT, LABEL_LABEL2, AUTHORIZATIONS_A), "e1");
+        assertEquals(LABEL_LABEL2, g.getEdge("e1", AUTHORIZATIONS_A).getLabel());
+        List<ExtendedDataRow> rows = toList(v1.getExtendedData("table1"));
+        assertEquals(1, rows.size());
+        assertEquals("extended1", rows.get(0).getPropertyValue("column1"));
+        assertEquals("metadata1", g.getMetadata("key1"));
+    }
+
+    private void ingestMultiThreaded(InMemoryGraph g, int threadCount, int verticesPerThread) throws Exception {
+        g.prepareVertex("hub", VISIBILITY_A).save(AUTHORIZATIONS_A);
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threadCount; t++) {
+                String prefix = "t" + t + "_";
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < verticesPerThread; i++) {
+                        String vertexId = prefix + "v" + i;
+                        g.prepareVertex(vertexId, VISIBILITY_A)
+                            .addPropertyValue("k1", "name", vertexId, VISIBILITY_A)
+                            .save(AUTHORIZATIONS_A);
+                        g.prepareEdge(prefix + "e" + i, vertexId, "hub", LABEL_LABEL1, VISIBILITY_A)
+                            .save(AUTHORIZATIONS_A);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        g.flush();
+    }
 }
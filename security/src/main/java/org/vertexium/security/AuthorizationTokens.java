@@ -0,0 +1,82 @@
+package org.vertexium.security;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns authorization tokens, assigning each distinct token a small integer id for the lifetime of the JVM. The
+ * ids let {@link Authorizations} be represented as a bitset and {@link CompiledVisibility} expressions be evaluated
+ * as bitmask operations.
+ *
+ * <p>
+ * Ids are never released, so at most {@link #MAX_IDS} tokens are interned to bound the table and the size of every
+ * bitset. Tokens seen after that have no id, visibilities referencing them are evaluated by looking up their terms.
+ * Since the table only grows, a token either always or never has an id.
+ */
+public final class AuthorizationTokens {
+    public static final int NO_ID = -1;
+    static final int MAX_IDS = 1024;
+    private static final Map<ByteSequence, Integer> idsByToken = new ConcurrentHashMap<>();
+    private static int nextId;
+
+    private AuthorizationTokens() {
+    }
+
+    /**
+     * Gets the id of the given unescaped authorization token, assigning a new id if the token has not been seen
+     * before.
+     *
+     * @return the token's id or {@link #NO_ID} if {@link #MAX_IDS} tokens have already been interned
+     */
+    public static int getId(ByteSequence token) {
+        Integer id = idsByToken.get(token);
+        if (id != null) {
+            return id;
+        }
+        synchronized (idsByToken) {
+            id = idsByToken.get(token);
+            if (id != null) {
+                return id;
+            }
+            if (nextId >= MAX_IDS) {
+                return NO_ID;
+            }
+            id = nextId++;
+            idsByToken.put(new ArrayByteSequence(token.toArray().clone()), id);
+            return id;
+        }
+    }
+
+    /**
+     * Gets the id of the given authorization token, assigning a new id if the token has not been seen before.
+     *
+     * @return the token's id or {@link #NO_ID} if {@link #MAX_IDS} tokens have already been interned
+     */
+    public static int getId(String token) {
+        return getId(new ArrayByteSequence(token));
+    }
+
+    /**
+     * Sets the bit of the given token id in the bitset, growing the bitset if needed.
+     *
+     * @return the bitset containing the token, which may be a new array
+     */
+    static long[] setBit(long[] bits, int id) {
+        int word = id >>> 6;
+        if (word >= bits.length) {
+            long[] newBits = new long[word + 1];
+            System.arraycopy(bits, 0, newBits, 0, bits.length);
+            bits = newBits;
+        }
+        bits[word] |= 1L << id;
+        return bits;
+    }
+
+    static boolean isBitSet(long[] bits, int id) {
+        if (id == NO_ID) {
+            return false;
+        }
+        int word = id >>> 6;
+        return word < bits.length && (bits[word] & (1L << id)) != 0;
+    }
+}
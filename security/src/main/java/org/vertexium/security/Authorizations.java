@@ -29,6 +29,7 @@ public class Authorizations implements Iterable<byte[]>, Serializable, Authoriza
 
     private Set<ByteSequence> auths = new HashSet<ByteSequence>();
     private List<byte[]> authsList = new ArrayList<byte[]>(); // sorted order
+    private transient volatile long[] tokenBits;
 
     /**
      * An empty set of authorizations.
@@ -210,6 +211,28 @@ public class Authorizations implements Iterable<byte[]>, Serializable, Authoriza
         return auths.contains(new ArrayByteSequence(auth));
     }
 
+    /**
+     * Gets these authorizations as a bitset of their {@link AuthorizationTokens} ids, used to evaluate
+     * {@link CompiledVisibility} expressions without looking up each term.
+     *
+     * @return bitset indexed by token id, callers must not modify it
+     */
+    public long[] getTokenBits() {
+        long[] bits = this.tokenBits;
+        if (bits == null) {
+            bits = new long[0];
+            for (ByteSequence auth : auths) {
+                // a token without an id is not a term of any visibility evaluated with the bitset
+                int id = AuthorizationTokens.getId(auth);
+                if (id != AuthorizationTokens.NO_ID) {
+                    bits = AuthorizationTokens.setBit(bits, id);
+                }
+            }
+            this.tokenBits = bits;
+        }
+        return bits;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (o == null) {
@@ -0,0 +1,321 @@
+package org.vertexium.security;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A visibility expression compiled from its {@link ColumnVisibility} parse tree. Each term is interned using
+ * {@link AuthorizationTokens} and the terms directly under an AND or OR are combined into bitmasks, so evaluating
+ * against {@link Authorizations} is a few long operations per node and does not allocate. Expressions with a term
+ * {@link AuthorizationTokens} has no id for are evaluated by looking up each term instead. Instances are immutable and
+ * can be shared between threads, use {@link VisibilityCache} to get the compiled form of an expression without
+ * parsing it again.
+ */
+public final class CompiledVisibility {
+    private static final Node ALWAYS = new AlwaysNode();
+    private final byte[] expression;
+    private final Node root;
+    private final boolean allTermsInterned;
+
+    private CompiledVisibility(byte[] expression, Node root, boolean allTermsInterned) {
+        this.expression = expression;
+        this.root = root;
+        this.allTermsInterned = allTermsInterned;
+    }
+
+    /**
+     * Compiles the given column visibility.
+     *
+     * @throws VisibilityParseException if an AND or OR subexpression has less than two children, a NOT subexpression
+     *                                  does not have exactly one child or a term contains an illegal escape sequence
+     */
+    public static CompiledVisibility compile(ColumnVisibility columnVisibility) throws VisibilityParseException {
+        byte[] expression = columnVisibility.getExpression();
+        if (expression == null || expression.length == 0) {
+            return new CompiledVisibility(new byte[0], ALWAYS, true);
+        }
+        // copied so the terms do not share an array the caller may reuse
+        expression = Arrays.copyOf(expression, expression.length);
+        Compiler compiler = new Compiler(expression);
+        Node root = compiler.compile(columnVisibility.getParseTree());
+        return new CompiledVisibility(expression, root, compiler.allTermsInterned);
+    }
+
+    private static class Compiler {
+        private final byte[] expression;
+        private boolean allTermsInterned = true;
+
+        private Compiler(byte[] expression) {
+            this.expression = expression;
+        }
+
+        private Node compile(ColumnVisibility.Node node) throws VisibilityParseException {
+            List<ColumnVisibility.Node> children = node.getChildren();
+            switch (node.getType()) {
+                case EMPTY:
+                    return ALWAYS;
+                case TERM:
+                    return compileTerm(node);
+                case AND:
+                    if (children == null || children.size() < 2) {
+                        throw new VisibilityParseException("AND has less than 2 children", expression, node.getTermStart());
+                    }
+                    return compileBoolean(true, children);
+                case OR:
+                    if (children == null || children.size() < 2) {
+                        throw new VisibilityParseException("OR has less than 2 children", expression, node.getTermStart());
+                    }
+                    return compileBoolean(false, children);
+                case NOT:
+                    if (children == null || children.size() != 1) {
+                        throw new VisibilityParseException("NOT requires 1 child found " + (children == null ? "null" : children.size()), expression, node.getTermStart());
+                    }
+                    return new NotNode(compile(children.get(0)));
+                default:
+                    throw new VisibilityParseException("No such node type", expression, node.getTermStart());
+            }
+        }
+
+        private TermNode compileTerm(ColumnVisibility.Node node) throws VisibilityParseException {
+            ByteSequence term;
+            try {
+                term = VisibilityEvaluator.unescape(node.getTerm(expression));
+            } catch (IllegalArgumentException ex) {
+                throw new VisibilityParseException(ex.getMessage(), expression, node.getTermStart());
+            }
+            int tokenId = AuthorizationTokens.getId(term);
+            if (tokenId == AuthorizationTokens.NO_ID) {
+                allTermsInterned = false;
+            }
+            return new TermNode(term, tokenId);
+        }
+
+        private Node compileBoolean(boolean and, List<ColumnVisibility.Node> children) throws VisibilityParseException {
+            List<TermNode> terms = new ArrayList<>();
+            List<Node> others = new ArrayList<>();
+            for (ColumnVisibility.Node child : children) {
+                if (child.getType() == ColumnVisibility.NodeType.TERM) {
+                    terms.add(compileTerm(child));
+                } else {
+                    others.add(compile(child));
+                }
+            }
+
+            // the terms' bits grouped by word so only the words holding terms are tested
+            long[] mask = new long[0];
+            for (TermNode term : terms) {
+                if (term.tokenId != AuthorizationTokens.NO_ID) {
+                    mask = AuthorizationTokens.setBit(mask, term.tokenId);
+                }
+            }
+            int wordCount = 0;
+            for (long word : mask) {
+                if (word != 0) {
+                    wordCount++;
+                }
+            }
+            int[] maskWordIndexes = new int[wordCount];
+            long[] maskWords = new long[wordCount];
+            for (int i = 0, j = 0; i < mask.length; i++) {
+                if (mask[i] != 0) {
+                    maskWordIndexes[j] = i;
+                    maskWords[j] = mask[i];
+                    j++;
+                }
+            }
+
+            TermNode[] termNodes = terms.toArray(new TermNode[0]);
+            Node[] otherNodes = others.toArray(new Node[0]);
+            if (and) {
+                return new AndNode(maskWordIndexes, maskWords, termNodes, otherNodes);
+            }
+            return new OrNode(maskWordIndexes, maskWords, termNodes, otherNodes);
+        }
+    }
+
+    /**
+     * Accessor for the underlying byte string.
+     *
+     * @return byte array representation of the visibility expression
+     */
+    public byte[] getExpression() {
+        return expression;
+    }
+
+    /**
+     * Evaluates this visibility against authorizations in their unescaped form. {@link Authorizations} are evaluated
+     * using their token bitset, other containers are checked term by term.
+     *
+     * @return true if the authorizations satisfy the expression
+     */
+    public boolean evaluate(AuthorizationContainer auths) {
+        if (auths instanceof Authorizations) {
+            return evaluate((Authorizations) auths);
+        }
+        return root.evaluate(auths);
+    }
+
+    /**
+     * Evaluates this visibility against the given authorizations.
+     *
+     * @return true if the authorizations satisfy the expression
+     */
+    public boolean evaluate(Authorizations auths) {
+        if (!allTermsInterned) {
+            return root.evaluate((AuthorizationContainer) auths);
+        }
+        return root.evaluate(auths.getTokenBits());
+    }
+
+    @Override
+    public String toString() {
+        return new String(expression, Constants.UTF8);
+    }
+
+    private abstract static class Node {
+        abstract boolean evaluate(long[] tokenBits);
+
+        abstract boolean evaluate(AuthorizationContainer auths);
+    }
+
+    private static class AlwaysNode extends Node {
+        @Override
+        boolean evaluate(long[] tokenBits) {
+            return true;
+        }
+
+        @Override
+        boolean evaluate(AuthorizationContainer auths) {
+            return true;
+        }
+    }
+
+    private static class TermNode extends Node {
+        private final ByteSequence term;
+        private final int tokenId;
+
+        private TermNode(ByteSequence term, int tokenId) {
+            this.term = term;
+            this.tokenId = tokenId;
+        }
+
+        @Override
+        boolean evaluate(long[] tokenBits) {
+            return AuthorizationTokens.isBitSet(tokenBits, tokenId);
+        }
+
+        @Override
+        boolean evaluate(AuthorizationContainer auths) {
+            return auths.contains(term);
+        }
+    }
+
+    private static class AndNode extends Node {
+        private final int[] maskWordIndexes;
+        private final long[] maskWords;
+        private final TermNode[] terms;
+        private final Node[] others;
+
+        private AndNode(int[] maskWordIndexes, long[] maskWords, TermNode[] terms, Node[] others) {
+            this.maskWordIndexes = maskWordIndexes;
+            this.maskWords = maskWords;
+            this.terms = terms;
+            this.others = others;
+        }
+
+        @Override
+        boolean evaluate(long[] tokenBits) {
+            for (int i = 0; i < maskWordIndexes.length; i++) {
+                int wordIndex = maskWordIndexes[i];
+                if (wordIndex >= tokenBits.length || (tokenBits[wordIndex] & maskWords[i]) != maskWords[i]) {
+                    return false;
+                }
+            }
+            for (Node other : others) {
+                if (!other.evaluate(tokenBits)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        boolean evaluate(AuthorizationContainer auths) {
+            for (TermNode term : terms) {
+                if (!term.evaluate(auths)) {
+                    return false;
+                }
+            }
+            for (Node other : others) {
+                if (!other.evaluate(auths)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static class OrNode extends Node {
+        private final int[] maskWordIndexes;
+        private final long[] maskWords;
+        private final TermNode[] terms;
+        private final Node[] others;
+
+        private OrNode(int[] maskWordIndexes, long[] maskWords, TermNode[] terms, Node[] others) {
+            this.maskWordIndexes = maskWordIndexes;
+            this.maskWords = maskWords;
+            this.terms = terms;
+            this.others = others;
+        }
+
+        @Override
+        boolean evaluate(long[] tokenBits) {
+            for (int i = 0; i < maskWordIndexes.length; i++) {
+                int wordIndex = maskWordIndexes[i];
+                if (wordIndex < tokenBits.length && (tokenBits[wordIndex] & maskWords[i]) != 0) {
+                    return true;
+                }
+            }
+            for (Node other : others) {
+                if (other.evaluate(tokenBits)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        boolean evaluate(AuthorizationContainer auths) {
+            for (TermNode term : terms) {
+                if (term.evaluate(auths)) {
+                    return true;
+                }
+            }
+            for (Node other : others) {
+                if (other.evaluate(auths)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static class NotNode extends Node {
+        private final Node child;
+
+        private NotNode(Node child) {
+            this.child = child;
+        }
+
+        @Override
+        boolean evaluate(long[] tokenBits) {
+            return !child.evaluate(tokenBits);
+        }
+
+        @Override
+        boolean evaluate(AuthorizationContainer auths) {
+            return !child.evaluate(auths);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.vertexium.security;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A bounded, concurrent cache of compiled visibility expressions. Rows typically share a handful of distinct
+ * visibilities so parsing each expression once avoids most of the cost of checking visibilities.
+ *
+ * <p>
+ * The cache is cleared when it reaches its maximum size rather than evicting individual entries, which keeps lookups
+ * lock free. The maximum size defaults to {@value #DEFAULT_MAX_SIZE} and can be changed using the
+ * {@value #MAX_SIZE_PROPERTY} system property.
+ */
+public final class VisibilityCache {
+    public static final String MAX_SIZE_PROPERTY = "vertexium.visibilityCache.maxSize";
+    public static final int DEFAULT_MAX_SIZE = 10000;
+    private static final int MAX_SIZE = Integer.getInteger(MAX_SIZE_PROPERTY, DEFAULT_MAX_SIZE);
+    private static final Map<String, CompiledVisibility> compiledVisibilitiesByString = new ConcurrentHashMap<>();
+    private static final Map<ByteSequence, CompiledVisibility> compiledVisibilitiesByBytes = new ConcurrentHashMap<>();
+
+    private VisibilityCache() {
+    }
+
+    /**
+     * Gets the compiled form of the given visibility expression.
+     *
+     * @throws BadArgumentException     if the expression is not valid
+     * @throws VisibilityParseException if the expression can not be evaluated
+     */
+    public static CompiledVisibility getCompiledVisibility(String visibility) throws VisibilityParseException {
+        CompiledVisibility compiledVisibility = compiledVisibilitiesByString.get(visibility);
+        if (compiledVisibility == null) {
+            compiledVisibility = CompiledVisibility.compile(new ColumnVisibility(visibility));
+            put(compiledVisibilitiesByString, visibility, compiledVisibility);
+        }
+        return compiledVisibility;
+    }
+
+    /**
+     * Gets the compiled form of the given visibility expression.
+     *
+     * @throws BadArgumentException     if the expression is not valid
+     * @throws VisibilityParseException if the expression can not be evaluated
+     */
+    public static CompiledVisibility getCompiledVisibility(byte[] visibility) throws VisibilityParseException {
+        return getCompiledVisibility(visibility, 0, visibility.length);
+    }
+
+    /**
+     * Gets the compiled form of the visibility expression found in the given range of bytes, such as the backing
+     * array of a Hadoop Text. The bytes are copied before they are cached.
+     *
+     * @throws BadArgumentException     if the expression is not valid
+     * @throws VisibilityParseException if the expression can not be evaluated
+     */
+    public static CompiledVisibility getCompiledVisibility(byte[] visibility, int offset, int length) throws VisibilityParseException {
+        CompiledVisibility compiledVisibility = compiledVisibilitiesByBytes.get(new ArrayByteSequence(visibility, offset, length));
+        if (compiledVisibility == null) {
+            ArrayByteSequence key = new ArrayByteSequence(Arrays.copyOfRange(visibility, offset, offset + length));
+            compiledVisibility = CompiledVisibility.compile(new ColumnVisibility(key.getBackingArray()));
+            put(compiledVisibilitiesByBytes, key, compiledVisibility);
+        }
+        return compiledVisibility;
+    }
+
+    private static <T> void put(Map<T, CompiledVisibility> map, T key, CompiledVisibility compiledVisibility) {
+        if (map.size() >= MAX_SIZE) {
+            map.clear();
+        }
+        map.put(key, compiledVisibility);
+    }
+
+    /**
+     * Removes all compiled visibilities from the cache.
+     */
+    public static void clear() {
+        compiledVisibilitiesByString.clear();
+        compiledVisibilitiesByBytes.clear();
+    }
+}
@@ -17,12 +17,18 @@
 package org.vertexium.security;
 
 import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A class which evaluates visibility expressions against a set of authorizations.
  */
 public class VisibilityEvaluator {
+    private static final int MAX_MEMOIZED_RESULTS = 1000;
     private AuthorizationContainer auths;
+    private final AuthorizationContainer unescapedAuths;
+    private final Authorizations authorizations;
+    private final Map<CompiledVisibility, Boolean> resultsByCompiledVisibility = new ConcurrentHashMap<>();
 
     /**
      * Authorizations in column visibility expression are in escaped form. Column visibility parsing
@@ -142,6 +148,8 @@ public class VisibilityEvaluator {
      */
     public VisibilityEvaluator(AuthorizationContainer authsContainer) {
         this.auths = new UnescapingAuthorizationContainer(authsContainer);
+        this.unescapedAuths = authsContainer;
+        this.authorizations = null;
     }
 
     /**
@@ -152,6 +160,8 @@ public class VisibilityEvaluator {
      */
     public VisibilityEvaluator(Authorizations authorizations) {
         this.auths = escape(authorizations);
+        this.unescapedAuths = authorizations;
+        this.authorizations = authorizations;
     }
 
     /**
@@ -170,6 +180,30 @@ public class VisibilityEvaluator {
         return evaluate(visibility.getExpression(), visibility.getParseTree());
     }
 
+    /**
+     * Evaluates the given compiled visibility against the authorizations provided to this evaluator. When created
+     * from {@link Authorizations} this is a handful of bitmask operations. Otherwise each term is looked up in the
+     * container and the results are memoized per compiled visibility, so evaluating the visibilities returned by
+     * {@link VisibilityCache} again is a single map lookup.
+     *
+     * @param visibility compiled visibility to evaluate
+     * @return true if visibility passes evaluation
+     */
+    public boolean evaluate(CompiledVisibility visibility) {
+        if (authorizations != null) {
+            return visibility.evaluate(authorizations);
+        }
+        Boolean result = resultsByCompiledVisibility.get(visibility);
+        if (result == null) {
+            result = visibility.evaluate(unescapedAuths);
+            if (resultsByCompiledVisibility.size() >= MAX_MEMOIZED_RESULTS) {
+                resultsByCompiledVisibility.clear();
+            }
+            resultsByCompiledVisibility.put(visibility, result);
+        }
+        return result;
+    }
+
     private final boolean evaluate(final byte[] expression, final ColumnVisibility.Node root)
         throws VisibilityParseException {
         if (expression.length == 0) {
@@ -2,6 +2,8 @@ package org.vertexium.security;
 
 import org.junit.Test;
 
+import java.util.Arrays;
+
 import static org.junit.Assert.*;
 import static org.vertexium.security.ColumnVisibility.quote;
 
@@ -166,4 +168,55 @@ public class VisibilityEvaluatorTest {
         assertFalse(ct.evaluate(new ColumnVisibility("\"五\"&(\"四\"|\"三\")")));
     }
 
+    @Test
+    public void testCompiledVisibility() throws VisibilityParseException {
+        Authorizations auths = new Authorizations("one", "two", "A#C", "A\"C", "五");
+        VisibilityEvaluator ct = new VisibilityEvaluator(auths);
+        VisibilityEvaluator containerCt = new VisibilityEvaluator((AuthorizationContainer) auths);
+        for (String marking : new String[]{"", "one", "five", "one&two", "one&five", "five|two", "!one", "!five",
+            "(one|five)&!(two&five)", quote("A#C") + "&" + quote("A\"C"), quote("A#C") + "&B", quote("五")}) {
+            boolean expected = ct.evaluate(new ColumnVisibility(marking));
+            assertEquals(marking, expected, ct.evaluate(VisibilityCache.getCompiledVisibility(marking)));
+            assertEquals(marking, expected, containerCt.evaluate(VisibilityCache.getCompiledVisibility(marking)));
+            byte[] padded = ("x" + marking + "y").getBytes(Constants.UTF8);
+            CompiledVisibility compiledVisibility = VisibilityCache.getCompiledVisibility(padded, 1, padded.length - 2);
+            assertEquals(marking, expected, ct.evaluate(compiledVisibility));
+            assertSame(compiledVisibility, VisibilityCache.getCompiledVisibility(padded, 1, padded.length - 2));
+        }
+    }
+
+    @Test
+    public void testCompiledVisibilityTokenBits() throws VisibilityParseException {
+        // enough distinct tokens that the bitmasks span several words
+        String[] tokens = new String[200];
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = "t" + i;
+        }
+        Authorizations auths = new Authorizations(Arrays.copyOf(tokens, 100));
+        VisibilityEvaluator ct = new VisibilityEvaluator(auths);
+        assertTrue(ct.evaluate(VisibilityCache.getCompiledVisibility("t0&t63&t64&t99")));
+        assertFalse(ct.evaluate(VisibilityCache.getCompiledVisibility("t0&t63&t64&t100")));
+        assertTrue(ct.evaluate(VisibilityCache.getCompiledVisibility("t150|t199|t64")));
+        assertFalse(ct.evaluate(VisibilityCache.getCompiledVisibility("t150|t199|t100")));
+        assertTrue(ct.evaluate(VisibilityCache.getCompiledVisibility("(t150|t1)&!t199&(t2&(t3|t198))")));
+        assertFalse(ct.evaluate(VisibilityCache.getCompiledVisibility("t1&!(t2|t198)")));
+    }
+
+    @Test
+    public void testTokensAboveMaxIds() throws VisibilityParseException {
+        for (int i = 0; i < AuthorizationTokens.MAX_IDS; i++) {
+            AuthorizationTokens.getId("fill" + i);
+        }
+        assertEquals(AuthorizationTokens.NO_ID, AuthorizationTokens.getId("overflow1"));
+        assertTrue(AuthorizationTokens.getId("fill0") != AuthorizationTokens.NO_ID);
+
+        VisibilityEvaluator ct = new VisibilityEvaluator(new Authorizations("fill0", "overflow1"));
+        assertTrue(ct.evaluate(VisibilityCache.getCompiledVisibility("fill0&overflow1")));
+        assertTrue(ct.evaluate(VisibilityCache.getCompiledVisibility("overflow2|overflow1")));
+        assertFalse(ct.evaluate(VisibilityCache.getCompiledVisibility("fill0&overflow2")));
+        assertFalse(ct.evaluate(VisibilityCache.getCompiledVisibility("fill1|overflow2")));
+        assertTrue(ct.evaluate(VisibilityCache.getCompiledVisibility("fill0&!overflow2")));
+        assertTrue(ct.evaluate(VisibilityCache.getCompiledVisibility("fill0|fill1")));
+    }
+
 }
\ No newline at end of file
@@ -44,6 +44,7 @@ import java.time.Month;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
@@ -312,6 +313,41 @@ public abstract class GraphTestBase {
         assertEquals(-1, in.read(buffer));
     }
 
+    @Test
+    public void testStreamingPropertyValueRangedReads() throws IOException {
+        String expectedLargeValue = IOUtils.toString(new LargeStringInputStream(LARGE_PROPERTY_VALUE_SIZE));
+        byte[] expectedLargeValueBytes = expectedLargeValue.getBytes();
+        PropertyValue propLarge = StreamingPropertyValue.create(new ByteArrayInputStream(expectedLargeValueBytes), String.class);
+        graph.prepareVertex("v1", VISIBILITY_A)
+            .setProperty("propLarge", propLarge, VISIBILITY_A)
+            .save(AUTHORIZATIONS_A_AND_B);
+        graph.flush();
+
+        Vertex v1 = graph.getVertex("v1", AUTHORIZATIONS_A);
+        StreamingPropertyValue prop = (StreamingPropertyValue) v1.getPropertyValue("propLarge");
+        int length = expectedLargeValueBytes.length;
+        for (int offset : new int[]{0, 1, 10 * 1024 - 1, 10 * 1024, length / 2 + 3, length - 1}) {
+            try (InputStream in = prop.getInputStream(offset, 100L)) {
+                byte[] expected = Arrays.copyOfRange(expectedLargeValueBytes, offset, Math.min(offset + 100, length));
+                assertArrayEquals("invalid data at offset " + offset, expected, IOUtils.toByteArray(in));
+            }
+        }
+        try (InputStream in = prop.getInputStream(length - 10, null)) {
+            assertArrayEquals(Arrays.copyOfRange(expectedLargeValueBytes, length - 10, length), IOUtils.toByteArray(in));
+        }
+        try (InputStream in = prop.getInputStream(length + 10, 100L)) {
+            assertEquals(-1, in.read());
+        }
+
+        try (InputStream in = prop.getInputStream()) {
+            assertEquals(expectedLargeValueBytes[0], (byte) in.read());
+            assertEquals(length / 2, in.skip(length / 2));
+            assertEquals(expectedLargeValueBytes[length / 2 + 1], (byte) in.read());
+            assertEquals(length - (length / 2 + 2), in.skip(length));
+            assertEquals(-1, in.read());
+        }
+    }
+
     @Test
     public void testStreamingPropertyDecreasingSize() throws IOException {
         Metadata metadata = Metadata.create();
@@ -1500,6 +1536,43 @@ public abstract class GraphTestBase {
         assertEquals("v1", verticesInOrder.get(1).getId());
     }
 
+    @Test
+    public void testGetElementsAsync() throws Exception {
+        Vertex v1 = graph.prepareVertex("v1", VISIBILITY_A)
+            .setProperty("prop1", "v1", VISIBILITY_A)
+            .save(AUTHORIZATIONS_A);
+        Vertex v2 = graph.prepareVertex("v2", VISIBILITY_A).save(AUTHORIZATIONS_A);
+        graph.prepareVertex("v3", VISIBILITY_B).save(AUTHORIZATIONS_B);
+        graph.prepareEdge("e1", v1, v2, LABEL_LABEL1, VISIBILITY_A)
+            .addExtendedData("table1", "row1", "name", "value1", VISIBILITY_A)
+            .save(AUTHORIZATIONS_A);
+        graph.flush();
+
+        CompletableFuture<Vertex> v1Future = graph.getVertexAsync("v1", FetchHints.ALL, AUTHORIZATIONS_A);
+        CompletableFuture<Vertex> v3Future = graph.getVertexAsync("v3", FetchHints.ALL, AUTHORIZATIONS_A);
+        CompletableFuture<List<Vertex>> verticesFuture = graph.getVerticesAsync(Lists.newArrayList("v1", "v2", "v3"), FetchHints.ALL, AUTHORIZATIONS_A);
+        CompletableFuture<Edge> e1Future = graph.getEdgeAsync("e1", FetchHints.ALL, AUTHORIZATIONS_A);
+        CompletableFuture<List<ExtendedDataRow>> extendedDataFuture = graph.getExtendedDataAsync(
+            Lists.newArrayList(new ExtendedDataRowId(ElementType.EDGE, "e1", "table1", "row1")),
+            FetchHints.ALL,
+            AUTHORIZATIONS_A
+        );
+        CompletableFuture<List<RelatedEdge>> relatedEdgesFuture = graph.findRelatedEdgeSummaryAsync(Lists.newArrayList("v1", "v2"), AUTHORIZATIONS_A);
+        Set<String> consumedEdgeIds = Collections.synchronizedSet(new HashSet<>());
+        CompletableFuture<Void> edgesFuture = graph.getEdgesAsync(Lists.newArrayList("e1", "e2"), FetchHints.ALL, e -> consumedEdgeIds.add(e.getId()), AUTHORIZATIONS_A);
+        CompletableFuture.allOf(v1Future, v3Future, verticesFuture, e1Future, extendedDataFuture, relatedEdgesFuture, edgesFuture).get();
+
+        assertEquals("v1", v1Future.get().getPropertyValue("prop1"));
+        assertNull(v3Future.get());
+        assertEquals(ImmutableSet.of("v1", "v2"), verticesFuture.get().stream().map(Element::getId).collect(Collectors.toSet()));
+        assertEquals("v2", e1Future.get().getVertexId(Direction.IN));
+        assertEquals(1, extendedDataFuture.get().size());
+        assertEquals("value1", extendedDataFuture.get().get(0).getPropertyValue("name"));
+        assertEquals(1, relatedEdgesFuture.get().size());
+        assertEquals("e1", relatedEdgesFuture.get().get(0).getEdgeId());
+        assertEquals(ImmutableSet.of("e1"), consumedEdgeIds);
+    }
+
     @Test
     public void testGetVerticesWithPrefix() {
         graph.prepareVertex("a", VISIBILITY_EMPTY).save(AUTHORIZATIONS_ALL);
@@ -5091,6 +5164,48 @@ public abstract class GraphTestBase {
         );
     }
 
+    @Test
+    public void testFindPathsMultipleHops() {
+        Vertex v1 = graph.prepareVertex("v1", VISIBILITY_A).save(AUTHORIZATIONS_A);
+        Vertex v2 = graph.prepareVertex("v2", VISIBILITY_A).save(AUTHORIZATIONS_A);
+        Vertex v3 = graph.prepareVertex("v3", VISIBILITY_A).save(AUTHORIZATIONS_A);
+        Vertex v4 = graph.prepareVertex("v4", VISIBILITY_A).save(AUTHORIZATIONS_A);
+        Vertex v5 = graph.prepareVertex("v5", VISIBILITY_A).save(AUTHORIZATIONS_A);
+        Vertex v6 = graph.prepareVertex("v6", VISIBILITY_A).save(AUTHORIZATIONS_A);
+        graph.prepareEdge(v1, v2, LABEL_LABEL1, VISIBILITY_A).save(AUTHORIZATIONS_A); // v1 -> v2
+        graph.prepareEdge(v2, v3, LABEL_LABEL1, VISIBILITY_A).save(AUTHORIZATIONS_A); // v2 -> v3
+        graph.prepareEdge(v3, v4, LABEL_LABEL1, VISIBILITY_A).save(AUTHORIZATIONS_A); // v3 -> v4
+        graph.prepareEdge(v4, v5, LABEL_LABEL1, VISIBILITY_A).save(AUTHORIZATIONS_A); // v4 -> v5
+        graph.prepareEdge(v1, v6, LABEL_LABEL1, VISIBILITY_A).save(AUTHORIZATIONS_A); // v1 -> v6
+        graph.prepareEdge(v6, v5, LABEL_LABEL1, VISIBILITY_A).save(AUTHORIZATIONS_A); // v6 -> v5
+        graph.prepareEdge(v2, v6, LABEL_LABEL1, VISIBILITY_A).save(AUTHORIZATIONS_A); // v2 -> v6
+        for (int i = 0; i < 20; i++) {
+            Vertex leaf = graph.prepareVertex("leaf" + i, VISIBILITY_A).save(AUTHORIZATIONS_A);
+            graph.prepareEdge(v1, leaf, LABEL_LABEL1, VISIBILITY_A).save(AUTHORIZATIONS_A);
+        }
+        graph.flush();
+
+        assertPaths(
+            graph.findPaths(new FindPathOptions("v1", "v5", 3), AUTHORIZATIONS_A),
+            new Path("v1", "v6", "v5"),
+            new Path("v1", "v2", "v6", "v5")
+        );
+        assertPaths(
+            graph.findPaths(new FindPathOptions("v1", "v5", 4), AUTHORIZATIONS_A),
+            new Path("v1", "v6", "v5"),
+            new Path("v1", "v2", "v6", "v5"),
+            new Path("v1", "v2", "v3", "v4", "v5")
+        );
+        assertPaths(
+            graph.findPaths(new FindPathOptions("v5", "v1", 5), AUTHORIZATIONS_A),
+            new Path("v5", "v6", "v1"),
+            new Path("v5", "v6", "v2", "v1"),
+            new Path("v5", "v4", "v3", "v2", "v1"),
+            new Path("v5", "v4", "v3", "v2", "v6", "v1")
+        );
+        assertEquals(1, count(graph.findPaths(new FindPathOptions("v1", "v5", 5, true), AUTHORIZATIONS_A)));
+    }
+
     @Test
     public void testFindPathExcludeLabels() {
         Vertex v1 = graph.prepareVertex("v1", VISIBILITY_A).save(AUTHORIZATIONS_A);
@@ -5774,6 +5889,25 @@ public abstract class GraphTestBase {
         assertEquals(0, foundVertexIds.size());
     }
 
+    @Test
+    public void testFilterVertexIdsByAuthorizationWithQuotedTerm() {
+        addAuthorizations("x:y");
+        Authorizations authorizations = createAuthorizations(VISIBILITY_A_STRING, "x:y");
+        graph.prepareVertex("v1", new Visibility(VISIBILITY_A_STRING + "&\"x:y\""))
+            .save(authorizations);
+        graph.flush();
+
+        // visibilities are split on characters other than letters, digits, '_', '-' and '.' before matching
+        List<String> vertexIds = Lists.newArrayList("v1");
+        EnumSet<ElementFilter> filters = EnumSet.of(ElementFilter.ELEMENT);
+        assertEquals(Lists.newArrayList("v1"), toList(graph.filterVertexIdsByAuthorization(vertexIds, VISIBILITY_A_STRING, filters, authorizations)));
+        assertEquals(Lists.newArrayList("v1"), toList(graph.filterVertexIdsByAuthorization(vertexIds, "x", filters, authorizations)));
+        assertEquals(Lists.newArrayList("v1"), toList(graph.filterVertexIdsByAuthorization(vertexIds, "y", filters, authorizations)));
+        assertEquals(0, count(graph.filterVertexIdsByAuthorization(vertexIds, "x:y", filters, authorizations)));
+        assertTrue(new Visibility(VISIBILITY_A_STRING + "&\"x:y\"").hasAuthorization("x"));
+        assertFalse(new Visibility(VISIBILITY_A_STRING + "&\"x:y\"").hasAuthorization("x:y"));
+    }
+
     @Test
     public void testMetadataMutationsOnVertex() {
         Metadata metadataPropB = Metadata.create();
@@ -9973,6 +10107,39 @@ public abstract class GraphTestBase {
         assertEquals(Arrays.asList(Direction.OUT, Direction.OUT), edgeInfos.stream().map(EdgeInfo::getDirection).collect(Collectors.toList()));
     }
 
+    @Test
+    public void testGetEdgeInfoPage() {
+        Vertex v1 = graph.prepareVertex("v1", VISIBILITY_A).save(AUTHORIZATIONS_A);
+        Vertex v2 = graph.prepareVertex("v2", VISIBILITY_A).save(AUTHORIZATIONS_A);
+        graph.prepareEdge("e1", v1, v2, LABEL_LABEL1, VISIBILITY_A).save(AUTHORIZATIONS_A);
+        graph.prepareEdge("e2", v2, v1, LABEL_LABEL2, VISIBILITY_A).save(AUTHORIZATIONS_A);
+        graph.prepareEdge("e3", v1, v2, LABEL_LABEL1, VISIBILITY_A).save(AUTHORIZATIONS_A);
+        graph.prepareEdge("e4", v1, v2, LABEL_LABEL1, VISIBILITY_A).save(AUTHORIZATIONS_A);
+        graph.prepareEdge("e5", v1, v2, LABEL_LABEL1, VISIBILITY_A).save(AUTHORIZATIONS_A);
+        graph.flush();
+
+        v1 = graph.getVertex("v1", AUTHORIZATIONS_A);
+        EdgeInfoPage page = v1.getEdgeInfos(Direction.BOTH, null, null, 2, AUTHORIZATIONS_A);
+        assertEquals(5, page.getTotalCount());
+        assertEquals(Arrays.asList("e1", "e2"), page.getEdgeInfos().stream().map(EdgeInfo::getEdgeId).collect(Collectors.toList()));
+        assertEquals(Arrays.asList(Direction.OUT, Direction.IN), page.getEdgeInfos().stream().map(EdgeInfo::getDirection).collect(Collectors.toList()));
+        assertEquals("e2", page.getNextStartAfterEdgeId());
+
+        page = v1.getEdgeInfos(Direction.BOTH, null, page.getNextStartAfterEdgeId(), 2, AUTHORIZATIONS_A);
+        assertEquals(Arrays.asList("e3", "e4"), page.getEdgeInfos().stream().map(EdgeInfo::getEdgeId).collect(Collectors.toList()));
+        assertTrue(page.hasMore());
+
+        page = v1.getEdgeInfos(Direction.BOTH, null, page.getNextStartAfterEdgeId(), 2, AUTHORIZATIONS_A);
+        assertEquals(Collections.singletonList("e5"), page.getEdgeInfos().stream().map(EdgeInfo::getEdgeId).collect(Collectors.toList()));
+        assertFalse(page.hasMore());
+        assertNull(page.getNextStartAfterEdgeId());
+
+        page = v1.getEdgeInfos(Direction.OUT, new String[]{LABEL_LABEL1}, "e1", 10, AUTHORIZATIONS_A);
+        assertEquals(4, page.getTotalCount());
+        assertEquals(Arrays.asList("e3", "e4", "e5"), page.getEdgeInfos().stream().map(EdgeInfo::getEdgeId).collect(Collectors.toList()));
+        assertEquals("v2", page.getEdgeInfos().get(1).getVertexId());
+    }
+
     @Test
     public void testFetchHintsEdges() {
         Vertex v1 = graph.prepareVertex("v1", VISIBILITY_A).save(AUTHORIZATIONS_A);
@@ -10848,6 +11015,51 @@ public abstract class GraphTestBase {
         assertEquals(VISIBILITY_A, addEdgeToVertexEvent.getEdgeVisibility());
     }
 
+    @Test
+    public void historicalEventsAllElements() {
+        graph.prepareVertex("v1", VISIBILITY_A)
+            .addPropertyValue("k1", "prop1", "value1", VISIBILITY_A)
+            .save(AUTHORIZATIONS_ALL);
+        graph.prepareVertex("v2", VISIBILITY_A)
+            .save(AUTHORIZATIONS_ALL);
+        graph.flush();
+
+        graph.prepareEdge("e1", "v1", "v2", "label1", VISIBILITY_A)
+            .save(AUTHORIZATIONS_ALL);
+        graph.flush();
+
+        graph.getVertex("v2", AUTHORIZATIONS_ALL).prepareMutation()
+            .addPropertyValue("k1", "prop1", "value2", VISIBILITY_A)
+            .save(AUTHORIZATIONS_ALL);
+        graph.flush();
+
+        ArrayList<ElementId> ids = Lists.newArrayList(ElementId.vertex("v1"), ElementId.vertex("v2"), ElementId.edge("e1"));
+        List<String> expected = graph.getHistoricalEvents(ids, AUTHORIZATIONS_ALL)
+            .sorted()
+            .map(event -> event.getHistoricalEventId().toString())
+            .collect(Collectors.toList());
+        assertEquals(7, expected.size());
+
+        List<String> events = graph.getAllHistoricalEvents(null, AUTHORIZATIONS_ALL)
+            .map(event -> event.getHistoricalEventId().toString())
+            .collect(Collectors.toList());
+        assertEquals(expected, events);
+
+        // resume from a checkpoint
+        events = graph.getAllHistoricalEvents(HistoricalEventId.fromString(expected.get(3)), AUTHORIZATIONS_ALL)
+            .map(event -> event.getHistoricalEventId().toString())
+            .collect(Collectors.toList());
+        assertEquals(expected.subList(4, expected.size()), events);
+
+        HistoricalEventsFetchHints fetchHints = new HistoricalEventsFetchHintsBuilder()
+            .limit(2L)
+            .build();
+        events = graph.getAllHistoricalEvents(HistoricalEventId.fromString(expected.get(3)), fetchHints, AUTHORIZATIONS_ALL)
+            .map(event -> event.getHistoricalEventId().toString())
+            .collect(Collectors.toList());
+        assertEquals(expected.subList(4, 6), events);
+    }
+
     // Historical Property Value tests
     @Test
     @SuppressWarnings("deprecation")